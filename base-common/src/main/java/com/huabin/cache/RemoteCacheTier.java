@@ -0,0 +1,32 @@
+package com.huabin.cache;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 二级缓存的远程层（多实例共享）
+ *
+ * TieredCache 本地层未命中时先查远程层，远程层未命中再查数据库。
+ * 值为序列化后的字节，key 已按命名空间区分，实现只负责存取和按命名空间失效。
+ *
+ * 实现：
+ * - Redis 实现：见 springboot-mybatis-multi-ds 的 RedisCacheTier
+ *
+ * 实现还需要在其他实例失效某个命名空间时调用 TieredCacheRegistry.clearLocal，
+ * 否则其他实例的本地层要等过期才能读到新数据
+ */
+public interface RemoteCacheTier {
+
+    /**
+     * @return 缓存的值，不存在时返回 null
+     */
+    byte[] get(String namespace, String key);
+
+    void put(String namespace, String key, byte[] value, long ttlSeconds);
+
+    void remove(String namespace, String key);
+
+    /**
+     * 失效命名空间下的所有 key，并通知其他实例清空本地层
+     */
+    void clear(String namespace);
+}
@@ -0,0 +1,312 @@
+package com.huabin.cache;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.io.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc MyBatis 二级缓存：本地有界缓存 + 可选远程层
+ *
+ * 使用方式（Mapper XML，每个命名空间一个实例）：
+ * <pre>
+ * &lt;cache type="com.huabin.cache.TieredCache"&gt;
+ *     &lt;property name="maxEntries" value="10000"/&gt;
+ *     &lt;property name="ttlSeconds" value="300"/&gt;
+ * &lt;/cache&gt;
+ * </pre>
+ *
+ * 读取顺序：本地层（Guava Cache，按条数淘汰、写入后过期）-> 远程层（TieredCacheRegistry 注册了才有）-> 数据库
+ *
+ * 失效：同一命名空间的 insert / update / delete（flushCache 默认为 true）提交后 MyBatis 调用 clear()，
+ * 清空本地层并失效远程层；远程层再通知其他实例清空各自的本地层
+ *
+ * 注意：
+ * 1. 自定义缓存类型不会套用 MyBatis 的 SerializedCache 等装饰器，&lt;cache&gt; 的 readOnly、size 等属性不生效，
+ *    用这里的 property 配置
+ * 2. 默认保存序列化后的字节，每次命中反序列化出新对象，调用方修改返回的对象不影响缓存；
+ *    实体必须实现 Serializable
+ * 3. 命名空间下的所有 select 都会进缓存，列表、分页查询应设置 useCache="false"，只缓存按主键等点查
+ * 4. 读写分离时，写入后的一段时间内查询可能读到未同步的副本，lagGuardMillis 内不写入缓存，
+ *    避免把副本上的旧数据缓存到过期为止
+ */
+public class TieredCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredCache.class);
+
+    private final String id;
+
+    /**
+     * 本地层最大条数
+     */
+    private int maxEntries = 1000;
+
+    /**
+     * 写入后过期时间（秒），本地层和远程层相同
+     */
+    private long ttlSeconds = 300;
+
+    /**
+     * 清空后多长时间内不写入缓存（毫秒），不做读写分离时为 0
+     */
+    private long lagGuardMillis;
+
+    /**
+     * true 时本地层直接保存查询结果，命中时返回同一个对象，调用方不能修改
+     */
+    private boolean readOnly;
+
+    /**
+     * false 时该命名空间只用本地层
+     */
+    private boolean remote = true;
+
+    private volatile com.google.common.cache.Cache<Object, Object> local;
+    private volatile long lastClearMillis;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder skippedPuts = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+    private final LongAdder remoteErrors = new LongAdder();
+
+    /**
+     * MyBatis 解析 &lt;cache&gt; 时以命名空间为 id 反射创建
+     */
+    public TieredCache(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Cache 需要 id");
+        }
+        this.id = id;
+        this.local = buildLocal();
+        TieredCacheRegistry.register(this);
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries 必须大于0");
+        }
+        this.maxEntries = maxEntries;
+        this.local = buildLocal();
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("ttlSeconds 必须大于0");
+        }
+        this.ttlSeconds = ttlSeconds;
+        this.local = buildLocal();
+    }
+
+    public void setLagGuardMillis(long lagGuardMillis) {
+        this.lagGuardMillis = lagGuardMillis;
+    }
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+        this.local = buildLocal();
+    }
+
+    public void setRemote(boolean remote) {
+        this.remote = remote;
+    }
+
+    private com.google.common.cache.Cache<Object, Object> buildLocal() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        // TransactionalCache 提交时会为未命中的 key 写入 null，不缓存
+        if (value == null) {
+            return;
+        }
+        if (System.currentTimeMillis() - lastClearMillis < lagGuardMillis) {
+            skippedPuts.increment();
+            return;
+        }
+        RemoteCacheTier remoteTier = remoteTier();
+        byte[] bytes = readOnly && remoteTier == null ? null : serialize(value);
+        local.put(key, readOnly ? value : bytes);
+        puts.increment();
+        if (remoteTier != null) {
+            try {
+                remoteTier.put(id, remoteKey(key), bytes, ttlSeconds);
+            } catch (RuntimeException e) {
+                remoteError("写入", e);
+            }
+        }
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return readOnly ? value : deserialize((byte[]) value);
+        }
+        RemoteCacheTier remoteTier = remoteTier();
+        if (remoteTier != null) {
+            long clearsBefore = clears.sum();
+            byte[] bytes = null;
+            try {
+                bytes = remoteTier.get(id, remoteKey(key));
+            } catch (RuntimeException e) {
+                remoteError("读取", e);
+            }
+            if (bytes != null) {
+                remoteHits.increment();
+                Object object = deserialize(bytes);
+                // 读远程层期间被清空过的话，读到的可能是清空前的值，不回填本地层
+                if (clears.sum() == clearsBefore) {
+                    local.put(key, readOnly ? object : bytes);
+                }
+                return object;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        local.invalidate(key);
+        RemoteCacheTier remoteTier = remoteTier();
+        if (remoteTier != null) {
+            try {
+                remoteTier.remove(id, remoteKey(key));
+            } catch (RuntimeException e) {
+                remoteError("删除", e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        clearLocal();
+        RemoteCacheTier remoteTier = remoteTier();
+        if (remoteTier != null) {
+            try {
+                remoteTier.clear(id);
+            } catch (RuntimeException e) {
+                // 远程层失效失败时，其他实例最多读到 ttlSeconds 前的旧数据
+                remoteError("失效", e);
+            }
+        }
+    }
+
+    /**
+     * 只清空本地层（其他实例失效了该命名空间时由远程层调用）
+     */
+    void clearLocal() {
+        lastClearMillis = System.currentTimeMillis();
+        clears.increment();
+        local.invalidateAll();
+    }
+
+    @Override
+    public int getSize() {
+        return (int) local.size();
+    }
+
+    private RemoteCacheTier remoteTier() {
+        return remote ? TieredCacheRegistry.getRemoteTier() : null;
+    }
+
+    /**
+     * CacheKey 包含语句 id、SQL 和参数，取摘要作为远程层的 key
+     */
+    private static String remoteKey(Object key) {
+        return Hashing.sha256().hashString(key.toString(), StandardCharsets.UTF_8).toString();
+    }
+
+    private void remoteError(String action, RuntimeException e) {
+        remoteErrors.increment();
+        logger.warn("二级缓存远程层{}失败，命名空间: {}, 原因: {}", action, id, e.getMessage());
+    }
+
+    private static byte[] serialize(Object value) {
+        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+             ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+            oos.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new CacheException("二级缓存序列化失败（实体需要实现 Serializable）: " + e, e);
+        }
+    }
+
+    private static Object deserialize(byte[] bytes) {
+        try (ObjectInputStream ois = new ClassLoaderObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new CacheException("二级缓存反序列化失败: " + e, e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hits = localHits.sum() + remoteHits.sum();
+        long total = hits + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("namespace", id);
+        stats.put("size", local.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("remote", remoteTier() != null);
+        stats.put("localHits", localHits.sum());
+        stats.put("remoteHits", remoteHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRate", total == 0 ? "0.00%" : String.format("%.2f%%", hits * 100.0 / total));
+        stats.put("puts", puts.sum());
+        stats.put("skippedPuts", skippedPuts.sum());
+        stats.put("evictions", local.stats().evictionCount());
+        stats.put("clears", clears.sum());
+        stats.put("remoteErrors", remoteErrors.sum());
+        return stats;
+    }
+
+    /**
+     * 按 MyBatis 的方式加载类（与 SerializedCache 相同），兼容 Spring Boot 可执行 jar 的类加载器
+     */
+    private static final class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+        ClassLoaderObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+            return Resources.classForName(desc.getName());
+        }
+    }
+}
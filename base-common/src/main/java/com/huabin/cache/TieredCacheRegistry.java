@@ -0,0 +1,62 @@
+package com.huabin.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc TieredCache 注册表
+ *
+ * TieredCache 由 MyBatis 反射创建，拿不到 Spring Bean，通过这里：
+ * 1. 取远程层：应用启动时 setRemoteTier 注册，未注册时所有命名空间只用本地层
+ * 2. 远程层收到其他实例的失效通知时，按命名空间清空本地层
+ * 3. 汇总各命名空间的统计信息
+ */
+public final class TieredCacheRegistry {
+
+    private static final Map<String, TieredCache> CACHES = new ConcurrentSkipListMap<>();
+
+    private static volatile RemoteCacheTier remoteTier;
+
+    private TieredCacheRegistry() {
+    }
+
+    static void register(TieredCache cache) {
+        CACHES.put(cache.getId(), cache);
+    }
+
+    /**
+     * @param tier 远程层，传 null 表示停用
+     */
+    public static void setRemoteTier(RemoteCacheTier tier) {
+        remoteTier = tier;
+    }
+
+    public static RemoteCacheTier getRemoteTier() {
+        return remoteTier;
+    }
+
+    /**
+     * 清空命名空间的本地层，该命名空间没有使用 TieredCache 时忽略
+     */
+    public static void clearLocal(String namespace) {
+        TieredCache cache = CACHES.get(namespace);
+        if (cache != null) {
+            cache.clearLocal();
+        }
+    }
+
+    /**
+     * 各命名空间的统计信息，按命名空间排序
+     */
+    public static List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (TieredCache cache : CACHES.values()) {
+            stats.add(cache.getStats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,290 @@
+package com.huabin.executor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 按信号量限制并发的执行器（不复用线程）
+ *
+ * 用于配合虚拟线程执行数据库任务：
+ * 1. 并发数由信号量限制，许可数取连接池大小，而不是线程数
+ * 2. 拿到许可时用 threadFactory 新建线程执行，空闲时不保留任何线程
+ * 3. 拿不到许可的任务进入 queue 等待；线程执行完当前任务后继续从 queue 取任务，取不到才归还许可
+ *    （queue 可以是 PriorityBlockingQueue，按任务优先级执行）
+ *
+ * 线程工厂传 VirtualThreads.threadFactory() 时每个任务一个虚拟线程；
+ * 传平台线程工厂时行为与"最大线程数 = maxConcurrency、空闲立即回收"的线程池一致
+ *
+ * 关闭语义与 ThreadPoolExecutor 相同：shutdown() 后不再接收任务，已入队的任务继续执行
+ */
+public class BoundedExecutor extends AbstractExecutorService {
+
+    private final String name;
+    private final ThreadFactory threadFactory;
+    private final BlockingQueue<Runnable> queue;
+    private final ConcurrencyPermits permits;
+
+    private volatile int maxConcurrency;
+    private volatile boolean shutdown;
+    private volatile boolean stopped;
+
+    private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private volatile int largestActiveCount;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder threadsCreated = new LongAdder();
+
+    private final ReentrantLock terminationLock = new ReentrantLock();
+    private final Condition termination = terminationLock.newCondition();
+
+    /**
+     * @param maxConcurrency 最大并发任务数，数据库任务取连接池的 maximumPoolSize
+     * @param queue          等待许可的任务队列，容量满时拒绝任务
+     */
+    public BoundedExecutor(String name, int maxConcurrency, BlockingQueue<Runnable> queue, ThreadFactory threadFactory) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency 必须大于0");
+        }
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.queue = queue;
+        this.threadFactory = threadFactory;
+        this.permits = new ConcurrencyPermits(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown || !queue.offer(command)) {
+            throw new RejectedExecutionException("任务被拒绝，执行器: " + name
+                    + (shutdown ? "（已关闭）" : "（队列已满）"));
+        }
+        try {
+            launch();
+        } catch (RuntimeException | Error e) {
+            // 创建线程失败（如 unable to create native thread），本次提交的任务还在队列中时撤回并拒绝
+            if (queue.remove(command)) {
+                throw new RejectedExecutionException("创建线程失败，执行器: " + name, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 有空闲许可且队列不为空时启动新线程
+     *
+     * 提交任务和归还许可后都会调用：任务入队后许可恰好被归还的情况下，
+     * 至少有一方能看到对方的结果，队列中的任务不会无人执行
+     */
+    private void launch() {
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            Runnable task = queue.poll();
+            if (task == null) {
+                permits.release();
+                continue;
+            }
+            startWorker(task);
+        }
+    }
+
+    private void startWorker(Runnable firstTask) {
+        int active = activeCount.incrementAndGet();
+        if (active > largestActiveCount) {
+            largestActiveCount = active;
+        }
+        Thread thread;
+        try {
+            thread = threadFactory.newThread(() -> runWorker(firstTask));
+            if (thread == null) {
+                throw new IllegalStateException("线程工厂返回 null");
+            }
+            threadsCreated.increment();
+            thread.start();
+        } catch (RuntimeException | Error e) {
+            // 线程没有启动：撤销计数、归还许可，任务放回队列
+            activeCount.decrementAndGet();
+            permits.release();
+            queue.offer(firstTask);
+            throw e;
+        }
+    }
+
+    private void runWorker(Runnable firstTask) {
+        Thread current = Thread.currentThread();
+        workers.add(current);
+        // shutdownNow() 遍历 workers 时本线程可能还没加入，由本线程自己补上中断
+        if (stopped) {
+            current.interrupt();
+        }
+        try {
+            Runnable task = firstTask;
+            while (task != null) {
+                try {
+                    task.run();
+                } finally {
+                    completed.increment();
+                }
+                // 并发上限被调小时，许可数为负，当前线程不再继续取任务
+                task = permits.availablePermits() >= 0 ? queue.poll() : null;
+            }
+        } finally {
+            workers.remove(current);
+            finishWorker();
+        }
+    }
+
+    private void finishWorker() {
+        activeCount.decrementAndGet();
+        permits.release();
+        if (!queue.isEmpty()) {
+            launch();
+        }
+        if (isTerminated()) {
+            signalTermination();
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * 调整最大并发数；调小时执行中的任务不受影响，执行完后扣掉多出的许可
+     */
+    public synchronized void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency 必须大于0");
+        }
+        int delta = maxConcurrency - this.maxConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        if (delta > 0) {
+            permits.release(delta);
+            launch();
+        } else if (delta < 0) {
+            permits.reducePermits(-delta);
+        }
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public BlockingQueue<Runnable> getQueue() {
+        return queue;
+    }
+
+    public long getCompletedTaskCount() {
+        return completed.sum();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("maxConcurrency", maxConcurrency);
+        stats.put("activeCount", activeCount.get());
+        stats.put("largestActiveCount", largestActiveCount);
+        stats.put("queueSize", queue.size());
+        stats.put("completedTaskCount", completed.sum());
+        stats.put("threadsCreated", threadsCreated.sum());
+        stats.put("isShutdown", shutdown);
+        return stats;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (isTerminated()) {
+            signalTermination();
+        }
+    }
+
+    /**
+     * 关闭并中断执行中的任务，返回未执行的任务
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        // 先取出队列再标记，刚启动的线程自己补中断时不会再从队列取到任务
+        stopped = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        if (isTerminated()) {
+            signalTermination();
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && activeCount.get() == 0 && queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        terminationLock.lock();
+        try {
+            while (!isTerminated()) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = termination.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            terminationLock.unlock();
+        }
+    }
+
+    private void signalTermination() {
+        terminationLock.lock();
+        try {
+            termination.signalAll();
+        } finally {
+            terminationLock.unlock();
+        }
+    }
+
+    /**
+     * 可以减少许可的信号量（Semaphore.reducePermits 是 protected）
+     */
+    private static final class ConcurrencyPermits extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        ConcurrencyPermits(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
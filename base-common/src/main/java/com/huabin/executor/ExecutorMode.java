@@ -0,0 +1,35 @@
+package com.huabin.executor;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc IO 密集型（数据库）任务的执行方式
+ *
+ * - PLATFORM：平台线程池，线程数决定并发数
+ * - VIRTUAL：虚拟线程，并发数按连接池大小限制（BoundedExecutor 的信号量，或线程数 = 连接数的线程池）；
+ *   JDK 不支持虚拟线程时退回 PLATFORM
+ */
+public enum ExecutorMode {
+
+    PLATFORM,
+    VIRTUAL;
+
+    /**
+     * 解析配置值（忽略大小写）
+     */
+    public static ExecutorMode of(String value) {
+        for (ExecutorMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value == null ? "" : value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("不支持的执行方式: " + value + "，可选值: platform, virtual");
+    }
+
+    /**
+     * 当前 JDK 上实际生效的执行方式
+     */
+    public ExecutorMode resolve() {
+        return this == VIRTUAL && !VirtualThreads.isSupported() ? PLATFORM : this;
+    }
+}
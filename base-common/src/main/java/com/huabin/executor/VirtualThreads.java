@@ -0,0 +1,66 @@
+package com.huabin.executor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 虚拟线程探测（反射调用，编译目标仍是 JDK 8）
+ *
+ * 运行在 JDK 21+ 时通过 Thread.ofVirtual() 创建虚拟线程工厂；
+ * JDK 8/17，或 JDK 19/20 未开启 --enable-preview 时 isSupported() 返回 false
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            // 预览版 JDK 未开启预览特性时，这里会抛出 UnsupportedOperationException
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 虚拟线程工厂，线程名为 namePrefix + 序号（从 1 开始）
+     *
+     * @throws UnsupportedOperationException 当前 JDK 不支持虚拟线程
+     */
+    public static ThreadFactory threadFactory(String namePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("当前 JDK 不支持虚拟线程: " + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = NAME.invoke(builder, namePrefix, 1L);
+            return (ThreadFactory) FACTORY.invoke(builder);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("创建虚拟线程工厂失败", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("创建虚拟线程工厂失败", e.getCause());
+        }
+    }
+}
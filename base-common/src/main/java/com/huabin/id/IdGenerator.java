@@ -0,0 +1,22 @@
+package com.huabin.id;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 分布式ID生成器
+ *
+ * 实现：
+ * 1. SnowflakeIdGenerator：雪花算法，本地生成，无网络开销，带时钟回拨保护
+ * 2. SegmentIdGenerator：号段模式，从 Redis / DB 批量预取号段，双缓冲，热路径无锁
+ *
+ * 约定：同一个节点上生成的ID单调递增
+ */
+public interface IdGenerator {
+
+    /**
+     * 获取下一个ID
+     *
+     * @return 全局唯一ID
+     */
+    long nextId();
+}
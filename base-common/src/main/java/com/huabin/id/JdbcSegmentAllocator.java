@@ -0,0 +1,59 @@
+package com.huabin.id;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 基于数据库的号段分配器
+ *
+ * 表结构：
+ * CREATE TABLE `id_segment` (
+ *   `biz_tag` VARCHAR(64) NOT NULL COMMENT '业务标识',
+ *   `max_id` BIGINT(20) NOT NULL DEFAULT '0' COMMENT '已分配的最大ID',
+ *   `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+ *   PRIMARY KEY (`biz_tag`)
+ * );
+ *
+ * 分配过程（同一事务内）：
+ * 1. UPDATE id_segment SET max_id = max_id + step WHERE biz_tag = ?（行锁保证多节点互斥）
+ * 2. SELECT max_id FROM id_segment WHERE biz_tag = ?
+ * 业务标识不存在时自动插入一行
+ */
+public class JdbcSegmentAllocator implements SegmentAllocator {
+
+    private static final String UPDATE_SQL = "UPDATE id_segment SET max_id = max_id + ? WHERE biz_tag = ?";
+    private static final String INSERT_SQL = "INSERT INTO id_segment (biz_tag, max_id) VALUES (?, ?)";
+    private static final String SELECT_SQL = "SELECT max_id FROM id_segment WHERE biz_tag = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcSegmentAllocator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public long allocate(String bizTag, int step) {
+        Long maxId = transactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update(UPDATE_SQL, step, bizTag);
+            if (updated == 0) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, bizTag, step);
+                    return (long) step;
+                } catch (DuplicateKeyException e) {
+                    // 其他节点已并发插入，重新走更新逻辑
+                    jdbcTemplate.update(UPDATE_SQL, step, bizTag);
+                }
+            }
+            return jdbcTemplate.queryForObject(SELECT_SQL, Long.class, bizTag);
+        });
+        if (maxId == null) {
+            throw new IllegalStateException("号段分配失败, bizTag=" + bizTag);
+        }
+        return maxId;
+    }
+}
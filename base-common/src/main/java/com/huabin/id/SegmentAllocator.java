@@ -0,0 +1,25 @@
+package com.huabin.id;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 号段分配器
+ *
+ * 负责从共享存储（Redis / DB）中原子地申请一段连续的ID区间，
+ * 多个节点之间通过存储端的原子操作保证号段互不重叠。
+ *
+ * 实现：
+ * - JdbcSegmentAllocator：基于数据库 UPDATE max_id = max_id + step
+ * - Redis 实现：基于 INCRBY（见各 Redis 模块）
+ */
+public interface SegmentAllocator {
+
+    /**
+     * 申请一个号段
+     *
+     * @param bizTag 业务标识（如 order、batch）
+     * @param step   号段长度
+     * @return 本次申请到的号段最大值，号段区间为 [返回值 - step + 1, 返回值]
+     */
+    long allocate(String bizTag, int step);
+}
@@ -0,0 +1,181 @@
+package com.huabin.id;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 号段模式ID生成器（双缓冲）
+ *
+ * 工作流程：
+ * 1. 通过 SegmentAllocator 从 Redis / DB 一次申请 step 个ID，放入本地号段
+ * 2. nextId() 只对本地号段做 CAS 自增，热路径无锁、无网络开销
+ * 3. 当前号段消耗超过 prefetchRatio 时，后台线程异步预取下一个号段（双缓冲）
+ * 4. 当前号段用完时切换到预取好的号段；若预取尚未完成则等待其完成
+ *
+ * 单调性：号段由存储端原子递增分配，后申请的号段一定大于先申请的号段，
+ * 因此同一节点上生成的ID单调递增（节点之间只保证唯一，不保证全局有序）
+ */
+public class SegmentIdGenerator implements IdGenerator, AutoCloseable {
+
+    /**
+     * 默认预取阈值：当前号段消耗 20% 后开始预取下一个号段
+     */
+    private static final double DEFAULT_PREFETCH_RATIO = 0.2;
+
+    private final String bizTag;
+    private final int step;
+    private final double prefetchRatio;
+    private final SegmentAllocator allocator;
+    private final ExecutorService loader;
+
+    /**
+     * 当前号段，初始为空号段，首次调用时同步加载
+     */
+    private volatile Segment current = Segment.EMPTY;
+
+    /**
+     * 预取中的下一个号段
+     */
+    private final AtomicReference<CompletableFuture<Segment>> next = new AtomicReference<>();
+
+    public SegmentIdGenerator(String bizTag, int step, SegmentAllocator allocator) {
+        this(bizTag, step, DEFAULT_PREFETCH_RATIO, allocator);
+    }
+
+    public SegmentIdGenerator(String bizTag, int step, double prefetchRatio, SegmentAllocator allocator) {
+        if (bizTag == null || bizTag.trim().isEmpty()) {
+            throw new IllegalArgumentException("bizTag 不能为空");
+        }
+        if (step <= 0) {
+            throw new IllegalArgumentException("step 必须大于0");
+        }
+        if (prefetchRatio <= 0 || prefetchRatio > 1) {
+            throw new IllegalArgumentException("prefetchRatio 必须在 (0, 1] 之间");
+        }
+        this.bizTag = bizTag;
+        this.step = step;
+        this.prefetchRatio = prefetchRatio;
+        this.allocator = allocator;
+        this.loader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "segment-loader-" + bizTag);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            Segment segment = current;
+            long id = segment.cursor.getAndIncrement();
+            if (id <= segment.max) {
+                if (id == segment.prefetchAt) {
+                    prefetch();
+                }
+                return id;
+            }
+            switchSegment(segment);
+        }
+    }
+
+    public String getBizTag() {
+        return bizTag;
+    }
+
+    /**
+     * 当前号段剩余可用ID数量
+     */
+    public long remaining() {
+        Segment segment = current;
+        return Math.max(0, segment.max - segment.cursor.get() + 1);
+    }
+
+    @Override
+    public void close() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * 当前号段耗尽，切换到下一个号段
+     *
+     * 只有号段切换时才加锁，且只有第一个发现号段耗尽的线程会真正执行切换
+     */
+    private synchronized void switchSegment(Segment exhausted) {
+        if (current != exhausted) {
+            // 其他线程已经完成切换
+            return;
+        }
+        CompletableFuture<Segment> future = prefetch();
+        Segment segment;
+        try {
+            segment = future.join();
+        } catch (CompletionException e) {
+            // 异步预取失败（如网络抖动），在当前线程同步重试一次
+            next.compareAndSet(future, null);
+            try {
+                segment = loadSegment();
+            } catch (RuntimeException retryError) {
+                throw new IllegalStateException("号段加载失败, bizTag=" + bizTag, retryError);
+            }
+            current = segment;
+            return;
+        }
+        next.compareAndSet(future, null);
+        current = segment;
+    }
+
+    /**
+     * 异步预取下一个号段，已有预取任务时直接复用
+     */
+    private CompletableFuture<Segment> prefetch() {
+        CompletableFuture<Segment> future = next.get();
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<Segment> created = new CompletableFuture<>();
+        if (!next.compareAndSet(null, created)) {
+            return next.get();
+        }
+        try {
+            loader.execute(() -> {
+                try {
+                    created.complete(loadSegment());
+                } catch (Throwable t) {
+                    created.completeExceptionally(t);
+                }
+            });
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private Segment loadSegment() {
+        long max = allocator.allocate(bizTag, step);
+        return new Segment(max - step + 1, max, prefetchRatio);
+    }
+
+    /**
+     * 本地号段 [start, max]
+     */
+    private static final class Segment {
+
+        static final Segment EMPTY = new Segment(1, 0, 1);
+
+        final long max;
+        final long prefetchAt;
+        final AtomicLong cursor;
+
+        Segment(long start, long max, double prefetchRatio) {
+            this.max = max;
+            this.prefetchAt = Math.max(start, start + (long) ((max - start + 1) * prefetchRatio) - 1);
+            this.cursor = new AtomicLong(start);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.huabin.id;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 雪花算法ID生成器
+ *
+ * ID结构（64位）：
+ * 1位符号位 | 41位时间戳（相对EPOCH的毫秒数） | 5位数据中心ID | 5位工作节点ID | 12位序列号
+ *
+ * 时钟回拨保护：
+ * - 回拨幅度 <= maxBackwardMs：等待时钟追上上一次的时间戳再继续生成
+ * - 回拨幅度 >  maxBackwardMs：直接抛出异常，拒绝生成重复ID
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    /**
+     * 起始时间戳：2024-01-01 00:00:00（UTC+8）
+     */
+    private static final long EPOCH = 1704038400000L;
+
+    private static final int WORKER_ID_BITS = 5;
+    private static final int DATACENTER_ID_BITS = 5;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+    public static final long MAX_DATACENTER_ID = ~(-1L << DATACENTER_ID_BITS);
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private static final int WORKER_ID_SHIFT = SEQUENCE_BITS;
+    private static final int DATACENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATACENTER_ID_BITS;
+
+    /**
+     * 默认允许等待的最大回拨幅度（毫秒）
+     */
+    private static final long DEFAULT_MAX_BACKWARD_MS = 5L;
+
+    private final long workerId;
+    private final long datacenterId;
+    private final long maxBackwardMs;
+    private final LongSupplier clock;
+
+    private long sequence = 0L;
+    private long lastTimestamp = -1L;
+
+    public SnowflakeIdGenerator(long workerId, long datacenterId) {
+        this(workerId, datacenterId, DEFAULT_MAX_BACKWARD_MS, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long workerId, long datacenterId, long maxBackwardMs) {
+        this(workerId, datacenterId, maxBackwardMs, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long workerId, long datacenterId, long maxBackwardMs, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId 必须在 0 ~ " + MAX_WORKER_ID + " 之间");
+        }
+        if (datacenterId < 0 || datacenterId > MAX_DATACENTER_ID) {
+            throw new IllegalArgumentException("datacenterId 必须在 0 ~ " + MAX_DATACENTER_ID + " 之间");
+        }
+        if (maxBackwardMs < 0) {
+            throw new IllegalArgumentException("maxBackwardMs 不能为负数");
+        }
+        this.workerId = workerId;
+        this.datacenterId = datacenterId;
+        this.maxBackwardMs = maxBackwardMs;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized long nextId() {
+        long timestamp = clock.getAsLong();
+
+        // 时钟回拨
+        if (timestamp < lastTimestamp) {
+            long offset = lastTimestamp - timestamp;
+            if (offset > maxBackwardMs) {
+                throw new IllegalStateException("时钟回拨 " + offset + "ms，超过允许的 "
+                        + maxBackwardMs + "ms，拒绝生成ID");
+            }
+            // 小幅回拨：等待时钟追上
+            timestamp = waitUntil(lastTimestamp);
+        }
+
+        if (timestamp == lastTimestamp) {
+            // 同一毫秒内，序列号自增
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // 序列号用完，等待下一毫秒
+                timestamp = waitUntil(lastTimestamp + 1);
+            }
+        } else {
+            sequence = 0L;
+        }
+
+        lastTimestamp = timestamp;
+
+        return ((timestamp - EPOCH) << TIMESTAMP_SHIFT)
+                | (datacenterId << DATACENTER_ID_SHIFT)
+                | (workerId << WORKER_ID_SHIFT)
+                | sequence;
+    }
+
+    /**
+     * 从ID中解析出生成时间戳（毫秒）
+     */
+    public static long extractTimestamp(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * 自旋等待，直到时钟到达目标时间戳
+     */
+    private long waitUntil(long targetTimestamp) {
+        long timestamp = clock.getAsLong();
+        while (timestamp < targetTimestamp) {
+            LockSupport.parkNanos(100_000L);
+            timestamp = clock.getAsLong();
+        }
+        return timestamp;
+    }
+}
@@ -0,0 +1,91 @@
+package com.huabin.page;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 按主键翻页的分页结果（where key > #{lastKey} order by key limit n）
+ *
+ * 说明：
+ * - 与 limit offset, n 不同，翻到多少页都只扫描 n 行
+ * - 下一页把 nextKey 作为 lastKey 传回，hasMore = false 时表示已到最后一页
+ * - Mapper 多查一行（limit + 1）用来判断是否还有下一页，多出的一行不返回
+ * - 主键类型由 K 指定：自增主键用 Long，业务编码主键用 String
+ *
+ * @param <T> 行类型
+ * @param <K> 主键类型
+ */
+public class KeysetPage<T, K> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 默认每页条数
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * 每页条数上限
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * 当前页数据
+     */
+    private final List<T> list;
+
+    /**
+     * 下一页的 lastKey，没有下一页时为 null
+     */
+    private final K nextKey;
+
+    /**
+     * 是否还有下一页
+     */
+    private final boolean hasMore;
+
+    private KeysetPage(List<T> list, K nextKey, boolean hasMore) {
+        this.list = list;
+        this.nextKey = nextKey;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * 把 Mapper 查询结果（最多 limit + 1 行）转换为分页结果
+     *
+     * @param rows  按主键升序的查询结果
+     * @param limit 每页条数
+     * @param keyOf 取主键
+     */
+    public static <T, K> KeysetPage<T, K> of(List<T> rows, int limit, Function<T, K> keyOf) {
+        boolean hasMore = rows.size() > limit;
+        List<T> list = hasMore ? rows.subList(0, limit) : rows;
+        K nextKey = hasMore ? keyOf.apply(list.get(list.size() - 1)) : null;
+        return new KeysetPage<>(list, nextKey, hasMore);
+    }
+
+    /**
+     * 把请求的每页条数限制在 [1, MAX_LIMIT]，未传时取 DEFAULT_LIMIT
+     */
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    public List<T> getList() {
+        return list;
+    }
+
+    public K getNextKey() {
+        return nextKey;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,53 @@
+package com.huabin.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 以 NDJSON（每行一个 JSON 对象）流式输出查询结果
+ *
+ * 说明：
+ * - 每读到一行就写出一行，内存中只保留当前行
+ * - 客户端断开时写出失败，异常向上抛出，Service 的事务和游标随之关闭
+ * - StreamingResponseBody 在 MVC 异步线程池中执行，使用方需要配置异步线程池和
+ *   spring.mvc.async.request-timeout（见各模块的 WebMvcAsyncConfig）
+ */
+public final class NdjsonStreams {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private NdjsonStreams() {
+    }
+
+    /**
+     * @param source 遍历数据的 Service 方法（如 productService::forEachProduct），返回遍历的行数
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> of(ObjectMapper objectMapper, ToLongFunction<Consumer<T>> source) {
+        ObjectWriter writer = objectMapper.writer();
+        StreamingResponseBody body = out -> {
+            try {
+                source.applyAsLong(row -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(row));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
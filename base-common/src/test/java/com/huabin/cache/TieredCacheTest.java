@@ -0,0 +1,182 @@
+package com.huabin.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc MyBatis 二级缓存测试
+ */
+public class TieredCacheTest {
+
+    @AfterEach
+    public void resetRemoteTier() {
+        TieredCacheRegistry.setRemoteTier(null);
+    }
+
+    @Test
+    public void localHitReturnsCopy() {
+        TieredCache cache = new TieredCache("test.localHit");
+        List<String> rows = new ArrayList<>(Collections.singletonList("a"));
+        cache.putObject("k", rows);
+
+        Object first = cache.getObject("k");
+        assertEquals(rows, first);
+        assertNotSame(rows, first);
+        assertNotSame(first, cache.getObject("k"));
+        assertEquals(2L, cache.getStats().get("localHits"));
+    }
+
+    @Test
+    public void readOnlyReturnsSameObject() {
+        TieredCache cache = new TieredCache("test.readOnly");
+        cache.setReadOnly(true);
+        List<String> rows = Collections.singletonList("a");
+        cache.putObject("k", rows);
+
+        assertTrue(rows == cache.getObject("k"));
+    }
+
+    @Test
+    public void clearInvalidatesAllKeys() {
+        TieredCache cache = new TieredCache("test.clear");
+        cache.putObject("k1", "v1");
+        cache.putObject("k2", "v2");
+
+        cache.clear();
+
+        assertNull(cache.getObject("k1"));
+        assertNull(cache.getObject("k2"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void nullValueIsNotCached() {
+        TieredCache cache = new TieredCache("test.null");
+        cache.putObject("k", null);
+
+        assertEquals(0, cache.getSize());
+        assertEquals(0L, cache.getStats().get("puts"));
+    }
+
+    @Test
+    public void boundedBySize() {
+        TieredCache cache = new TieredCache("test.bounded");
+        cache.setMaxEntries(10);
+        for (int i = 0; i < 100; i++) {
+            cache.putObject(i, i);
+        }
+
+        assertTrue(cache.getSize() <= 10);
+    }
+
+    @Test
+    public void skipsPutsWithinLagGuardAfterClear() {
+        TieredCache cache = new TieredCache("test.lagGuard");
+        cache.setLagGuardMillis(60000);
+        cache.clear();
+        cache.putObject("k", "v");
+
+        assertNull(cache.getObject("k"));
+        assertEquals(1L, cache.getStats().get("skippedPuts"));
+    }
+
+    @Test
+    public void readsThroughRemoteTier() {
+        InMemoryRemoteTier remote = new InMemoryRemoteTier();
+        TieredCacheRegistry.setRemoteTier(remote);
+        new TieredCache("test.remote").putObject("k", "v");
+
+        // 另一个实例：本地层为空，从远程层读到后回填本地层
+        TieredCache other = new TieredCache("test.remote");
+        assertEquals("v", other.getObject("k"));
+        assertEquals("v", other.getObject("k"));
+        assertEquals(1L, other.getStats().get("remoteHits"));
+        assertEquals(1L, other.getStats().get("localHits"));
+
+        other.clear();
+        assertNull(other.getObject("k"));
+    }
+
+    @Test
+    public void remoteInvalidationClearsLocalTier() {
+        TieredCache cache = new TieredCache("test.invalidation");
+        cache.putObject("k", "v");
+
+        TieredCacheRegistry.clearLocal("test.invalidation");
+
+        assertNull(cache.getObject("k"));
+    }
+
+    @Test
+    public void remoteFailureFallsBackToLocal() {
+        TieredCacheRegistry.setRemoteTier(new FailingRemoteTier());
+        TieredCache cache = new TieredCache("test.remoteFailure");
+        cache.putObject("k", "v");
+
+        assertEquals("v", cache.getObject("k"));
+        assertNull(cache.getObject("missing"));
+        cache.clear();
+        assertEquals(3L, cache.getStats().get("remoteErrors"));
+    }
+
+    private static class InMemoryRemoteTier implements RemoteCacheTier {
+
+        private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+
+        @Override
+        public byte[] get(String namespace, String key) {
+            return values.get(namespace + ":" + key);
+        }
+
+        @Override
+        public void put(String namespace, String key, byte[] value, long ttlSeconds) {
+            values.put(namespace + ":" + key, value);
+        }
+
+        @Override
+        public void remove(String namespace, String key) {
+            values.remove(namespace + ":" + key);
+        }
+
+        @Override
+        public void clear(String namespace) {
+            values.keySet().removeIf(key -> key.startsWith(namespace + ":"));
+        }
+    }
+
+    private static class FailingRemoteTier implements RemoteCacheTier {
+
+        @Override
+        public byte[] get(String namespace, String key) {
+            throw new IllegalStateException("connection refused");
+        }
+
+        @Override
+        public void put(String namespace, String key, byte[] value, long ttlSeconds) {
+            throw new IllegalStateException("connection refused");
+        }
+
+        @Override
+        public void remove(String namespace, String key) {
+            throw new IllegalStateException("connection refused");
+        }
+
+        @Override
+        public void clear(String namespace) {
+            throw new IllegalStateException("connection refused");
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.huabin.executor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 信号量限流执行器测试（JDK 不支持虚拟线程时用平台线程工厂，行为相同）
+ */
+public class BoundedExecutorTest {
+
+    private static ThreadFactory threadFactory() {
+        return ExecutorMode.VIRTUAL.resolve() == ExecutorMode.VIRTUAL
+                ? VirtualThreads.threadFactory("bounded-test-")
+                : Executors.defaultThreadFactory();
+    }
+
+    @Test
+    public void concurrencyNeverExceedsPermits() throws Exception {
+        BoundedExecutor executor = new BoundedExecutor("test", 4, new LinkedBlockingQueue<>(), threadFactory());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        for (int i = 0; i < 200; i++) {
+            executor.execute(() -> {
+                int now = running.incrementAndGet();
+                peak.accumulateAndGet(now, Math::max);
+                sleep(1);
+                running.decrementAndGet();
+                done.incrementAndGet();
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(200, done.get());
+        assertEquals(200, executor.getCompletedTaskCount());
+        assertTrue(peak.get() <= 4, "peak=" + peak.get());
+        assertEquals(0, executor.getActiveCount());
+    }
+
+    @Test
+    public void queuedTasksRunInPriorityOrder() throws Exception {
+        BoundedExecutor executor = new BoundedExecutor("test", 1, new PriorityBlockingQueue<>(), threadFactory());
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        executor.execute(new PriorityTask(0, () -> await(blocker)));
+        for (int priority : new int[]{5, 3, 9, 1}) {
+            executor.execute(new PriorityTask(priority, () -> order.add(priority)));
+        }
+        blocker.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 3, 5, 9), order);
+    }
+
+    @Test
+    public void resizeTakesEffectForQueuedTasks() throws Exception {
+        BoundedExecutor executor = new BoundedExecutor("test", 1, new LinkedBlockingQueue<>(), threadFactory());
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                await(blocker);
+            });
+        }
+        assertEquals(1, executor.getActiveCount());
+        executor.setMaxConcurrency(3);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(3, executor.getActiveCount());
+
+        executor.setMaxConcurrency(1);
+        blocker.countDown();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        for (int i = 0; i < 20; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(1);
+                running.decrementAndGet();
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, peak.get());
+    }
+
+    @Test
+    public void rejectsAfterShutdownOrWhenQueueFull() throws Exception {
+        BoundedExecutor executor = new BoundedExecutor("test", 1, new LinkedBlockingQueue<>(1), threadFactory());
+        CountDownLatch blocker = new CountDownLatch(1);
+        executor.execute(() -> await(blocker));
+        executor.execute(() -> { });
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        List<Runnable> pending = executor.shutdownNow();
+        assertEquals(1, pending.size());
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    }
+
+    @Test
+    public void virtualModeFallsBackWhenUnsupported() {
+        if (VirtualThreads.isSupported()) {
+            assertEquals(ExecutorMode.VIRTUAL, ExecutorMode.VIRTUAL.resolve());
+        } else {
+            assertEquals(ExecutorMode.PLATFORM, ExecutorMode.VIRTUAL.resolve());
+            assertThrows(UnsupportedOperationException.class, () -> VirtualThreads.threadFactory("x-"));
+        }
+        assertEquals(ExecutorMode.VIRTUAL, ExecutorMode.of(" Virtual "));
+        assertThrows(IllegalArgumentException.class, () -> ExecutorMode.of("fiber"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class PriorityTask implements Runnable, Comparable<PriorityTask> {
+
+        private final int priority;
+        private final Runnable delegate;
+
+        PriorityTask(int priority, Runnable delegate) {
+            this.priority = priority;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+
+        @Override
+        public int compareTo(PriorityTask other) {
+            return Integer.compare(priority, other.priority);
+        }
+    }
+}
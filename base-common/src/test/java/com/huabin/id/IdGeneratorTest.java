@@ -0,0 +1,126 @@
+package com.huabin.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 分布式ID生成器测试
+ */
+public class IdGeneratorTest {
+
+    @Test
+    public void snowflakeIdsAreMonotonic() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 1);
+        long last = generator.nextId();
+        for (int i = 0; i < 100000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+    }
+
+    @Test
+    public void snowflakeWaitsForSmallClockRollback() {
+        AtomicLong now = new AtomicLong(1800000000000L);
+        AtomicInteger calls = new AtomicInteger();
+        // 第二次取时间时回拨2ms，之后时钟每次调用前进1ms
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 1, 5, () -> {
+            int call = calls.incrementAndGet();
+            return call == 2 ? now.get() - 2 : now.getAndIncrement();
+        });
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+        assertTrue(second > first);
+    }
+
+    @Test
+    public void snowflakeRejectsLargeClockRollback() {
+        AtomicLong now = new AtomicLong(1800000000000L);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 1, 5, now::get);
+
+        generator.nextId();
+        now.addAndGet(-1000);
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    public void segmentIdsAreUniqueAndMonotonicAcrossSegments() throws InterruptedException {
+        AtomicLong store = new AtomicLong();
+        AtomicInteger allocations = new AtomicInteger();
+        SegmentAllocator allocator = (bizTag, step) -> {
+            allocations.incrementAndGet();
+            return store.addAndGet(step);
+        };
+
+        try (SegmentIdGenerator generator = new SegmentIdGenerator("test", 100, allocator)) {
+            long last = 0;
+            for (int i = 0; i < 1000; i++) {
+                long id = generator.nextId();
+                assertTrue(id > last);
+                last = id;
+            }
+            assertEquals(1000, last);
+        }
+        assertTrue(allocations.get() >= 10);
+    }
+
+    @Test
+    public void segmentIdsAreUniqueUnderConcurrency() throws InterruptedException {
+        AtomicLong store = new AtomicLong();
+        SegmentAllocator allocator = (bizTag, step) -> store.addAndGet(step);
+        int threads = 8;
+        int perThread = 20000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        try (SegmentIdGenerator generator = new SegmentIdGenerator("test", 500, allocator)) {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    public void segmentRetriesOnceWhenPrefetchFails() {
+        AtomicLong store = new AtomicLong();
+        AtomicInteger calls = new AtomicInteger();
+        SegmentAllocator allocator = (bizTag, step) -> {
+            // 第二次申请（即第一次后台预取）失败
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("redis timeout");
+            }
+            return store.addAndGet(step);
+        };
+
+        try (SegmentIdGenerator generator = new SegmentIdGenerator("test", 10, allocator)) {
+            for (int i = 1; i <= 30; i++) {
+                assertTrue(generator.nextId() > 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.huabin.database.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ *
+ * 运行方式（在 springboot-database-learning 目录下）：
+ * mvn -pl springboot-database-benchmark -am package -DskipTests
+ * java -jar springboot-database-benchmark/target/benchmarks.jar                             # 全部
+ * java -jar springboot-database-benchmark/target/benchmarks.jar -p connections=20           # 调整连接池大小
+ * java -jar springboot-database-benchmark/target/benchmarks.jar -p dbLatencyMs=20           # 调整 SQL 耗时
+ *
+ * 虚拟线程需要 JDK 21+ 运行（jar 按 JDK 8 编译，低版本 JDK 上 virtual 执行器退回平台线程）
+ *
+ * 输出：
+ * - Throughput：任务数/秒
+ * - gc.alloc.rate / gc.alloc.rate.norm：分配速率（默认开启 GC Profiler）
+ * 结果同时写入 jmh-result.json（可用 -rff 指定文件名）
+ *
+ * 支持全部 JMH 命令行参数（-h 查看）
+ *
+ * @author huabin
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+
+        if (commandLine.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result("jmh-result.json");
+        }
+
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,163 @@
+package com.huabin.database.benchmark;
+
+import com.huabin.executor.BoundedExecutor;
+import com.huabin.executor.ExecutorMode;
+import com.huabin.executor.VirtualThreads;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 数据库任务执行器吞吐量对比（相同连接数）
+ *
+ * 每个任务模拟一次产品创建：先做 nonDbLatencyMs 的非数据库工作（参数校验、组装对象），
+ * 再从 HikariCP 取连接执行耗时 dbLatencyMs 的 SQL（H2 内存库 CALL SLEEP）
+ *
+ * executor：
+ * - PLATFORM_CPU_X2：现在的 productCreateExecutor，CPU核心数 * 2 个平台线程
+ * - PLATFORM_POOL_SIZED：平台线程数 = 连接数
+ * - BOUNDED_VIRTUAL：每个任务一个虚拟线程，信号量许可数 = 连接数（BoundedExecutor）；
+ *   JDK 21 以下用平台线程代替，结果与 PLATFORM_POOL_SIZED 接近
+ *
+ * 所有执行器共用同一个 connections 大小的连接池，吞吐上限都是 connections / (dbLatencyMs / 1000)；
+ * 对比的是执行器能否把连接用满，以及线程/内存开销
+ *
+ * @author huabin
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseG1GC"})
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DbExecutorBenchmark {
+
+    /**
+     * 每次调用提交的任务数（一个批次）
+     */
+    private static final int TASKS = 200;
+
+    public enum ExecutorType {
+        PLATFORM_CPU_X2, PLATFORM_POOL_SIZED, BOUNDED_VIRTUAL
+    }
+
+    @Param({"PLATFORM_CPU_X2", "PLATFORM_POOL_SIZED", "BOUNDED_VIRTUAL"})
+    public ExecutorType executor;
+
+    /**
+     * 连接池大小（所有执行器相同）
+     */
+    @Param("10")
+    public int connections;
+
+    /**
+     * 模拟 SQL 耗时（毫秒）
+     */
+    @Param("5")
+    public long dbLatencyMs;
+
+    /**
+     * 模拟任务中非数据库部分的耗时（毫秒）
+     */
+    @Param("1")
+    public long nonDbLatencyMs;
+
+    private HikariDataSource dataSource;
+    private ExecutorService executorService;
+    private String sql;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(connections);
+        config.setMinimumIdle(connections);
+        config.setConnectionTimeout(TimeUnit.MINUTES.toMillis(1));
+        dataSource = new HikariDataSource(config);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ALIAS IF NOT EXISTS SLEEP FOR \"java.lang.Thread.sleep\"");
+        }
+        sql = "CALL SLEEP(" + dbLatencyMs + ")";
+        executorService = createExecutor();
+        System.out.println("executor=" + executor + ", virtualThreads=" + VirtualThreads.isSupported()
+                + ", java.version=" + System.getProperty("java.version"));
+    }
+
+    private ExecutorService createExecutor() {
+        switch (executor) {
+            case PLATFORM_CPU_X2:
+                return fixedPlatformPool(Runtime.getRuntime().availableProcessors() * 2);
+            case PLATFORM_POOL_SIZED:
+                return fixedPlatformPool(connections);
+            case BOUNDED_VIRTUAL:
+                return new BoundedExecutor("bench", connections, new LinkedBlockingQueue<>(),
+                        ExecutorMode.VIRTUAL.resolve() == ExecutorMode.VIRTUAL
+                                ? VirtualThreads.threadFactory("bench-")
+                                : Executors.defaultThreadFactory());
+            default:
+                throw new IllegalArgumentException("未知执行器: " + executor);
+        }
+    }
+
+    private static ExecutorService fixedPlatformPool(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+        dataSource.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public void createProducts() throws Exception {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        for (int i = 0; i < TASKS; i++) {
+            executorService.execute(() -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(nonDbLatencyMs);
+                    try (Connection connection = dataSource.getConnection();
+                         Statement statement = connection.createStatement()) {
+                        statement.execute(sql);
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- 号段表（分布式ID生成器使用）
+-- 数据库：springboot_db2
+
+USE springboot_db2;
+
+CREATE TABLE `id_segment` (
+  `biz_tag` VARCHAR(64) NOT NULL COMMENT '业务标识',
+  `max_id` BIGINT(20) NOT NULL DEFAULT '0' COMMENT '已分配的最大ID',
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`biz_tag`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='号段表';
+
+INSERT INTO `id_segment` (`biz_tag`, `max_id`) VALUES ('product_batch', 0);
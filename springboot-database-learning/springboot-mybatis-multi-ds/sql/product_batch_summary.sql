@@ -0,0 +1,19 @@
+-- 产品批次汇总表（批次进度计数，内存计数器定期写回）
+-- 数据库：springboot_db2
+
+USE springboot_db2;
+
+CREATE TABLE `product_batch_summary` (
+  `batch_no` VARCHAR(50) NOT NULL COMMENT '批次号',
+  `creator` VARCHAR(50) DEFAULT NULL COMMENT '创建人',
+  `total_count` BIGINT(20) NOT NULL DEFAULT '0' COMMENT '已提交产品数',
+  `success_count` BIGINT(20) NOT NULL DEFAULT '0' COMMENT '创建成功数',
+  `failed_count` BIGINT(20) NOT NULL DEFAULT '0' COMMENT '创建失败数',
+  `batch_status` INT(11) NOT NULL DEFAULT '0' COMMENT '批次状态：0-提交中，1-执行中，2-已完成',
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `finish_time` DATETIME DEFAULT NULL COMMENT '完成时间',
+  PRIMARY KEY (`batch_no`),
+  KEY `idx_creator` (`creator`),
+  KEY `idx_batch_status` (`batch_status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='产品批次汇总表';
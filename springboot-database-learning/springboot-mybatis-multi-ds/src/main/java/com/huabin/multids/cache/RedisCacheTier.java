@@ -0,0 +1,118 @@
+package com.huabin.multids.cache;
+
+import com.huabin.cache.RemoteCacheTier;
+import com.huabin.cache.TieredCacheRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc MyBatis 二级缓存的 Redis 层
+ *
+ * key 结构：
+ * - mybatis:cache:{namespace}:gen           命名空间的版本号
+ * - mybatis:cache:{namespace}:{gen}:{key}   缓存值（序列化后的字节），带过期时间
+ *
+ * 失效：命名空间的版本号加一，旧版本的 key 不再被读取，等过期后由 Redis 删除，
+ * 不需要 SCAN 删除（批量创建产品时每次提交都会失效 ProductMapper 命名空间）
+ *
+ * 多实例：失效后在 mybatis:cache:invalidate 频道发布命名空间，其他实例收到后清空本地层、重新读取版本号。
+ * 订阅断开期间错过的通知不会补发，其他实例最多读到 ttlSeconds 前的旧数据
+ */
+public class RedisCacheTier implements RemoteCacheTier, MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCacheTier.class);
+
+    public static final String CHANNEL = "mybatis:cache:invalidate";
+
+    private static final String KEY_PREFIX = "mybatis:cache:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 区分通知是否由本实例发出
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * 各命名空间当前的版本号，收到失效通知时移除，下次访问重新读取
+     */
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+    public RedisCacheTier(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public byte[] get(String namespace, String key) {
+        byte[] rawKey = rawKey(namespace, key);
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+    }
+
+    @Override
+    public void put(String namespace, String key, byte[] value, long ttlSeconds) {
+        byte[] rawKey = rawKey(namespace, key);
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.setEx(rawKey, ttlSeconds, value));
+    }
+
+    @Override
+    public void remove(String namespace, String key) {
+        byte[] rawKey = rawKey(namespace, key);
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.del(rawKey));
+    }
+
+    @Override
+    public void clear(String namespace) {
+        Long generation = redisTemplate.opsForValue().increment(KEY_PREFIX + namespace + ":gen");
+        if (generation != null) {
+            generations.put(namespace, generation);
+        }
+        redisTemplate.convertAndSend(CHANNEL, instanceId + "|" + namespace);
+    }
+
+    /**
+     * 其他实例失效了某个命名空间
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.substring(0, separator).equals(instanceId)) {
+            return;
+        }
+        String namespace = body.substring(separator + 1);
+        generations.remove(namespace);
+        TieredCacheRegistry.clearLocal(namespace);
+        logger.debug("收到二级缓存失效通知，命名空间: {}", namespace);
+    }
+
+    private byte[] rawKey(String namespace, String key) {
+        return (KEY_PREFIX + namespace + ":" + generation(namespace) + ":" + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long generation(String namespace) {
+        return generations.computeIfAbsent(namespace, ns -> {
+            String value = redisTemplate.opsForValue().get(KEY_PREFIX + ns + ":gen");
+            return value == null ? 0L : Long.parseLong(value);
+        });
+    }
+
+    /**
+     * 停止使用 Redis 层，之后各命名空间只用本地层
+     */
+    public void close() {
+        if (TieredCacheRegistry.getRemoteTier() == this) {
+            TieredCacheRegistry.setRemoteTier(null);
+        }
+    }
+}
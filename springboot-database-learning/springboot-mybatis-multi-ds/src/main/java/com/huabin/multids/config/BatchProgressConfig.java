@@ -0,0 +1,54 @@
+package com.huabin.multids.config;
+
+import com.huabin.multids.db2.mapper.ProductBatchSummaryMapper;
+import com.huabin.multids.progress.BatchProgressTracker;
+import com.huabin.multids.progress.JdbcBatchProgressStore;
+import com.huabin.multids.progress.RedisBatchProgressStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 批次进度跟踪配置
+ *
+ * 说明：
+ * 1. 批次计数在内存中累加，每隔 flush-interval-ms 写入 product_batch_summary（需先执行 sql/product_batch_summary.sql）
+ * 2. redis.enabled=true 时同时写入 Redis，多实例部署时其他实例查询进度先读 Redis；
+ *    单实例部署不需要 Redis，默认关闭
+ */
+@Configuration
+public class BatchProgressConfig {
+
+    @Bean
+    public JdbcBatchProgressStore batchProgressStore(ProductBatchSummaryMapper summaryMapper) {
+        return new JdbcBatchProgressStore(summaryMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "product.batch.progress.redis.enabled", havingValue = "true")
+    public RedisBatchProgressStore redisBatchProgressStore(StringRedisTemplate redisTemplate,
+                                                           @Value("${product.batch.progress.redis.ttl-seconds:86400}") long ttlSeconds) {
+        return new RedisBatchProgressStore(redisTemplate, ttlSeconds);
+    }
+
+    /**
+     * 批次进度跟踪器
+     *
+     * @param flushIntervalMs 写回存储、推送订阅者的间隔
+     * @param retentionMs     批次完成后在内存中保留的时间
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BatchProgressTracker batchProgressTracker(JdbcBatchProgressStore store,
+                                                     ObjectProvider<RedisBatchProgressStore> cache,
+                                                     @Value("${product.batch.progress.flush-interval-ms:500}") long flushIntervalMs,
+                                                     @Value("${product.batch.progress.retention-ms:600000}") long retentionMs) {
+        BatchProgressTracker tracker = new BatchProgressTracker(store, cache.getIfAvailable(), retentionMs);
+        tracker.start(flushIntervalMs);
+        return tracker;
+    }
+}
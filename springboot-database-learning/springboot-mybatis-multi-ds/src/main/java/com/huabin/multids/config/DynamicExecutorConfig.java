@@ -0,0 +1,68 @@
+package com.huabin.multids.config;
+
+import com.huabin.multids.executor.DynamicExecutorRegistry;
+import com.huabin.multids.executor.ExecutorAutoTuner;
+import com.huabin.multids.task.ProductTaskSubmitter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 动态线程池配置
+ *
+ * 说明：
+ * 1. 登记 productCreateExecutor、asyncExecutor，可通过 PUT /api/monitor/pools/{name} 在运行时调整参数
+ * 2. productCreateExecutor 的队列无界，"队列容量"对应 ProductTaskSubmitter 的在途窗口
+ * 3. thread-pool.auto-tune.enabled=true 时，根据排队等待时间和从数据源连接池饱和度自动调整
+ *    productCreateExecutor 的核心线程数
+ */
+@Configuration
+public class DynamicExecutorConfig {
+
+    public static final String PRODUCT_CREATE_POOL = "productCreateExecutor";
+    public static final String ASYNC_POOL = "asyncExecutor";
+
+    @Bean
+    public DynamicExecutorRegistry dynamicExecutorRegistry(
+            @Qualifier("productCreateExecutor") ThreadPoolExecutor productCreateExecutor,
+            @Qualifier("asyncExecutor") ThreadPoolExecutor asyncExecutor,
+            ProductTaskSubmitter productTaskSubmitter) {
+        DynamicExecutorRegistry registry = new DynamicExecutorRegistry();
+        registry.register(PRODUCT_CREATE_POOL, productCreateExecutor, productTaskSubmitter);
+        registry.register(ASYNC_POOL, asyncExecutor);
+        return registry;
+    }
+
+    /**
+     * productCreateExecutor 核心线程数自动调整（默认关闭）
+     *
+     * @param minCore      核心线程数下限
+     * @param maxCore      核心线程数上限（同时不超过从数据源连接池大小）
+     * @param targetWaitMs 估算排队等待时间超过该值时扩容
+     * @param step         每次调整的线程数
+     * @param intervalMs   采样间隔
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "thread-pool.auto-tune.enabled", havingValue = "true")
+    public ExecutorAutoTuner productCreateAutoTuner(DynamicExecutorRegistry registry,
+                                                    @Qualifier("secondaryWriteDataSource") DataSource dataSource,
+                                                    @Value("${thread-pool.auto-tune.min-core:2}") int minCore,
+                                                    @Value("${thread-pool.auto-tune.max-core:64}") int maxCore,
+                                                    @Value("${thread-pool.auto-tune.target-wait-ms:200}") long targetWaitMs,
+                                                    @Value("${thread-pool.auto-tune.step:2}") int step,
+                                                    @Value("${thread-pool.auto-tune.interval-ms:5000}") long intervalMs) {
+        HikariDataSource hikari = dataSource instanceof HikariDataSource ? (HikariDataSource) dataSource : null;
+        ExecutorAutoTuner tuner = new ExecutorAutoTuner(registry, PRODUCT_CREATE_POOL, hikari,
+                minCore, maxCore, targetWaitMs, step);
+        tuner.start(intervalMs);
+        return tuner;
+    }
+}
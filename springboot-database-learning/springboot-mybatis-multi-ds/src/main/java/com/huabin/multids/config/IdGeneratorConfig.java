@@ -0,0 +1,43 @@
+package com.huabin.multids.config;
+
+import com.huabin.id.JdbcSegmentAllocator;
+import com.huabin.id.SegmentIdGenerator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 分布式ID生成器配置
+ *
+ * 说明：
+ * 1. 批次号使用数据库号段模式，号段存储在从数据源的 id_segment 表（见 sql/id_segment.sql）
+ * 2. 每次从数据库预取 step 个序号到本地，生成批次号时只做本地自增
+ * 3. 多实例部署时，各实例申请到的号段互不重叠，不会生成重复批次号
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    /**
+     * 批次号生成器
+     *
+     * @param dataSource          从数据源
+     * @param transactionTemplate 从数据源事务模板
+     * @param step                号段长度
+     * @return SegmentIdGenerator
+     */
+    @Bean(name = "batchNoGenerator", destroyMethod = "close")
+    public SegmentIdGenerator batchNoGenerator(
+            @Qualifier("secondaryDataSource") DataSource dataSource,
+            @Qualifier("secondaryTransactionTemplate") TransactionTemplate transactionTemplate,
+            @Value("${id.segment.batch.step:100}") int step) {
+        JdbcSegmentAllocator allocator = new JdbcSegmentAllocator(new JdbcTemplate(dataSource), transactionTemplate);
+        return new SegmentIdGenerator("product_batch", step, allocator);
+    }
+}
@@ -0,0 +1,48 @@
+package com.huabin.multids.config;
+
+import com.huabin.cache.TieredCacheRegistry;
+import com.huabin.multids.cache.RedisCacheTier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc MyBatis 二级缓存配置
+ *
+ * 说明：
+ * 1. UserMapper、ProductMapper 的按主键 / 编码查询使用 com.huabin.cache.TieredCache（见 Mapper XML 的 &lt;cache&gt;），
+ *    默认只有本地层，单实例部署不需要 Redis
+ * 2. mybatis.cache.redis.enabled=true 时增加 Redis 层：本地层未命中先读 Redis，
+ *    写入后通过 Redis 发布订阅通知其他实例清空本地层。多实例部署时开启
+ * 3. 各命名空间的命中率见 /api/monitor/mybatis-caches
+ */
+@Configuration
+public class MybatisCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "mybatis.cache.redis.enabled", havingValue = "true")
+    public RedisCacheTier redisCacheTier(StringRedisTemplate redisTemplate) {
+        RedisCacheTier tier = new RedisCacheTier(redisTemplate);
+        TieredCacheRegistry.setRemoteTier(tier);
+        return tier;
+    }
+
+    /**
+     * 订阅其他实例的失效通知
+     */
+    @Bean
+    @ConditionalOnProperty(name = "mybatis.cache.redis.enabled", havingValue = "true")
+    public RedisMessageListenerContainer mybatisCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       RedisCacheTier redisCacheTier) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(redisCacheTier, new ChannelTopic(RedisCacheTier.CHANNEL));
+        return container;
+    }
+}
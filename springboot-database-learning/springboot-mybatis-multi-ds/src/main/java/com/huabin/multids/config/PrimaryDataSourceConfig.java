@@ -1,18 +1,24 @@
 package com.huabin.multids.config;
 
+import com.huabin.multids.datasource.ReadWriteRoutingDataSource;
+import com.huabin.multids.datasource.ReplicaDataSources;
+import com.huabin.multids.datasource.ReplicaLagProbe;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
 import org.mybatis.spring.SqlSessionTemplate;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
 
@@ -41,30 +47,71 @@ import javax.sql.DataSource;
 public class PrimaryDataSourceConfig {
 
     /**
-     * 创建主数据源
-     *
-     * @Primary 注解说明：
-     * - 标记为主数据源
-     * - 当有多个DataSource Bean时，默认使用此Bean
-     * - 如果不指定@Qualifier，自动注入时会使用此Bean
+     * 创建主数据源的主库连接池（写库）
      *
      * @ConfigurationProperties 注解说明：
      * - 自动绑定application.yml中的配置
      * - prefix指定配置前缀：spring.datasource.primary
      * - 会自动读取jdbc-url、username、password等配置
      *
-     * @return DataSource 数据源对象
+     * @return HikariDataSource 主库连接池
      */
-    @Primary
-    @Bean(name = "primaryDataSource")
+    @Bean(name = "primaryWriteDataSource")
     @ConfigurationProperties(prefix = "spring.datasource.primary")
-    public DataSource primaryDataSource() {
+    public HikariDataSource primaryWriteDataSource() {
         // 使用HikariCP连接池（Spring Boot 2.x 默认连接池）
         return DataSourceBuilder.create()
                 .type(HikariDataSource.class)
                 .build();
     }
 
+    /**
+     * 创建主数据源的读写分离路由
+     *
+     * 说明：
+     * - 副本来自 spring.datasource.primary.replicas，没有配置时所有查询都走主库
+     * - 路由规则见 ReadWriteRoutingDataSource
+     *
+     * @param writeDataSource 主库连接池
+     * @return ReadWriteRoutingDataSource
+     */
+    @Bean(name = "primaryRoutingDataSource", destroyMethod = "close")
+    public ReadWriteRoutingDataSource primaryRoutingDataSource(
+            @Qualifier("primaryWriteDataSource") HikariDataSource writeDataSource,
+            Environment environment,
+            @Value("${spring.datasource.read-write.lag-check:true}") boolean lagCheck,
+            @Value("${spring.datasource.read-write.max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${spring.datasource.read-write.check-interval-ms:1000}") long checkIntervalMs) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource("primary", writeDataSource,
+                ReplicaDataSources.bind(environment, "spring.datasource.primary.replicas", "PrimaryHikariPool"),
+                lagCheck ? ReplicaLagProbe.MYSQL : ReplicaLagProbe.NONE, maxLagSeconds);
+        routingDataSource.start(checkIntervalMs);
+        return routingDataSource;
+    }
+
+    /**
+     * 创建主数据源
+     *
+     * @Primary 注解说明：
+     * - 标记为主数据源
+     * - 当有多个DataSource Bean时，默认使用此Bean
+     * - 如果不指定@Qualifier，自动注入时会使用此Bean
+     *
+     * LazyConnectionDataSourceProxy 说明：
+     * - 执行第一条 SQL 时才从路由数据源取连接
+     * - 此时只读事务的标记已经设置好，只读事务才能路由到副本
+     * - SqlSessionFactory 和事务管理器都使用此Bean，事务内的 Mapper 调用共用同一个连接
+     *
+     * @param routingDataSource 读写分离路由
+     * @return DataSource 数据源对象
+     */
+    @Primary
+    @Bean(name = "primaryDataSource")
+    public DataSource primaryDataSource(
+            @Qualifier("primaryRoutingDataSource") ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
     /**
      * 创建主数据源的SqlSessionFactory
      *
@@ -0,0 +1,67 @@
+package com.huabin.multids.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huabin.multids.db2.mapper.ProductCreateLogMapper;
+import com.huabin.multids.db2.mapper.ProductMapper;
+import com.huabin.multids.progress.BatchProgressTracker;
+import com.huabin.multids.task.FileSpillQueue;
+import com.huabin.multids.task.ProductTaskFactory;
+import com.huabin.multids.task.ProductTaskSubmitter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 产品创建任务提交器配置
+ *
+ * 说明：
+ * 1. 所有产品创建作业都通过 ProductTaskSubmitter 提交到 productCreateExecutor
+ * 2. 窗口满时作业写入 spill-dir 下的溢出文件，drainer 在窗口空闲后重放
+ * 3. 溢出目录需要在重启后保留（默认在系统临时目录下，生产环境应配置到持久化磁盘）
+ */
+@Configuration
+public class ProductTaskSubmitterConfig {
+
+    @Bean
+    public ProductTaskFactory productTaskFactory(ProductMapper productMapper,
+                                                 ProductCreateLogMapper logMapper,
+                                                 @Qualifier("secondaryTransactionTemplate") TransactionTemplate transactionTemplate,
+                                                 BatchProgressTracker progressTracker) {
+        return new ProductTaskFactory(productMapper, logMapper, transactionTemplate, progressTracker);
+    }
+
+    @Bean(destroyMethod = "close")
+    public FileSpillQueue productSpillQueue(ObjectMapper objectMapper,
+                                            @Value("${product.submit.spill-dir:${java.io.tmpdir}/product-create-spill}") String spillDir)
+            throws IOException {
+        return new FileSpillQueue(Paths.get(spillDir), objectMapper);
+    }
+
+    /**
+     * 产品创建任务提交器
+     *
+     * @param maxInFlight     在途作业数上限（取代原来 500 的有界队列）
+     * @param offerTimeoutMs  提交时等待窗口的最长时间，超时写入溢出文件
+     * @param drainIntervalMs drainer 检查溢出文件的间隔
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ProductTaskSubmitter productTaskSubmitter(@Qualifier("productCreateExecutor") ThreadPoolExecutor executor,
+                                                     ProductTaskFactory taskFactory,
+                                                     FileSpillQueue spillQueue,
+                                                     @Value("${product.submit.max-in-flight:500}") int maxInFlight,
+                                                     @Value("${product.submit.offer-timeout-ms:200}") long offerTimeoutMs,
+                                                     @Value("${product.submit.drain-interval-ms:1000}") long drainIntervalMs) {
+        ProductTaskSubmitter submitter = new ProductTaskSubmitter(executor, taskFactory, spillQueue,
+                maxInFlight, offerTimeoutMs);
+        submitter.start(drainIntervalMs);
+        return submitter;
+    }
+}
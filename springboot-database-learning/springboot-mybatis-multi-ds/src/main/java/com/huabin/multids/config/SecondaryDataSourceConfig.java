@@ -1,17 +1,23 @@
 package com.huabin.multids.config;
 
+import com.huabin.multids.datasource.ReadWriteRoutingDataSource;
+import com.huabin.multids.datasource.ReplicaDataSources;
+import com.huabin.multids.datasource.ReplicaLagProbe;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
 import org.mybatis.spring.SqlSessionTemplate;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
@@ -46,24 +52,67 @@ import javax.sql.DataSource;
 public class SecondaryDataSourceConfig {
 
     /**
-     * 创建从数据源
+     * 创建从数据源的主库连接池（写库）
      *
      * 注意：
      * - 不使用@Primary注解
-     * - Bean名称为secondaryDataSource（与主数据源不同）
      * - 配置前缀为spring.datasource.secondary
+     * - 线程池按此连接池的大小确定并发数（productCreateExecutor、自动调整）
      *
-     * @return DataSource 数据源对象
+     * @return HikariDataSource 主库连接池
      */
-    @Bean(name = "secondaryDataSource")
+    @Bean(name = "secondaryWriteDataSource")
     @ConfigurationProperties(prefix = "spring.datasource.secondary")
-    public DataSource secondaryDataSource() {
+    public HikariDataSource secondaryWriteDataSource() {
         // 使用HikariCP连接池
         return DataSourceBuilder.create()
                 .type(HikariDataSource.class)
                 .build();
     }
 
+    /**
+     * 创建从数据源的读写分离路由
+     *
+     * 说明：
+     * - 副本来自 spring.datasource.secondary.replicas，没有配置时所有查询都走主库
+     * - 路由规则见 ReadWriteRoutingDataSource
+     *
+     * @param writeDataSource 主库连接池
+     * @return ReadWriteRoutingDataSource
+     */
+    @Bean(name = "secondaryRoutingDataSource", destroyMethod = "close")
+    public ReadWriteRoutingDataSource secondaryRoutingDataSource(
+            @Qualifier("secondaryWriteDataSource") HikariDataSource writeDataSource,
+            Environment environment,
+            @Value("${spring.datasource.read-write.lag-check:true}") boolean lagCheck,
+            @Value("${spring.datasource.read-write.max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${spring.datasource.read-write.check-interval-ms:1000}") long checkIntervalMs) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource("secondary", writeDataSource,
+                ReplicaDataSources.bind(environment, "spring.datasource.secondary.replicas", "SecondaryHikariPool"),
+                lagCheck ? ReplicaLagProbe.MYSQL : ReplicaLagProbe.NONE, maxLagSeconds);
+        routingDataSource.start(checkIntervalMs);
+        return routingDataSource;
+    }
+
+    /**
+     * 创建从数据源
+     *
+     * 注意：
+     * - 不使用@Primary注解
+     * - Bean名称为secondaryDataSource（与主数据源不同）
+     * - 延迟到第一条 SQL 才取连接，只读事务才能路由到副本（见 PrimaryDataSourceConfig）
+     * - secondaryTransactionManager、secondaryTransactionTemplate、Mapper 都使用此Bean，
+     *   读写事务的所有操作仍在主库的同一个连接上
+     *
+     * @param routingDataSource 读写分离路由
+     * @return DataSource 数据源对象
+     */
+    @Bean(name = "secondaryDataSource")
+    public DataSource secondaryDataSource(
+            @Qualifier("secondaryRoutingDataSource") ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
     /**
      * 创建从数据源的SqlSessionFactory
      *
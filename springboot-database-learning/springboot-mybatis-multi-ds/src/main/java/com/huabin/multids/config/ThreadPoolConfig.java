@@ -1,11 +1,20 @@
 package com.huabin.multids.config;
 
+import com.huabin.executor.ExecutorMode;
+import com.huabin.executor.VirtualThreads;
+import com.huabin.multids.executor.InstrumentedThreadPoolExecutor;
+import com.huabin.multids.executor.ResizableCapacityQueue;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 
+import javax.sql.DataSource;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -17,7 +26,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  * 说明：
  * 1. 用于异步执行批量创建产品任务
  * 2. 配置合理的线程池参数，避免资源耗尽
- * 3. 配置拒绝策略，处理任务队列满的情况
+ * 3. 产品创建线程池的容量由 ProductTaskSubmitter 的信号量窗口控制，满了写溢出文件而不是拒绝
+ * 4. 线程池都是 InstrumentedThreadPoolExecutor，排队等待/执行耗时和拒绝次数导出到 /actuator/prometheus
  */
 @Configuration
 @EnableAsync
@@ -35,52 +45,63 @@ public class ThreadPoolConfig {
      *    - 这些线程会一直存活，即使空闲也不会被回收
      * 
      * 2. maximumPoolSize（最大线程数）：
-     *    - 设置为核心线程数的2倍
-     *    - 当队列满时，会创建新线程直到达到最大线程数
+     *    - 与核心线程数相同（队列无界，永远不会创建非核心线程）
+     *    - ExecutorAutoTuner 调整核心线程数时一起调整，保持相同
      * 
      * 3. keepAliveTime（非核心线程存活时间）：
      *    - 60秒，非核心线程空闲超过此时间会被回收
      * 
      * 4. workQueue（工作队列）：
-     *    - 使用 LinkedBlockingQueue，容量为 500
-     *    - 有界队列，防止内存溢出
-     *    - 当核心线程都在忙时，新任务会进入队列
+     *    - 使用 PriorityBlockingQueue，重试作业优先于新作业执行
+     *    - 队列本身无界，在途作业数由 ProductTaskSubmitter 的窗口（product.submit.max-in-flight）限制
+     *    - 队列元素必须是 ProductTaskSubmitter 包装的可比较任务，不要直接 execute 普通 Runnable
      * 
      * 5. threadFactory（线程工厂）：
      *    - 自定义线程名称，便于问题排查
      *    - 设置为守护线程，JVM退出时自动结束
      * 
      * 6. rejectedExecutionHandler（拒绝策略）：
-     *    - AbortPolicy：直接抛出 RejectedExecutionException 异常
-     *    - 优点：明确告知任务被拒绝，便于上层处理
-     *    - 缺点：需要调用方捕获异常并处理
-     *    - 适用场景：需要精确控制任务提交失败的情况
+     *    - AbortPolicy：只有线程池关闭后才会触发，ProductTaskSubmitter 捕获后写入溢出文件
      * 
      * 线程池执行流程：
-     * 1. 任务提交时，如果核心线程未满，创建核心线程执行
-     * 2. 核心线程满了，任务进入队列
-     * 3. 队列满了，创建非核心线程执行（直到最大线程数）
-     * 4. 最大线程数也满了，执行拒绝策略
+     * 1. ProductTaskSubmitter 在窗口内等待许可（超时则写溢出文件）
+     * 2. 拿到许可的任务提交到线程池，核心线程都在忙时进入优先队列
+     * 3. 任务执行完归还许可
+     * 
+     * 执行方式（thread-pool.product-create.mode）：
+     * - platform（默认）：平台线程，线程数 = CPU核心数 * 2
+     * - virtual：工作线程为虚拟线程，线程数 = 从数据源连接池大小（任务都要占一个连接，线程数即连接信号量）；
+     *   优先队列、耗时统计、运行时调整都不变。JDK 21 以下自动退回 platform
      */
     @Bean(name = "productCreateExecutor")
-    public ThreadPoolExecutor productCreateExecutor() {
+    public ThreadPoolExecutor productCreateExecutor(MeterRegistry meterRegistry,
+                                                    @Qualifier("secondaryWriteDataSource") DataSource dataSource,
+                                                    @Value("${thread-pool.product-create.mode:platform}") String mode) {
+        ExecutorMode configuredMode = ExecutorMode.of(mode);
+        ExecutorMode executorMode = configuredMode.resolve();
+        if (executorMode != configuredMode) {
+            logger.warn("当前 JDK 不支持虚拟线程，产品创建线程池使用平台线程，java.version={}",
+                       System.getProperty("java.version"));
+        }
+        boolean virtual = executorMode == ExecutorMode.VIRTUAL;
+
         // 获取CPU核心数
         int cpuCores = Runtime.getRuntime().availableProcessors();
         
-        // 核心线程数：IO密集型任务，设置为CPU核心数的2倍
-        int corePoolSize = cpuCores * 2;
+        // 核心线程数：IO密集型任务，设置为CPU核心数的2倍；虚拟线程模式与连接池大小一致
+        int corePoolSize = virtual ? connectionPoolSize(dataSource, cpuCores * 2) : cpuCores * 2;
         
-        // 最大线程数：核心线程数的2倍
-        int maximumPoolSize = corePoolSize * 2;
+        // 最大线程数：队列无界，与核心线程数相同
+        int maximumPoolSize = corePoolSize;
         
         // 非核心线程存活时间：60秒
         long keepAliveTime = 60L;
         
-        // 工作队列：有界队列，容量500
-        BlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>(500);
+        // 工作队列：优先队列，容量由 ProductTaskSubmitter 的窗口控制
+        BlockingQueue<Runnable> workQueue = new PriorityBlockingQueue<>();
         
         // 线程工厂：自定义线程名称
-        ThreadFactory threadFactory = new ThreadFactory() {
+        ThreadFactory threadFactory = virtual ? VirtualThreads.threadFactory("product-create-") : new ThreadFactory() {
             private final AtomicInteger threadNumber = new AtomicInteger(1);
             
             @Override
@@ -94,18 +115,20 @@ public class ThreadPoolConfig {
             }
         };
         
-        // 拒绝策略：直接抛出异常
+        // 拒绝策略：线程池关闭后抛出异常
         RejectedExecutionHandler rejectedHandler = new ThreadPoolExecutor.AbortPolicy();
         
-        // 创建线程池
-        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        // 创建线程池（记录排队等待和执行耗时）
+        ThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(
+            DynamicExecutorConfig.PRODUCT_CREATE_POOL,
             corePoolSize,
             maximumPoolSize,
             keepAliveTime,
             TimeUnit.SECONDS,
             workQueue,
             threadFactory,
-            rejectedHandler
+            rejectedHandler,
+            meterRegistry
         );
         
         // 允许核心线程超时（可选，如果希望核心线程也能被回收）
@@ -113,29 +136,39 @@ public class ThreadPoolConfig {
         
         logger.info("========================================");
         logger.info("产品创建线程池初始化成功（ThreadPoolExecutor）");
+        logger.info("执行方式: {}", virtual ? "虚拟线程（线程数 = 从数据源连接池大小）" : "平台线程");
         logger.info("CPU核心数: {}", cpuCores);
         logger.info("核心线程数: {}", corePoolSize);
         logger.info("最大线程数: {}", maximumPoolSize);
-        logger.info("队列容量: {}", workQueue.remainingCapacity());
+        logger.info("工作队列: PriorityBlockingQueue（在途上限见 product.submit.max-in-flight）");
         logger.info("非核心线程存活时间: {}秒", keepAliveTime);
-        logger.info("拒绝策略: AbortPolicy（抛出异常）");
+        logger.info("拒绝策略: AbortPolicy（仅线程池关闭后触发）");
         logger.info("========================================");
         
         return executor;
     }
 
+    /**
+     * 连接池最大连接数，不是 HikariCP 时返回 defaultSize
+     */
+    private static int connectionPoolSize(DataSource dataSource, int defaultSize) {
+        return dataSource instanceof HikariDataSource
+                ? ((HikariDataSource) dataSource).getMaximumPoolSize()
+                : defaultSize;
+    }
+
     /**
      * 通用异步任务线程池（可选）
      * 
      * 用于其他异步任务，与产品创建任务隔离
      */
     @Bean(name = "asyncExecutor")
-    public ThreadPoolExecutor asyncExecutor() {
+    public ThreadPoolExecutor asyncExecutor(MeterRegistry meterRegistry) {
         int cpuCores = Runtime.getRuntime().availableProcessors();
         int corePoolSize = cpuCores;
         int maximumPoolSize = cpuCores * 2;
         long keepAliveTime = 60L;
-        BlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>(100);
+        BlockingQueue<Runnable> workQueue = new ResizableCapacityQueue<>(100);
         
         ThreadFactory threadFactory = new ThreadFactory() {
             private final AtomicInteger threadNumber = new AtomicInteger(1);
@@ -149,14 +182,16 @@ public class ThreadPoolConfig {
             }
         };
         
-        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        ThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(
+            DynamicExecutorConfig.ASYNC_POOL,
             corePoolSize,
             maximumPoolSize,
             keepAliveTime,
             TimeUnit.SECONDS,
             workQueue,
             threadFactory,
-            new ThreadPoolExecutor.CallerRunsPolicy()
+            new ThreadPoolExecutor.CallerRunsPolicy(),
+            meterRegistry
         );
         
         logger.info("通用异步线程池初始化成功（ThreadPoolExecutor）");
@@ -0,0 +1,45 @@
+package com.huabin.multids.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc Spring MVC 异步响应线程池
+ *
+ * 说明：
+ * 1. /export 接口返回 StreamingResponseBody，由此线程池写出响应
+ * 2. 每个导出在写完之前一直占用一个数据库连接，线程数即同时进行的导出数，超出的导出排队
+ * 3. 项目中定义了 ThreadPoolExecutor Bean，Spring Boot 不再创建默认的 applicationTaskExecutor，
+ *    不配置的话 MVC 会为每个请求新建线程（SimpleAsyncTaskExecutor）
+ * 4. 线程池不注册为 Bean，避免成为 @Async 的默认线程池
+ */
+@Configuration
+public class WebMvcAsyncConfig implements WebMvcConfigurer, DisposableBean {
+
+    private final ThreadPoolTaskExecutor mvcAsyncExecutor;
+
+    public WebMvcAsyncConfig(@Value("${thread-pool.mvc-async.pool-size:4}") int poolSize) {
+        mvcAsyncExecutor = new ThreadPoolTaskExecutor();
+        mvcAsyncExecutor.setCorePoolSize(poolSize);
+        mvcAsyncExecutor.setMaxPoolSize(poolSize);
+        mvcAsyncExecutor.setThreadNamePrefix("mvc-async-");
+        mvcAsyncExecutor.setDaemon(true);
+        mvcAsyncExecutor.initialize();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+    }
+
+    @Override
+    public void destroy() {
+        mvcAsyncExecutor.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+package com.huabin.multids.controller;
+
+import com.huabin.multids.datasource.ReadWriteRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 数据源监控控制器
+ *
+ * 提供读写分离的路由统计和副本状态（是否可用、复制延迟、活跃连接数）
+ */
+@RestController
+@RequestMapping("/api/monitor")
+public class DataSourceMonitorController {
+
+    @Autowired
+    @Qualifier("primaryRoutingDataSource")
+    private ReadWriteRoutingDataSource primaryRoutingDataSource;
+
+    @Autowired
+    @Qualifier("secondaryRoutingDataSource")
+    private ReadWriteRoutingDataSource secondaryRoutingDataSource;
+
+    /**
+     * 查询两个数据源的读写分离状态
+     *
+     * 测试命令：
+     * curl http://localhost:8080/api/monitor/datasources
+     */
+    @GetMapping("/datasources")
+    public Map<String, Object> getDataSourceStatus() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("primary", primaryRoutingDataSource.getStats());
+        result.put("secondary", secondaryRoutingDataSource.getStats());
+        return result;
+    }
+}
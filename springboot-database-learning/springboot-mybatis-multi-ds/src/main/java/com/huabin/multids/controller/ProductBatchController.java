@@ -1,15 +1,27 @@
 package com.huabin.multids.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huabin.multids.db2.entity.ProductBatchSummary;
 import com.huabin.multids.db2.entity.ProductCreateLog;
 import com.huabin.multids.dto.BatchCreateRequest;
-import com.huabin.multids.enums.ProductCreateStatus;
+import com.huabin.multids.enums.ProductBatchStatus;
 import com.huabin.multids.service.ProductBatchCreateService;
+import com.huabin.page.KeysetPage;
+import com.huabin.web.NdjsonStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @Author huabin
@@ -18,7 +30,10 @@ import java.util.Map;
  * 
  * API接口：
  * POST   /api/products/batch          - 批量创建产品（异步）
- * GET    /api/products/batch/{batchNo} - 查询批次状态
+ * POST   /api/products/batch/stream?creator=xxx - 流式导入产品（NDJSON / CSV，数量不限）
+ * GET    /api/products/batch/{batchNo} - 查询批次状态（计数，detail=true 时附带一页明细）
+ * GET    /api/products/batch/{batchNo}/logs/export - 导出批次明细（NDJSON 流）
+ * GET    /api/products/batch/{batchNo}/progress - 订阅批次进度（SSE）
  * GET    /api/products/batch/creator/{creator} - 查询创建人的所有批次
  */
 @RestController
@@ -28,6 +43,15 @@ public class ProductBatchController {
     @Autowired
     private ProductBatchCreateService batchCreateService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * SSE 连接超时时间，超时后客户端（EventSource）会自动重连
+     */
+    @Value("${product.batch.progress.sse-timeout-ms:600000}")
+    private long sseTimeoutMs;
+
     /**
      * 批量创建产品（异步）
      * 
@@ -72,6 +96,7 @@ public class ProductBatchController {
             result.put("message", "批量创建任务已提交，请通过批次号查询执行状态");
             result.put("totalCount", request.getProducts().size());
             result.put("queryUrl", "/api/products/batch/" + batchNo);
+            result.put("progressUrl", "/api/products/batch/" + batchNo + "/progress");
             
         } catch (IllegalArgumentException e) {
             // 参数校验失败
@@ -87,58 +112,104 @@ public class ProductBatchController {
         return result;
     }
 
+    /**
+     * 流式导入产品（NDJSON 或带表头的 CSV）
+     * 
+     * 说明：
+     * 1. 直接读取请求体流，逐行解析、校验、分块提交，不受单次 1000 个的限制
+     * 2. 线程池处理不过来时阻塞读取（背压），不会拒绝任务
+     * 3. 读完请求体后返回批次号，产品创建仍在线程池中异步执行
+     * 
+     * 测试命令：
+     * curl -X POST "http://localhost:8080/api/products/batch/stream?creator=zhangsan" \
+     *   -H "Content-Type: application/x-ndjson" \
+     *   --data-binary @products.ndjson
+     * 
+     * curl -X POST "http://localhost:8080/api/products/batch/stream?creator=zhangsan" \
+     *   -H "Content-Type: text/csv" \
+     *   --data-binary @products.csv
+     * 
+     * CSV 第一行为表头：productName,productCode,price,stock,description
+     */
+    @PostMapping(value = "/stream", consumes = {"application/x-ndjson", "text/csv"})
+    public Map<String, Object> streamCreate(@RequestParam String creator, HttpServletRequest request) {
+        Map<String, Object> result = new HashMap<>();
+        
+        try {
+            boolean csv = request.getContentType().startsWith("text/csv");
+            Map<String, Object> summary = batchCreateService.streamCreateProducts(creator, request.getInputStream(), csv);
+            
+            result.put("success", summary.get("parseError") == null);
+            result.putAll(summary);
+            result.put("message", summary.get("parseError") == null
+                    ? "导入数据已读取完成，请通过批次号查询执行状态"
+                    : "导入中途解析失败，已提交的产品会继续创建");
+            result.put("queryUrl", "/api/products/batch/" + summary.get("batchNo"));
+            result.put("progressUrl", "/api/products/batch/" + summary.get("batchNo") + "/progress");
+            
+        } catch (IllegalArgumentException e) {
+            result.put("success", false);
+            result.put("message", "参数校验失败：" + e.getMessage());
+            
+        } catch (IOException e) {
+            result.put("success", false);
+            result.put("message", "读取导入数据失败：" + e.getMessage());
+        }
+        
+        return result;
+    }
+
     /**
      * 查询批次状态
      * 
      * 说明：
-     * 1. 返回批次中所有产品的创建状态
-     * 2. 状态：0-创建中，1-创建成功，2-创建失败
-     * 3. 可以轮询此接口查询任务进度
+     * 1. 返回批次计数（总数、创建中、成功、失败），来自 BatchProgressTracker，不扫描日志表
+     * 2. 批次状态：0-提交中，1-执行中，2-已完成
+     * 3. detail=true 时按主键翻页附带产品创建日志：data 为当前页，下一页把 nextId 作为 lastId 传回，
+     *    hasMore = false 时已到最后一页；需要全部明细时用 /{batchNo}/logs/export
+     * 4. 需要实时进度时订阅 /{batchNo}/progress，不必轮询此接口
      * 
      * 测试命令：
      * curl http://localhost:8080/api/products/batch/BATCH_20251229193000_000001
+     * curl "http://localhost:8080/api/products/batch/BATCH_20251229193000_000001?detail=true&limit=100"
+     * curl "http://localhost:8080/api/products/batch/BATCH_20251229193000_000001?detail=true&limit=100&lastId=12345"
      */
     @GetMapping("/{batchNo}")
-    public Map<String, Object> queryBatchStatus(@PathVariable String batchNo) {
+    public Map<String, Object> queryBatchStatus(@PathVariable String batchNo,
+                                                @RequestParam(defaultValue = "false") boolean detail,
+                                                @RequestParam(required = false) Long lastId,
+                                                @RequestParam(required = false) Integer limit) {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            List<ProductCreateLog> logs = batchCreateService.queryBatchStatus(batchNo);
+            ProductBatchSummary progress = batchCreateService.queryBatchProgress(batchNo);
             
-            if (logs.isEmpty()) {
+            if (progress == null) {
                 result.put("success", false);
                 result.put("message", "批次不存在");
                 return result;
             }
             
-            // 统计各状态数量
-            int totalCount = logs.size();
-            int creatingCount = 0;
-            int successCount = 0;
-            int failedCount = 0;
-            
-            for (ProductCreateLog log : logs) {
-                Integer status = log.getCreateStatus();
-                if (ProductCreateStatus.CREATING.getCode().equals(status)) {
-                    creatingCount++;
-                } else if (ProductCreateStatus.SUCCESS.getCode().equals(status)) {
-                    successCount++;
-                } else if (ProductCreateStatus.FAILED.getCode().equals(status)) {
-                    failedCount++;
-                }
-            }
-            
-            // 判断批次是否完成
-            boolean isCompleted = (creatingCount == 0);
+            boolean isCompleted = progress.isCompleted();
+            ProductBatchStatus status = ProductBatchStatus.getByCode(progress.getBatchStatus());
             
             result.put("success", true);
             result.put("batchNo", batchNo);
             result.put("isCompleted", isCompleted);
-            result.put("totalCount", totalCount);
-            result.put("creatingCount", creatingCount);
-            result.put("successCount", successCount);
-            result.put("failedCount", failedCount);
-            result.put("data", logs);
+            result.put("batchStatus", progress.getBatchStatus());
+            result.put("batchStatusDesc", status == null ? null : status.getDesc());
+            result.put("totalCount", progress.getTotalCount());
+            result.put("creatingCount", progress.getCreatingCount());
+            result.put("successCount", progress.getSuccessCount());
+            result.put("failedCount", progress.getFailedCount());
+            result.put("finishTime", progress.getFinishTime());
+            if (detail) {
+                KeysetPage<ProductCreateLog, Long> page = batchCreateService.queryBatchLogs(
+                        batchNo, lastId, KeysetPage.normalizeLimit(limit));
+                result.put("data", page.getList());
+                result.put("nextId", page.getNextKey());
+                result.put("hasMore", page.isHasMore());
+            }
             
             if (isCompleted) {
                 result.put("message", "批次执行完成");
@@ -154,6 +225,64 @@ public class ProductBatchController {
         return result;
     }
 
+    /**
+     * 导出批次明细（NDJSON，每行一条产品创建日志）
+     * 
+     * 说明：
+     * 1. 按主键顺序边查边写，不把整个批次的日志加载到内存
+     * 2. 批次不存在时返回空内容
+     * 
+     * 测试命令：
+     * curl -N http://localhost:8080/api/products/batch/BATCH_20251229193000_000001/logs/export > logs.ndjson
+     */
+    @GetMapping(value = "/{batchNo}/logs/export")
+    public ResponseEntity<StreamingResponseBody> exportBatchLogs(@PathVariable String batchNo) {
+        return NdjsonStreams.of(objectMapper,
+                (Consumer<ProductCreateLog> action) -> batchCreateService.forEachBatchLog(batchNo, action));
+    }
+
+    /**
+     * 订阅批次进度（Server-Sent Events）
+     * 
+     * 说明：
+     * 1. 连接建立后立即推送一次当前进度，之后进度有变化时推送（间隔不小于 product.batch.progress.flush-interval-ms）
+     * 2. 事件名 progress，数据为 ProductBatchSummary 的 JSON；completed = true 的事件推送后服务端关闭连接
+     * 3. 批次不存在时推送一个 error 事件后关闭连接
+     * 
+     * 测试命令：
+     * curl -N http://localhost:8080/api/products/batch/BATCH_20251229193000_000001/progress
+     * 
+     * 浏览器：
+     * const source = new EventSource('/api/products/batch/' + batchNo + '/progress');
+     * source.addEventListener('progress', e => { const p = JSON.parse(e.data); if (p.completed) source.close(); });
+     */
+    @GetMapping(value = "/{batchNo}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeProgress(@PathVariable String batchNo) throws IOException {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        
+        if (batchCreateService.queryBatchProgress(batchNo) == null) {
+            emitter.send(SseEmitter.event().name("error").data("批次不存在"));
+            emitter.complete();
+            return emitter;
+        }
+        
+        Runnable unsubscribe = batchCreateService.subscribeBatchProgress(batchNo, progress -> {
+            try {
+                emitter.send(SseEmitter.event().name("progress").data(progress, MediaType.APPLICATION_JSON));
+                if (progress.isCompleted()) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或连接已关闭
+                emitter.completeWithError(e);
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        
+        return emitter;
+    }
+
     /**
      * 查询创建人的所有批次
      * 
@@ -1,9 +1,14 @@
 package com.huabin.multids.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.huabin.multids.db2.entity.Product;
 import com.huabin.multids.service.ProductService;
+import com.huabin.page.KeysetPage;
+import com.huabin.web.NdjsonStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -29,6 +34,9 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 根据ID查询产品
      * 
@@ -56,19 +64,27 @@ public class ProductController {
     }
 
     /**
-     * 查询所有产品
+     * 按主键翻页查询产品
+     * 
+     * 说明：
+     * - data 为当前页，下一页把 nextId 作为 lastId 传回，hasMore = false 时已到最后一页
+     * - limit 默认 100，最大 1000；需要全部数据时用 /export
      * 
      * 测试命令：
      * curl http://localhost:8080/api/products
+     * curl "http://localhost:8080/api/products?lastId=100&limit=50"
      */
     @GetMapping
-    public Map<String, Object> getAllProducts() {
+    public Map<String, Object> getAllProducts(@RequestParam(required = false) Long lastId,
+                                              @RequestParam(required = false) Integer limit) {
         Map<String, Object> result = new HashMap<>();
         try {
-            List<Product> products = productService.getAllProducts();
+            KeysetPage<Product, Long> page = productService.getProductsPage(lastId, KeysetPage.normalizeLimit(limit));
             result.put("success", true);
-            result.put("data", products);
-            result.put("count", products.size());
+            result.put("data", page.getList());
+            result.put("count", page.getList().size());
+            result.put("nextId", page.getNextKey());
+            result.put("hasMore", page.isHasMore());
             result.put("message", "查询成功");
         } catch (Exception e) {
             result.put("success", false);
@@ -77,6 +93,19 @@ public class ProductController {
         return result;
     }
 
+    /**
+     * 导出所有产品（NDJSON，每行一个产品）
+     * 
+     * 说明：按主键顺序边查边写，不把整张表加载到内存
+     * 
+     * 测试命令：
+     * curl -N http://localhost:8080/api/products/export > products.ndjson
+     */
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        return NdjsonStreams.of(objectMapper, productService::forEachProduct);
+    }
+
     /**
      * 根据条件查询产品
      * 
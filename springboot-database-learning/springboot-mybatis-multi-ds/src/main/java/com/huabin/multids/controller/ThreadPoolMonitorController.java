@@ -1,12 +1,20 @@
 package com.huabin.multids.controller;
 
+import com.huabin.multids.executor.DynamicExecutorRegistry;
+import com.huabin.multids.executor.ExecutorAutoTuner;
+import com.huabin.multids.executor.InstrumentedThreadPoolExecutor;
+import com.huabin.multids.task.ProductTaskSubmitter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -15,7 +23,10 @@ import java.util.concurrent.ThreadPoolExecutor;
  * @DateTime 2025-12-29
  * @Desc 线程池监控控制器
  * 
- * 提供线程池运行状态的监控接口
+ * 提供线程池运行状态的监控接口，以及运行时调整线程池参数的接口
+ * 
+ * latency 为最近一个滚动窗口内的排队等待/执行耗时分位数，同样的指标在 /actuator/prometheus 中以
+ * executor_queue_wait_seconds、executor_execution_seconds、executor_rejected_total 导出
  */
 @RestController
 @RequestMapping("/api/monitor")
@@ -29,6 +40,18 @@ public class ThreadPoolMonitorController {
     @Qualifier("asyncExecutor")
     private ThreadPoolExecutor asyncExecutor;
 
+    @Autowired
+    private ProductTaskSubmitter productTaskSubmitter;
+
+    @Autowired
+    private DynamicExecutorRegistry executorRegistry;
+
+    /**
+     * 自动调整器（thread-pool.auto-tune.enabled=true 时才存在）
+     */
+    @Autowired(required = false)
+    private ExecutorAutoTuner productCreateAutoTuner;
+
     /**
      * 查询产品创建线程池状态
      * 
@@ -40,6 +63,17 @@ public class ThreadPoolMonitorController {
         return buildThreadPoolStatus("产品创建线程池", productCreateExecutor);
     }
 
+    /**
+     * 查询产品创建任务提交器状态（在途窗口、溢出与重放）
+     * 
+     * 测试命令：
+     * curl http://localhost:8080/api/monitor/product-submitter
+     */
+    @GetMapping("/product-submitter")
+    public Map<String, Object> getProductSubmitterStatus() {
+        return productTaskSubmitter.getStats();
+    }
+
     /**
      * 查询通用异步线程池状态
      * 
@@ -65,6 +99,53 @@ public class ThreadPoolMonitorController {
         return result;
     }
 
+    /**
+     * 查询所有已登记线程池的当前参数
+     * 
+     * 测试命令：
+     * curl http://localhost:8080/api/monitor/pools
+     */
+    @GetMapping("/pools")
+    public Map<String, Object> getPools() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String name : executorRegistry.names()) {
+            Map<String, Object> pool = executorRegistry.describe(name);
+            ThreadPoolExecutor executor = executorRegistry.get(name);
+            if (executor instanceof InstrumentedThreadPoolExecutor) {
+                pool.put("latency", ((InstrumentedThreadPoolExecutor) executor).getLatencyStats());
+            }
+            result.put(name, pool);
+        }
+        result.put("autoTuner", productCreateAutoTuner == null ? "未启用" : productCreateAutoTuner.getStats());
+        return result;
+    }
+
+    /**
+     * 运行时调整线程池参数（未传的参数不修改，重启后恢复配置值）
+     * 
+     * 测试命令：
+     * curl -X PUT "http://localhost:8080/api/monitor/pools/asyncExecutor?corePoolSize=8&maximumPoolSize=16&queueCapacity=200"
+     * curl -X PUT "http://localhost:8080/api/monitor/pools/productCreateExecutor?corePoolSize=16&maximumPoolSize=16&queueCapacity=1000"
+     */
+    @PutMapping("/pools/{name}")
+    public Map<String, Object> updatePool(@PathVariable String name,
+                                          @RequestParam(required = false) Integer corePoolSize,
+                                          @RequestParam(required = false) Integer maximumPoolSize,
+                                          @RequestParam(required = false) Integer queueCapacity,
+                                          @RequestParam(required = false) Long keepAliveSeconds) {
+        Map<String, Object> result = new HashMap<>();
+        try {
+            result.put("success", true);
+            result.put("poolName", name);
+            result.put("config", executorRegistry.update(name, corePoolSize, maximumPoolSize,
+                    queueCapacity, keepAliveSeconds));
+        } catch (IllegalArgumentException e) {
+            result.put("success", false);
+            result.put("message", "调整失败：" + e.getMessage());
+        }
+        return result;
+    }
+
     /**
      * 构建线程池状态信息
      */
@@ -99,20 +180,25 @@ public class ThreadPoolMonitorController {
         taskStats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
         status.put("taskStats", taskStats);
         
-        // 计算使用率
+        // 计算使用率（按最大线程数计算，按核心线程数计算时扩容后会超过100%）
         Map<String, Object> usage = new HashMap<>();
-        int corePoolSize = executor.getCorePoolSize();
+        int maximumPoolSize = executor.getMaximumPoolSize();
         int activeCount = executor.getActiveCount();
         int queueSize = executor.getQueue().size();
         int queueCapacity = queueSize + executor.getQueue().remainingCapacity();
         
-        double threadUsageRate = corePoolSize > 0 ? (double) activeCount / corePoolSize * 100 : 0;
+        double threadUsageRate = maximumPoolSize > 0 ? (double) activeCount / maximumPoolSize * 100 : 0;
         double queueUsageRate = queueCapacity > 0 ? (double) queueSize / queueCapacity * 100 : 0;
         
         usage.put("threadUsageRate", String.format("%.2f%%", threadUsageRate));
         usage.put("queueUsageRate", String.format("%.2f%%", queueUsageRate));
         status.put("usage", usage);
         
+        // 耗时分位数（区分任务是执行慢还是在排队）
+        if (executor instanceof InstrumentedThreadPoolExecutor) {
+            status.put("latency", ((InstrumentedThreadPoolExecutor) executor).getLatencyStats());
+        }
+        
         // 健康状态评估
         String healthStatus = evaluateHealthStatus(executor);
         status.put("healthStatus", healthStatus);
@@ -1,9 +1,14 @@
 package com.huabin.multids.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.huabin.multids.db1.entity.User;
 import com.huabin.multids.service.UserService;
+import com.huabin.page.KeysetPage;
+import com.huabin.web.NdjsonStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -16,7 +21,8 @@ import java.util.Map;
  * 
  * API接口：
  * GET    /api/users/{id}        - 根据ID查询用户
- * GET    /api/users             - 查询所有用户
+ * GET    /api/users             - 按主键翻页查询用户
+ * GET    /api/users/export      - 导出所有用户（NDJSON 流）
  * GET    /api/users/search      - 根据条件查询用户
  * POST   /api/users             - 创建用户
  * PUT    /api/users             - 更新用户
@@ -29,6 +35,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 根据ID查询用户
      * 
@@ -56,19 +65,27 @@ public class UserController {
     }
 
     /**
-     * 查询所有用户
+     * 按主键翻页查询用户
+     * 
+     * 说明：
+     * - data 为当前页，下一页把 nextId 作为 lastId 传回，hasMore = false 时已到最后一页
+     * - limit 默认 100，最大 1000；需要全部数据时用 /export
      * 
      * 测试命令：
      * curl http://localhost:8080/api/users
+     * curl "http://localhost:8080/api/users?lastId=100&limit=50"
      */
     @GetMapping
-    public Map<String, Object> getAllUsers() {
+    public Map<String, Object> getAllUsers(@RequestParam(required = false) Long lastId,
+                                           @RequestParam(required = false) Integer limit) {
         Map<String, Object> result = new HashMap<>();
         try {
-            List<User> users = userService.getAllUsers();
+            KeysetPage<User, Long> page = userService.getUsersPage(lastId, KeysetPage.normalizeLimit(limit));
             result.put("success", true);
-            result.put("data", users);
-            result.put("count", users.size());
+            result.put("data", page.getList());
+            result.put("count", page.getList().size());
+            result.put("nextId", page.getNextKey());
+            result.put("hasMore", page.isHasMore());
             result.put("message", "查询成功");
         } catch (Exception e) {
             result.put("success", false);
@@ -77,6 +94,19 @@ public class UserController {
         return result;
     }
 
+    /**
+     * 导出所有用户（NDJSON，每行一个用户）
+     * 
+     * 说明：按主键顺序边查边写，不把整张表加载到内存
+     * 
+     * 测试命令：
+     * curl -N http://localhost:8080/api/users/export > users.ndjson
+     */
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return NdjsonStreams.of(objectMapper, userService::forEachUser);
+    }
+
     /**
      * 根据条件查询用户
      * 
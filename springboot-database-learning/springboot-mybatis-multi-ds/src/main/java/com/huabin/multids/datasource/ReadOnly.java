@@ -0,0 +1,32 @@
+package com.huabin.multids.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 只读查询注解：方法内的查询路由到只读副本
+ *
+ * 使用示例：
+ * @ReadOnly
+ * public List<User> getAllUsers() {
+ *     return userMapper.selectAll();
+ * }
+ *
+ * 规则（见 ReadWriteRoutingDataSource）：
+ * 1. 没有事务时，注解方法内的查询走副本
+ * 2. 在读写事务中调用注解方法，仍然走主库（事务内要读到自己的写入）
+ * 3. @Transactional(readOnly = true) 的事务不需要此注解，同样走副本
+ * 4. 只对当前线程生效，方法内提交到线程池的任务不受影响
+ *
+ * 副本有复制延迟，刚写入就要读出来的查询不要加此注解
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnly {
+}
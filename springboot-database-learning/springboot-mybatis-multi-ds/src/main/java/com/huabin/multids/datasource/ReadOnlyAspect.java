@@ -0,0 +1,31 @@
+package com.huabin.multids.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc @ReadOnly 切面：方法执行期间设置只读路由标记
+ *
+ * 优先级最高，在事务切面之外设置标记；真正决定路由的是 ReadWriteRoutingDataSource 取连接的时刻
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReadOnlyAspect {
+
+    @Around("@annotation(com.huabin.multids.datasource.ReadOnly) || @within(com.huabin.multids.datasource.ReadOnly)")
+    public Object routeToReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        Boolean previous = ReadOnlyContext.enter();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadOnlyContext.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.huabin.multids.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 当前线程的只读路由标记
+ *
+ * 由 ReadOnlyAspect 在 @ReadOnly 方法前后设置，也可以在代码中直接使用：
+ * List<User> users = ReadOnlyContext.call(() -> userMapper.selectAll());
+ */
+public final class ReadOnlyContext {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private ReadOnlyContext() {
+    }
+
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    /**
+     * 以只读路由执行（可嵌套，执行完恢复原来的标记）
+     */
+    public static <T> T call(Supplier<T> action) {
+        Boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static Boolean enter() {
+        Boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void restore(Boolean previous) {
+        if (previous == null) {
+            READ_ONLY.remove();
+        } else {
+            READ_ONLY.set(previous);
+        }
+    }
+}
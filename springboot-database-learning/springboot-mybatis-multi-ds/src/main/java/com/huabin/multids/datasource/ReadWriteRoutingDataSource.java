@@ -0,0 +1,221 @@
+package com.huabin.multids.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 读写分离路由数据源
+ *
+ * 路由规则（取连接时判断）：
+ * 1. 只读事务（@Transactional(readOnly = true)）-> 副本
+ * 2. 读写事务 -> 主库（即使在 @ReadOnly 方法内，保证事务内读到自己的写入）
+ * 3. 没有事务：@ReadOnly 方法内（ReadOnlyContext）-> 副本，否则 -> 主库
+ * 4. 没有可用副本 -> 主库
+ *
+ * 负载均衡：在可用副本中选活跃连接数最少的一个，从轮转位置开始比较，活跃数相同时依次轮换
+ *
+ * 复制延迟：后台线程每隔 checkIntervalMs 用 ReplicaLagProbe 探测每个副本，
+ * 延迟超过 maxLagSeconds、复制停止或连不上的副本标记为不可用，恢复后自动重新加入
+ *
+ * 必须包一层 LazyConnectionDataSourceProxy 再交给事务管理器和 MyBatis：
+ * DataSourceTransactionManager 在标记事务只读之前就取连接，不延迟取连接的话只读事务也会路由到主库
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private static final String WRITE_KEY = "write";
+
+    private final String name;
+    private final List<Replica> replicas;
+    private final ReplicaLagProbe lagProbe;
+    private final long maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+
+    private final LongAdder writeRoutes = new LongAdder();
+    private final LongAdder replicaRoutes = new LongAdder();
+    private final LongAdder fallbackRoutes = new LongAdder();
+
+    /**
+     * @param writeDataSource 主库连接池
+     * @param replicas        副本连接池，为空时所有请求都走主库
+     * @param maxLagSeconds   允许的最大复制延迟（秒）
+     */
+    public ReadWriteRoutingDataSource(String name, DataSource writeDataSource, List<HikariDataSource> replicas,
+                                      ReplicaLagProbe lagProbe, long maxLagSeconds) {
+        this.name = name;
+        this.lagProbe = lagProbe;
+        this.maxLagSeconds = maxLagSeconds;
+        this.replicas = new ArrayList<>(replicas.size());
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(WRITE_KEY, writeDataSource);
+        for (HikariDataSource dataSource : replicas) {
+            Replica replica = new Replica(dataSource.getPoolName(), dataSource);
+            this.replicas.add(replica);
+            targets.put(replica.key, dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(writeDataSource);
+        setLenientFallback(false);
+
+        this.lagChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name + "-replica-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 先同步探测一次（副本在探测通过前不接收查询），再定期探测
+     */
+    public void start(long checkIntervalMs) {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        checkReplicas();
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止探测并关闭副本连接池（主库连接池由它自己的 Bean 关闭）
+     */
+    public void close() {
+        lagChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!isReadOnlyRoute()) {
+            writeRoutes.increment();
+            return WRITE_KEY;
+        }
+        Replica replica = chooseReplica();
+        if (replica == null) {
+            fallbackRoutes.increment();
+            return WRITE_KEY;
+        }
+        replicaRoutes.increment();
+        return replica.key;
+    }
+
+    private static boolean isReadOnlyRoute() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return true;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        return ReadOnlyContext.isReadOnly();
+    }
+
+    private Replica chooseReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        Replica chosen = null;
+        int chosenActive = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            int active = replica.activeConnections();
+            if (active < chosenActive) {
+                chosen = replica;
+                chosenActive = active;
+            }
+        }
+        return chosen;
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                long lag = lagProbe.lagSeconds(connection);
+                replica.lagSeconds = lag;
+                healthy = lag >= 0 && lag <= maxLagSeconds;
+                replica.lastError = lag < 0 ? "复制未运行" : healthy ? null : "复制延迟超过 " + maxLagSeconds + "s";
+            } catch (Exception e) {
+                replica.lagSeconds = -1;
+                replica.lastError = e.getMessage();
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    logger.info("副本恢复可用，数据源: {}, 副本: {}, 复制延迟: {}s", name, replica.key, replica.lagSeconds);
+                } else {
+                    logger.warn("副本不可用，查询改走其他副本或主库，数据源: {}, 副本: {}, 复制延迟: {}s, 原因: {}",
+                               name, replica.key, replica.lagSeconds, replica.lastError);
+                }
+                replica.healthy = healthy;
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("maxLagSeconds", maxLagSeconds);
+        stats.put("writeRoutes", writeRoutes.sum());
+        stats.put("replicaRoutes", replicaRoutes.sum());
+        stats.put("fallbackRoutes", fallbackRoutes.sum());
+        List<Map<String, Object>> replicaStats = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", replica.key);
+            item.put("healthy", replica.healthy);
+            item.put("lagSeconds", replica.lagSeconds);
+            item.put("activeConnections", replica.activeConnections());
+            item.put("lastError", replica.lastError);
+            replicaStats.add(item);
+        }
+        stats.put("replicas", replicaStats);
+        return stats;
+    }
+
+    private static final class Replica {
+
+        final String key;
+        final HikariDataSource dataSource;
+        volatile boolean healthy;
+        volatile long lagSeconds = -1;
+        volatile String lastError;
+
+        Replica(String key, HikariDataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+
+        int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.huabin.multids.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 从配置绑定副本连接池
+ *
+ * 配置示例（与主库一样直接绑定到 HikariDataSource 的属性）：
+ * spring.datasource.secondary.replicas:
+ *   - jdbc-url: jdbc:mysql://replica1:3306/springboot_db2?...
+ *     username: springboot
+ *     password: xxx
+ *     maximum-pool-size: 20
+ */
+public final class ReplicaDataSources {
+
+    private ReplicaDataSources() {
+    }
+
+    /**
+     * @param prefix         配置前缀，如 spring.datasource.secondary.replicas
+     * @param poolNamePrefix 未配置 pool-name 时的连接池名前缀，依次加 -Replica1、-Replica2
+     * @return 副本连接池（连接在第一次使用时才建立），没有配置时返回空列表
+     */
+    public static List<HikariDataSource> bind(Environment environment, String prefix, String poolNamePrefix) {
+        List<HikariDataSource> replicas = Binder.get(environment)
+                .bind(prefix, Bindable.listOf(HikariDataSource.class))
+                .orElse(Collections.emptyList());
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariDataSource replica = replicas.get(i);
+            if (replica.getPoolName() == null) {
+                replica.setPoolName(poolNamePrefix + "-Replica" + (i + 1));
+            }
+            // 副本只用于查询
+            replica.setReadOnly(true);
+        }
+        return replicas;
+    }
+}
@@ -0,0 +1,40 @@
+package com.huabin.multids.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 副本复制延迟探测
+ */
+@FunctionalInterface
+public interface ReplicaLagProbe {
+
+    /**
+     * MySQL：SHOW SLAVE STATUS 的 Seconds_Behind_Master（8.0.22+ 同时支持 SHOW REPLICA STATUS，旧语句仍可用）
+     * 没有复制配置或复制线程停止（值为 NULL）时返回 -1
+     */
+    ReplicaLagProbe MYSQL = connection -> {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+            if (!rs.next()) {
+                return -1;
+            }
+            long lag = rs.getLong("Seconds_Behind_Master");
+            return rs.wasNull() ? -1 : lag;
+        }
+    };
+
+    /**
+     * 不检查复制延迟，只要能取到连接就认为可用
+     */
+    ReplicaLagProbe NONE = connection -> 0;
+
+    /**
+     * @return 复制延迟（秒），复制不可用时返回负数
+     */
+    long lagSeconds(Connection connection) throws SQLException;
+}
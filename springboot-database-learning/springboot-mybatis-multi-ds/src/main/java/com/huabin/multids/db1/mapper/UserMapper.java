@@ -2,6 +2,7 @@ package com.huabin.multids.db1.mapper;
 
 import com.huabin.multids.db1.entity.User;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -37,6 +38,18 @@ public interface UserMapper {
      */
     List<User> selectAll();
 
+    /**
+     * 按主键翻页（WHERE id > lastId ORDER BY id LIMIT limit），lastId 为空时从第一行开始
+     */
+    List<User> selectPage(@Param("lastId") Long lastId, @Param("limit") int limit);
+
+    /**
+     * 按主键顺序流式遍历全部用户（MySQL 逐行读取，不把整张表加载到内存）
+     *
+     * 注意：必须在事务内遍历，事务结束时游标随 SqlSession 关闭
+     */
+    Cursor<User> selectAllCursor();
+
     /**
      * 根据用户名查询
      */
@@ -0,0 +1,169 @@
+package com.huabin.multids.db2.entity;
+
+import com.huabin.multids.enums.ProductBatchStatus;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 产品批次汇总实体类（批次进度计数）
+ *
+ * 对应数据库表：springboot_db2.product_batch_summary
+ *
+ * 计数由 BatchProgressTracker 在内存中累加，定期整行写回，查询批次进度不再扫描 product_create_log
+ */
+public class ProductBatchSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 批次号
+     */
+    private String batchNo;
+
+    /**
+     * 创建人
+     */
+    private String creator;
+
+    /**
+     * 已提交产品数（流式导入时随读取增加）
+     */
+    private Long totalCount;
+
+    /**
+     * 创建成功数
+     */
+    private Long successCount;
+
+    /**
+     * 创建失败数
+     */
+    private Long failedCount;
+
+    /**
+     * 批次状态：0-提交中，1-执行中，2-已完成
+     */
+    private Integer batchStatus;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+
+    /**
+     * 完成时间
+     */
+    private LocalDateTime finishTime;
+
+    /**
+     * 创建中数量 = 总数 - 成功数 - 失败数
+     */
+    public long getCreatingCount() {
+        return Math.max(0, value(totalCount) - value(successCount) - value(failedCount));
+    }
+
+    public boolean isCompleted() {
+        return ProductBatchStatus.COMPLETED.getCode().equals(batchStatus);
+    }
+
+    private static long value(Long count) {
+        return count == null ? 0 : count;
+    }
+
+    // Getter and Setter
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public void setBatchNo(String batchNo) {
+        this.batchNo = batchNo;
+    }
+
+    public String getCreator() {
+        return creator;
+    }
+
+    public void setCreator(String creator) {
+        this.creator = creator;
+    }
+
+    public Long getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(Long totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public Long getSuccessCount() {
+        return successCount;
+    }
+
+    public void setSuccessCount(Long successCount) {
+        this.successCount = successCount;
+    }
+
+    public Long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(Long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public Integer getBatchStatus() {
+        return batchStatus;
+    }
+
+    public void setBatchStatus(Integer batchStatus) {
+        this.batchStatus = batchStatus;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    public LocalDateTime getFinishTime() {
+        return finishTime;
+    }
+
+    public void setFinishTime(LocalDateTime finishTime) {
+        this.finishTime = finishTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductBatchSummary{" +
+                "batchNo='" + batchNo + '\'' +
+                ", creator='" + creator + '\'' +
+                ", totalCount=" + totalCount +
+                ", successCount=" + successCount +
+                ", failedCount=" + failedCount +
+                ", batchStatus=" + batchStatus +
+                ", createTime=" + createTime +
+                ", updateTime=" + updateTime +
+                ", finishTime=" + finishTime +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package com.huabin.multids.db2.mapper;
+
+import com.huabin.multids.db2.entity.ProductBatchSummary;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 产品批次汇总 Mapper
+ */
+public interface ProductBatchSummaryMapper {
+
+    /**
+     * 插入或整行覆盖计数（计数是内存中的绝对值，重复写入结果相同）
+     */
+    int upsert(ProductBatchSummary summary);
+
+    /**
+     * 根据批次号查询
+     */
+    ProductBatchSummary selectByBatchNo(@Param("batchNo") String batchNo);
+
+    /**
+     * 按日志表聚合一个批次的计数（一条 GROUP BY，不返回明细行）
+     *
+     * 用于重启后恢复计数，以及汇总表上线前的历史批次；批次没有日志时返回 null
+     */
+    ProductBatchSummary countByBatchNo(@Param("batchNo") String batchNo);
+}
@@ -2,6 +2,7 @@ package com.huabin.multids.db2.mapper;
 
 import com.huabin.multids.db2.entity.ProductCreateLog;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -17,6 +18,11 @@ public interface ProductCreateLogMapper {
      */
     int insert(ProductCreateLog log);
 
+    /**
+     * 多行插入日志，自增ID回填到每个元素
+     */
+    int batchInsert(@Param("logs") List<ProductCreateLog> logs);
+
     /**
      * 根据ID查询
      */
@@ -35,11 +41,32 @@ public interface ProductCreateLogMapper {
                     @Param("createStatus") Integer createStatus, 
                     @Param("errorMessage") String errorMessage);
 
+    /**
+     * 批量更新日志状态（product_id 取每条日志的 productId）
+     */
+    int batchUpdateStatus(@Param("logs") List<ProductCreateLog> logs,
+                          @Param("createStatus") Integer createStatus,
+                          @Param("errorMessage") String errorMessage);
+
     /**
      * 查询所有日志
      */
     List<ProductCreateLog> selectAll();
 
+    /**
+     * 按主键翻页（WHERE id > lastId ORDER BY id LIMIT limit），batchNo 为空时不按批次过滤
+     */
+    List<ProductCreateLog> selectPage(@Param("batchNo") String batchNo,
+                                      @Param("lastId") Long lastId,
+                                      @Param("limit") int limit);
+
+    /**
+     * 按主键顺序流式遍历日志（MySQL 逐行读取），batchNo 为空时遍历全部
+     *
+     * 注意：必须在事务内遍历，事务结束时游标随 SqlSession 关闭
+     */
+    Cursor<ProductCreateLog> selectCursor(@Param("batchNo") String batchNo);
+
     /**
      * 根据创建人查询
      */
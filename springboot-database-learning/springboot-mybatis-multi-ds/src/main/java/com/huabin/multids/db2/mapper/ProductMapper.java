@@ -2,6 +2,7 @@ package com.huabin.multids.db2.mapper;
 
 import com.huabin.multids.db2.entity.Product;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -27,6 +28,11 @@ public interface ProductMapper {
      */
     int insert(Product record);
 
+    /**
+     * 多行插入（INSERT ... VALUES (...),(...)），自增ID回填到每个元素
+     */
+    int batchInsert(@Param("products") List<Product> products);
+
     /**
      * 根据主键查询
      */
@@ -37,6 +43,18 @@ public interface ProductMapper {
      */
     List<Product> selectAll();
 
+    /**
+     * 按主键翻页（WHERE id > lastId ORDER BY id LIMIT limit），lastId 为空时从第一行开始
+     */
+    List<Product> selectPage(@Param("lastId") Long lastId, @Param("limit") int limit);
+
+    /**
+     * 按主键顺序流式遍历全部产品（MySQL 逐行读取，不把整张表加载到内存）
+     *
+     * 注意：必须在事务内遍历，事务结束时游标随 SqlSession 关闭
+     */
+    Cursor<Product> selectAllCursor();
+
     /**
      * 根据产品编码查询
      */
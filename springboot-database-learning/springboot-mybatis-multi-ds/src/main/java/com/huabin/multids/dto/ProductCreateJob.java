@@ -0,0 +1,91 @@
+package com.huabin.multids.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 产品创建作业（提交到线程池的最小单位）
+ *
+ * 说明：
+ * - 一个作业对应一个任务：1 个产品对应 ProductCreateTask，多个产品对应 ProductBatchChunkTask
+ * - 只包含数据不包含 Mapper，线程池满时可以序列化成一行 JSON 写入溢出文件，之后重放
+ */
+public class ProductCreateJob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 批次号
+     */
+    private String batchNo;
+
+    /**
+     * 创建人
+     */
+    private String creator;
+
+    /**
+     * 产品列表
+     */
+    private List<ProductCreateRequest> products;
+
+    /**
+     * 已重放次数（0 表示首次提交）
+     */
+    private int attempts;
+
+    public ProductCreateJob() {
+    }
+
+    public ProductCreateJob(String batchNo, String creator, List<ProductCreateRequest> products) {
+        this.batchNo = batchNo;
+        this.creator = creator;
+        this.products = products;
+    }
+
+    // Getter and Setter
+
+    public String getBatchNo() {
+        return batchNo;
+    }
+
+    public void setBatchNo(String batchNo) {
+        this.batchNo = batchNo;
+    }
+
+    public String getCreator() {
+        return creator;
+    }
+
+    public void setCreator(String creator) {
+        this.creator = creator;
+    }
+
+    public List<ProductCreateRequest> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<ProductCreateRequest> products) {
+        this.products = products;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCreateJob{" +
+                "batchNo='" + batchNo + '\'' +
+                ", creator='" + creator + '\'' +
+                ", products=" + (products == null ? 0 : products.size()) +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
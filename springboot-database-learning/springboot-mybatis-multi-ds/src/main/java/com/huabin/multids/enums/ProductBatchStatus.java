@@ -0,0 +1,55 @@
+package com.huabin.multids.enums;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 产品批次状态枚举
+ */
+public enum ProductBatchStatus {
+
+    /**
+     * 提交中（流式导入还在读取请求体，总数还会增加）
+     */
+    SUBMITTING(0, "提交中"),
+
+    /**
+     * 执行中（已全部提交，等待线程池执行完）
+     */
+    RUNNING(1, "执行中"),
+
+    /**
+     * 已完成（成功数 + 失败数 = 总数）
+     */
+    COMPLETED(2, "已完成");
+
+    private final Integer code;
+    private final String desc;
+
+    ProductBatchStatus(Integer code, String desc) {
+        this.code = code;
+        this.desc = desc;
+    }
+
+    public Integer getCode() {
+        return code;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    /**
+     * 根据code获取枚举
+     */
+    public static ProductBatchStatus getByCode(Integer code) {
+        if (code == null) {
+            return null;
+        }
+        for (ProductBatchStatus status : values()) {
+            if (status.getCode().equals(code)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
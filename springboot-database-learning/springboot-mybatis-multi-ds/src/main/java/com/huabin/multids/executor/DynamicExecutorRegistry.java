@@ -0,0 +1,132 @@
+package com.huabin.multids.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 动态线程池注册表
+ *
+ * 说明：
+ * 1. 按名称登记线程池，运行时调整核心线程数、最大线程数、队列容量、空闲存活时间
+ * 2. 队列容量：队列是 ResizableCapacityQueue 时直接调整；
+ *    容量由外部控制的线程池（如 productCreateExecutor 的提交窗口）登记时传入 ResizableCapacity
+ * 3. 调整核心/最大线程数时按方向决定先后顺序，保证任意时刻 core <= max
+ *
+ * 调整只在内存中生效，重启后恢复配置文件中的值
+ */
+public class DynamicExecutorRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamicExecutorRegistry.class);
+
+    private static final class Entry {
+        private final ThreadPoolExecutor executor;
+        private final ResizableCapacity capacity;
+
+        private Entry(ThreadPoolExecutor executor, ResizableCapacity capacity) {
+            this.executor = executor;
+            this.capacity = capacity;
+        }
+    }
+
+    private final Map<String, Entry> pools = new LinkedHashMap<>();
+
+    public void register(String name, ThreadPoolExecutor executor) {
+        ResizableCapacity capacity = executor.getQueue() instanceof ResizableCapacity
+                ? (ResizableCapacity) executor.getQueue()
+                : null;
+        register(name, executor, capacity);
+    }
+
+    /**
+     * @param capacity 队列容量控制，null 表示容量不可调整
+     */
+    public synchronized void register(String name, ThreadPoolExecutor executor, ResizableCapacity capacity) {
+        pools.put(name, new Entry(executor, capacity));
+    }
+
+    public synchronized Set<String> names() {
+        return new LinkedHashSet<>(pools.keySet());
+    }
+
+    public synchronized ThreadPoolExecutor get(String name) {
+        return entry(name).executor;
+    }
+
+    /**
+     * 调整线程池参数，参数为 null 表示不修改
+     *
+     * @return 调整后的配置
+     */
+    public synchronized Map<String, Object> update(String name, Integer corePoolSize, Integer maximumPoolSize,
+                                                   Integer queueCapacity, Long keepAliveSeconds) {
+        Entry entry = entry(name);
+        ThreadPoolExecutor executor = entry.executor;
+        int core = corePoolSize != null ? corePoolSize : executor.getCorePoolSize();
+        int max = maximumPoolSize != null ? maximumPoolSize : executor.getMaximumPoolSize();
+        if (core <= 0 || max < core) {
+            throw new IllegalArgumentException("需要满足 0 < corePoolSize <= maximumPoolSize，当前: core="
+                    + core + ", max=" + max);
+        }
+        if (queueCapacity != null) {
+            if (entry.capacity == null) {
+                throw new IllegalArgumentException("线程池 " + name + " 的队列容量不可调整");
+            }
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("queueCapacity 必须大于0");
+            }
+        }
+        if (keepAliveSeconds != null && keepAliveSeconds <= 0) {
+            throw new IllegalArgumentException("keepAliveSeconds 必须大于0");
+        }
+
+        Map<String, Object> before = describe(name);
+        // 新的 max 不小于当前 core 时先改 max，否则先改 core，避免中间状态 core > max
+        if (max >= executor.getCorePoolSize()) {
+            executor.setMaximumPoolSize(max);
+            executor.setCorePoolSize(core);
+        } else {
+            executor.setCorePoolSize(core);
+            executor.setMaximumPoolSize(max);
+        }
+        if (queueCapacity != null) {
+            entry.capacity.setCapacity(queueCapacity);
+        }
+        if (keepAliveSeconds != null) {
+            executor.setKeepAliveTime(keepAliveSeconds, TimeUnit.SECONDS);
+        }
+        Map<String, Object> after = describe(name);
+        logger.info("线程池参数已调整，名称: {}, 调整前: {}, 调整后: {}", name, before, after);
+        return after;
+    }
+
+    /**
+     * 当前配置
+     */
+    public synchronized Map<String, Object> describe(String name) {
+        Entry entry = entry(name);
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("corePoolSize", entry.executor.getCorePoolSize());
+        config.put("maximumPoolSize", entry.executor.getMaximumPoolSize());
+        config.put("queueCapacity", entry.capacity == null ? null : entry.capacity.getCapacity());
+        config.put("queueCapacityResizable", entry.capacity != null);
+        config.put("keepAliveSeconds", entry.executor.getKeepAliveTime(TimeUnit.SECONDS));
+        return config;
+    }
+
+    private Entry entry(String name) {
+        Entry entry = pools.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("线程池不存在: " + name);
+        }
+        return entry;
+    }
+}
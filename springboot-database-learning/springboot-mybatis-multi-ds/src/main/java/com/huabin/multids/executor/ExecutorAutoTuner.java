@@ -0,0 +1,166 @@
+package com.huabin.multids.executor;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 数据库任务线程池的核心线程数自动调整
+ *
+ * 每个周期采样一次：
+ * - 估算排队等待时间：队列长度 / 本周期完成速率（Little 定律），不需要给每个任务计时
+ * - HikariCP 连接池：有线程在等连接说明数据库侧已经饱和
+ *
+ * 调整规则（每次调整 step 个线程，范围 [minCore, min(maxCore, 连接池大小)]）：
+ * 1. 有线程等待数据库连接：缩小，再加线程只会让更多线程阻塞在 getConnection 上
+ * 2. 估算等待时间超过 targetWaitMs 且工作线程全忙：扩大
+ * 3. 连续 IDLE_SAMPLES 个周期队列为空且活跃线程不到一半：缩小
+ *
+ * 最大线程数：原来与核心线程数相等（无界队列，不会创建非核心线程）时保持相等，一起调大调小；
+ * 否则只在小于新的核心线程数时调大
+ */
+public class ExecutorAutoTuner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorAutoTuner.class);
+
+    private static final int IDLE_SAMPLES = 3;
+
+    private final DynamicExecutorRegistry registry;
+    private final String poolName;
+    private final HikariDataSource dataSource;
+    private final int minCore;
+    private final int maxCore;
+    private final long targetWaitMs;
+    private final int step;
+
+    private final ScheduledExecutorService scheduler;
+
+    private long lastCompleted = -1;
+    private long lastSampleNanos;
+    private int idleSamples;
+
+    private volatile double estimatedWaitMs;
+    private volatile String lastDecision = "未调整";
+    private final LongAdder adjustments = new LongAdder();
+
+    /**
+     * @param dataSource 线程池任务使用的连接池，不是 HikariCP 时传 null（不参考连接池饱和度）
+     */
+    public ExecutorAutoTuner(DynamicExecutorRegistry registry, String poolName, HikariDataSource dataSource,
+                             int minCore, int maxCore, long targetWaitMs, int step) {
+        if (minCore <= 0 || maxCore < minCore || step <= 0) {
+            throw new IllegalArgumentException("需要满足 0 < minCore <= maxCore，step > 0");
+        }
+        this.registry = registry;
+        this.poolName = poolName;
+        this.dataSource = dataSource;
+        this.minCore = minCore;
+        this.maxCore = maxCore;
+        this.targetWaitMs = targetWaitMs;
+        this.step = step;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "executor-auto-tuner-" + poolName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(long intervalMs) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                tune();
+            } catch (RuntimeException e) {
+                logger.error("线程池自动调整失败，名称: {}", poolName, e);
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolName", poolName);
+        stats.put("minCore", minCore);
+        stats.put("maxCore", maxCore);
+        stats.put("targetWaitMs", targetWaitMs);
+        stats.put("estimatedWaitMs", Math.round(estimatedWaitMs));
+        stats.put("adjustments", adjustments.sum());
+        stats.put("lastDecision", lastDecision);
+        return stats;
+    }
+
+    /**
+     * 采样并调整一次
+     */
+    synchronized void tune() {
+        ThreadPoolExecutor executor = registry.get(poolName);
+        long now = System.nanoTime();
+        long completed = executor.getCompletedTaskCount();
+        if (lastCompleted < 0) {
+            lastCompleted = completed;
+            lastSampleNanos = now;
+            return;
+        }
+        double seconds = (now - lastSampleNanos) / 1e9;
+        double rate = seconds > 0 ? (completed - lastCompleted) / seconds : 0;
+        lastCompleted = completed;
+        lastSampleNanos = now;
+
+        int queued = executor.getQueue().size();
+        int active = executor.getActiveCount();
+        int core = executor.getCorePoolSize();
+        estimatedWaitMs = queued == 0 ? 0 : rate > 0 ? queued / rate * 1000 : Double.MAX_VALUE;
+
+        int upper = maxCore;
+        int awaitingConnection = 0;
+        HikariPoolMXBean pool = dataSource == null ? null : dataSource.getHikariPoolMXBean();
+        if (pool != null) {
+            upper = Math.min(upper, dataSource.getMaximumPoolSize());
+            awaitingConnection = pool.getThreadsAwaitingConnection();
+        }
+        upper = Math.max(upper, minCore);
+
+        int target = core;
+        String reason = null;
+        if (awaitingConnection > 0) {
+            target = core - step;
+            reason = "数据库连接池饱和（等待连接线程数 " + awaitingConnection + "）";
+            idleSamples = 0;
+        } else if (estimatedWaitMs > targetWaitMs && active >= core) {
+            target = core + step;
+            reason = String.format("排队等待约 %.0fms，超过目标 %dms", Math.min(estimatedWaitMs, 1e9), targetWaitMs);
+            idleSamples = 0;
+        } else if (queued == 0 && active < core / 2) {
+            if (++idleSamples >= IDLE_SAMPLES) {
+                target = core - step;
+                reason = "连续 " + IDLE_SAMPLES + " 个周期空闲（活跃线程 " + active + "）";
+                idleSamples = 0;
+            }
+        } else {
+            idleSamples = 0;
+        }
+
+        target = Math.max(minCore, Math.min(upper, target));
+        if (target == core || reason == null) {
+            return;
+        }
+        int max = executor.getMaximumPoolSize();
+        registry.update(poolName, target, max == core ? target : Math.max(target, max), null, null);
+        adjustments.increment();
+        lastDecision = core + " -> " + target + "：" + reason;
+        logger.info("线程池自动调整，名称: {}, 核心线程数: {}", poolName, lastDecision);
+    }
+}
@@ -0,0 +1,192 @@
+package com.huabin.multids.executor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 带任务耗时统计的线程池
+ *
+ * 每个任务在 execute() 时包装一层，记录入队时间：
+ * - executor.queue.wait：入队到开始执行的等待时间
+ * - executor.execution：任务执行时间
+ * - executor.rejected：进入拒绝策略的次数（CallerRunsPolicy 等不抛异常的策略也会计数）
+ *
+ * 两个 Timer 的分位数由 Micrometer 基于 HdrHistogram 的滚动窗口计算：
+ * 窗口长度 WINDOW，分 WINDOW_BUFFERS 段轮转，p50/p99 只反映最近约一个窗口内的任务；
+ * 同时发布直方图桶，Prometheus 可用 histogram_quantile 跨实例聚合
+ *
+ * 线程数、队列长度、完成数等由 ExecutorServiceMetrics 导出（executor.pool.size、executor.queued 等），
+ * 所有指标都带 name 标签区分线程池
+ *
+ * 队列是 PriorityBlockingQueue 时，包装任务按内层任务的 compareTo 排序，内层任务必须可比较
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    /**
+     * 分位数滚动窗口
+     */
+    public static final Duration WINDOW = Duration.ofMinutes(1);
+    private static final int WINDOW_BUFFERS = 3;
+
+    private final String poolName;
+    private final Timer queueWait;
+    private final Timer execution;
+    private final Counter rejected;
+
+    public InstrumentedThreadPoolExecutor(String poolName, int corePoolSize, int maximumPoolSize,
+                                          long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue,
+                                          ThreadFactory threadFactory, RejectedExecutionHandler handler,
+                                          MeterRegistry meterRegistry) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+        this.poolName = poolName;
+        this.queueWait = timer("executor.queue.wait", "任务入队到开始执行的等待时间", meterRegistry);
+        this.execution = timer("executor.execution", "任务执行时间", meterRegistry);
+        this.rejected = Counter.builder("executor.rejected")
+                .description("进入拒绝策略的任务数")
+                .tag("name", poolName)
+                .register(meterRegistry);
+        super.setRejectedExecutionHandler(new CountingHandler(handler));
+        new ExecutorServiceMetrics(this, poolName, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    private Timer timer(String name, String description, MeterRegistry meterRegistry) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("name", poolName)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .distributionStatisticExpiry(WINDOW)
+                .distributionStatisticBufferLength(WINDOW_BUFFERS)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        super.execute(new TimedTask(command, System.nanoTime()));
+    }
+
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        super.setRejectedExecutionHandler(new CountingHandler(handler));
+    }
+
+    @Override
+    public RejectedExecutionHandler getRejectedExecutionHandler() {
+        return ((CountingHandler) super.getRejectedExecutionHandler()).delegate;
+    }
+
+    public long getRejectedCount() {
+        return (long) rejected.count();
+    }
+
+    /**
+     * 最近一个窗口的等待/执行耗时分位数（毫秒）
+     *
+     * bottleneck：等待 p99 高于执行 p99 说明任务主要在排队（线程不够或被数据库连接卡住），
+     * 反之说明任务本身慢
+     */
+    public Map<String, Object> getLatencyStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> waitStats = snapshot(queueWait);
+        Map<String, Object> execStats = snapshot(execution);
+        stats.put("window", WINDOW.getSeconds() + "秒");
+        stats.put("queueWaitMs", waitStats);
+        stats.put("executionMs", execStats);
+        stats.put("rejectedCount", getRejectedCount());
+        double waitP99 = (double) waitStats.get("p99");
+        double execP99 = (double) execStats.get("p99");
+        if (waitP99 == 0 && execP99 == 0) {
+            stats.put("bottleneck", "无数据");
+        } else {
+            stats.put("bottleneck", waitP99 > execP99 ? "排队等待" : "任务执行");
+        }
+        return stats;
+    }
+
+    private static Map<String, Object> snapshot(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.count());
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            stats.put("p" + Math.round(percentile.percentile() * 100), round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        // 快照中的 max 依赖具体注册中心实现，直接取 Timer 的窗口最大值
+        stats.put("max", round(timer.max(TimeUnit.MILLISECONDS)));
+        return stats;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 计数后交给原拒绝策略处理
+     */
+    private final class CountingHandler implements RejectedExecutionHandler {
+
+        private final RejectedExecutionHandler delegate;
+
+        private CountingHandler(RejectedExecutionHandler delegate) {
+            if (delegate == null) {
+                throw new NullPointerException();
+            }
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            rejected.increment();
+            delegate.rejectedExecution(r, executor);
+        }
+    }
+
+    /**
+     * 记录入队时间的任务包装
+     */
+    private final class TimedTask implements Runnable, Comparable<TimedTask> {
+
+        private final Runnable delegate;
+        private final long enqueueNanos;
+
+        private TimedTask(Runnable delegate, long enqueueNanos) {
+            this.delegate = delegate;
+            this.enqueueNanos = enqueueNanos;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            queueWait.record(start - enqueueNanos, TimeUnit.NANOSECONDS);
+            try {
+                delegate.run();
+            } finally {
+                execution.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compareTo(TimedTask other) {
+            return ((Comparable<Object>) delegate).compareTo(other.delegate);
+        }
+    }
+}
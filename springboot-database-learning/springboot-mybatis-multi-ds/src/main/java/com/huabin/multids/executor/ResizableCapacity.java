@@ -0,0 +1,16 @@
+package com.huabin.multids.executor;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 可在运行时调整的容量（线程池队列容量、提交窗口大小等）
+ */
+public interface ResizableCapacity {
+
+    int getCapacity();
+
+    /**
+     * 调小时不会丢弃已入队的元素，只是在降到新容量以下之前不再接收新元素
+     */
+    void setCapacity(int capacity);
+}
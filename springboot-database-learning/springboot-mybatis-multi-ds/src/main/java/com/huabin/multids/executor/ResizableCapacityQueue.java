@@ -0,0 +1,87 @@
+package com.huabin.multids.executor;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 容量可调整的阻塞队列
+ *
+ * 说明：
+ * - LinkedBlockingQueue 的容量在构造时固定，线程池运行中无法调整
+ * - 这里底层用无界的 LinkedBlockingQueue，由 capacity 字段控制入队：
+ *   ThreadPoolExecutor 提交任务只调用 offer(e)，队列满返回 false 后线程池才会扩容到 max 或执行拒绝策略
+ * - 入队的"检查容量 + 入队"在同一把锁内完成，不会超过容量；出队不加锁，不影响工作线程取任务
+ */
+public class ResizableCapacityQueue<E> extends LinkedBlockingQueue<E> implements ResizableCapacity {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ReentrantLock offerLock = new ReentrantLock();
+
+    private volatile int capacity;
+
+    public ResizableCapacityQueue(int capacity) {
+        setCapacity(capacity);
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        offerLock.lock();
+        try {
+            return size() < capacity && super.offer(e);
+        } finally {
+            offerLock.unlock();
+        }
+    }
+
+    /**
+     * 带超时的 offer：轮询等待空位（线程池不会调用，供直接使用队列的场景）
+     */
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(e)) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        while (!offer(e)) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (offer(e)) {
+            return true;
+        }
+        throw new IllegalStateException("Queue full");
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(capacity - size(), 0);
+    }
+}
@@ -0,0 +1,35 @@
+package com.huabin.multids.progress;
+
+import com.huabin.multids.db2.entity.ProductBatchSummary;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 批次进度存储
+ *
+ * BatchProgressTracker 定期把内存计数整行写入存储，本进程内存中没有的批次（其他实例提交的、已淘汰的）从存储读取
+ *
+ * 实现：
+ * - JdbcBatchProgressStore：product_batch_summary 表，持久化
+ * - RedisBatchProgressStore：Redis Hash，多实例共享读取，可选
+ */
+public interface BatchProgressStore {
+
+    /**
+     * 写入批次进度（计数为绝对值，重复写入结果相同）
+     */
+    void save(ProductBatchSummary summary);
+
+    /**
+     * 读取批次进度，批次不存在时返回 null
+     */
+    ProductBatchSummary load(String batchNo);
+
+    /**
+     * 重启后恢复计数：内存计数丢失、最后一次写回之后完成的产品也没有计入，
+     * 需要以存储中最准确的数据为准，默认与 load 相同
+     */
+    default ProductBatchSummary recover(String batchNo) {
+        return load(batchNo);
+    }
+}
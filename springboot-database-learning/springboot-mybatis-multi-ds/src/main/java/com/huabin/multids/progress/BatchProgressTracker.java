@@ -0,0 +1,478 @@
+package com.huabin.multids.progress;
+
+import com.huabin.multids.db2.entity.ProductBatchSummary;
+import com.huabin.multids.enums.ProductBatchStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 批次进度跟踪器
+ *
+ * 解决的问题：
+ * 原来查询批次状态要把 product_create_log 中这个批次的所有行查出来逐行统计，
+ * 10 万行的批次每轮询一次就传输 10 万行，批次越大、轮询越频繁，数据库压力越大
+ *
+ * 实现：
+ * 1. 每个批次在内存中维护 总数 / 成功数 / 失败数 三个原子计数器，创建中 = 总数 - 成功 - 失败
+ *    - Service 提交分块前累加总数（同步写回 store，见 addTotal），全部提交后标记提交完成
+ *    - 任务执行完一个产品（或一整块）后累加成功数 / 失败数
+ * 2. 后台线程每隔 flushIntervalMs 把有变化的批次整行写入 store（product_batch_summary）和 cache（Redis，可选），
+ *    同时把最新进度推送给订阅者（SSE），每个批次每个周期最多一次写入、一次推送
+ * 3. 查询顺序：本进程内存 -> cache -> store；本进程内存中没有的批次被订阅时，每个周期从 cache / store 读一次
+ * 4. 批次完成并写回后在内存中保留 retentionMs，之后只从存储读取
+ * 5. 重启后溢出文件中的作业重放时，内存中没有这个批次，从 store 恢复计数（以日志表的统计为准）。
+ *    恢复的批次不再累加成功数 / 失败数：恢复时的统计可能已经包含触发恢复的那个产品，
+ *    也包含其他已提交、还没调用 recordXxx 的产品，再累加会重复计数、提前显示完成。
+ *    之后 recordXxx 只标记有变化，写回时重新从 store 统计一次（每个周期最多一次）
+ *
+ * 注意：重启时正在执行的任务不会重放（原有行为），这些产品的日志停留在"创建中"，批次不会变为已完成
+ */
+public class BatchProgressTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchProgressTracker.class);
+
+    private final BatchProgressStore store;
+    private final BatchProgressStore cache;
+    private final long retentionMs;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Set<Consumer<ProductBatchSummary>>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, String> remoteVersions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder restored = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+
+    /**
+     * @param store       持久化存储
+     * @param cache       共享缓存，没有时传 null
+     * @param retentionMs 批次完成后在内存中保留的时间
+     */
+    public BatchProgressTracker(BatchProgressStore store, BatchProgressStore cache, long retentionMs) {
+        this.store = store;
+        this.cache = cache;
+        this.retentionMs = retentionMs;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "batch-progress-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(long flushIntervalMs) {
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止后台线程，并把还没写回的计数写回一次
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 登记新批次（提交任何分块之前调用）
+     */
+    public void register(String batchNo, String creator) {
+        counters.put(batchNo, new Counter(batchNo, creator, LocalDateTime.now()));
+    }
+
+    /**
+     * 累加总数并同步写回 store（提交分块之前调用，保证成功数 + 失败数不会超过总数）
+     *
+     * 进程在定时写回之前退出时，汇总行不存在，重放溢出作业时只能按日志表统计总数，
+     * 批次会在只统计到部分产品时显示完成；先写回总数，恢复时总数取汇总行。
+     * 写回在 flusher 线程中执行，不会与定时写回交错写入旧的快照
+     *
+     * @throws IllegalStateException 写回失败，总数已回退，调用方不应提交这个分块
+     */
+    public void addTotal(String batchNo, int count) {
+        Counter counter = counters.get(batchNo);
+        if (counter == null) {
+            return;
+        }
+        counter.total.addAndGet(count);
+        counter.changed();
+        long version = counter.version.get();
+        boolean saved;
+        try {
+            saved = flusher.submit(() -> {
+                flush(counter, System.currentTimeMillis());
+                return counter.flushedVersion >= version;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            saved = false;
+        } catch (ExecutionException | RejectedExecutionException e) {
+            saved = false;
+        }
+        if (!saved) {
+            counter.total.addAndGet(-count);
+            counter.changed();
+            throw new IllegalStateException("批次总数写入失败，批次号: " + batchNo);
+        }
+    }
+
+    /**
+     * 标记批次已全部提交，之后成功数 + 失败数达到总数即为完成
+     */
+    public void finishSubmit(String batchNo) {
+        Counter counter = counters.get(batchNo);
+        if (counter != null) {
+            counter.submitFinished = true;
+            counter.changed();
+        }
+    }
+
+    /**
+     * 累加成功数（产品已提交、日志已更新之后调用）
+     */
+    public void recordSuccess(String batchNo, int count) {
+        Counter counter = counterOrRestore(batchNo);
+        if (counter != null) {
+            if (!counter.restored) {
+                counter.success.addAndGet(count);
+            }
+            counter.changed();
+        }
+    }
+
+    /**
+     * 累加失败数（日志已标记失败之后调用）
+     */
+    public void recordFailure(String batchNo, int count) {
+        Counter counter = counterOrRestore(batchNo);
+        if (counter != null) {
+            if (!counter.restored) {
+                counter.failed.addAndGet(count);
+            }
+            counter.changed();
+        }
+    }
+
+    /**
+     * 查询批次进度，批次不存在时返回 null
+     */
+    public ProductBatchSummary getProgress(String batchNo) {
+        Counter counter = counters.get(batchNo);
+        return counter != null ? counter.snapshot() : loadStored(batchNo);
+    }
+
+    /**
+     * 订阅批次进度
+     *
+     * 订阅时立即在调用线程推送一次当前进度，之后进度有变化时在后台线程推送，每个周期最多一次；
+     * 推送 completed = true 的进度后自动取消订阅
+     *
+     * @return 取消订阅（连接提前断开时调用）
+     */
+    public Runnable subscribe(String batchNo, Consumer<ProductBatchSummary> listener) {
+        Runnable unsubscribe = () -> listeners.computeIfPresent(batchNo, (key, set) -> {
+            set.remove(listener);
+            if (set.isEmpty()) {
+                remoteVersions.remove(batchNo);
+                return null;
+            }
+            return set;
+        });
+        listeners.computeIfAbsent(batchNo, key -> new CopyOnWriteArraySet<>()).add(listener);
+        ProductBatchSummary current = getProgress(batchNo);
+        if (current != null) {
+            notify(listener, current);
+            if (current.isCompleted()) {
+                unsubscribe.run();
+            }
+        }
+        return unsubscribe;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedBatches", counters.size());
+        stats.put("subscribedBatches", listeners.size());
+        stats.put("cacheEnabled", cache != null);
+        stats.put("retentionMs", retentionMs);
+        stats.put("flushed", flushed.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("restored", restored.sum());
+        stats.put("reconciled", reconciled.sum());
+        return stats;
+    }
+
+    /**
+     * 写回有变化的批次并推送给订阅者，淘汰已完成且超过保留时间的批次
+     */
+    void flush() {
+        long now = System.currentTimeMillis();
+        for (Counter counter : counters.values()) {
+            try {
+                flush(counter, now);
+            } catch (RuntimeException e) {
+                logger.error("写回批次进度失败，批次号: {}, 错误: {}", counter.batchNo, e.getMessage(), e);
+            }
+        }
+        for (String batchNo : listeners.keySet()) {
+            if (!counters.containsKey(batchNo)) {
+                try {
+                    pollStored(batchNo);
+                } catch (RuntimeException e) {
+                    logger.warn("读取批次进度失败，批次号: {}, 错误: {}", batchNo, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void flush(Counter counter, long now) {
+        long version = counter.version.get();
+        if (version == counter.flushedVersion) {
+            if (counter.evictAt > 0 && now >= counter.evictAt) {
+                counters.remove(counter.batchNo, counter);
+            }
+            return;
+        }
+        if (counter.restored && version != counter.reconciledVersion && !reconcile(counter, version)) {
+            return;
+        }
+
+        ProductBatchSummary summary = counter.snapshot();
+        if (summary.isCompleted() && counter.finishTime == null) {
+            counter.finishTime = summary.getUpdateTime();
+            summary.setFinishTime(counter.finishTime);
+            logger.info("批次执行完成，批次号: {}, 总数: {}, 成功: {}, 失败: {}", counter.batchNo,
+                       summary.getTotalCount(), summary.getSuccessCount(), summary.getFailedCount());
+        }
+        if (save(summary)) {
+            counter.flushedVersion = version;
+            if (summary.isCompleted()) {
+                counter.evictAt = now + retentionMs;
+            }
+        }
+        publish(counter.batchNo, summary);
+    }
+
+    private boolean save(ProductBatchSummary summary) {
+        try {
+            store.save(summary);
+            flushed.increment();
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            logger.error("批次进度写入数据库失败，下个周期重试，批次号: {}, 错误: {}",
+                        summary.getBatchNo(), e.getMessage());
+            return false;
+        }
+        if (cache != null) {
+            try {
+                cache.save(summary);
+            } catch (RuntimeException e) {
+                logger.warn("批次进度写入缓存失败，批次号: {}, 错误: {}", summary.getBatchNo(), e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 其他实例的批次：进度有变化时推送
+     */
+    private void pollStored(String batchNo) {
+        ProductBatchSummary summary = loadStored(batchNo);
+        if (summary == null) {
+            return;
+        }
+        String version = summary.getTotalCount() + "/" + summary.getSuccessCount() + "/"
+                + summary.getFailedCount() + "/" + summary.getBatchStatus();
+        if (!version.equals(remoteVersions.put(batchNo, version))) {
+            publish(batchNo, summary);
+        }
+    }
+
+    private ProductBatchSummary loadStored(String batchNo) {
+        if (cache != null) {
+            try {
+                ProductBatchSummary cached = cache.load(batchNo);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("从缓存读取批次进度失败，改为查询数据库，批次号: {}, 错误: {}", batchNo, e.getMessage());
+            }
+        }
+        return store.load(batchNo);
+    }
+
+    private Counter counterOrRestore(String batchNo) {
+        Counter counter = counters.get(batchNo);
+        return counter != null ? counter : counters.computeIfAbsent(batchNo, this::restore);
+    }
+
+    /**
+     * 内存中没有的批次（重启后重放溢出文件中的作业）：从 store 恢复计数
+     *
+     * 提交批次的请求已随进程结束，恢复的批次视为已全部提交；
+     * 触发恢复的 recordXxx 不再累加，它的产品已经计入恢复时的统计
+     */
+    private Counter restore(String batchNo) {
+        try {
+            ProductBatchSummary summary = store.recover(batchNo);
+            if (summary == null) {
+                logger.warn("批次不存在，忽略进度更新，批次号: {}", batchNo);
+                return null;
+            }
+            Counter counter = new Counter(batchNo, summary.getCreator(),
+                    summary.getCreateTime() != null ? summary.getCreateTime() : LocalDateTime.now());
+            counter.total.set(value(summary.getTotalCount()));
+            counter.success.set(value(summary.getSuccessCount()));
+            counter.failed.set(value(summary.getFailedCount()));
+            counter.submitFinished = true;
+            counter.restored = true;
+            counter.reconciledVersion = counter.version.get();
+            restored.increment();
+            logger.info("恢复批次进度，批次号: {}, 总数: {}, 成功: {}, 失败: {}", batchNo,
+                       counter.total.get(), counter.success.get(), counter.failed.get());
+            return counter;
+        } catch (RuntimeException e) {
+            logger.error("恢复批次进度失败，忽略进度更新，批次号: {}, 错误: {}", batchNo, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 恢复的批次：从 store 重新统计成功数 / 失败数，统计失败时下个周期重试
+     *
+     * 先读 version 再统计：统计期间的 recordXxx 会让 version 变化，下个周期再统计一次
+     */
+    private boolean reconcile(Counter counter, long version) {
+        ProductBatchSummary summary;
+        try {
+            summary = store.recover(counter.batchNo);
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            logger.error("重新统计批次进度失败，下个周期重试，批次号: {}, 错误: {}", counter.batchNo, e.getMessage());
+            return false;
+        }
+        if (summary != null) {
+            counter.total.set(Math.max(counter.total.get(), value(summary.getTotalCount())));
+            counter.success.set(value(summary.getSuccessCount()));
+            counter.failed.set(value(summary.getFailedCount()));
+            reconciled.increment();
+        }
+        counter.reconciledVersion = version;
+        return true;
+    }
+
+    private void publish(String batchNo, ProductBatchSummary summary) {
+        Set<Consumer<ProductBatchSummary>> subscribers = summary.isCompleted()
+                ? listeners.remove(batchNo) : listeners.get(batchNo);
+        if (summary.isCompleted()) {
+            remoteVersions.remove(batchNo);
+        }
+        if (subscribers != null) {
+            for (Consumer<ProductBatchSummary> listener : subscribers) {
+                notify(listener, summary);
+            }
+        }
+    }
+
+    private static void notify(Consumer<ProductBatchSummary> listener, ProductBatchSummary summary) {
+        try {
+            listener.accept(summary);
+        } catch (RuntimeException e) {
+            logger.warn("推送批次进度失败，批次号: {}, 错误: {}", summary.getBatchNo(), e.getMessage());
+        }
+    }
+
+    private static long value(Long count) {
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 单个批次的计数
+     *
+     * 提交线程写 total / submitFinished，任务线程写 success / failed，flusher 线程读；
+     * version 每次变化加一，flushedVersion、reconciledVersion、finishTime、evictAt 只由 flusher 线程写；
+     * restored 的批次 success / failed 只由 flusher 线程按 store 的统计重写
+     */
+    private static final class Counter {
+
+        final String batchNo;
+        final String creator;
+        final LocalDateTime createTime;
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong success = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong version = new AtomicLong(1);
+        volatile boolean submitFinished;
+        volatile boolean restored;
+
+        long flushedVersion;
+        long reconciledVersion;
+        volatile LocalDateTime finishTime;
+        volatile long evictAt;
+
+        Counter(String batchNo, String creator, LocalDateTime createTime) {
+            this.batchNo = batchNo;
+            this.creator = creator;
+            this.createTime = createTime;
+        }
+
+        void changed() {
+            version.incrementAndGet();
+        }
+
+        /**
+         * 先读提交标记和总数，再读成功/失败数：提交完成后总数不再变化，
+         * 读到 成功 + 失败 >= 总数 时批次一定已经完成
+         */
+        ProductBatchSummary snapshot() {
+            boolean finished = submitFinished;
+            long totalCount = total.get();
+            long successCount = success.get();
+            long failedCount = failed.get();
+
+            ProductBatchStatus status;
+            if (!finished) {
+                status = ProductBatchStatus.SUBMITTING;
+            } else if (successCount + failedCount >= totalCount) {
+                status = ProductBatchStatus.COMPLETED;
+            } else {
+                status = ProductBatchStatus.RUNNING;
+            }
+
+            ProductBatchSummary summary = new ProductBatchSummary();
+            summary.setBatchNo(batchNo);
+            summary.setCreator(creator);
+            summary.setTotalCount(totalCount);
+            summary.setSuccessCount(successCount);
+            summary.setFailedCount(failedCount);
+            summary.setBatchStatus(status.getCode());
+            summary.setCreateTime(createTime);
+            summary.setUpdateTime(LocalDateTime.now());
+            summary.setFinishTime(finishTime);
+            return summary;
+        }
+    }
+}
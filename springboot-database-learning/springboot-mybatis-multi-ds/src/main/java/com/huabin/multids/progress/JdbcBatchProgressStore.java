@@ -0,0 +1,51 @@
+package com.huabin.multids.progress;
+
+import com.huabin.multids.db2.entity.ProductBatchSummary;
+import com.huabin.multids.db2.mapper.ProductBatchSummaryMapper;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 基于 product_batch_summary 表的批次进度存储
+ *
+ * - save：INSERT ... ON DUPLICATE KEY UPDATE，一个批次一行
+ * - load：读汇总行；汇总表上线前的历史批次没有汇总行，按日志表聚合一次
+ * - recover：总数取汇总行，成功/失败数以日志表聚合为准（日志状态与产品在同一事务中提交）。
+ *   总数在提交分块之前已写入汇总行（BatchProgressTracker.addTotal），没有汇总行时
+ *   日志表的行数不是批次总数，不能据此判断完成
+ */
+public class JdbcBatchProgressStore implements BatchProgressStore {
+
+    private final ProductBatchSummaryMapper summaryMapper;
+
+    public JdbcBatchProgressStore(ProductBatchSummaryMapper summaryMapper) {
+        this.summaryMapper = summaryMapper;
+    }
+
+    @Override
+    public void save(ProductBatchSummary summary) {
+        summaryMapper.upsert(summary);
+    }
+
+    @Override
+    public ProductBatchSummary load(String batchNo) {
+        ProductBatchSummary summary = summaryMapper.selectByBatchNo(batchNo);
+        return summary != null ? summary : summaryMapper.countByBatchNo(batchNo);
+    }
+
+    @Override
+    public ProductBatchSummary recover(String batchNo) {
+        ProductBatchSummary summary = summaryMapper.selectByBatchNo(batchNo);
+        ProductBatchSummary counted = summaryMapper.countByBatchNo(batchNo);
+        if (summary == null) {
+            return null;
+        }
+        if (counted == null) {
+            return summary;
+        }
+        summary.setSuccessCount(counted.getSuccessCount());
+        summary.setFailedCount(counted.getFailedCount());
+        summary.setTotalCount(Math.max(summary.getTotalCount(), counted.getTotalCount()));
+        return summary;
+    }
+}
@@ -0,0 +1,81 @@
+package com.huabin.multids.progress;
+
+import com.huabin.multids.db2.entity.ProductBatchSummary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 基于 Redis Hash 的批次进度存储
+ *
+ * 多实例部署时，批次只在提交它的实例内存中计数；其他实例查询或订阅进度时先读 Redis，
+ * 不用每次都查数据库。每个批次一个 Hash：product:batch:progress:{batchNo}，写入时刷新过期时间
+ */
+public class RedisBatchProgressStore implements BatchProgressStore {
+
+    private static final String KEY_PREFIX = "product:batch:progress:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final long ttlSeconds;
+
+    public RedisBatchProgressStore(StringRedisTemplate redisTemplate, long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    @Override
+    public void save(ProductBatchSummary summary) {
+        Map<String, String> hash = new HashMap<>();
+        put(hash, "creator", summary.getCreator());
+        put(hash, "totalCount", summary.getTotalCount());
+        put(hash, "successCount", summary.getSuccessCount());
+        put(hash, "failedCount", summary.getFailedCount());
+        put(hash, "batchStatus", summary.getBatchStatus());
+        put(hash, "createTime", summary.getCreateTime());
+        put(hash, "updateTime", summary.getUpdateTime());
+        put(hash, "finishTime", summary.getFinishTime());
+
+        String key = KEY_PREFIX + summary.getBatchNo();
+        redisTemplate.opsForHash().putAll(key, hash);
+        redisTemplate.expire(key, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public ProductBatchSummary load(String batchNo) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(KEY_PREFIX + batchNo);
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+        ProductBatchSummary summary = new ProductBatchSummary();
+        summary.setBatchNo(batchNo);
+        summary.setCreator((String) hash.get("creator"));
+        summary.setTotalCount(toLong(hash.get("totalCount")));
+        summary.setSuccessCount(toLong(hash.get("successCount")));
+        summary.setFailedCount(toLong(hash.get("failedCount")));
+        Long batchStatus = toLong(hash.get("batchStatus"));
+        summary.setBatchStatus(batchStatus == null ? null : batchStatus.intValue());
+        summary.setCreateTime(toTime(hash.get("createTime")));
+        summary.setUpdateTime(toTime(hash.get("updateTime")));
+        summary.setFinishTime(toTime(hash.get("finishTime")));
+        return summary;
+    }
+
+    private static void put(Map<String, String> hash, String field, Object value) {
+        if (value != null) {
+            hash.put(field, value.toString());
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : Long.valueOf((String) value);
+    }
+
+    private static LocalDateTime toTime(Object value) {
+        return value == null ? null : LocalDateTime.parse((String) value);
+    }
+}
@@ -1,24 +1,41 @@
 package com.huabin.multids.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.huabin.id.IdGenerator;
+import com.huabin.multids.db2.entity.ProductBatchSummary;
 import com.huabin.multids.db2.entity.ProductCreateLog;
 import com.huabin.multids.db2.mapper.ProductCreateLogMapper;
-import com.huabin.multids.db2.mapper.ProductMapper;
 import com.huabin.multids.dto.BatchCreateRequest;
+import com.huabin.multids.dto.ProductCreateJob;
 import com.huabin.multids.dto.ProductCreateRequest;
-import com.huabin.multids.task.ProductCreateTask;
+import com.huabin.multids.progress.BatchProgressTracker;
+import com.huabin.multids.task.ProductTaskSubmitter;
+import com.huabin.page.KeysetPage;
+import org.apache.ibatis.cursor.Cursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @Author huabin
@@ -31,12 +48,15 @@ import java.util.concurrent.atomic.AtomicInteger;
  * 3. 提交任务到线程池
  * 4. 快速返回批次号
  * 5. 提供查询批次状态的方法
+ * 6. 流式导入 NDJSON / CSV（不限数量，内存占用恒定）
+ * 7. 批次进度计数（BatchProgressTracker），查询和订阅进度不扫描日志表
  * 
  * 设计说明：
  * - 接口调用后立即返回，不等待任务完成
- * - 每个产品创建任务独立执行，互不影响
- * - 使用线程池控制并发数量
- * - 通过批次号查询任务执行状态
+ * - 默认按 chunkSize 分块，每块一个 ProductBatchChunkTask（多行 INSERT + 批量更新状态）
+ * - chunkSize <= 1 时退回每个产品一个 ProductCreateTask
+ * - 通过 ProductTaskSubmitter 提交，窗口满时作业写入溢出文件稍后重放，请求线程不写失败日志
+ * - 通过批次号查询任务执行状态：读 BatchProgressTracker 的计数，逐行明细只在需要时查询
  */
 @Service
 public class ProductBatchCreateService {
@@ -44,10 +64,15 @@ public class ProductBatchCreateService {
     private static final Logger logger = LoggerFactory.getLogger(ProductBatchCreateService.class);
 
     /**
-     * 产品 Mapper（从数据源）
+     * 流式导入时返回的校验错误条数上限（其余只计数）
      */
-    @Autowired
-    private ProductMapper productMapper;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    static {
+        CSV_MAPPER.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
 
     /**
      * 日志 Mapper（从数据源）
@@ -56,23 +81,32 @@ public class ProductBatchCreateService {
     private ProductCreateLogMapper logMapper;
 
     /**
-     * 产品创建线程池
+     * 产品创建任务提交器（带背压和溢出重放）
      */
     @Autowired
-    @Qualifier("productCreateExecutor")
-    private ThreadPoolExecutor productCreateExecutor;
+    private ProductTaskSubmitter taskSubmitter;
 
     /**
-     * 从数据源事务模板
+     * 批次进度跟踪器（内存计数，定期写回 product_batch_summary）
      */
     @Autowired
-    @Qualifier("secondaryTransactionTemplate")
-    private TransactionTemplate transactionTemplate;
+    private BatchProgressTracker progressTracker;
 
     /**
-     * 批次号计数器（用于生成唯一批次号）
+     * 批次号生成器（数据库号段模式，多实例不重复）
      */
-    private static final AtomicInteger BATCH_COUNTER = new AtomicInteger(0);
+    @Autowired
+    @Qualifier("batchNoGenerator")
+    private IdGenerator batchNoGenerator;
+
+    /**
+     * 分块大小（每块一个任务、一条多行 INSERT），<= 1 时逐个产品提交任务
+     */
+    @Value("${product.batch.chunk-size:100}")
+    private int chunkSize;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     /**
      * 批量创建产品（异步）
@@ -94,59 +128,188 @@ public class ProductBatchCreateService {
         logger.info("产品数量: {}", request.getProducts().size());
         logger.info("========================================");
         
-        // 3. 提交任务到线程池
+        // 3. 按 chunkSize 分块提交，窗口满时写入溢出文件
         List<ProductCreateRequest> products = request.getProducts();
-        int successCount = 0;
-        int failedCount = 0;
+        progressTracker.register(batchNo, request.getCreator());
+        try {
+            progressTracker.addTotal(batchNo, products.size());
+        } catch (IllegalStateException e) {
+            // 总数没有写入，不提交任何分块
+            progressTracker.finishSubmit(batchNo);
+            throw e;
+        }
+        int size = Math.max(chunkSize, 1);
+        int submittedCount = 0;
+        int spilledCount = 0;
         
-        for (ProductCreateRequest product : products) {
-            try {
-                ProductCreateTask task = new ProductCreateTask(
-                    product,
-                    batchNo,
-                    request.getCreator(),
-                    productMapper,
-                    logMapper,
-                    transactionTemplate
-                );
-                
-                // 提交到线程池异步执行
-                productCreateExecutor.execute(task);
-                successCount++;
-                
-                logger.debug("提交产品创建任务成功，产品编码: {}", product.getProductCode());
-                
-            } catch (RejectedExecutionException e) {
-                // 线程池拒绝任务，记录失败日志
-                failedCount++;
-                logger.error("线程池拒绝任务，产品编码: {}, 原因: 线程池队列已满", product.getProductCode());
-                
-                // 记录失败日志到数据库
-                recordRejectedTask(product, batchNo, request.getCreator(), e);
+        for (int from = 0; from < products.size(); from += size) {
+            List<ProductCreateRequest> chunk = new ArrayList<>(
+                products.subList(from, Math.min(from + size, products.size())));
+            if (taskSubmitter.submit(new ProductCreateJob(batchNo, request.getCreator(), chunk))) {
+                submittedCount += chunk.size();
+            } else {
+                spilledCount += chunk.size();
             }
         }
+        progressTracker.finishSubmit(batchNo);
         
-        logger.info("批量创建任务提交完成，批次号: {}, 总数: {}, 成功: {}, 失败: {}", 
-                   batchNo, products.size(), successCount, failedCount);
+        logger.info("批量创建任务提交完成，批次号: {}, 总数: {}, 已提交: {}, 溢出待重放: {}", 
+                   batchNo, products.size(), submittedCount, spilledCount);
         
         // 4. 立即返回批次号
         return batchNo;
     }
 
     /**
-     * 查询批次创建状态
+     * 流式导入产品（NDJSON 或带表头的 CSV，数量不限）
+     *
+     * 处理流程：
+     * 1. Jackson 流式解析请求体，一次只解析一行，不把整个请求读入内存
+     * 2. 逐行校验，不合法的行计数并返回前 MAX_REPORTED_ERRORS 条错误，不中断导入
+     * 3. 合法的行攒满 chunkSize 个提交一个 ProductBatchChunkTask
+     * 4. 背压：ProductTaskSubmitter 的在途窗口满时阻塞读取线程，等待线程池消化后再继续读，
+     *    内存中的分块数不超过窗口大小 + 1
+     * 5. 读取期间批次状态为"提交中"，总数随提交的分块增加，读完（或读取失败）后标记提交完成
+     *
+     * 注意：接口在读完请求体后才返回，1M 行的导入耗时取决于数据库写入速度；
+     * 中途解析失败时，已提交的分块会继续执行，返回结果中带有批次号和已提交数量
+     *
+     * @param creator 创建人
+     * @param in      请求体
+     * @param csv     true-CSV，false-NDJSON
+     * @return 批次号、行数、校验失败数等
+     */
+    public Map<String, Object> streamCreateProducts(String creator, InputStream in, boolean csv) throws IOException {
+        if (creator == null || creator.trim().isEmpty()) {
+            throw new IllegalArgumentException("创建人不能为空");
+        }
+        String batchNo = generateBatchNo();
+        int size = Math.max(chunkSize, 1);
+        long start = System.currentTimeMillis();
+        logger.info("开始流式导入产品，批次号: {}, 创建人: {}, 格式: {}", batchNo, creator, csv ? "CSV" : "NDJSON");
+
+        ObjectReader reader = csv
+                ? CSV_MAPPER.readerFor(ProductCreateRequest.class).with(CsvSchema.emptySchema().withHeader())
+                : objectMapper.readerFor(ProductCreateRequest.class);
+
+        long rows = 0;
+        long submitted = 0;
+        long invalid = 0;
+        List<String> errors = new ArrayList<>();
+        String parseError = null;
+        List<ProductCreateRequest> chunk = new ArrayList<>(size);
+        progressTracker.register(batchNo, creator);
+
+        try (MappingIterator<ProductCreateRequest> iterator = reader.readValues(in)) {
+            while (iterator.hasNextValue()) {
+                ProductCreateRequest product = iterator.nextValue();
+                rows++;
+                try {
+                    validateProduct(product, (int) Math.min(rows - 1, Integer.MAX_VALUE));
+                } catch (IllegalArgumentException e) {
+                    invalid++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(e.getMessage());
+                    }
+                    continue;
+                }
+                chunk.add(product);
+                if (chunk.size() == size) {
+                    progressTracker.addTotal(batchNo, chunk.size());
+                    taskSubmitter.submitBlocking(new ProductCreateJob(batchNo, creator, chunk));
+                    submitted += chunk.size();
+                    chunk = new ArrayList<>(size);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            parseError = "第 " + (rows + 1) + " 行解析失败：" + e.getOriginalMessage();
+            logger.error("流式导入解析失败，批次号: {}, {}", batchNo, parseError);
+        } catch (IOException | RuntimeException e) {
+            // 读取请求体失败：已提交的分块继续执行，批次按已提交的数量完成
+            progressTracker.finishSubmit(batchNo);
+            throw e;
+        }
+        try {
+            if (!chunk.isEmpty()) {
+                progressTracker.addTotal(batchNo, chunk.size());
+                taskSubmitter.submitBlocking(new ProductCreateJob(batchNo, creator, chunk));
+                submitted += chunk.size();
+            }
+        } finally {
+            progressTracker.finishSubmit(batchNo);
+        }
+
+        long costMs = System.currentTimeMillis() - start;
+        logger.info("流式导入读取完成，批次号: {}, 行数: {}, 已提交: {}, 校验失败: {}, 耗时: {}ms",
+                   batchNo, rows, submitted, invalid, costMs);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("batchNo", batchNo);
+        result.put("rows", rows);
+        result.put("submittedCount", submitted);
+        result.put("invalidCount", invalid);
+        result.put("errors", errors);
+        result.put("parseError", parseError);
+        result.put("readCostMs", costMs);
+        return result;
+    }
+
+    /**
+     * 查询批次进度（计数）
+     * 
+     * 读取顺序：本实例内存 -> Redis（开启时）-> product_batch_summary，
+     * 汇总表上线前的历史批次按日志表 GROUP BY 聚合，不返回明细行
      * 
      * @param batchNo 批次号
-     * @return 批次日志列表
+     * @return 批次进度，批次不存在时返回 null
      */
-    public List<ProductCreateLog> queryBatchStatus(String batchNo) {
-        logger.info("查询批次状态，批次号: {}", batchNo);
-        
-        List<ProductCreateLog> logs = logMapper.selectByBatchNo(batchNo);
-        
-        logger.info("查询批次状态完成，批次号: {}, 记录数: {}", batchNo, logs.size());
-        
-        return logs;
+    public ProductBatchSummary queryBatchProgress(String batchNo) {
+        return progressTracker.getProgress(batchNo);
+    }
+
+    /**
+     * 订阅批次进度（立即推送一次当前进度，之后有变化时推送）
+     * 
+     * @param batchNo  批次号
+     * @param listener 进度回调，在后台线程执行，不要阻塞
+     * @return 取消订阅
+     */
+    public Runnable subscribeBatchProgress(String batchNo, Consumer<ProductBatchSummary> listener) {
+        return progressTracker.subscribe(batchNo, listener);
+    }
+
+    /**
+     * 按主键翻页查询批次创建明细
+     * 
+     * @param batchNo 批次号
+     * @param lastId  上一页的 nextId，第一页传 null
+     * @param limit   每页条数
+     * @return 一页批次日志
+     */
+    public KeysetPage<ProductCreateLog, Long> queryBatchLogs(String batchNo, Long lastId, int limit) {
+        return KeysetPage.of(logMapper.selectPage(batchNo, lastId, limit + 1), limit, ProductCreateLog::getId);
+    }
+
+    /**
+     * 流式遍历批次创建明细（导出），遍历在只读事务中进行，游标在事务结束时关闭
+     * 
+     * @param batchNo 批次号
+     * @param action  每行的处理
+     * @return 遍历的行数
+     */
+    @Transactional(transactionManager = "secondaryTransactionManager", readOnly = true)
+    public long forEachBatchLog(String batchNo, Consumer<ProductCreateLog> action) {
+        long count = 0;
+        try (Cursor<ProductCreateLog> cursor = logMapper.selectCursor(batchNo)) {
+            for (ProductCreateLog log : cursor) {
+                action.accept(log);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("导出批次明细完成，批次号: {}, 记录数: {}", batchNo, count);
+        return count;
     }
 
     /**
@@ -181,10 +344,11 @@ public class ProductBatchCreateService {
             throw new IllegalArgumentException("产品列表不能为空");
         }
         
-        // 限制单次批量创建数量（避免任务过多）
+        // 限制单次批量创建数量（整个请求体会反序列化到内存，大批量走 streamCreateProducts）
         int maxBatchSize = 1000;
         if (request.getProducts().size() > maxBatchSize) {
-            throw new IllegalArgumentException("单次批量创建数量不能超过 " + maxBatchSize);
+            throw new IllegalArgumentException("单次批量创建数量不能超过 " + maxBatchSize
+                    + "，更大的数据量请使用流式导入接口 /api/products/batch/stream");
         }
         
         // 校验每个产品
@@ -223,59 +387,12 @@ public class ProductBatchCreateService {
      * 生成批次号
      * 
      * 格式：BATCH_yyyyMMddHHmmss_序号
-     * 示例：BATCH_20251229193000_001
+     * 示例：BATCH_20251229193000_000001
+     * 
+     * 序号来自号段生成器，全局唯一且单调递增，不再循环重置
      */
     private String generateBatchNo() {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        int counter = BATCH_COUNTER.incrementAndGet();
-        
-        // 序号循环（避免无限增长）
-        if (counter > 999999) {
-            BATCH_COUNTER.set(0);
-            counter = BATCH_COUNTER.incrementAndGet();
-        }
-        
-        return String.format("BATCH_%s_%06d", timestamp, counter);
-    }
-
-    /**
-     * 记录被拒绝的任务
-     * 
-     * 当线程池队列满时，任务会被拒绝，此时需要记录失败日志
-     * 
-     * @param product 产品信息
-     * @param batchNo 批次号
-     * @param creator 创建人
-     * @param e 拒绝异常
-     */
-    private void recordRejectedTask(ProductCreateRequest product, String batchNo, 
-                                   String creator, RejectedExecutionException e) {
-        try {
-            // 使用事务模板记录失败日志
-            transactionTemplate.execute(status -> {
-                ProductCreateLog log = new ProductCreateLog();
-                log.setBatchNo(batchNo);
-                log.setProductCode(product.getProductCode());
-                log.setProductName(product.getProductName());
-                log.setPrice(product.getPrice());
-                log.setStock(product.getStock());
-                log.setDescription(product.getDescription());
-                log.setCreateStatus(2); // 2-创建失败
-                log.setErrorMessage("线程池队列已满，任务被拒绝: " + e.getMessage());
-                log.setCreator(creator);
-                log.setCreateTime(LocalDateTime.now());
-                
-                logMapper.insert(log);
-                
-                logger.info("记录被拒绝任务的失败日志，产品编码: {}, 批次号: {}", 
-                           product.getProductCode(), batchNo);
-                
-                return null;
-            });
-        } catch (Exception ex) {
-            // 记录日志失败，只打印错误，不影响主流程
-            logger.error("记录被拒绝任务的失败日志时发生异常，产品编码: {}, 错误: {}", 
-                        product.getProductCode(), ex.getMessage(), ex);
-        }
+        return String.format("BATCH_%s_%06d", timestamp, batchNoGenerator.nextId());
     }
 }
@@ -1,13 +1,19 @@
 package com.huabin.multids.service;
 
+import com.huabin.multids.datasource.ReadOnly;
 import com.huabin.multids.db2.entity.Product;
 import com.huabin.multids.db2.mapper.ProductMapper;
+import com.huabin.page.KeysetPage;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @Author huabin
@@ -18,6 +24,8 @@ import java.util.List;
  * 1. 注入的是 db2.mapper.ProductMapper，自动使用从数据源
  * 2. @Transactional 必须明确指定事务管理器：transactionManager = "secondaryTransactionManager"
  * 3. 如果不指定，会使用默认的主数据源事务管理器，导致事务失效
+ * 4. 查询方法标注 @ReadOnly，配置了副本时路由到副本（见 ReadWriteRoutingDataSource）
+ * 5. 按主键 / 产品编码查询命中 MyBatis 二级缓存（ProductMapper.xml）时不访问数据库，增删改提交后清空
  */
 @Service
 public class ProductService {
@@ -36,6 +44,7 @@ public class ProductService {
     /**
      * 根据ID查询产品
      */
+    @ReadOnly
     public Product getProductById(Long id) {
         return productMapper.selectByPrimaryKey(id);
     }
@@ -43,6 +52,7 @@ public class ProductService {
     /**
      * 查询所有产品
      */
+    @ReadOnly
     public List<Product> getAllProducts() {
         return productMapper.selectAll();
     }
@@ -50,6 +60,7 @@ public class ProductService {
     /**
      * 根据产品编码查询
      */
+    @ReadOnly
     public Product getProductByCode(String productCode) {
         return productMapper.selectByProductCode(productCode);
     }
@@ -57,10 +68,46 @@ public class ProductService {
     /**
      * 根据条件查询产品列表
      */
+    @ReadOnly
     public List<Product> getProductsByCondition(String productName, Integer status) {
         return productMapper.selectByCondition(productName, status);
     }
 
+    /**
+     * 按主键翻页查询产品
+     *
+     * @param lastId 上一页的 nextId，第一页传 null
+     * @param limit  每页条数
+     */
+    @ReadOnly
+    public KeysetPage<Product, Long> getProductsPage(Long lastId, int limit) {
+        return KeysetPage.of(productMapper.selectPage(lastId, limit + 1), limit, Product::getId);
+    }
+
+    /**
+     * 按主键顺序流式遍历所有产品（导出）
+     *
+     * 说明：
+     * - 游标只在事务内有效，因此整个遍历在一个只读事务中进行（配置了副本时路由到副本）
+     * - 遍历期间一直占用一个连接，action 不要做耗时操作
+     *
+     * @param action 每行的处理
+     * @return 遍历的行数
+     */
+    @Transactional(transactionManager = "secondaryTransactionManager", readOnly = true)
+    public long forEachProduct(Consumer<Product> action) {
+        long count = 0;
+        try (Cursor<Product> cursor = productMapper.selectAllCursor()) {
+            for (Product product : cursor) {
+                action.accept(product);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
     /**
      * 创建产品（带事务）
      * 
@@ -1,13 +1,19 @@
 package com.huabin.multids.service;
 
+import com.huabin.multids.datasource.ReadOnly;
 import com.huabin.multids.db1.entity.User;
 import com.huabin.multids.db1.mapper.UserMapper;
+import com.huabin.page.KeysetPage;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @Author huabin
@@ -18,6 +24,8 @@ import java.util.List;
  * 1. 注入的是 db1.mapper.UserMapper，自动使用主数据源
  * 2. @Transactional 默认使用主数据源的事务管理器（primaryTransactionManager）
  * 3. 如果需要明确指定事务管理器，使用：@Transactional(transactionManager = "primaryTransactionManager")
+ * 4. 查询方法标注 @ReadOnly，配置了副本时路由到副本（见 ReadWriteRoutingDataSource）
+ * 5. 按主键 / 用户名查询命中 MyBatis 二级缓存（UserMapper.xml）时不访问数据库，增删改提交后清空
  */
 @Service
 public class UserService {
@@ -36,6 +44,7 @@ public class UserService {
     /**
      * 根据ID查询用户
      */
+    @ReadOnly
     public User getUserById(Long id) {
         return userMapper.selectByPrimaryKey(id);
     }
@@ -43,6 +52,7 @@ public class UserService {
     /**
      * 查询所有用户
      */
+    @ReadOnly
     public List<User> getAllUsers() {
         return userMapper.selectAll();
     }
@@ -50,6 +60,7 @@ public class UserService {
     /**
      * 根据用户名查询
      */
+    @ReadOnly
     public User getUserByUsername(String username) {
         return userMapper.selectByUsername(username);
     }
@@ -57,10 +68,46 @@ public class UserService {
     /**
      * 根据条件查询用户列表
      */
+    @ReadOnly
     public List<User> getUsersByCondition(String username, Integer status) {
         return userMapper.selectByCondition(username, status);
     }
 
+    /**
+     * 按主键翻页查询用户
+     *
+     * @param lastId 上一页的 nextId，第一页传 null
+     * @param limit  每页条数
+     */
+    @ReadOnly
+    public KeysetPage<User, Long> getUsersPage(Long lastId, int limit) {
+        return KeysetPage.of(userMapper.selectPage(lastId, limit + 1), limit, User::getId);
+    }
+
+    /**
+     * 按主键顺序流式遍历所有用户（导出）
+     *
+     * 说明：
+     * - 游标只在事务内有效，因此整个遍历在一个只读事务中进行（配置了副本时路由到副本）
+     * - 遍历期间一直占用一个连接，action 不要做耗时操作
+     *
+     * @param action 每行的处理
+     * @return 遍历的行数
+     */
+    @Transactional(readOnly = true)
+    public long forEachUser(Consumer<User> action) {
+        long count = 0;
+        try (Cursor<User> cursor = userMapper.selectAllCursor()) {
+            for (User user : cursor) {
+                action.accept(user);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
     /**
      * 创建用户（带事务）
      * 
@@ -0,0 +1,198 @@
+package com.huabin.multids.task;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huabin.multids.dto.ProductCreateJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 作业溢出队列（本地文件）
+ *
+ * 文件布局（都在 dir 目录下）：
+ * - spill.ndjson：当前追加的文件，每行一个作业 JSON，每次追加后 fsync
+ * - spill-时间戳-序号.replay：等待重放的文件，由 rotate() 从 spill.ndjson 切换而来
+ * - *.replay.pos：重放进度（已处理的行数），重放完成后和 .replay 一起删除
+ *
+ * 语义：至少一次。进程在重放中途退出时，重启后从 .pos 记录的行继续，
+ * 最后一个正在提交的作业可能重复执行一次
+ *
+ * 崩溃后的残缺文件：
+ * - 追加写到一半的最后一行无法解析，重放时跳过；重新打开时先补一个换行，不影响之后追加的作业
+ * - .pos 写到一半（空或不是数字）时从头重放该文件
+ */
+public class FileSpillQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSpillQueue.class);
+
+    private static final String ACTIVE_FILE = "spill.ndjson";
+    private static final String REPLAY_SUFFIX = ".replay";
+    private static final String POSITION_SUFFIX = ".pos";
+
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 当前溢出文件的输出流（懒打开，受 this 锁保护）
+     */
+    private FileOutputStream out;
+
+    public FileSpillQueue(Path dir, ObjectMapper objectMapper) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 追加一个作业，返回前已落盘
+     */
+    public synchronized void append(ProductCreateJob job) throws IOException {
+        if (out == null) {
+            Path active = dir.resolve(ACTIVE_FILE);
+            boolean torn = endsWithPartialLine(active);
+            out = new FileOutputStream(active.toFile(), true);
+            if (torn) {
+                out.write('\n');
+            }
+        }
+        out.write((objectMapper.writeValueAsString(job) + "\n").getBytes(StandardCharsets.UTF_8));
+        out.getFD().sync();
+    }
+
+    /**
+     * 是否有待重放的作业（当前文件非空或存在 .replay 文件）
+     */
+    public boolean hasPending() {
+        try {
+            Path active = dir.resolve(ACTIVE_FILE);
+            if (Files.exists(active) && Files.size(active) > 0) {
+                return true;
+            }
+            return !replayFiles().isEmpty();
+        } catch (IOException e) {
+            logger.error("检查溢出目录失败: {}", dir, e);
+            return false;
+        }
+    }
+
+    /**
+     * 把当前文件切换为待重放文件，之后的追加写入新的 spill.ndjson
+     *
+     * @return 所有待重放文件（包括上次进程遗留的），按切换顺序排列
+     */
+    public synchronized List<Path> rotate() throws IOException {
+        closeQuietly();
+        Path active = dir.resolve(ACTIVE_FILE);
+        if (Files.exists(active) && Files.size(active) > 0) {
+            // 序号每个进程从 1 开始，跳过上次进程遗留的同名文件
+            Path target;
+            do {
+                target = dir.resolve(String.format("spill-%013d-%06d%s",
+                        System.currentTimeMillis(), sequence.incrementAndGet(), REPLAY_SUFFIX));
+            } while (Files.exists(target));
+            Files.move(active, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return replayFiles();
+    }
+
+    /**
+     * 逐行重放一个文件
+     *
+     * @param consumer 返回 false 表示暂时无法接收（例如线程被中断），此时停止重放并保留文件和进度
+     * @return 本次重放的作业数
+     */
+    public long replay(Path file, Predicate<ProductCreateJob> consumer) throws IOException {
+        Path positionFile = Paths.get(file + POSITION_SUFFIX);
+        long skip = readPosition(positionFile);
+        long line = 0;
+        long replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (line <= skip || text.isEmpty()) {
+                    continue;
+                }
+                ProductCreateJob job = null;
+                try {
+                    job = objectMapper.readValue(text, ProductCreateJob.class);
+                } catch (JsonProcessingException e) {
+                    logger.error("溢出文件第 {} 行无法解析，已跳过，文件: {}", line, file);
+                }
+                if (job != null) {
+                    if (!consumer.test(job)) {
+                        return replayed;
+                    }
+                    replayed++;
+                }
+                Files.write(positionFile, Long.toString(line).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(positionFile);
+        return replayed;
+    }
+
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private long readPosition(Path positionFile) throws IOException {
+        if (!Files.exists(positionFile)) {
+            return 0;
+        }
+        String text = new String(Files.readAllBytes(positionFile), StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            logger.warn("重放进度文件内容无效，从头重放，文件: {}, 内容: '{}'", positionFile, text);
+            return 0;
+        }
+    }
+
+    private static boolean endsWithPartialLine(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() != '\n';
+        }
+    }
+
+    private List<Path> replayFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(REPLAY_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void closeQuietly() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.warn("关闭溢出文件失败: {}", e.getMessage());
+            }
+            out = null;
+        }
+    }
+}
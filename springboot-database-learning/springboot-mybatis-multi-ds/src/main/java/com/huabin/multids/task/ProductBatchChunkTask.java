@@ -0,0 +1,182 @@
+package com.huabin.multids.task;
+
+import com.huabin.multids.db2.entity.Product;
+import com.huabin.multids.db2.entity.ProductCreateLog;
+import com.huabin.multids.db2.mapper.ProductCreateLogMapper;
+import com.huabin.multids.db2.mapper.ProductMapper;
+import com.huabin.multids.dto.ProductCreateRequest;
+import com.huabin.multids.enums.ProductCreateStatus;
+import com.huabin.multids.progress.BatchProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 产品分块创建任务
+ *
+ * 解决的问题：
+ * ProductCreateTask 一个产品一个任务，每个产品 3 条 SQL（插入日志、插入产品、更新日志）+ 1 个事务，
+ * 1000 个产品就是 3000 次数据库往返和 1000 次提交
+ *
+ * 执行流程（一个任务处理一块产品）：
+ * 1. 多行 INSERT 写入整块日志（状态：创建中）
+ * 2. 一个事务内：多行 INSERT 写入整块产品，再用一条 UPDATE ... CASE 把日志批量改为成功
+ * 3. 第 2 步失败（例如某个产品编码重复）时事务整体回滚，只对这一块逐行重试：
+ *    每个产品独立事务，成功的照常写入，失败的单独标记失败，不影响其他块
+ * 4. 第 1 步失败时，这一块退回 ProductCreateTask 的逐个创建流程
+ *
+ * 一块 N 个产品正常情况下只需 3 条 SQL + 1 个事务；执行完后把整块的成功数 / 失败数计入 BatchProgressTracker
+ *
+ * 与 ProductCreateTask 一样通过 new 创建，Mapper 和事务模板由 Service 通过构造函数传入
+ */
+public class ProductBatchChunkTask implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductBatchChunkTask.class);
+
+    private final List<ProductCreateRequest> requests;
+    private final String batchNo;
+    private final String creator;
+    private final ProductMapper productMapper;
+    private final ProductCreateLogMapper logMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchProgressTracker progressTracker;
+
+    public ProductBatchChunkTask(List<ProductCreateRequest> requests,
+                                 String batchNo,
+                                 String creator,
+                                 ProductMapper productMapper,
+                                 ProductCreateLogMapper logMapper,
+                                 TransactionTemplate transactionTemplate,
+                                 BatchProgressTracker progressTracker) {
+        this.requests = requests;
+        this.batchNo = batchNo;
+        this.creator = creator;
+        this.productMapper = productMapper;
+        this.logMapper = logMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.progressTracker = progressTracker;
+    }
+
+    @Override
+    public void run() {
+        long start = System.currentTimeMillis();
+
+        List<ProductCreateLog> logs;
+        try {
+            logs = createLogs();
+        } catch (Exception e) {
+            logger.error("批量写入日志失败，改为逐个创建，批次号: {}, 数量: {}, 错误: {}",
+                        batchNo, requests.size(), e.getMessage(), e);
+            for (ProductCreateRequest request : requests) {
+                new ProductCreateTask(request, batchNo, creator, productMapper, logMapper, transactionTemplate,
+                        progressTracker).run();
+            }
+            return;
+        }
+
+        try {
+            createProducts(logs);
+            progressTracker.recordSuccess(batchNo, requests.size());
+            logger.info("分块创建产品成功，批次号: {}, 数量: {}, 耗时: {}ms",
+                       batchNo, requests.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.warn("分块创建产品失败，改为逐行重试，批次号: {}, 数量: {}, 错误: {}",
+                       batchNo, requests.size(), e.getMessage());
+            int successCount = 0;
+            for (int i = 0; i < requests.size(); i++) {
+                if (createOne(requests.get(i), logs.get(i))) {
+                    successCount++;
+                }
+            }
+            progressTracker.recordSuccess(batchNo, successCount);
+            progressTracker.recordFailure(batchNo, requests.size() - successCount);
+        }
+    }
+
+    /**
+     * 多行插入日志（状态：创建中），返回的日志已回填ID，顺序与 requests 一致
+     */
+    private List<ProductCreateLog> createLogs() {
+        List<ProductCreateLog> logs = new ArrayList<>(requests.size());
+        for (ProductCreateRequest request : requests) {
+            ProductCreateLog log = new ProductCreateLog();
+            log.setBatchNo(batchNo);
+            log.setProductCode(request.getProductCode());
+            log.setProductName(request.getProductName());
+            log.setPrice(request.getPrice());
+            log.setStock(request.getStock());
+            log.setDescription(request.getDescription());
+            log.setCreateStatus(ProductCreateStatus.CREATING.getCode());
+            log.setCreator(creator);
+            logs.add(log);
+        }
+        logMapper.batchInsert(logs);
+        return logs;
+    }
+
+    /**
+     * 一个事务内多行插入产品并批量更新日志状态，任何一行失败整块回滚
+     */
+    private void createProducts(List<ProductCreateLog> logs) {
+        transactionTemplate.execute(status -> {
+            List<Product> products = new ArrayList<>(requests.size());
+            for (ProductCreateRequest request : requests) {
+                products.add(buildProduct(request));
+            }
+            productMapper.batchInsert(products);
+
+            for (int i = 0; i < logs.size(); i++) {
+                logs.get(i).setProductId(products.get(i).getId());
+            }
+            logMapper.batchUpdateStatus(logs, ProductCreateStatus.SUCCESS.getCode(), null);
+            return null;
+        });
+    }
+
+    /**
+     * 逐行重试：单个产品独立事务，失败时在事务外标记日志失败
+     *
+     * @return 是否创建成功
+     */
+    private boolean createOne(ProductCreateRequest request, ProductCreateLog log) {
+        try {
+            transactionTemplate.execute(status -> {
+                Product product = buildProduct(request);
+                productMapper.insert(product);
+                logMapper.updateStatus(log.getId(), product.getId(), ProductCreateStatus.SUCCESS.getCode(), null);
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            logger.error("产品创建失败，批次号: {}, 产品编码: {}, 错误: {}",
+                        batchNo, request.getProductCode(), e.getMessage());
+            try {
+                logMapper.updateStatus(log.getId(), null, ProductCreateStatus.FAILED.getCode(),
+                                      ProductCreateTask.truncateErrorMessage(e.getMessage()));
+            } catch (Exception ex) {
+                logger.error("更新日志状态失败，日志ID: {}, 错误: {}", log.getId(), ex.getMessage(), ex);
+            }
+            return false;
+        }
+    }
+
+    private static Product buildProduct(ProductCreateRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        Product product = new Product();
+        product.setProductName(request.getProductName());
+        product.setProductCode(request.getProductCode());
+        product.setPrice(request.getPrice());
+        product.setStock(request.getStock());
+        product.setDescription(request.getDescription());
+        product.setStatus(1); // 默认上架
+        product.setCreateTime(now);
+        product.setUpdateTime(now);
+        return product;
+    }
+}
@@ -6,6 +6,7 @@ import com.huabin.multids.db2.mapper.ProductCreateLogMapper;
 import com.huabin.multids.db2.mapper.ProductMapper;
 import com.huabin.multids.dto.ProductCreateRequest;
 import com.huabin.multids.enums.ProductCreateStatus;
+import com.huabin.multids.progress.BatchProgressTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -128,6 +129,11 @@ public class ProductCreateTask implements Runnable {
      */
     private final TransactionTemplate transactionTemplate;
 
+    /**
+     * 批次进度跟踪器（Spring Bean，所有任务共享），任务结束时累加成功数或失败数
+     */
+    private final BatchProgressTracker progressTracker;
+
     /**
      * 构造函数
      * 
@@ -138,6 +144,7 @@ public class ProductCreateTask implements Runnable {
      * @param productMapper 产品Mapper（Spring Bean，从Service传递）
      * @param logMapper 日志Mapper（Spring Bean，从Service传递）
      * @param transactionTemplate 事务模板（Spring Bean，从Service传递）
+     * @param progressTracker 批次进度跟踪器（Spring Bean，从Service传递）
      * 
      * 设计原则：
      * - 任务特定参数：每个任务实例不同，直接传递
@@ -149,13 +156,15 @@ public class ProductCreateTask implements Runnable {
                             String creator,
                             ProductMapper productMapper,
                             ProductCreateLogMapper logMapper,
-                            TransactionTemplate transactionTemplate) {
+                            TransactionTemplate transactionTemplate,
+                            BatchProgressTracker progressTracker) {
         this.request = request;
         this.batchNo = batchNo;
         this.creator = creator;
         this.productMapper = productMapper;
         this.logMapper = logMapper;
         this.transactionTemplate = transactionTemplate;
+        this.progressTracker = progressTracker;
     }
 
     @Override
@@ -189,27 +198,29 @@ public class ProductCreateTask implements Runnable {
                     logger.error("产品创建失败，产品编码: {}, 错误: {}", 
                                 request.getProductCode(), e.getMessage(), e);
                     
-                    // 更新日志状态为失败
-                    updateLogStatus(finalLogId, null, 
-                                   ProductCreateStatus.FAILED, e.getMessage());
-                    
-                    // 抛出异常，触发事务回滚
+                    // 抛出异常，触发事务回滚（日志状态在事务外更新，否则会随事务一起回滚）
                     throw new RuntimeException("产品创建失败: " + e.getMessage(), e);
                 }
             });
             
+            progressTracker.recordSuccess(batchNo, 1);
+            
         } catch (Exception e) {
             logger.error("产品创建任务执行失败，批次号: {}, 产品编码: {}, 错误: {}", 
                         batchNo, request.getProductCode(), e.getMessage(), e);
             
-            // 如果日志创建失败，尝试再次创建失败日志
+            // 如果日志创建失败，尝试再次创建失败日志；否则在事务外更新日志状态为失败
             if (logId == null) {
                 try {
                     createFailedLog(e.getMessage());
                 } catch (Exception ex) {
                     logger.error("创建失败日志失败: {}", ex.getMessage(), ex);
                 }
+            } else {
+                updateLogStatus(logId, null, ProductCreateStatus.FAILED, e.getMessage());
             }
+            
+            progressTracker.recordFailure(batchNo, 1);
         }
     }
 
@@ -288,7 +299,7 @@ public class ProductCreateTask implements Runnable {
     /**
      * 截断错误信息（避免超过数据库字段长度）
      */
-    private String truncateErrorMessage(String errorMessage) {
+    static String truncateErrorMessage(String errorMessage) {
         if (errorMessage == null) {
             return null;
         }
@@ -0,0 +1,43 @@
+package com.huabin.multids.task;
+
+import com.huabin.multids.db2.mapper.ProductCreateLogMapper;
+import com.huabin.multids.db2.mapper.ProductMapper;
+import com.huabin.multids.dto.ProductCreateJob;
+import com.huabin.multids.progress.BatchProgressTracker;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 产品创建任务工厂
+ *
+ * 把作业（纯数据）还原成可执行的任务，首次提交和从溢出文件重放走同一个入口：
+ * - 1 个产品：ProductCreateTask
+ * - 多个产品：ProductBatchChunkTask
+ */
+public class ProductTaskFactory {
+
+    private final ProductMapper productMapper;
+    private final ProductCreateLogMapper logMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchProgressTracker progressTracker;
+
+    public ProductTaskFactory(ProductMapper productMapper,
+                              ProductCreateLogMapper logMapper,
+                              TransactionTemplate transactionTemplate,
+                              BatchProgressTracker progressTracker) {
+        this.productMapper = productMapper;
+        this.logMapper = logMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.progressTracker = progressTracker;
+    }
+
+    public Runnable create(ProductCreateJob job) {
+        if (job.getProducts().size() == 1) {
+            return new ProductCreateTask(job.getProducts().get(0), job.getBatchNo(), job.getCreator(),
+                    productMapper, logMapper, transactionTemplate, progressTracker);
+        }
+        return new ProductBatchChunkTask(job.getProducts(), job.getBatchNo(), job.getCreator(),
+                productMapper, logMapper, transactionTemplate, progressTracker);
+    }
+}
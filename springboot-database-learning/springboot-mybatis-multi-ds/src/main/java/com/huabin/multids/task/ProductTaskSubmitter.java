@@ -0,0 +1,283 @@
+package com.huabin.multids.task;
+
+import com.huabin.multids.dto.ProductCreateJob;
+import com.huabin.multids.executor.ResizableCapacity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 产品创建任务提交器（带背压）
+ *
+ * 解决的问题：
+ * 线程池队列满时 AbortPolicy 抛出 RejectedExecutionException，Service 在请求线程上逐个写失败日志，
+ * 系统越过载，打到数据库的写入越多
+ *
+ * 提交流程：
+ * 1. 信号量窗口限制在途作业数（已提交线程池但未执行完），取代有界队列
+ * 2. submit()：最多等待 offerTimeoutMs 拿窗口，拿不到就把作业写入溢出文件，请求线程不碰数据库
+ * 3. submitBlocking()：一直等到拿到窗口（流式导入用，阻塞读取请求体形成背压）
+ * 4. 后台 drainer 定时检查，窗口空闲过半时重放溢出文件，重放的作业走 RETRY 通道
+ *
+ * 优先通道：
+ * 线程池使用 PriorityBlockingQueue，RETRY 作业排在所有 NORMAL 作业之前，同一通道内按提交顺序执行，
+ * 积压的重试不会被新请求一直挤在后面
+ *
+ * 窗口大小即 productCreateExecutor 的"队列容量"，可通过 DynamicExecutorRegistry 在运行时调整
+ *
+ * 注意：线程池队列中的元素必须是本类包装的任务，不要直接向 productCreateExecutor 提交 Runnable
+ */
+public class ProductTaskSubmitter implements ResizableCapacity {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductTaskSubmitter.class);
+
+    /**
+     * 执行通道（声明顺序即优先级）
+     */
+    private enum Lane {
+        RETRY, NORMAL
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final ProductTaskFactory taskFactory;
+    private final FileSpillQueue spillQueue;
+    private final long offerTimeoutMs;
+
+    private volatile int maxInFlight;
+    private final ResizableSemaphore window;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ScheduledExecutorService drainer;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+
+    public ProductTaskSubmitter(ThreadPoolExecutor executor, ProductTaskFactory taskFactory,
+                                FileSpillQueue spillQueue, int maxInFlight, long offerTimeoutMs) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight 必须大于0");
+        }
+        this.executor = executor;
+        this.taskFactory = taskFactory;
+        this.spillQueue = spillQueue;
+        this.maxInFlight = maxInFlight;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.window = new ResizableSemaphore(maxInFlight);
+        this.drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "product-spill-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动 drainer（启动时也会重放上次进程遗留的溢出文件）
+     */
+    public void start(long drainIntervalMs) {
+        drainer.scheduleWithFixedDelay(this::drain, drainIntervalMs, drainIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        drainer.shutdownNow();
+        spillQueue.close();
+    }
+
+    /**
+     * 在 offerTimeoutMs 内等待窗口，超时则写入溢出文件稍后重放
+     *
+     * @return true-已提交线程池，false-已溢出
+     */
+    public boolean submit(ProductCreateJob job) {
+        try {
+            if (window.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return dispatch(job, Lane.NORMAL);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spill(job);
+        return false;
+    }
+
+    /**
+     * 一直等到窗口有空位再提交
+     *
+     * @return true-已提交线程池，false-线程被中断或线程池已关闭，已溢出
+     */
+    public boolean submitBlocking(ProductCreateJob job) {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            spill(job);
+            return false;
+        }
+        return dispatch(job, Lane.NORMAL);
+    }
+
+    @Override
+    public int getCapacity() {
+        return maxInFlight;
+    }
+
+    /**
+     * 调整窗口大小；调小时在途作业不受影响，执行完归还的许可会被扣掉，直到在途数降到新窗口以下
+     */
+    @Override
+    public synchronized void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("maxInFlight 必须大于0");
+        }
+        int delta = capacity - maxInFlight;
+        if (delta > 0) {
+            window.release(delta);
+        } else if (delta < 0) {
+            window.reducePermits(-delta);
+        }
+        maxInFlight = capacity;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxInFlight", maxInFlight);
+        stats.put("inFlight", maxInFlight - window.availablePermits());
+        stats.put("offerTimeoutMs", offerTimeoutMs);
+        stats.put("submitted", submitted.sum());
+        stats.put("spilled", spilled.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("callerRuns", callerRuns.sum());
+        stats.put("spillPending", spillQueue.hasPending());
+        return stats;
+    }
+
+    /**
+     * 已持有一个窗口许可时调用，任务结束后归还
+     */
+    private boolean dispatch(ProductCreateJob job, Lane lane) {
+        Runnable task = taskFactory.create(job);
+        try {
+            executor.execute(new LaneTask(lane, sequence.incrementAndGet(), () -> {
+                try {
+                    task.run();
+                } finally {
+                    window.release();
+                }
+            }));
+            (lane == Lane.NORMAL ? submitted : replayed).increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            // 只有线程池关闭时才会走到这里（队列无界，容量由窗口控制）
+            window.release();
+            spill(job);
+            return false;
+        }
+    }
+
+    /**
+     * 写入溢出文件；磁盘不可写时只能在当前线程执行
+     */
+    private void spill(ProductCreateJob job) {
+        try {
+            spillQueue.append(job);
+            spilled.increment();
+            logger.warn("提交窗口已满，作业写入溢出文件，批次号: {}, 数量: {}",
+                       job.getBatchNo(), job.getProducts().size());
+        } catch (IOException e) {
+            logger.error("写入溢出文件失败，在当前线程执行，作业: {}", job, e);
+            callerRuns.increment();
+            taskFactory.create(job).run();
+        }
+    }
+
+    private void drain() {
+        try {
+            if (!spillQueue.hasPending() || window.availablePermits() < maxInFlight / 2) {
+                return;
+            }
+            for (Path file : spillQueue.rotate()) {
+                long count = spillQueue.replay(file, this::replay);
+                logger.info("重放溢出文件，文件: {}, 作业数: {}", file.getFileName(), count);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("重放溢出文件失败", e);
+        }
+    }
+
+    private boolean replay(ProductCreateJob job) {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (executor.isShutdown()) {
+            window.release();
+            return false;
+        }
+        job.setAttempts(job.getAttempts() + 1);
+        dispatch(job, Lane.RETRY);
+        return true;
+    }
+
+    /**
+     * 可以减少许可的信号量（Semaphore.reducePermits 是 protected）
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    /**
+     * 带通道优先级的任务，按（通道，提交序号）排序
+     */
+    private static final class LaneTask implements Runnable, Comparable<LaneTask> {
+
+        private final Lane lane;
+        private final long sequence;
+        private final Runnable delegate;
+
+        LaneTask(Lane lane, long sequence, Runnable delegate) {
+            this.lane = lane;
+            this.sequence = sequence;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+
+        @Override
+        public int compareTo(LaneTask other) {
+            int byLane = lane.compareTo(other.lane);
+            return byLane != 0 ? byLane : Long.compare(sequence, other.sequence);
+        }
+    }
+}
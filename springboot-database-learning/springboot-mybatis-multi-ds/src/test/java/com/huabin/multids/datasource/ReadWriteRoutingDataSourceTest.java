@@ -0,0 +1,199 @@
+package com.huabin.multids.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 读写分离路由测试（桩数据源只记录从哪个库取了连接）
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    /**
+     * 按取连接顺序记录数据源名称
+     */
+    private final List<String> opened = new CopyOnWriteArrayList<>();
+
+    /**
+     * 副本名称 -> 复制延迟（秒），null 表示连不上
+     */
+    private final Map<String, Long> lags = new ConcurrentHashMap<>();
+
+    private ReadWriteRoutingDataSource routing;
+    private DataSource lazy;
+    private TransactionTemplate transactionTemplate;
+    private QueryService service;
+
+    @BeforeEach
+    public void setUp() {
+        lags.put("replica-1", 0L);
+        lags.put("replica-2", 0L);
+        routing = new ReadWriteRoutingDataSource("primary", new StubDataSource("write"),
+                Arrays.asList(new StubReplica("replica-1"), new StubReplica("replica-2")),
+                connection -> lags.get(connection.toString()), 5);
+        routing.afterPropertiesSet();
+        routing.checkReplicas();
+
+        lazy = new LazyConnectionDataSourceProxy(routing);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(lazy));
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new QueryService(lazy, opened));
+        factory.addAspect(new ReadOnlyAspect());
+        service = factory.getProxy();
+        opened.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        routing.close();
+    }
+
+    @Test
+    public void readOnlyMethodRoutesToReplica() {
+        assertTrue(service.readOnlyQuery().startsWith("replica-"));
+        assertEquals("write", service.query());
+        assertFalse(ReadOnlyContext.isReadOnly());
+    }
+
+    @Test
+    public void readOnlyTransactionRoutesToReplicaWithoutAnnotation() {
+        transactionTemplate.setReadOnly(true);
+        assertTrue(transactionTemplate.execute(status -> service.query()).startsWith("replica-"));
+    }
+
+    @Test
+    public void readOnlyMethodInsideWriteTransactionStaysOnPrimary() {
+        assertEquals("write", transactionTemplate.execute(status -> service.readOnlyQuery()));
+        assertEquals(Arrays.asList("write"), opened);
+    }
+
+    @Test
+    public void laggingOrFailedReplicasFallBackToPrimary() {
+        lags.put("replica-1", 30L);
+        routing.checkReplicas();
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica-2", service.readOnlyQuery());
+        }
+
+        lags.remove("replica-2");
+        routing.checkReplicas();
+        assertEquals("write", service.readOnlyQuery());
+        assertEquals(1L, routing.getStats().get("fallbackRoutes"));
+
+        // 延迟恢复后重新加入
+        lags.put("replica-1", 1L);
+        routing.checkReplicas();
+        assertEquals("replica-1", service.readOnlyQuery());
+    }
+
+    /**
+     * 被 ReadOnlyAspect 代理的业务类，返回实际取到连接的数据源
+     */
+    public static class QueryService {
+
+        private final DataSource dataSource;
+        private final List<String> opened;
+
+        public QueryService(DataSource dataSource, List<String> opened) {
+            this.dataSource = dataSource;
+            this.opened = opened;
+        }
+
+        @ReadOnly
+        public String readOnlyQuery() {
+            return query();
+        }
+
+        public String query() {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                // 懒代理在第一次执行语句时才真正取连接
+                connection.createStatement();
+                return opened.get(opened.size() - 1);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+    }
+
+    private class StubDataSource extends AbstractDataSource {
+
+        private final String name;
+
+        StubDataSource(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Connection getConnection() {
+            opened.add(name);
+            return stubConnection(name);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+    }
+
+    /**
+     * 未启动连接池的 HikariDataSource，活跃连接数视为 0
+     */
+    private class StubReplica extends HikariDataSource {
+
+        StubReplica(String name) {
+            setPoolName(name);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!lags.containsKey(getPoolName())) {
+                throw new SQLException("Connection refused: " + getPoolName());
+            }
+            opened.add(getPoolName());
+            return stubConnection(getPoolName());
+        }
+    }
+
+    private static Connection stubConnection(String name) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if ("toString".equals(method.getName())) {
+                        return name;
+                    }
+                    Class<?> type = method.getReturnType();
+                    if (type == boolean.class) {
+                        return false;
+                    }
+                    if (type == int.class) {
+                        return 0;
+                    }
+                    return null;
+                });
+    }
+}
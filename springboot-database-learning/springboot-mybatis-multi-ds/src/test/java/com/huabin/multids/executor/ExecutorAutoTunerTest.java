@@ -0,0 +1,59 @@
+package com.huabin.multids.executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 线程池自动调整测试（空闲缩容时最大线程数的处理）
+ */
+public class ExecutorAutoTunerTest {
+
+    private ThreadPoolExecutor executor;
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void idleShrinkKeepsMaxEqualToCore() {
+        ExecutorAutoTuner tuner = newTuner(4, 4);
+        idle(tuner);
+
+        assertEquals(3, executor.getCorePoolSize());
+        assertEquals(3, executor.getMaximumPoolSize());
+    }
+
+    @Test
+    public void idleShrinkKeepsLargerMax() {
+        ExecutorAutoTuner tuner = newTuner(4, 8);
+        idle(tuner);
+
+        assertEquals(3, executor.getCorePoolSize());
+        assertEquals(8, executor.getMaximumPoolSize());
+    }
+
+    private ExecutorAutoTuner newTuner(int core, int max) {
+        executor = new ThreadPoolExecutor(core, max, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        DynamicExecutorRegistry registry = new DynamicExecutorRegistry();
+        registry.register("test", executor);
+        return new ExecutorAutoTuner(registry, "test", null, 1, 8, 100, 1);
+    }
+
+    /**
+     * 第一次只记录基线，之后连续 3 个空闲周期缩小一次
+     */
+    private static void idle(ExecutorAutoTuner tuner) {
+        for (int i = 0; i < 4; i++) {
+            tuner.tune();
+        }
+    }
+}
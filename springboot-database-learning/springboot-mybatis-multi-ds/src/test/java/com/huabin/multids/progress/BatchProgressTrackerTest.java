@@ -0,0 +1,284 @@
+package com.huabin.multids.progress;
+
+import com.huabin.multids.db2.entity.ProductBatchSummary;
+import com.huabin.multids.enums.ProductBatchStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 批次进度跟踪器测试
+ */
+public class BatchProgressTrackerTest {
+
+    @Test
+    public void submittingUntilFinishSubmit() {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.register("B1", "tester");
+        tracker.addTotal("B1", 2);
+        tracker.recordSuccess("B1", 1);
+        tracker.recordFailure("B1", 1);
+
+        assertEquals(ProductBatchStatus.SUBMITTING.getCode(), tracker.getProgress("B1").getBatchStatus());
+
+        tracker.finishSubmit("B1");
+        ProductBatchSummary progress = tracker.getProgress("B1");
+        assertEquals(ProductBatchStatus.COMPLETED.getCode(), progress.getBatchStatus());
+        assertEquals(1L, progress.getSuccessCount());
+        assertEquals(1L, progress.getFailedCount());
+    }
+
+    @Test
+    public void runningUntilAllRecorded() {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.register("B1", "tester");
+        tracker.addTotal("B1", 3);
+        tracker.finishSubmit("B1");
+        tracker.recordSuccess("B1", 2);
+
+        ProductBatchSummary progress = tracker.getProgress("B1");
+        assertEquals(ProductBatchStatus.RUNNING.getCode(), progress.getBatchStatus());
+        assertEquals(1L, progress.getCreatingCount());
+
+        tracker.recordSuccess("B1", 1);
+        assertTrue(tracker.getProgress("B1").isCompleted());
+    }
+
+    @Test
+    public void flushWritesChangesOncePerVersion() {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.register("B1", "tester");
+        tracker.addTotal("B1", 2);
+
+        tracker.flush();
+        tracker.flush();
+        assertEquals(1, store.saves);
+        assertEquals(2L, store.load("B1").getTotalCount());
+
+        tracker.recordSuccess("B1", 1);
+        tracker.flush();
+        assertEquals(2, store.saves);
+        assertEquals(1L, store.load("B1").getSuccessCount());
+    }
+
+    @Test
+    public void completedBatchSetsFinishTimeAndNotifiesSubscriber() {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.register("B1", "tester");
+        tracker.addTotal("B1", 1);
+        tracker.finishSubmit("B1");
+
+        List<ProductBatchSummary> received = new ArrayList<>();
+        tracker.subscribe("B1", received::add);
+        tracker.recordSuccess("B1", 1);
+        tracker.flush();
+
+        assertEquals(2, received.size());
+        assertTrue(received.get(1).isCompleted());
+        assertNotNull(store.load("B1").getFinishTime());
+        assertEquals(0, tracker.getStats().get("subscribedBatches"));
+    }
+
+    @Test
+    public void completedBatchEvictedAfterRetention() throws InterruptedException {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 0);
+        tracker.register("B1", "tester");
+        tracker.addTotal("B1", 1);
+        tracker.finishSubmit("B1");
+        tracker.recordSuccess("B1", 1);
+
+        tracker.flush();
+        assertEquals(1, tracker.getStats().get("trackedBatches"));
+
+        Thread.sleep(5);
+        tracker.flush();
+        assertEquals(0, tracker.getStats().get("trackedBatches"));
+        // 淘汰后从存储读取
+        assertTrue(tracker.getProgress("B1").isCompleted());
+    }
+
+    @Test
+    public void runningBatchNotEvicted() {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 0);
+        tracker.register("B1", "tester");
+        tracker.addTotal("B1", 2);
+        tracker.finishSubmit("B1");
+
+        tracker.flush();
+        tracker.flush();
+        assertEquals(1, tracker.getStats().get("trackedBatches"));
+    }
+
+    @Test
+    public void failedSaveRetriedNextFlush() {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.register("B1", "tester");
+        tracker.addTotal("B1", 1);
+        tracker.recordSuccess("B1", 1);
+
+        store.failing = true;
+        tracker.flush();
+        assertEquals(0L, store.load("B1").getSuccessCount());
+
+        store.failing = false;
+        tracker.flush();
+        assertEquals(1L, store.load("B1").getSuccessCount());
+        assertEquals(1L, tracker.getStats().get("flushFailures"));
+    }
+
+    @Test
+    public void addTotalPersistsBeforeReturning() {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.register("B1", "tester");
+        tracker.addTotal("B1", 3);
+
+        // 不等定时写回：提交分块之前汇总行已有总数
+        assertEquals(3L, store.load("B1").getTotalCount());
+        assertEquals(ProductBatchStatus.SUBMITTING.getCode(), store.load("B1").getBatchStatus());
+    }
+
+    @Test
+    public void addTotalRollsBackWhenSaveFails() {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.register("B1", "tester");
+        tracker.addTotal("B1", 2);
+
+        store.failing = true;
+        assertThrows(IllegalStateException.class, () -> tracker.addTotal("B1", 5));
+        assertEquals(2L, tracker.getProgress("B1").getTotalCount());
+
+        store.failing = false;
+        tracker.flush();
+        assertEquals(2L, store.load("B1").getTotalCount());
+    }
+
+    @Test
+    public void restoredBatchDoesNotCountTriggeringProductTwice() {
+        // 重启前已写回 总数 3、成功 1；重启期间又有 1 个产品提交，日志统计为成功 2
+        InMemoryStore store = new InMemoryStore();
+        store.recovered.put("B1", summary("B1", 3, 2, 0));
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+
+        // 触发恢复的产品已计入日志统计
+        tracker.recordSuccess("B1", 1);
+        ProductBatchSummary progress = tracker.getProgress("B1");
+        assertEquals(2L, progress.getSuccessCount());
+        assertEquals(ProductBatchStatus.RUNNING.getCode(), progress.getBatchStatus());
+        assertEquals(1L, tracker.getStats().get("restored"));
+    }
+
+    @Test
+    public void restoredBatchReconciledFromStoreOnFlush() {
+        InMemoryStore store = new InMemoryStore();
+        store.recovered.put("B1", summary("B1", 3, 1, 0));
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.recordSuccess("B1", 1);
+
+        // 恢复之后又提交了两个产品，一个在恢复统计之前、一个之后调用 recordXxx
+        store.recovered.put("B1", summary("B1", 3, 2, 1));
+        tracker.recordSuccess("B1", 1);
+        tracker.recordFailure("B1", 1);
+        assertEquals(1L, tracker.getProgress("B1").getSuccessCount());
+
+        tracker.flush();
+        ProductBatchSummary saved = store.load("B1");
+        assertEquals(2L, saved.getSuccessCount());
+        assertEquals(1L, saved.getFailedCount());
+        assertTrue(saved.isCompleted());
+        assertEquals(1L, tracker.getStats().get("reconciled"));
+    }
+
+    @Test
+    public void restoredBatchRetriesWhenReconcileFails() {
+        InMemoryStore store = new InMemoryStore();
+        store.recovered.put("B1", summary("B1", 2, 1, 0));
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.recordSuccess("B1", 1);
+
+        store.recovered.put("B1", summary("B1", 2, 2, 0));
+        store.failing = true;
+        tracker.flush();
+        assertFalse(tracker.getProgress("B1").isCompleted());
+
+        store.failing = false;
+        tracker.flush();
+        assertTrue(store.load("B1").isCompleted());
+    }
+
+    @Test
+    public void unknownBatchIgnored() {
+        InMemoryStore store = new InMemoryStore();
+        BatchProgressTracker tracker = new BatchProgressTracker(store, null, 60000);
+        tracker.recordSuccess("missing", 1);
+
+        assertNull(tracker.getProgress("missing"));
+        assertEquals(0, tracker.getStats().get("trackedBatches"));
+    }
+
+    private static ProductBatchSummary summary(String batchNo, long total, long success, long failed) {
+        ProductBatchSummary summary = new ProductBatchSummary();
+        summary.setBatchNo(batchNo);
+        summary.setCreator("tester");
+        summary.setTotalCount(total);
+        summary.setSuccessCount(success);
+        summary.setFailedCount(failed);
+        summary.setBatchStatus(ProductBatchStatus.RUNNING.getCode());
+        summary.setCreateTime(LocalDateTime.now());
+        return summary;
+    }
+
+    /**
+     * save / load 读写内存，recover 返回预设的日志统计
+     */
+    private static class InMemoryStore implements BatchProgressStore {
+
+        private final Map<String, ProductBatchSummary> saved = new ConcurrentHashMap<>();
+        private final Map<String, ProductBatchSummary> recovered = new ConcurrentHashMap<>();
+        private volatile boolean failing;
+        private int saves;
+
+        @Override
+        public void save(ProductBatchSummary summary) {
+            if (failing) {
+                throw new IllegalStateException("connection refused");
+            }
+            saved.put(summary.getBatchNo(), summary);
+            saves++;
+        }
+
+        @Override
+        public ProductBatchSummary load(String batchNo) {
+            return saved.get(batchNo);
+        }
+
+        @Override
+        public ProductBatchSummary recover(String batchNo) {
+            if (failing) {
+                throw new IllegalStateException("connection refused");
+            }
+            return recovered.get(batchNo);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.huabin.multids.progress;
+
+import com.huabin.multids.db2.entity.ProductBatchSummary;
+import com.huabin.multids.db2.mapper.ProductBatchSummaryMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 批次进度存储恢复逻辑测试
+ */
+public class JdbcBatchProgressStoreTest {
+
+    @Test
+    public void recoverWithoutSummaryRowDoesNotUseLogCountAsTotal() {
+        StubMapper mapper = new StubMapper();
+        mapper.counted.put("B1", summary("B1", 2, 2, 0));
+
+        // 只记录了部分产品的日志，总数未知，不能据此显示完成
+        assertNull(new JdbcBatchProgressStore(mapper).recover("B1"));
+    }
+
+    @Test
+    public void recoverTakesTotalFromSummaryAndCountsFromLog() {
+        StubMapper mapper = new StubMapper();
+        mapper.summaries.put("B1", summary("B1", 10, 1, 0));
+        mapper.counted.put("B1", summary("B1", 4, 3, 1));
+
+        ProductBatchSummary recovered = new JdbcBatchProgressStore(mapper).recover("B1");
+        assertEquals(10L, recovered.getTotalCount());
+        assertEquals(3L, recovered.getSuccessCount());
+        assertEquals(1L, recovered.getFailedCount());
+    }
+
+    private static ProductBatchSummary summary(String batchNo, long total, long success, long failed) {
+        ProductBatchSummary summary = new ProductBatchSummary();
+        summary.setBatchNo(batchNo);
+        summary.setTotalCount(total);
+        summary.setSuccessCount(success);
+        summary.setFailedCount(failed);
+        return summary;
+    }
+
+    /**
+     * summaries 对应 product_batch_summary，counted 对应日志表聚合
+     */
+    private static class StubMapper implements ProductBatchSummaryMapper {
+
+        private final Map<String, ProductBatchSummary> summaries = new HashMap<>();
+        private final Map<String, ProductBatchSummary> counted = new HashMap<>();
+
+        @Override
+        public int upsert(ProductBatchSummary summary) {
+            summaries.put(summary.getBatchNo(), summary);
+            return 1;
+        }
+
+        @Override
+        public ProductBatchSummary selectByBatchNo(String batchNo) {
+            return summaries.get(batchNo);
+        }
+
+        @Override
+        public ProductBatchSummary countByBatchNo(String batchNo) {
+            return counted.get(batchNo);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.huabin.multids.task;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huabin.multids.dto.ProductCreateJob;
+import com.huabin.multids.dto.ProductCreateRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 作业溢出队列测试
+ */
+public class FileSpillQueueTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void replayAfterRestartKeepsRotationOrder() throws IOException {
+        FileSpillQueue queue = new FileSpillQueue(dir, objectMapper);
+        queue.append(job("B1"));
+        queue.append(job("B2"));
+        queue.rotate();
+        queue.append(job("B3"));
+        queue.close();
+
+        // 模拟重启：新实例接管同一目录
+        FileSpillQueue restarted = new FileSpillQueue(dir, objectMapper);
+        assertTrue(restarted.hasPending());
+        List<String> replayed = new ArrayList<>();
+        for (Path file : restarted.rotate()) {
+            restarted.replay(file, j -> replayed.add(j.getBatchNo()));
+        }
+
+        assertEquals(Arrays.asList("B1", "B2", "B3"), replayed);
+        assertFalse(restarted.hasPending());
+        assertEquals(Collections.emptyList(), listFiles());
+    }
+
+    @Test
+    public void interruptedReplayResumesFromPosition() throws IOException {
+        FileSpillQueue queue = new FileSpillQueue(dir, objectMapper);
+        queue.append(job("B1"));
+        queue.append(job("B2"));
+        queue.append(job("B3"));
+        Path file = queue.rotate().get(0);
+
+        List<String> replayed = new ArrayList<>();
+        assertEquals(1, queue.replay(file, j -> replayed.add(j.getBatchNo()) && replayed.size() < 2));
+        assertTrue(Files.exists(file));
+
+        assertEquals(2, queue.replay(file, j -> replayed.add(j.getBatchNo())));
+        // 拒收的 B2 再次投递，已确认的 B1 不再重复
+        assertEquals(Arrays.asList("B1", "B2", "B2", "B3"), replayed);
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void truncatedPositionFileReplaysFromStart() throws IOException {
+        FileSpillQueue queue = new FileSpillQueue(dir, objectMapper);
+        queue.append(job("B1"));
+        queue.append(job("B2"));
+        Path file = queue.rotate().get(0);
+        // .pos 写到一半进程退出
+        Files.write(Paths.get(file + ".pos"), new byte[0]);
+
+        List<String> replayed = new ArrayList<>();
+        assertEquals(2, queue.replay(file, j -> replayed.add(j.getBatchNo())));
+        assertEquals(Arrays.asList("B1", "B2"), replayed);
+        assertEquals(Collections.emptyList(), listFiles());
+    }
+
+    @Test
+    public void truncatedLastLineIsSkippedAndNextAppendSurvives() throws IOException {
+        FileSpillQueue queue = new FileSpillQueue(dir, objectMapper);
+        queue.append(job("B1"));
+        queue.close();
+        // 追加写到一半进程退出
+        Files.write(dir.resolve("spill.ndjson"), "{\"batchNo\":\"B2\",\"crea".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        FileSpillQueue restarted = new FileSpillQueue(dir, objectMapper);
+        restarted.append(job("B3"));
+        List<String> replayed = new ArrayList<>();
+        for (Path file : restarted.rotate()) {
+            restarted.replay(file, j -> replayed.add(j.getBatchNo()));
+        }
+
+        assertEquals(Arrays.asList("B1", "B3"), replayed);
+        assertFalse(restarted.hasPending());
+    }
+
+    private List<String> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+
+    static ProductCreateJob job(String batchNo) {
+        ProductCreateRequest product = new ProductCreateRequest();
+        product.setProductName("product-" + batchNo);
+        product.setProductCode(batchNo);
+        return new ProductCreateJob(batchNo, "tester", Collections.singletonList(product));
+    }
+}
@@ -0,0 +1,166 @@
+package com.huabin.multids.task;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.huabin.multids.dto.ProductCreateJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc 产品创建任务提交器测试（任务只记录批次号，不访问数据库）
+ */
+public class ProductTaskSubmitterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RecordingFactory factory = new RecordingFactory();
+
+    @TempDir
+    Path dir;
+
+    private ThreadPoolExecutor executor;
+    private ProductTaskSubmitter submitter;
+
+    @AfterEach
+    public void tearDown() {
+        factory.gate.countDown();
+        if (submitter != null) {
+            submitter.shutdown();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void spillsWhenWindowIsFull() throws Exception {
+        factory.block("B1");
+        submitter = newSubmitter(1, new FileSpillQueue(dir, objectMapper));
+
+        assertTrue(submitter.submit(FileSpillQueueTest.job("B1")));
+        assertFalse(submitter.submit(FileSpillQueueTest.job("B2")));
+
+        assertEquals(1L, submitter.getStats().get("submitted"));
+        assertEquals(1L, submitter.getStats().get("spilled"));
+        assertEquals(true, submitter.getStats().get("spillPending"));
+        assertEquals(Arrays.asList("B1"), factory.started);
+    }
+
+    @Test
+    public void drainsLeftoverSpillInOrderAfterRestart() throws Exception {
+        FileSpillQueue previous = new FileSpillQueue(dir, objectMapper);
+        previous.append(FileSpillQueueTest.job("B1"));
+        previous.append(FileSpillQueueTest.job("B2"));
+        previous.rotate();
+        previous.append(FileSpillQueueTest.job("B3"));
+        previous.close();
+
+        submitter = newSubmitter(4, new FileSpillQueue(dir, objectMapper));
+        submitter.start(10);
+
+        waitUntil(() -> factory.finished.size() == 3);
+        assertEquals(Arrays.asList("B1", "B2", "B3"), factory.finished);
+        assertEquals(3L, submitter.getStats().get("replayed"));
+        assertEquals(false, submitter.getStats().get("spillPending"));
+    }
+
+    @Test
+    public void shrinkingWindowWhilePermitsHeldTakesEffectAsJobsFinish() throws Exception {
+        factory.block("B1", "B2");
+        submitter = newSubmitter(2, new FileSpillQueue(dir, objectMapper));
+        assertTrue(submitter.submit(FileSpillQueueTest.job("B1")));
+        assertTrue(submitter.submit(FileSpillQueueTest.job("B2")));
+
+        submitter.setCapacity(1);
+        assertEquals(1, submitter.getCapacity());
+        assertEquals(2, submitter.getStats().get("inFlight"));
+
+        // 释放一个在途作业：在途数降到 1，仍不低于新窗口
+        factory.release("B1");
+        waitUntil(() -> factory.finished.contains("B1"));
+        assertFalse(submitter.submit(FileSpillQueueTest.job("B3")));
+
+        factory.release("B2");
+        waitUntil(() -> factory.finished.contains("B2"));
+        assertEquals(0, submitter.getStats().get("inFlight"));
+        assertTrue(submitter.submit(FileSpillQueueTest.job("B4")));
+
+        // 调大立即生效
+        factory.block("B5");
+        submitter.setCapacity(3);
+        assertTrue(submitter.submit(FileSpillQueueTest.job("B5")));
+    }
+
+    private ProductTaskSubmitter newSubmitter(int maxInFlight, FileSpillQueue spillQueue) {
+        executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>());
+        return new ProductTaskSubmitter(executor, factory, spillQueue, maxInFlight, 20);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 记录开始/结束顺序，被 block 的批次一直执行到 release
+     */
+    private static class RecordingFactory extends ProductTaskFactory {
+
+        private final List<String> started = new CopyOnWriteArrayList<>();
+        private final List<String> finished = new CopyOnWriteArrayList<>();
+        private final Map<String, CountDownLatch> blocked = new ConcurrentHashMap<>();
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        RecordingFactory() {
+            super(null, null, null, null);
+        }
+
+        void block(String... batchNos) {
+            for (String batchNo : batchNos) {
+                blocked.put(batchNo, new CountDownLatch(1));
+            }
+        }
+
+        void release(String batchNo) {
+            blocked.get(batchNo).countDown();
+        }
+
+        @Override
+        public Runnable create(ProductCreateJob job) {
+            return () -> {
+                started.add(job.getBatchNo());
+                CountDownLatch latch = blocked.get(job.getBatchNo());
+                if (latch != null) {
+                    try {
+                        while (!latch.await(10, TimeUnit.MILLISECONDS) && gate.getCount() > 0) {
+                            // 等待 release 或测试结束
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                finished.add(job.getBatchNo());
+            };
+        }
+    }
+}
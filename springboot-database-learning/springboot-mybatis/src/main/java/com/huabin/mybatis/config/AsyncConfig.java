@@ -1,6 +1,12 @@
 package com.huabin.mybatis.config;
 
+import com.huabin.executor.BoundedExecutor;
+import com.huabin.executor.ExecutorMode;
+import com.huabin.executor.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
@@ -8,6 +14,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 
 /**
@@ -24,11 +31,30 @@ import java.util.concurrent.ThreadPoolExecutor;
  * - 线程池大小要与数据库连接池匹配
  * - 避免线程池过大导致数据库连接耗尽
  * - 建议：maxPoolSize <= datasource.hikari.maximum-pool-size
+ * 
+ * 执行方式（async.executor.mode）：
+ * - platform（默认）：ThreadPoolTaskExecutor，线程阻塞在 JDBC 上时后续任务只能排队
+ * - virtual：每个任务一个虚拟线程，同时执行的任务数由信号量限制为连接池大小；
+ *   需要 JDK 21+，低版本 JDK 自动退回 platform
  */
 @Configuration
 @EnableAsync  // 启用异步方法支持
 public class AsyncConfig implements AsyncConfigurer {
 
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    /**
+     * 执行方式：platform / virtual
+     */
+    @Value("${async.executor.mode:platform}")
+    private String executorMode;
+
+    /**
+     * 连接池大小，virtual 模式下作为最大并发任务数
+     */
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
     /**
      * 自定义异步线程池
      * 
@@ -46,6 +72,17 @@ public class AsyncConfig implements AsyncConfigurer {
      */
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+        ExecutorMode mode = ExecutorMode.of(executorMode);
+        if (mode.resolve() == ExecutorMode.VIRTUAL) {
+            // 任务在队列中等待许可时不占线程，拿到许可才创建虚拟线程
+            return new BoundedExecutor("mybatis-async", connectionPoolSize,
+                    new LinkedBlockingQueue<>(), VirtualThreads.threadFactory("mybatis-async-"));
+        }
+        if (mode == ExecutorMode.VIRTUAL) {
+            logger.warn("当前 JDK 不支持虚拟线程，taskExecutor 使用平台线程池，java.version={}",
+                    System.getProperty("java.version"));
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         // 核心线程数：根据CPU核心数设置
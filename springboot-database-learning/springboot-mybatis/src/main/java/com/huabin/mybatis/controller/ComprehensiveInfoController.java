@@ -1,11 +1,14 @@
 package com.huabin.mybatis.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.huabin.mybatis.entity.ComprehensiveInfo;
 import com.huabin.mybatis.service.ComprehensiveInfoService;
+import com.huabin.page.KeysetPage;
+import com.huabin.web.NdjsonStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * @Author huabin
@@ -14,7 +17,8 @@ import java.util.List;
  * 
  * RESTful API示例：
  * GET    /api/comprehensive/{prodCode}  - 根据ID查询
- * GET    /api/comprehensive              - 查询所有
+ * GET    /api/comprehensive              - 按主键翻页查询
+ * GET    /api/comprehensive/export       - 导出所有（NDJSON 流）
  * POST   /api/comprehensive              - 新增
  * PUT    /api/comprehensive              - 更新
  * DELETE /api/comprehensive/{prodCode}  - 删除
@@ -26,6 +30,9 @@ public class ComprehensiveInfoController {
     @Autowired
     private ComprehensiveInfoService comprehensiveInfoService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 根据产品代码查询
      * 
@@ -38,14 +45,35 @@ public class ComprehensiveInfoController {
     }
 
     /**
-     * 查询所有
+     * 按主键翻页查询
+     * 
+     * 说明：
+     * - list 为当前页，下一页把 nextKey 作为 lastProdCode 传回，hasMore = false 时已到最后一页
+     * - limit 默认 100，最大 1000；需要全部数据时用 /export
      * 
      * 测试命令：
      * curl http://localhost:8080/api/comprehensive
+     * curl "http://localhost:8080/api/comprehensive?lastProdCode=PROD001&limit=50"
      */
     @GetMapping
-    public List<ComprehensiveInfo> getAll() {
-        return comprehensiveInfoService.getAll();
+    public KeysetPage<ComprehensiveInfo, String> getPage(@RequestParam(required = false) String lastProdCode,
+                                                         @RequestParam(required = false) Integer limit) {
+        return comprehensiveInfoService.getPage(lastProdCode, KeysetPage.normalizeLimit(limit));
+    }
+
+    /**
+     * 导出所有记录（NDJSON，每行一个 JSON 对象）
+     * 
+     * 说明：
+     * - 按主键顺序边查边写，不把整张表加载到内存
+     * - 在 MVC 异步线程池中写出（见 WebMvcAsyncConfig），超过 spring.mvc.async.request-timeout 未写完会被中断
+     * 
+     * 测试命令：
+     * curl -N http://localhost:8080/api/comprehensive/export > comprehensive.ndjson
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return NdjsonStreams.of(objectMapper, comprehensiveInfoService::forEach);
     }
 
     /**
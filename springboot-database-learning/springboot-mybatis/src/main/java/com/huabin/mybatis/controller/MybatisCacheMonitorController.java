@@ -0,0 +1,35 @@
+package com.huabin.mybatis.controller;
+
+import com.huabin.cache.TieredCacheRegistry;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Author huabin
+ * @DateTime 2026-10-19
+ * @Desc MyBatis 二级缓存监控控制器
+ *
+ * 提供各 Mapper 命名空间的缓存条数、命中数、未命中数、淘汰数和清空次数（本模块没有 Redis 层）
+ */
+@RestController
+@RequestMapping("/api/monitor")
+public class MybatisCacheMonitorController {
+
+    /**
+     * 查询二级缓存统计
+     *
+     * 测试命令：
+     * curl http://localhost:8080/api/monitor/mybatis-caches
+     */
+    @GetMapping("/mybatis-caches")
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("remoteTier", TieredCacheRegistry.getRemoteTier() != null);
+        result.put("caches", TieredCacheRegistry.getStats());
+        return result;
+    }
+}
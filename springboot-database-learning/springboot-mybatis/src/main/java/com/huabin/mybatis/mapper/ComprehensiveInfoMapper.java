@@ -2,6 +2,8 @@ package com.huabin.mybatis.mapper;
 
 import com.huabin.mybatis.entity.ComprehensiveInfo;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -23,5 +25,17 @@ public interface ComprehensiveInfoMapper {
 
     List<ComprehensiveInfo> selectAll();
 
+    /**
+     * 按主键翻页（where prod_code > lastProdCode order by prod_code limit limit），lastProdCode 为空时从第一行开始
+     */
+    List<ComprehensiveInfo> selectPage(@Param("lastProdCode") String lastProdCode, @Param("limit") int limit);
+
+    /**
+     * 按主键顺序流式遍历（MySQL 逐行读取，不把整张表加载到内存）
+     *
+     * 注意：必须在事务内遍历，事务结束时游标随 SqlSession 关闭
+     */
+    Cursor<ComprehensiveInfo> selectAllCursor();
+
     int updateByPrimaryKey(ComprehensiveInfo record);
 }
\ No newline at end of file
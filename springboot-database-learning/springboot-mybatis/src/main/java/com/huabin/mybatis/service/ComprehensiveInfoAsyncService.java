@@ -2,13 +2,18 @@ package com.huabin.mybatis.service;
 
 import com.huabin.mybatis.entity.ComprehensiveInfo;
 import com.huabin.mybatis.mapper.ComprehensiveInfoMapper;
+import com.huabin.page.KeysetPage;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -75,10 +80,13 @@ public class ComprehensiveInfoAsyncService {
     /**
      * 异步查询所有记录
      *
-     * 使用场景：
-     * - 数据量大，查询耗时
-     * - 后台任务
+     * 注意：
+     * - 整张表一次性加载到内存，只适合小表
+     * - 大表翻页用 getPageAsync，逐行处理用 forEachAsync
+     *
+     * @deprecated 数据量大时会耗尽堆内存，改用 {@link #getPageAsync(String, int)} 或 {@link #forEachAsync(Consumer)}
      */
+    @Deprecated
     @Async("taskExecutor")
     public CompletableFuture<List<ComprehensiveInfo>> getAllAsync() {
         System.out.println("异步查询所有 - 线程: " + Thread.currentThread().getName());
@@ -89,6 +97,51 @@ public class ComprehensiveInfoAsyncService {
         return CompletableFuture.completedFuture(list);
     }
 
+    /**
+     * 异步按主键翻页查询
+     *
+     * @param lastProdCode 上一页的 nextKey，第一页传 null
+     * @param limit        每页条数
+     * @return CompletableFuture包装的一页数据
+     */
+    @Async("taskExecutor")
+    public CompletableFuture<KeysetPage<ComprehensiveInfo, String>> getPageAsync(String lastProdCode, int limit) {
+        List<ComprehensiveInfo> rows = comprehensiveInfoMapper.selectPage(lastProdCode, limit + 1);
+        return CompletableFuture.completedFuture(KeysetPage.of(rows, limit, ComprehensiveInfo::getProdCode));
+    }
+
+    /**
+     * 异步逐行处理所有记录（后台任务，如导出、数据同步）
+     *
+     * 说明：
+     * - 通过游标逐行读取，内存中只保留当前行
+     * - 游标只在事务内有效，使用只读的 TransactionTemplate 包住整个遍历（@Transactional 在异步方法中不生效）
+     *
+     * @param action 每行的处理
+     * @return CompletableFuture包装的处理行数
+     */
+    @Async("taskExecutor")
+    public CompletableFuture<Long> forEachAsync(Consumer<ComprehensiveInfo> action) {
+        TransactionTemplate readOnlyTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTemplate.setReadOnly(true);
+
+        Long count = readOnlyTemplate.execute(status -> {
+            long rows = 0;
+            try (Cursor<ComprehensiveInfo> cursor = comprehensiveInfoMapper.selectAllCursor()) {
+                for (ComprehensiveInfo info : cursor) {
+                    action.accept(info);
+                    rows++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return rows;
+        });
+
+        System.out.println("逐行处理完成，共 " + count + " 条记录 - 线程: " + Thread.currentThread().getName());
+        return CompletableFuture.completedFuture(count);
+    }
+
     // ==================== 写操作（需要事务） ====================
 
     /**
@@ -2,10 +2,16 @@ package com.huabin.mybatis.service;
 
 import com.huabin.mybatis.entity.ComprehensiveInfo;
 import com.huabin.mybatis.mapper.ComprehensiveInfoMapper;
+import com.huabin.page.KeysetPage;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @Author huabin
@@ -56,6 +62,8 @@ public class ComprehensiveInfoService {
 
     /**
      * 根据主键查询
+     *
+     * 命中 MyBatis 二级缓存（ComprehensiveInfoMapper.xml 的 TieredCache）时不访问数据库，增删改提交后清空
      */
     public ComprehensiveInfo getById(String prodCode) {
         return comprehensiveInfoMapper.selectByPrimaryKey(prodCode);
@@ -68,6 +76,41 @@ public class ComprehensiveInfoService {
         return comprehensiveInfoMapper.selectAll();
     }
 
+    /**
+     * 按主键翻页查询
+     *
+     * @param lastProdCode 上一页的 nextKey，第一页传 null
+     * @param limit        每页条数
+     */
+    public KeysetPage<ComprehensiveInfo, String> getPage(String lastProdCode, int limit) {
+        return KeysetPage.of(comprehensiveInfoMapper.selectPage(lastProdCode, limit + 1), limit,
+                ComprehensiveInfo::getProdCode);
+    }
+
+    /**
+     * 按主键顺序流式遍历所有记录（导出）
+     *
+     * 说明：
+     * - 游标只在事务内有效，因此整个遍历在一个只读事务中进行
+     * - 遍历期间一直占用一个连接，action 不要做耗时操作
+     *
+     * @param action 每行的处理
+     * @return 遍历的行数
+     */
+    @Transactional(readOnly = true)
+    public long forEach(Consumer<ComprehensiveInfo> action) {
+        long count = 0;
+        try (Cursor<ComprehensiveInfo> cursor = comprehensiveInfoMapper.selectAllCursor()) {
+            for (ComprehensiveInfo info : cursor) {
+                action.accept(info);
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
     /**
      * 新增
      */
@@ -1,8 +1,8 @@
 package com.huabin.sharding.order;
 
-import cn.hutool.core.lang.generator.UUIDGenerator;
-import cn.hutool.core.util.IdUtil;
 import com.github.javafaker.Faker;
+import com.huabin.id.IdGenerator;
+import com.huabin.id.SnowflakeIdGenerator;
 import com.huabin.sharding.order.entity.OrderInfo;
 import com.huabin.sharding.order.service.IOrderInfoService;
 import org.junit.Test;
@@ -31,9 +31,10 @@ public class DataGenerator {
     public void genData(){
         List<OrderInfo> orders = new ArrayList<>();
         Faker faker = new Faker();
+        IdGenerator idGenerator = new SnowflakeIdGenerator(1, 1);
         for (int i = 1; i <= 40000000; i++) {
             OrderInfo order = new OrderInfo();
-            String idStr = IdUtil.getSnowflakeNextIdStr();
+            String idStr = String.valueOf(idGenerator.nextId());
             order.setOrderNo(idStr);
             order.setCreateUser("hb");
             order.setOrderTime(LocalDateTime.now());
@@ -0,0 +1,114 @@
+package com.huabin.redis.fake;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 二进制安全的字符串（Redis 的 key/value 都是字节数组）
+ *
+ * @author huabin
+ */
+final class Bytes implements Comparable<Bytes> {
+
+    static final Bytes EMPTY = new Bytes(new byte[0]);
+
+    private final byte[] data;
+    private int hash;
+
+    Bytes(byte[] data) {
+        this.data = data;
+    }
+
+    static Bytes of(String value) {
+        return new Bytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Bytes of(long value) {
+        return of(Long.toString(value));
+    }
+
+    static Bytes of(double value) {
+        if (Double.isInfinite(value)) {
+            return of(value > 0 ? "inf" : "-inf");
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e17) {
+            return of(Long.toString((long) value));
+        }
+        return of(Double.toString(value));
+    }
+
+    byte[] data() {
+        return data;
+    }
+
+    int length() {
+        return data.length;
+    }
+
+    long toLong() {
+        try {
+            return Long.parseLong(toString());
+        } catch (NumberFormatException e) {
+            throw new RedisException("ERR value is not an integer or out of range");
+        }
+    }
+
+    double toDouble() {
+        String s = toString();
+        switch (s.toLowerCase()) {
+            case "inf":
+            case "+inf":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                try {
+                    return Double.parseDouble(s);
+                } catch (NumberFormatException e) {
+                    throw new RedisException("ERR value is not a valid float");
+                }
+        }
+    }
+
+    /**
+     * 命令名、选项等大小写不敏感的比较
+     */
+    boolean is(String word) {
+        return toString().equalsIgnoreCase(word);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Bytes && Arrays.equals(data, ((Bytes) o).data));
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && data.length > 0) {
+            h = Arrays.hashCode(data);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * 按无符号字节比较（与 Redis 的 memcmp 一致）
+     */
+    @Override
+    public int compareTo(Bytes o) {
+        int len = Math.min(data.length, o.data.length);
+        for (int i = 0; i < len; i++) {
+            int c = (data[i] & 0xff) - (o.data[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return data.length - o.data.length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
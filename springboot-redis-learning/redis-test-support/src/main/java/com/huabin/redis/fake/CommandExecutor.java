@@ -0,0 +1,1574 @@
+package com.huabin.redis.fake;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 命令执行器
+ *
+ * 所有命令都在事件循环线程中串行执行，与 Redis 单线程模型一致，
+ * 因此 MULTI/EXEC 和 Lua 脚本天然是原子的
+ *
+ * 支持的命令：
+ * - 连接/服务器：PING ECHO AUTH SELECT QUIT CLIENT INFO TIME COMMAND CONFIG DBSIZE FLUSHDB FLUSHALL READONLY
+ *   MEMORY USAGE（按 MemoryModel 估算） SLOWLOG LATENCY
+ * - key：DEL UNLINK EXISTS EXPIRE PEXPIRE EXPIREAT PEXPIREAT TTL PTTL PERSIST TYPE KEYS SCAN RENAME
+ *   OBJECT ENCODING
+ * - string：GET SET SETEX PSETEX SETNX GETSET GETDEL MGET MSET MSETNX INCR INCRBY DECR DECRBY INCRBYFLOAT
+ *   APPEND STRLEN SETBIT GETBIT BITCOUNT
+ * - hash：HSET HSETNX HMSET HGET HMGET HGETALL HDEL HEXISTS HLEN HKEYS HVALS HINCRBY HINCRBYFLOAT HSTRLEN HSCAN
+ * - list：LPUSH RPUSH LPUSHX RPUSHX LPOP RPOP LLEN LRANGE LINDEX LSET LREM LTRIM RPOPLPUSH
+ * - set：SADD SREM SMEMBERS SISMEMBER SMISMEMBER SCARD SPOP SRANDMEMBER SINTER SUNION SDIFF
+ *   SINTERSTORE SUNIONSTORE SDIFFSTORE SSCAN
+ * - zset：ZADD ZINCRBY ZSCORE ZMSCORE ZREM ZCARD ZRANK ZREVRANK ZRANGE ZREVRANGE ZRANGEBYSCORE ZREVRANGEBYSCORE
+ *   ZCOUNT ZREMRANGEBYRANK ZREMRANGEBYSCORE ZPOPMIN ZPOPMAX ZSCAN
+ * - pub/sub：SUBSCRIBE UNSUBSCRIBE PSUBSCRIBE PUNSUBSCRIBE PUBLISH
+ * - 脚本：EVAL EVALSHA SCRIPT
+ * - 事务：MULTI EXEC DISCARD WATCH UNWATCH（WATCH 不做乐观锁检查）
+ *
+ * 不支持阻塞命令（BLPOP 等）、Stream、集群命令
+ *
+ * @author huabin
+ */
+final class CommandExecutor implements LuaScripting.Executor {
+
+    private static final int DATABASES = 16;
+
+    private static final Set<String> SUBSCRIBE_ALLOWED = new HashSet<>(Arrays.asList(
+            "SUBSCRIBE", "UNSUBSCRIBE", "PSUBSCRIBE", "PUNSUBSCRIBE", "PING", "QUIT"));
+
+    private static final Set<String> MULTI_CONTROL = new HashSet<>(Arrays.asList(
+            "MULTI", "EXEC", "DISCARD", "WATCH", "UNWATCH"));
+
+    @FunctionalInterface
+    private interface Handler {
+
+        Object handle(Session session, Database db, List<Bytes> args);
+    }
+
+    /**
+     * 单个命令的调用次数和累计耗时（INFO commandstats）
+     */
+    private static final class CommandStat {
+
+        final LongAdder calls = new LongAdder();
+        final LongAdder usec = new LongAdder();
+
+        void record(long micros) {
+            calls.increment();
+            usec.add(micros);
+        }
+    }
+
+    private static final class Command {
+
+        final int arity;
+        final Handler handler;
+
+        Command(int arity, Handler handler) {
+            this.arity = arity;
+            this.handler = handler;
+        }
+    }
+
+    private final Map<String, Command> commands = new HashMap<>();
+    private final Database[] databases = new Database[DATABASES];
+    private final LongSupplier clock;
+    private final LuaScripting lua;
+    private final Random random;
+
+    private final Map<Bytes, Set<Session>> channels = new HashMap<>();
+    private final Map<Bytes, Set<Session>> patterns = new HashMap<>();
+
+    private final Map<String, CommandStat> stats = new ConcurrentHashMap<>();
+    private final Set<Session> sessions = new LinkedHashSet<>();
+
+    /**
+     * 慢查询日志（最新的在前）和 LATENCY 事件
+     */
+    private final Deque<List<Object>> slowlog = new ArrayDeque<>();
+    private long slowlogId;
+    private final Map<String, long[]> latencyEvents = new LinkedHashMap<>();
+
+    /**
+     * 注入的命令执行耗时（在事件循环中等待，阻塞所有连接，模拟服务端慢命令）
+     */
+    private volatile long executionDelayNanos;
+    private volatile Set<String> slowCommands = Collections.emptySet();
+
+    /**
+     * CONFIG GET/SET 的参数（只用于编码判断，listpack 名称按 ziplist 保存）
+     */
+    private final Map<String, String> config = new LinkedHashMap<>();
+
+    CommandExecutor(LongSupplier clock, Random random) {
+        this.clock = clock;
+        this.random = random;
+        config.put("hash-max-ziplist-entries", "512");
+        config.put("hash-max-ziplist-value", "64");
+        config.put("set-max-intset-entries", "512");
+        config.put("zset-max-ziplist-entries", "128");
+        config.put("zset-max-ziplist-value", "64");
+        config.put("maxmemory", "0");
+        config.put("slowlog-log-slower-than", "10000");
+        config.put("slowlog-max-len", "128");
+        config.put("latency-monitor-threshold", "0");
+        config.put("maxmemory-policy", "noeviction");
+        this.lua = new LuaScripting(this);
+        for (int i = 0; i < DATABASES; i++) {
+            databases[i] = new Database(clock);
+        }
+        registerConnectionCommands();
+        registerKeyCommands();
+        registerStringCommands();
+        registerHashCommands();
+        registerListCommands();
+        registerSetCommands();
+        registerZSetCommands();
+        registerPubSubCommands();
+        registerScriptingCommands();
+        registerTransactionCommands();
+    }
+
+    /**
+     * 执行客户端发来的命令（计入统计）
+     */
+    Object dispatch(Session session, List<Bytes> args) {
+        String name = args.get(0).toString().toUpperCase(Locale.ROOT);
+        sessions.add(session);
+        session.lastCommand = name.toLowerCase(Locale.ROOT);
+        session.lastCommandAtMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        try {
+            Object reply = execute(session, args);
+            delayExecution(name, start);
+            return reply;
+        } finally {
+            long usec = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            stats.computeIfAbsent(name, k -> new CommandStat()).record(usec);
+            recordSlowlog(session, args, usec);
+        }
+    }
+
+    /**
+     * 设置注入的命令执行耗时
+     *
+     * @param commands 只对这些命令生效，为空表示所有命令
+     */
+    void setExecutionDelay(long delayNanos, Set<String> commands) {
+        this.slowCommands = commands;
+        this.executionDelayNanos = delayNanos;
+    }
+
+    private void delayExecution(String name, long start) {
+        long delay = executionDelayNanos;
+        if (delay <= 0) {
+            return;
+        }
+        Set<String> commands = slowCommands;
+        if (!commands.isEmpty() && !commands.contains(name)) {
+            return;
+        }
+        long deadline = start + delay;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void recordSlowlog(Session session, List<Bytes> args, long usec) {
+        long threshold = Long.parseLong(config.get("slowlog-log-slower-than"));
+        if (threshold >= 0 && usec >= threshold) {
+            List<Object> logged = new ArrayList<>();
+            for (int i = 0; i < Math.min(args.size(), 32); i++) {
+                logged.add(args.get(i));
+            }
+            long timestamp = System.currentTimeMillis() / 1000;
+            slowlog.addFirst(Arrays.asList(slowlogId++, timestamp, usec, logged,
+                    Bytes.of("127.0.0.1:0"), Bytes.of(session.name == null ? "" : session.name)));
+            int maxLen = Integer.parseInt(config.get("slowlog-max-len"));
+            while (slowlog.size() > maxLen) {
+                slowlog.removeLast();
+            }
+        }
+        long latencyThreshold = Long.parseLong(config.get("latency-monitor-threshold"));
+        long ms = usec / 1000;
+        if (latencyThreshold > 0 && ms >= latencyThreshold) {
+            long[] event = latencyEvents.computeIfAbsent("command", k -> new long[3]);
+            event[0] = System.currentTimeMillis() / 1000;
+            event[1] = ms;
+            event[2] = Math.max(event[2], ms);
+        }
+    }
+
+    @Override
+    public Object execute(Session session, List<Bytes> args) {
+        String name = args.get(0).toString().toUpperCase(Locale.ROOT);
+        Command command = commands.get(name);
+        try {
+            if (command == null) {
+                throw new RedisException("ERR unknown command '" + args.get(0) + "'");
+            }
+            if (command.arity > 0 ? args.size() != command.arity : args.size() < -command.arity) {
+                throw RedisException.arity(name);
+            }
+        } catch (RedisException e) {
+            if (session.multi != null) {
+                session.multiFailed = true;
+            }
+            throw e;
+        }
+        if (session.subscribed() && !SUBSCRIBE_ALLOWED.contains(name)) {
+            throw new RedisException("ERR only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT are allowed in this context");
+        }
+        if (session.multi != null && !MULTI_CONTROL.contains(name)) {
+            session.multi.add(args);
+            return Reply.QUEUED;
+        }
+        return command.handler.handle(session, databases[session.db], args);
+    }
+
+    /**
+     * 连接关闭时取消订阅
+     */
+    void closeSession(Session session) {
+        sessions.remove(session);
+        for (Bytes channel : session.channels) {
+            removeSubscriber(channels, channel, session);
+        }
+        for (Bytes pattern : session.patterns) {
+            removeSubscriber(patterns, pattern, session);
+        }
+        session.channels.clear();
+        session.patterns.clear();
+    }
+
+    /**
+     * 定期清理过期 key
+     */
+    void activeExpire() {
+        for (Database db : databases) {
+            db.activeExpire();
+        }
+    }
+
+    void flushAll() {
+        for (Database db : databases) {
+            db.clear();
+        }
+    }
+
+    Map<String, Long> stats() {
+        Map<String, Long> snapshot = new HashMap<>();
+        stats.forEach((k, v) -> snapshot.put(k, v.calls.sum()));
+        return snapshot;
+    }
+
+    void resetStats() {
+        stats.clear();
+    }
+
+    /**
+     * INFO 的各个部分（server clients memory stats replication commandstats keyspace）
+     */
+    private String info(String section) {
+        String wanted = section.toLowerCase(Locale.ROOT);
+        boolean all = wanted.equals("default") || wanted.equals("all") || wanted.equals("everything");
+        StringBuilder info = new StringBuilder();
+        if (all || wanted.equals("server")) {
+            info.append("# Server\r\nredis_version:6.2.0\r\nredis_mode:standalone\r\nprocess_id:0\r\n\r\n");
+        }
+        if (all || wanted.equals("clients")) {
+            info.append("# Clients\r\nconnected_clients:").append(sessions.size())
+                    .append("\r\nblocked_clients:0\r\n\r\n");
+        }
+        if (all || wanted.equals("memory")) {
+            long used = 0;
+            for (Database database : databases) {
+                for (Bytes key : database.keys()) {
+                    used += MemoryModel.usage(key, database.get(key), config);
+                }
+            }
+            info.append("# Memory\r\nused_memory:").append(used)
+                    .append("\r\nused_memory_rss:").append(used)
+                    .append("\r\nmaxmemory:").append(config.get("maxmemory"))
+                    .append("\r\nmaxmemory_policy:").append(config.get("maxmemory-policy"))
+                    .append("\r\nmem_fragmentation_ratio:1.00\r\n\r\n");
+        }
+        if (all || wanted.equals("stats")) {
+            long total = 0;
+            for (CommandStat stat : stats.values()) {
+                total += stat.calls.sum();
+            }
+            info.append("# Stats\r\ntotal_connections_received:").append(sessions.size())
+                    .append("\r\ntotal_commands_processed:").append(total)
+                    .append("\r\nrejected_connections:0\r\nexpired_keys:0\r\nevicted_keys:0")
+                    .append("\r\nkeyspace_hits:0\r\nkeyspace_misses:0\r\n\r\n");
+        }
+        if (all || wanted.equals("replication")) {
+            info.append("# Replication\r\nrole:master\r\nconnected_slaves:0\r\n\r\n");
+        }
+        if (wanted.equals("commandstats") || wanted.equals("all") || wanted.equals("everything")) {
+            info.append("# Commandstats\r\n");
+            stats.forEach((name, stat) -> {
+                long calls = stat.calls.sum();
+                long usec = stat.usec.sum();
+                info.append("cmdstat_").append(name.toLowerCase(Locale.ROOT))
+                        .append(":calls=").append(calls)
+                        .append(",usec=").append(usec)
+                        .append(",usec_per_call=").append(String.format(Locale.ROOT, "%.2f", calls == 0 ? 0.0 : (double) usec / calls))
+                        .append(",rejected_calls=0,failed_calls=0\r\n");
+            });
+            info.append("\r\n");
+        }
+        if (all || wanted.equals("keyspace")) {
+            info.append("# Keyspace\r\n");
+            for (int i = 0; i < DATABASES; i++) {
+                int size = databases[i].size();
+                if (size > 0) {
+                    info.append("db").append(i).append(":keys=").append(size).append(",expires=0\r\n");
+                }
+            }
+        }
+        return info.toString();
+    }
+
+    private static String clientLine(Session session) {
+        long now = System.currentTimeMillis();
+        return "id=" + session.id + " addr=127.0.0.1:0 name=" + (session.name == null ? "" : session.name)
+                + " age=" + (now - session.createdAtMillis) / 1000
+                + " idle=" + (now - session.lastCommandAtMillis) / 1000
+                + " flags=N db=" + session.db + " sub=" + session.channels.size() + " psub=" + session.patterns.size()
+                + " multi=" + (session.multi == null ? -1 : session.multi.size())
+                + " qbuf=0 qbuf-free=0 obl=0 oll=0 omem=0 cmd=" + session.lastCommand + "\n";
+    }
+
+    /**
+     * Redis 7 的 listpack 参数是 ziplist 参数的别名
+     */
+    private static String configName(Bytes name) {
+        return name.toString().toLowerCase(Locale.ROOT).replace("listpack", "ziplist");
+    }
+
+    private void register(String name, int arity, Handler handler) {
+        commands.put(name, new Command(arity, handler));
+    }
+
+    // ==================== 连接/服务器 ====================
+
+    private void registerConnectionCommands() {
+        register("PING", -1, (s, db, a) -> {
+            if (s.subscribed()) {
+                return Arrays.asList(Bytes.of("pong"), a.size() > 1 ? a.get(1) : Bytes.EMPTY);
+            }
+            return a.size() > 1 ? a.get(1) : Reply.PONG;
+        });
+        register("ECHO", 2, (s, db, a) -> a.get(1));
+        register("AUTH", -2, (s, db, a) -> Reply.OK);
+        register("READONLY", 1, (s, db, a) -> Reply.OK);
+        register("SELECT", 2, (s, db, a) -> {
+            long index = a.get(1).toLong();
+            if (index < 0 || index >= DATABASES) {
+                throw new RedisException("ERR DB index is out of range");
+            }
+            s.db = (int) index;
+            return Reply.OK;
+        });
+        register("QUIT", 1, (s, db, a) -> {
+            s.send(Reply.OK);
+            s.sink.close();
+            return Reply.NONE;
+        });
+        register("CLIENT", -2, (s, db, a) -> {
+            Bytes sub = a.get(1);
+            if (sub.is("SETNAME") && a.size() == 3) {
+                s.name = a.get(2).toString();
+                return Reply.OK;
+            }
+            if (sub.is("GETNAME")) {
+                return s.name == null ? null : Bytes.of(s.name);
+            }
+            if (sub.is("ID")) {
+                return s.id;
+            }
+            if (sub.is("INFO")) {
+                return Bytes.of(clientLine(s));
+            }
+            if (sub.is("LIST")) {
+                StringBuilder list = new StringBuilder();
+                for (Session session : sessions) {
+                    list.append(clientLine(session));
+                }
+                return Bytes.of(list.toString());
+            }
+            return Reply.OK;
+        });
+        register("INFO", -1, (s, db, a) -> Bytes.of(info(a.size() > 1 ? a.get(1).toString() : "default")));
+        register("SLOWLOG", -2, (s, db, a) -> {
+            if (a.get(1).is("GET")) {
+                long count = a.size() > 2 ? a.get(2).toLong() : 10;
+                List<Object> result = new ArrayList<>();
+                for (List<Object> entry : slowlog) {
+                    if (count >= 0 && result.size() >= count) {
+                        break;
+                    }
+                    result.add(entry);
+                }
+                return result;
+            }
+            if (a.get(1).is("LEN")) {
+                return (long) slowlog.size();
+            }
+            if (a.get(1).is("RESET")) {
+                slowlog.clear();
+                return Reply.OK;
+            }
+            throw new RedisException("ERR unknown subcommand '" + a.get(1) + "'");
+        });
+        register("LATENCY", -2, (s, db, a) -> {
+            if (a.get(1).is("LATEST")) {
+                List<Object> result = new ArrayList<>();
+                latencyEvents.forEach((event, v) -> result.add(Arrays.asList(Bytes.of(event), v[0], v[1], v[2])));
+                return result;
+            }
+            if (a.get(1).is("RESET")) {
+                long removed = latencyEvents.size();
+                latencyEvents.clear();
+                return removed;
+            }
+            throw new RedisException("ERR unknown subcommand '" + a.get(1) + "'");
+        });
+        register("TIME", 1, (s, db, a) -> {
+            long micros = clock.getAsLong() * 1000;
+            return Arrays.asList(Bytes.of(micros / 1_000_000), Bytes.of(micros % 1_000_000));
+        });
+        register("COMMAND", -1, (s, db, a) -> Collections.emptyList());
+        register("CONFIG", -2, (s, db, a) -> {
+            if (a.get(1).is("GET") && a.size() == 3) {
+                String pattern = configName(a.get(2));
+                List<Object> result = new ArrayList<>();
+                config.forEach((name, value) -> {
+                    if (GlobMatcher.matches(pattern, name)) {
+                        result.add(Bytes.of(name));
+                        result.add(Bytes.of(value));
+                    }
+                });
+                return result;
+            }
+            if (a.get(1).is("SET") && a.size() == 4) {
+                config.put(configName(a.get(2)), a.get(3).toString());
+            }
+            return Reply.OK;
+        });
+        register("MEMORY", -2, (s, db, a) -> {
+            if (!a.get(1).is("USAGE") || a.size() < 3) {
+                throw new RedisException("ERR unknown subcommand '" + a.get(1) + "'");
+            }
+            Object value = db.get(a.get(2));
+            return value == null ? null : MemoryModel.usage(a.get(2), value, config);
+        });
+        register("DBSIZE", 1, (s, db, a) -> (long) db.size());
+        register("FLUSHDB", -1, (s, db, a) -> {
+            db.clear();
+            return Reply.OK;
+        });
+        register("FLUSHALL", -1, (s, db, a) -> {
+            flushAll();
+            return Reply.OK;
+        });
+    }
+
+    // ==================== key ====================
+
+    private void registerKeyCommands() {
+        Handler del = (s, db, a) -> {
+            long removed = 0;
+            for (int i = 1; i < a.size(); i++) {
+                if (db.remove(a.get(i))) {
+                    removed++;
+                }
+            }
+            return removed;
+        };
+        register("DEL", -2, del);
+        register("UNLINK", -2, del);
+        register("EXISTS", -2, (s, db, a) -> {
+            long count = 0;
+            for (int i = 1; i < a.size(); i++) {
+                if (db.exists(a.get(i))) {
+                    count++;
+                }
+            }
+            return count;
+        });
+        register("EXPIRE", 3, (s, db, a) -> flag(db.expireAt(a.get(1), clock.getAsLong() + a.get(2).toLong() * 1000)));
+        register("PEXPIRE", 3, (s, db, a) -> flag(db.expireAt(a.get(1), clock.getAsLong() + a.get(2).toLong())));
+        register("EXPIREAT", 3, (s, db, a) -> flag(db.expireAt(a.get(1), a.get(2).toLong() * 1000)));
+        register("PEXPIREAT", 3, (s, db, a) -> flag(db.expireAt(a.get(1), a.get(2).toLong())));
+        register("TTL", 2, (s, db, a) -> {
+            long pttl = db.pttl(a.get(1));
+            return pttl < 0 ? pttl : (pttl + 500) / 1000;
+        });
+        register("PTTL", 2, (s, db, a) -> db.pttl(a.get(1)));
+        register("PERSIST", 2, (s, db, a) -> flag(db.persist(a.get(1))));
+        register("TYPE", 2, (s, db, a) -> Reply.status(db.type(a.get(1))));
+        register("OBJECT", -2, (s, db, a) -> {
+            if (!a.get(1).is("ENCODING") || a.size() != 3) {
+                throw new RedisException("ERR unknown subcommand '" + a.get(1) + "'");
+            }
+            Object value = db.get(a.get(2));
+            return value == null ? null : Bytes.of(MemoryModel.encoding(value, config));
+        });
+        register("KEYS", 2, (s, db, a) -> {
+            String pattern = a.get(1).toString();
+            List<Object> result = new ArrayList<>();
+            for (Bytes key : db.keys()) {
+                if (GlobMatcher.matches(pattern, key.toString())) {
+                    result.add(key);
+                }
+            }
+            return result;
+        });
+        register("SCAN", -2, (s, db, a) -> {
+            ScanOptions options = ScanOptions.parse(a, 2);
+            List<Bytes> keys = db.keys();
+            if (options.type != null) {
+                keys.removeIf(key -> !db.type(key).equalsIgnoreCase(options.type));
+            }
+            return scan(a.get(1), keys, options, key -> Collections.singletonList(key));
+        });
+        register("RENAME", 3, (s, db, a) -> {
+            Object value = db.get(a.get(1));
+            if (value == null) {
+                throw new RedisException("ERR no such key");
+            }
+            long pttl = db.pttl(a.get(1));
+            db.remove(a.get(1));
+            db.set(a.get(2), value);
+            if (pttl > 0) {
+                db.expireAt(a.get(2), clock.getAsLong() + pttl);
+            }
+            return Reply.OK;
+        });
+    }
+
+    // ==================== string ====================
+
+    private void registerStringCommands() {
+        register("GET", 2, (s, db, a) -> db.getString(a.get(1)));
+        register("SET", -3, (s, db, a) -> {
+            Bytes key = a.get(1);
+            boolean nx = false;
+            boolean xx = false;
+            boolean keepTtl = false;
+            boolean get = false;
+            long expireAt = -1;
+            for (int i = 3; i < a.size(); i++) {
+                Bytes opt = a.get(i);
+                if (opt.is("NX")) {
+                    nx = true;
+                } else if (opt.is("XX")) {
+                    xx = true;
+                } else if (opt.is("KEEPTTL")) {
+                    keepTtl = true;
+                } else if (opt.is("GET")) {
+                    get = true;
+                } else if ((opt.is("EX") || opt.is("PX")) && i + 1 < a.size()) {
+                    long value = a.get(++i).toLong();
+                    if (value <= 0) {
+                        throw new RedisException("ERR invalid expire time in set");
+                    }
+                    expireAt = clock.getAsLong() + (opt.is("EX") ? value * 1000 : value);
+                } else {
+                    throw RedisException.syntax();
+                }
+            }
+            Object old = db.get(key);
+            if (get && old != null && !(old instanceof Bytes)) {
+                throw RedisException.wrongType();
+            }
+            if (nx && old != null || xx && old == null) {
+                return get ? old : null;
+            }
+            long pttl = db.pttl(key);
+            db.set(key, a.get(2));
+            if (expireAt > 0) {
+                db.expireAt(key, expireAt);
+            } else if (keepTtl && pttl > 0) {
+                db.expireAt(key, clock.getAsLong() + pttl);
+            }
+            return get ? old : Reply.OK;
+        });
+        register("SETEX", 4, (s, db, a) -> setWithExpire(db, a.get(1), a.get(3), a.get(2).toLong() * 1000));
+        register("PSETEX", 4, (s, db, a) -> setWithExpire(db, a.get(1), a.get(3), a.get(2).toLong()));
+        register("SETNX", 3, (s, db, a) -> {
+            if (db.exists(a.get(1))) {
+                return 0L;
+            }
+            db.set(a.get(1), a.get(2));
+            return 1L;
+        });
+        register("GETSET", 3, (s, db, a) -> {
+            Bytes old = db.getString(a.get(1));
+            db.set(a.get(1), a.get(2));
+            return old;
+        });
+        register("GETDEL", 2, (s, db, a) -> {
+            Bytes old = db.getString(a.get(1));
+            db.remove(a.get(1));
+            return old;
+        });
+        register("MGET", -2, (s, db, a) -> {
+            List<Object> result = new ArrayList<>(a.size() - 1);
+            for (int i = 1; i < a.size(); i++) {
+                Object value = db.get(a.get(i));
+                result.add(value instanceof Bytes ? value : null);
+            }
+            return result;
+        });
+        register("MSET", -3, (s, db, a) -> {
+            requirePairs(a, 1, "MSET");
+            for (int i = 1; i < a.size(); i += 2) {
+                db.set(a.get(i), a.get(i + 1));
+            }
+            return Reply.OK;
+        });
+        register("MSETNX", -3, (s, db, a) -> {
+            requirePairs(a, 1, "MSETNX");
+            for (int i = 1; i < a.size(); i += 2) {
+                if (db.exists(a.get(i))) {
+                    return 0L;
+                }
+            }
+            for (int i = 1; i < a.size(); i += 2) {
+                db.set(a.get(i), a.get(i + 1));
+            }
+            return 1L;
+        });
+        register("INCR", 2, (s, db, a) -> incrBy(db, a.get(1), 1));
+        register("DECR", 2, (s, db, a) -> incrBy(db, a.get(1), -1));
+        register("INCRBY", 3, (s, db, a) -> incrBy(db, a.get(1), a.get(2).toLong()));
+        register("DECRBY", 3, (s, db, a) -> incrBy(db, a.get(1), -a.get(2).toLong()));
+        register("INCRBYFLOAT", 3, (s, db, a) -> {
+            Bytes current = db.getString(a.get(1));
+            Bytes result = Bytes.of((current == null ? 0 : current.toDouble()) + a.get(2).toDouble());
+            db.put(a.get(1), result);
+            return result;
+        });
+        register("APPEND", 3, (s, db, a) -> {
+            Bytes current = db.getString(a.get(1));
+            byte[] base = current == null ? new byte[0] : current.data();
+            byte[] extra = a.get(2).data();
+            byte[] joined = Arrays.copyOf(base, base.length + extra.length);
+            System.arraycopy(extra, 0, joined, base.length, extra.length);
+            db.put(a.get(1), new Bytes(joined));
+            return (long) joined.length;
+        });
+        register("STRLEN", 2, (s, db, a) -> {
+            Bytes current = db.getString(a.get(1));
+            return current == null ? 0L : (long) current.length();
+        });
+        register("SETBIT", 4, (s, db, a) -> {
+            long offset = a.get(2).toLong();
+            long bit = a.get(3).toLong();
+            if (offset < 0 || offset >= 4L * 1024 * 1024 * 1024 || (bit != 0 && bit != 1)) {
+                throw new RedisException("ERR bit offset is not an integer or out of range");
+            }
+            Bytes current = db.getString(a.get(1));
+            int byteIndex = (int) (offset >> 3);
+            byte[] data = current == null ? new byte[0] : current.data();
+            if (byteIndex >= data.length) {
+                data = Arrays.copyOf(data, byteIndex + 1);
+            } else {
+                data = data.clone();
+            }
+            int mask = 1 << (7 - (offset & 7));
+            long old = (data[byteIndex] & mask) != 0 ? 1 : 0;
+            data[byteIndex] = (byte) (bit == 1 ? data[byteIndex] | mask : data[byteIndex] & ~mask);
+            db.put(a.get(1), new Bytes(data));
+            return old;
+        });
+        register("GETBIT", 3, (s, db, a) -> {
+            long offset = a.get(2).toLong();
+            Bytes current = db.getString(a.get(1));
+            int byteIndex = (int) (offset >> 3);
+            if (current == null || byteIndex >= current.length()) {
+                return 0L;
+            }
+            return (current.data()[byteIndex] & (1 << (7 - (offset & 7)))) != 0 ? 1L : 0L;
+        });
+        register("BITCOUNT", -2, (s, db, a) -> {
+            Bytes current = db.getString(a.get(1));
+            if (current == null) {
+                return 0L;
+            }
+            byte[] data = current.data();
+            int from = 0;
+            int to = data.length - 1;
+            if (a.size() >= 4) {
+                from = (int) normalizeIndex(a.get(2).toLong(), data.length);
+                to = (int) Math.min(normalizeIndex(a.get(3).toLong(), data.length), data.length - 1);
+            }
+            long count = 0;
+            for (int i = Math.max(0, from); i <= to; i++) {
+                count += Integer.bitCount(data[i] & 0xff);
+            }
+            return count;
+        });
+    }
+
+    private Object setWithExpire(Database db, Bytes key, Bytes value, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new RedisException("ERR invalid expire time in set");
+        }
+        db.set(key, value);
+        db.expireAt(key, clock.getAsLong() + ttlMillis);
+        return Reply.OK;
+    }
+
+    private static long incrBy(Database db, Bytes key, long delta) {
+        Bytes current = db.getString(key);
+        long value = current == null ? 0 : current.toLong();
+        long result = value + delta;
+        if (((value ^ result) & (delta ^ result)) < 0) {
+            throw new RedisException("ERR increment or decrement would overflow");
+        }
+        db.put(key, Bytes.of(result));
+        return result;
+    }
+
+    // ==================== hash ====================
+
+    private void registerHashCommands() {
+        register("HSET", -4, (s, db, a) -> {
+            requirePairs(a, 2, "HSET");
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), true);
+            long added = 0;
+            for (int i = 2; i < a.size(); i += 2) {
+                if (hash.put(a.get(i), a.get(i + 1)) == null) {
+                    added++;
+                }
+            }
+            return added;
+        });
+        register("HMSET", -4, (s, db, a) -> {
+            requirePairs(a, 2, "HMSET");
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), true);
+            for (int i = 2; i < a.size(); i += 2) {
+                hash.put(a.get(i), a.get(i + 1));
+            }
+            return Reply.OK;
+        });
+        register("HSETNX", 4, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), true);
+            return flag(hash.putIfAbsent(a.get(2), a.get(3)) == null);
+        });
+        register("HGET", 3, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            return hash == null ? null : hash.get(a.get(2));
+        });
+        register("HMGET", -3, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            List<Object> result = new ArrayList<>(a.size() - 2);
+            for (int i = 2; i < a.size(); i++) {
+                result.add(hash == null ? null : hash.get(a.get(i)));
+            }
+            return result;
+        });
+        register("HGETALL", 2, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            List<Object> result = new ArrayList<>();
+            if (hash != null) {
+                hash.forEach((k, v) -> {
+                    result.add(k);
+                    result.add(v);
+                });
+            }
+            return result;
+        });
+        register("HDEL", -3, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            if (hash == null) {
+                return 0L;
+            }
+            long removed = 0;
+            for (int i = 2; i < a.size(); i++) {
+                if (hash.remove(a.get(i)) != null) {
+                    removed++;
+                }
+            }
+            db.removeIfEmpty(a.get(1), hash);
+            return removed;
+        });
+        register("HEXISTS", 3, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            return flag(hash != null && hash.containsKey(a.get(2)));
+        });
+        register("HLEN", 2, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            return hash == null ? 0L : (long) hash.size();
+        });
+        register("HKEYS", 2, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            return hash == null ? Collections.emptyList() : new ArrayList<Object>(hash.keySet());
+        });
+        register("HVALS", 2, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            return hash == null ? Collections.emptyList() : new ArrayList<Object>(hash.values());
+        });
+        register("HSTRLEN", 3, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            Bytes value = hash == null ? null : hash.get(a.get(2));
+            return value == null ? 0L : (long) value.length();
+        });
+        register("HINCRBY", 4, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), true);
+            Bytes current = hash.get(a.get(2));
+            long result = (current == null ? 0 : current.toLong()) + a.get(3).toLong();
+            hash.put(a.get(2), Bytes.of(result));
+            return result;
+        });
+        register("HINCRBYFLOAT", 4, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), true);
+            Bytes current = hash.get(a.get(2));
+            Bytes result = Bytes.of((current == null ? 0 : current.toDouble()) + a.get(3).toDouble());
+            hash.put(a.get(2), result);
+            return result;
+        });
+        register("HSCAN", -3, (s, db, a) -> {
+            Map<Bytes, Bytes> hash = db.getHash(a.get(1), false);
+            List<Bytes> fields = hash == null ? Collections.emptyList() : new ArrayList<>(hash.keySet());
+            return scan(a.get(2), fields, ScanOptions.parse(a, 3), field -> Arrays.asList(field, hash.get(field)));
+        });
+    }
+
+    // ==================== list ====================
+
+    private void registerListCommands() {
+        register("LPUSH", -3, (s, db, a) -> push(db, a, true, true));
+        register("RPUSH", -3, (s, db, a) -> push(db, a, false, true));
+        register("LPUSHX", -3, (s, db, a) -> push(db, a, true, false));
+        register("RPUSHX", -3, (s, db, a) -> push(db, a, false, false));
+        register("LPOP", -2, (s, db, a) -> pop(db, a, true));
+        register("RPOP", -2, (s, db, a) -> pop(db, a, false));
+        register("LLEN", 2, (s, db, a) -> {
+            List<Bytes> list = db.getList(a.get(1), false);
+            return list == null ? 0L : (long) list.size();
+        });
+        register("LRANGE", 4, (s, db, a) -> {
+            List<Bytes> list = db.getList(a.get(1), false);
+            if (list == null) {
+                return Collections.emptyList();
+            }
+            int[] range = range(a.get(2).toLong(), a.get(3).toLong(), list.size());
+            return range == null ? Collections.emptyList() : new ArrayList<Object>(list.subList(range[0], range[1] + 1));
+        });
+        register("LINDEX", 3, (s, db, a) -> {
+            List<Bytes> list = db.getList(a.get(1), false);
+            if (list == null) {
+                return null;
+            }
+            long index = normalizeIndex(a.get(2).toLong(), list.size());
+            return index < 0 || index >= list.size() ? null : list.get((int) index);
+        });
+        register("LSET", 4, (s, db, a) -> {
+            List<Bytes> list = db.getList(a.get(1), false);
+            if (list == null) {
+                throw new RedisException("ERR no such key");
+            }
+            long index = normalizeIndex(a.get(2).toLong(), list.size());
+            if (index < 0 || index >= list.size()) {
+                throw new RedisException("ERR index out of range");
+            }
+            list.set((int) index, a.get(3));
+            return Reply.OK;
+        });
+        register("LREM", 4, (s, db, a) -> {
+            List<Bytes> list = db.getList(a.get(1), false);
+            if (list == null) {
+                return 0L;
+            }
+            long count = a.get(2).toLong();
+            Bytes value = a.get(3);
+            long removed = 0;
+            if (count >= 0) {
+                Iterator<Bytes> it = list.iterator();
+                while (it.hasNext() && (count == 0 || removed < count)) {
+                    if (it.next().equals(value)) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            } else {
+                for (int i = list.size() - 1; i >= 0 && removed < -count; i--) {
+                    if (list.get(i).equals(value)) {
+                        list.remove(i);
+                        removed++;
+                    }
+                }
+            }
+            db.removeIfEmpty(a.get(1), list);
+            return removed;
+        });
+        register("LTRIM", 4, (s, db, a) -> {
+            List<Bytes> list = db.getList(a.get(1), false);
+            if (list == null) {
+                return Reply.OK;
+            }
+            int[] range = range(a.get(2).toLong(), a.get(3).toLong(), list.size());
+            if (range == null) {
+                list.clear();
+            } else {
+                list.subList(range[1] + 1, list.size()).clear();
+                list.subList(0, range[0]).clear();
+            }
+            db.removeIfEmpty(a.get(1), list);
+            return Reply.OK;
+        });
+        register("RPOPLPUSH", 3, (s, db, a) -> {
+            List<Bytes> source = db.getList(a.get(1), false);
+            if (source == null) {
+                return null;
+            }
+            db.getList(a.get(2), false);
+            Bytes value = source.remove(source.size() - 1);
+            db.removeIfEmpty(a.get(1), source);
+            db.getList(a.get(2), true).add(0, value);
+            return value;
+        });
+    }
+
+    private static Object push(Database db, List<Bytes> a, boolean left, boolean create) {
+        List<Bytes> list = db.getList(a.get(1), create);
+        if (list == null) {
+            return 0L;
+        }
+        for (int i = 2; i < a.size(); i++) {
+            if (left) {
+                list.add(0, a.get(i));
+            } else {
+                list.add(a.get(i));
+            }
+        }
+        return (long) list.size();
+    }
+
+    private static Object pop(Database db, List<Bytes> a, boolean left) {
+        List<Bytes> list = db.getList(a.get(1), false);
+        boolean withCount = a.size() > 2;
+        if (list == null) {
+            return withCount ? Reply.NULL_ARRAY : null;
+        }
+        long count = withCount ? a.get(2).toLong() : 1;
+        List<Object> popped = new ArrayList<>();
+        while (popped.size() < count && !list.isEmpty()) {
+            popped.add(left ? list.remove(0) : list.remove(list.size() - 1));
+        }
+        db.removeIfEmpty(a.get(1), list);
+        if (withCount) {
+            return popped;
+        }
+        return popped.isEmpty() ? null : popped.get(0);
+    }
+
+    // ==================== set ====================
+
+    private void registerSetCommands() {
+        register("SADD", -3, (s, db, a) -> {
+            Set<Bytes> set = db.getSet(a.get(1), true);
+            long added = 0;
+            for (int i = 2; i < a.size(); i++) {
+                if (set.add(a.get(i))) {
+                    added++;
+                }
+            }
+            return added;
+        });
+        register("SREM", -3, (s, db, a) -> {
+            Set<Bytes> set = db.getSet(a.get(1), false);
+            if (set == null) {
+                return 0L;
+            }
+            long removed = 0;
+            for (int i = 2; i < a.size(); i++) {
+                if (set.remove(a.get(i))) {
+                    removed++;
+                }
+            }
+            db.removeIfEmpty(a.get(1), set);
+            return removed;
+        });
+        register("SMEMBERS", 2, (s, db, a) -> {
+            Set<Bytes> set = db.getSet(a.get(1), false);
+            return set == null ? Collections.emptyList() : new ArrayList<Object>(set);
+        });
+        register("SISMEMBER", 3, (s, db, a) -> {
+            Set<Bytes> set = db.getSet(a.get(1), false);
+            return flag(set != null && set.contains(a.get(2)));
+        });
+        register("SMISMEMBER", -3, (s, db, a) -> {
+            Set<Bytes> set = db.getSet(a.get(1), false);
+            List<Object> result = new ArrayList<>();
+            for (int i = 2; i < a.size(); i++) {
+                result.add(flag(set != null && set.contains(a.get(i))));
+            }
+            return result;
+        });
+        register("SCARD", 2, (s, db, a) -> {
+            Set<Bytes> set = db.getSet(a.get(1), false);
+            return set == null ? 0L : (long) set.size();
+        });
+        register("SPOP", -2, (s, db, a) -> {
+            Set<Bytes> set = db.getSet(a.get(1), false);
+            boolean withCount = a.size() > 2;
+            if (set == null) {
+                return withCount ? Collections.emptyList() : null;
+            }
+            List<Bytes> picked = randomMembers(set, withCount ? a.get(2).toLong() : 1);
+            set.removeAll(picked);
+            db.removeIfEmpty(a.get(1), set);
+            return withCount ? new ArrayList<Object>(picked) : picked.get(0);
+        });
+        register("SRANDMEMBER", -2, (s, db, a) -> {
+            Set<Bytes> set = db.getSet(a.get(1), false);
+            boolean withCount = a.size() > 2;
+            if (set == null) {
+                return withCount ? Collections.emptyList() : null;
+            }
+            List<Bytes> picked = randomMembers(set, withCount ? Math.abs(a.get(2).toLong()) : 1);
+            return withCount ? new ArrayList<Object>(picked) : picked.get(0);
+        });
+        register("SINTER", -2, (s, db, a) -> new ArrayList<Object>(setAlgebra(db, a, 1, "inter")));
+        register("SUNION", -2, (s, db, a) -> new ArrayList<Object>(setAlgebra(db, a, 1, "union")));
+        register("SDIFF", -2, (s, db, a) -> new ArrayList<Object>(setAlgebra(db, a, 1, "diff")));
+        register("SINTERSTORE", -3, (s, db, a) -> store(db, a.get(1), setAlgebra(db, a, 2, "inter")));
+        register("SUNIONSTORE", -3, (s, db, a) -> store(db, a.get(1), setAlgebra(db, a, 2, "union")));
+        register("SDIFFSTORE", -3, (s, db, a) -> store(db, a.get(1), setAlgebra(db, a, 2, "diff")));
+        register("SSCAN", -3, (s, db, a) -> {
+            Set<Bytes> set = db.getSet(a.get(1), false);
+            List<Bytes> members = set == null ? Collections.emptyList() : new ArrayList<>(set);
+            return scan(a.get(2), members, ScanOptions.parse(a, 3), Collections::singletonList);
+        });
+    }
+
+    private List<Bytes> randomMembers(Set<Bytes> set, long count) {
+        List<Bytes> members = new ArrayList<>(set);
+        Collections.shuffle(members, random);
+        return members.subList(0, (int) Math.min(count, members.size()));
+    }
+
+    private static Set<Bytes> setAlgebra(Database db, List<Bytes> a, int from, String op) {
+        Set<Bytes> result = null;
+        for (int i = from; i < a.size(); i++) {
+            Set<Bytes> set = db.getSet(a.get(i), false);
+            Set<Bytes> current = set == null ? Collections.emptySet() : set;
+            if (result == null) {
+                result = new LinkedHashSet<>(current);
+            } else if ("inter".equals(op)) {
+                result.retainAll(current);
+            } else if ("union".equals(op)) {
+                result.addAll(current);
+            } else {
+                result.removeAll(current);
+            }
+        }
+        return result;
+    }
+
+    private static long store(Database db, Bytes key, Set<Bytes> members) {
+        if (members.isEmpty()) {
+            db.remove(key);
+        } else {
+            db.set(key, members);
+        }
+        return members.size();
+    }
+
+    // ==================== zset ====================
+
+    private void registerZSetCommands() {
+        register("ZADD", -4, (s, db, a) -> {
+            boolean nx = false;
+            boolean xx = false;
+            boolean ch = false;
+            boolean incr = false;
+            int i = 2;
+            for (; i < a.size(); i++) {
+                Bytes opt = a.get(i);
+                if (opt.is("NX")) {
+                    nx = true;
+                } else if (opt.is("XX")) {
+                    xx = true;
+                } else if (opt.is("CH")) {
+                    ch = true;
+                } else if (opt.is("INCR")) {
+                    incr = true;
+                } else {
+                    break;
+                }
+            }
+            if ((a.size() - i) % 2 != 0 || a.size() == i || nx && xx || incr && a.size() - i != 2) {
+                throw RedisException.syntax();
+            }
+            ZSet zset = db.getZSet(a.get(1), !xx);
+            if (zset == null) {
+                return incr ? null : 0L;
+            }
+            long changed = 0;
+            Double lastScore = null;
+            for (; i < a.size(); i += 2) {
+                double score = a.get(i).toDouble();
+                Bytes member = a.get(i + 1);
+                Double old = zset.score(member);
+                if (nx && old != null || xx && old == null) {
+                    continue;
+                }
+                double value = incr && old != null ? old + score : score;
+                zset.add(member, value);
+                lastScore = value;
+                if (old == null || ch && old != value) {
+                    changed++;
+                }
+            }
+            db.removeIfEmpty(a.get(1), zset);
+            if (incr) {
+                return lastScore == null ? null : Bytes.of(lastScore);
+            }
+            return changed;
+        });
+        register("ZINCRBY", 4, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), true);
+            Double old = zset.score(a.get(3));
+            double value = (old == null ? 0 : old) + a.get(2).toDouble();
+            zset.add(a.get(3), value);
+            return Bytes.of(value);
+        });
+        register("ZSCORE", 3, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            Double score = zset == null ? null : zset.score(a.get(2));
+            return score == null ? null : Bytes.of(score);
+        });
+        register("ZMSCORE", -3, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            List<Object> result = new ArrayList<>();
+            for (int i = 2; i < a.size(); i++) {
+                Double score = zset == null ? null : zset.score(a.get(i));
+                result.add(score == null ? null : Bytes.of(score));
+            }
+            return result;
+        });
+        register("ZREM", -3, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            if (zset == null) {
+                return 0L;
+            }
+            long removed = 0;
+            for (int i = 2; i < a.size(); i++) {
+                if (zset.remove(a.get(i))) {
+                    removed++;
+                }
+            }
+            db.removeIfEmpty(a.get(1), zset);
+            return removed;
+        });
+        register("ZCARD", 2, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            return zset == null ? 0L : (long) zset.size();
+        });
+        register("ZRANK", 3, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            return zset == null ? null : zset.rank(a.get(2), false);
+        });
+        register("ZREVRANK", 3, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            return zset == null ? null : zset.rank(a.get(2), true);
+        });
+        register("ZRANGE", -4, (s, db, a) -> zrange(db, a, false));
+        register("ZREVRANGE", -4, (s, db, a) -> zrange(db, a, true));
+        register("ZRANGEBYSCORE", -4, (s, db, a) -> zrangeByScore(db, a, false));
+        register("ZREVRANGEBYSCORE", -4, (s, db, a) -> zrangeByScore(db, a, true));
+        register("ZCOUNT", 4, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            if (zset == null) {
+                return 0L;
+            }
+            return (long) zset.rangeByScore(ZSet.ScoreBound.parse(a.get(2)), ZSet.ScoreBound.parse(a.get(3)),
+                    false, 0, -1).size();
+        });
+        register("ZREMRANGEBYRANK", 4, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            if (zset == null) {
+                return 0L;
+            }
+            return removeEntries(db, a.get(1), zset, zset.range(a.get(2).toLong(), a.get(3).toLong(), false));
+        });
+        register("ZREMRANGEBYSCORE", 4, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            if (zset == null) {
+                return 0L;
+            }
+            return removeEntries(db, a.get(1), zset, zset.rangeByScore(ZSet.ScoreBound.parse(a.get(2)),
+                    ZSet.ScoreBound.parse(a.get(3)), false, 0, -1));
+        });
+        register("ZPOPMIN", -2, (s, db, a) -> zpop(db, a, false));
+        register("ZPOPMAX", -2, (s, db, a) -> zpop(db, a, true));
+        register("ZSCAN", -3, (s, db, a) -> {
+            ZSet zset = db.getZSet(a.get(1), false);
+            List<ZSet.Entry> entries = zset == null ? Collections.emptyList() : zset.entries();
+            return scan(a.get(2), entries, ScanOptions.parse(a, 3), e -> Arrays.asList(e.member, Bytes.of(e.score)),
+                    e -> e.member);
+        });
+    }
+
+    private static Object zrange(Database db, List<Bytes> a, boolean reverse) {
+        boolean withScores = a.size() > 4 && a.get(4).is("WITHSCORES");
+        if (a.size() > 5 || a.size() == 5 && !withScores) {
+            throw RedisException.syntax();
+        }
+        ZSet zset = db.getZSet(a.get(1), false);
+        if (zset == null) {
+            return Collections.emptyList();
+        }
+        return entries(zset.range(a.get(2).toLong(), a.get(3).toLong(), reverse), withScores);
+    }
+
+    private static Object zrangeByScore(Database db, List<Bytes> a, boolean reverse) {
+        boolean withScores = false;
+        long offset = 0;
+        long count = -1;
+        for (int i = 4; i < a.size(); i++) {
+            if (a.get(i).is("WITHSCORES")) {
+                withScores = true;
+            } else if (a.get(i).is("LIMIT") && i + 2 < a.size()) {
+                offset = a.get(++i).toLong();
+                count = a.get(++i).toLong();
+            } else {
+                throw RedisException.syntax();
+            }
+        }
+        ZSet zset = db.getZSet(a.get(1), false);
+        if (zset == null) {
+            return Collections.emptyList();
+        }
+        // ZREVRANGEBYSCORE 的参数顺序是 max min
+        ZSet.ScoreBound min = ZSet.ScoreBound.parse(a.get(reverse ? 3 : 2));
+        ZSet.ScoreBound max = ZSet.ScoreBound.parse(a.get(reverse ? 2 : 3));
+        return entries(zset.rangeByScore(min, max, reverse, offset, count), withScores);
+    }
+
+    private static Object zpop(Database db, List<Bytes> a, boolean max) {
+        ZSet zset = db.getZSet(a.get(1), false);
+        if (zset == null) {
+            return Collections.emptyList();
+        }
+        long count = a.size() > 2 ? a.get(2).toLong() : 1;
+        List<ZSet.Entry> popped = zset.range(0, count - 1, max);
+        removeEntries(db, a.get(1), zset, popped);
+        return entries(popped, true);
+    }
+
+    private static long removeEntries(Database db, Bytes key, ZSet zset, List<ZSet.Entry> entries) {
+        for (ZSet.Entry e : entries) {
+            zset.remove(e.member);
+        }
+        db.removeIfEmpty(key, zset);
+        return entries.size();
+    }
+
+    private static List<Object> entries(List<ZSet.Entry> entries, boolean withScores) {
+        List<Object> result = new ArrayList<>(entries.size() * (withScores ? 2 : 1));
+        for (ZSet.Entry e : entries) {
+            result.add(e.member);
+            if (withScores) {
+                result.add(Bytes.of(e.score));
+            }
+        }
+        return result;
+    }
+
+    // ==================== pub/sub ====================
+
+    private void registerPubSubCommands() {
+        register("SUBSCRIBE", -2, (s, db, a) -> {
+            for (int i = 1; i < a.size(); i++) {
+                Bytes channel = a.get(i);
+                s.channels.add(channel);
+                channels.computeIfAbsent(channel, k -> new LinkedHashSet<>()).add(s);
+                s.send(Arrays.asList(Bytes.of("subscribe"), channel, subscriptionCount(s)));
+            }
+            return Reply.NONE;
+        });
+        register("PSUBSCRIBE", -2, (s, db, a) -> {
+            for (int i = 1; i < a.size(); i++) {
+                Bytes pattern = a.get(i);
+                s.patterns.add(pattern);
+                patterns.computeIfAbsent(pattern, k -> new LinkedHashSet<>()).add(s);
+                s.send(Arrays.asList(Bytes.of("psubscribe"), pattern, subscriptionCount(s)));
+            }
+            return Reply.NONE;
+        });
+        register("UNSUBSCRIBE", -1, (s, db, a) -> unsubscribe(s, a, s.channels, channels, "unsubscribe"));
+        register("PUNSUBSCRIBE", -1, (s, db, a) -> unsubscribe(s, a, s.patterns, patterns, "punsubscribe"));
+        register("PUBLISH", 3, (s, db, a) -> publish(a.get(1), a.get(2)));
+    }
+
+    private Object unsubscribe(Session s, List<Bytes> a, Set<Bytes> own, Map<Bytes, Set<Session>> registry,
+                               String kind) {
+        List<Bytes> targets = new ArrayList<>();
+        if (a.size() > 1) {
+            targets.addAll(a.subList(1, a.size()));
+        } else {
+            targets.addAll(own);
+        }
+        if (targets.isEmpty()) {
+            s.send(Arrays.asList(Bytes.of(kind), null, subscriptionCount(s)));
+            return Reply.NONE;
+        }
+        for (Bytes target : targets) {
+            own.remove(target);
+            removeSubscriber(registry, target, s);
+            s.send(Arrays.asList(Bytes.of(kind), target, subscriptionCount(s)));
+        }
+        return Reply.NONE;
+    }
+
+    private long publish(Bytes channel, Bytes message) {
+        long receivers = 0;
+        Set<Session> subscribers = channels.get(channel);
+        if (subscribers != null) {
+            for (Session subscriber : subscribers) {
+                subscriber.send(Arrays.asList(Bytes.of("message"), channel, message));
+                receivers++;
+            }
+        }
+        String name = channel.toString();
+        for (Map.Entry<Bytes, Set<Session>> e : patterns.entrySet()) {
+            if (GlobMatcher.matches(e.getKey().toString(), name)) {
+                for (Session subscriber : e.getValue()) {
+                    subscriber.send(Arrays.asList(Bytes.of("pmessage"), e.getKey(), channel, message));
+                    receivers++;
+                }
+            }
+        }
+        return receivers;
+    }
+
+    private static long subscriptionCount(Session s) {
+        return s.channels.size() + s.patterns.size();
+    }
+
+    private static void removeSubscriber(Map<Bytes, Set<Session>> registry, Bytes name, Session s) {
+        Set<Session> subscribers = registry.get(name);
+        if (subscribers != null) {
+            subscribers.remove(s);
+            if (subscribers.isEmpty()) {
+                registry.remove(name);
+            }
+        }
+    }
+
+    // ==================== 脚本 ====================
+
+    private void registerScriptingCommands() {
+        register("EVAL", -3, (s, db, a) -> {
+            int numKeys = numKeys(a);
+            return lua.eval(s, a.get(1), a.subList(3, 3 + numKeys), a.subList(3 + numKeys, a.size()));
+        });
+        register("EVALSHA", -3, (s, db, a) -> {
+            int numKeys = numKeys(a);
+            return lua.evalSha(s, a.get(1).toString(), a.subList(3, 3 + numKeys), a.subList(3 + numKeys, a.size()));
+        });
+        register("SCRIPT", -2, (s, db, a) -> {
+            Bytes sub = a.get(1);
+            if (sub.is("LOAD") && a.size() == 3) {
+                return Bytes.of(lua.load(a.get(2)));
+            }
+            if (sub.is("EXISTS")) {
+                List<Object> result = new ArrayList<>();
+                for (int i = 2; i < a.size(); i++) {
+                    result.add(flag(lua.exists(a.get(i).toString())));
+                }
+                return result;
+            }
+            if (sub.is("FLUSH")) {
+                lua.flush();
+                return Reply.OK;
+            }
+            throw RedisException.syntax();
+        });
+    }
+
+    private static int numKeys(List<Bytes> a) {
+        long numKeys = a.get(2).toLong();
+        if (numKeys < 0 || numKeys > a.size() - 3) {
+            throw new RedisException("ERR Number of keys can't be greater than number of args");
+        }
+        return (int) numKeys;
+    }
+
+    // ==================== 事务 ====================
+
+    private void registerTransactionCommands() {
+        register("MULTI", 1, (s, db, a) -> {
+            if (s.multi != null) {
+                throw new RedisException("ERR MULTI calls can not be nested");
+            }
+            s.multi = new ArrayList<>();
+            s.multiFailed = false;
+            return Reply.OK;
+        });
+        register("EXEC", 1, (s, db, a) -> {
+            if (s.multi == null) {
+                throw new RedisException("ERR EXEC without MULTI");
+            }
+            List<List<Bytes>> queued = s.multi;
+            boolean failed = s.multiFailed;
+            s.multi = null;
+            s.multiFailed = false;
+            if (failed) {
+                throw new RedisException("EXECABORT Transaction discarded because of previous errors.");
+            }
+            List<Object> results = new ArrayList<>(queued.size());
+            for (List<Bytes> command : queued) {
+                try {
+                    results.add(execute(s, command));
+                } catch (RedisException e) {
+                    results.add(new Reply.Error(e.getMessage()));
+                }
+            }
+            return results;
+        });
+        register("DISCARD", 1, (s, db, a) -> {
+            if (s.multi == null) {
+                throw new RedisException("ERR DISCARD without MULTI");
+            }
+            s.multi = null;
+            s.multiFailed = false;
+            return Reply.OK;
+        });
+        register("WATCH", -2, (s, db, a) -> Reply.OK);
+        register("UNWATCH", 1, (s, db, a) -> Reply.OK);
+    }
+
+    // ==================== 工具方法 ====================
+
+    private static long flag(boolean value) {
+        return value ? 1L : 0L;
+    }
+
+    private static void requirePairs(List<Bytes> a, int from, String command) {
+        if ((a.size() - from) % 2 != 0) {
+            throw RedisException.arity(command);
+        }
+    }
+
+    private static long normalizeIndex(long index, int size) {
+        return index < 0 ? size + index : index;
+    }
+
+    /**
+     * LRANGE/LTRIM 风格的下标范围，返回 [start, stop]，空范围返回 null
+     */
+    private static int[] range(long start, long stop, int size) {
+        start = Math.max(0, normalizeIndex(start, size));
+        stop = Math.min(size - 1, normalizeIndex(stop, size));
+        if (start > stop || start >= size) {
+            return null;
+        }
+        return new int[]{(int) start, (int) stop};
+    }
+
+    private static <T> Object scan(Bytes cursorArg, List<T> items, ScanOptions options,
+                                   java.util.function.Function<T, List<Object>> mapper) {
+        return scan(cursorArg, items, options, mapper, null);
+    }
+
+    /**
+     * SCAN 系列命令：游标是快照列表中的下标
+     *
+     * 与 Redis 一样保证"整个迭代期间一直存在的元素一定会被返回"的前提是迭代期间没有删除；
+     * 迭代期间删除元素可能导致少量元素被跳过
+     */
+    private static <T> Object scan(Bytes cursorArg, List<T> items, ScanOptions options,
+                                   java.util.function.Function<T, List<Object>> mapper,
+                                   java.util.function.Function<T, Bytes> nameOf) {
+        long cursor = cursorArg.toLong();
+        if (cursor < 0) {
+            throw new RedisException("ERR invalid cursor");
+        }
+        List<Object> batch = new ArrayList<>();
+        int i = (int) Math.min(cursor, items.size());
+        int end = (int) Math.min((long) i + options.count, items.size());
+        for (; i < end; i++) {
+            T item = items.get(i);
+            String name = (nameOf == null ? (Bytes) mapper.apply(item).get(0) : nameOf.apply(item)).toString();
+            if (options.match == null || GlobMatcher.matches(options.match, name)) {
+                batch.addAll(mapper.apply(item));
+            }
+        }
+        long next = end >= items.size() ? 0 : end;
+        return Arrays.asList(Bytes.of(next), batch);
+    }
+
+    /**
+     * SCAN 选项：MATCH / COUNT / TYPE
+     */
+    private static final class ScanOptions {
+
+        String match;
+        long count = 10;
+        String type;
+
+        static ScanOptions parse(List<Bytes> a, int from) {
+            ScanOptions options = new ScanOptions();
+            for (int i = from; i < a.size(); i++) {
+                if (i + 1 >= a.size()) {
+                    throw RedisException.syntax();
+                }
+                Bytes opt = a.get(i);
+                if (opt.is("MATCH")) {
+                    options.match = a.get(++i).toString();
+                } else if (opt.is("COUNT")) {
+                    options.count = a.get(++i).toLong();
+                    if (options.count < 1) {
+                        throw RedisException.syntax();
+                    }
+                } else if (opt.is("TYPE")) {
+                    options.type = a.get(++i).toString();
+                } else {
+                    throw RedisException.syntax();
+                }
+            }
+            return options;
+        }
+    }
+
+    /**
+     * 快照，供测试断言使用
+     */
+    Map<String, Object> dump(int db) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (Bytes key : databases[db].keys()) {
+            snapshot.put(key.toString(), databases[db].type(key));
+        }
+        return snapshot;
+    }
+}
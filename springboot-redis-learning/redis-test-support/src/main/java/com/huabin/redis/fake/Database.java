@@ -0,0 +1,229 @@
+package com.huabin.redis.fake;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * 单个 Redis 数据库（SELECT 0~15）
+ *
+ * 值类型：
+ * - string：Bytes
+ * - hash：LinkedHashMap&lt;Bytes, Bytes&gt;
+ * - list：ArrayList&lt;Bytes&gt;
+ * - set：LinkedHashSet&lt;Bytes&gt;
+ * - zset：ZSet
+ *
+ * 过期：访问时惰性删除 + 事件循环定期清理
+ *
+ * @author huabin
+ */
+final class Database {
+
+    private final Map<Bytes, Object> data = new HashMap<>();
+    private final Map<Bytes, Long> expires = new HashMap<>();
+    private final LongSupplier clock;
+
+    Database(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    Object get(Bytes key) {
+        expireIfNeeded(key);
+        return data.get(key);
+    }
+
+    boolean exists(Bytes key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 写入值并清除过期时间（SET 语义）
+     */
+    void set(Bytes key, Object value) {
+        data.put(key, value);
+        expires.remove(key);
+    }
+
+    /**
+     * 写入值并保留过期时间（修改集合内容时使用）
+     */
+    void put(Bytes key, Object value) {
+        data.put(key, value);
+    }
+
+    boolean remove(Bytes key) {
+        expires.remove(key);
+        return data.remove(key) != null;
+    }
+
+    /**
+     * 集合类型元素被删光后删除 key（与 Redis 一致）
+     */
+    void removeIfEmpty(Bytes key, Object value) {
+        boolean empty = value instanceof Map && ((Map<?, ?>) value).isEmpty()
+                || value instanceof List && ((List<?>) value).isEmpty()
+                || value instanceof Set && ((Set<?>) value).isEmpty()
+                || value instanceof ZSet && ((ZSet) value).size() == 0;
+        if (empty) {
+            remove(key);
+        }
+    }
+
+    /**
+     * @return 剩余毫秒数，-1 表示未设置过期，-2 表示不存在
+     */
+    long pttl(Bytes key) {
+        if (!exists(key)) {
+            return -2;
+        }
+        Long at = expires.get(key);
+        return at == null ? -1 : Math.max(0, at - clock.getAsLong());
+    }
+
+    boolean expireAt(Bytes key, long atMillis) {
+        if (!exists(key)) {
+            return false;
+        }
+        if (atMillis <= clock.getAsLong()) {
+            remove(key);
+        } else {
+            expires.put(key, atMillis);
+        }
+        return true;
+    }
+
+    boolean persist(Bytes key) {
+        return exists(key) && expires.remove(key) != null;
+    }
+
+    int size() {
+        activeExpire();
+        return data.size();
+    }
+
+    void clear() {
+        data.clear();
+        expires.clear();
+    }
+
+    /**
+     * 未过期的 key（按字节序排序，保证 SCAN 游标稳定）
+     */
+    List<Bytes> keys() {
+        activeExpire();
+        List<Bytes> keys = new ArrayList<>(data.keySet());
+        Collections.sort(keys);
+        return keys;
+    }
+
+    String type(Bytes key) {
+        Object value = get(key);
+        if (value == null) {
+            return "none";
+        }
+        if (value instanceof Bytes) {
+            return "string";
+        }
+        if (value instanceof Map) {
+            return "hash";
+        }
+        if (value instanceof List) {
+            return "list";
+        }
+        if (value instanceof Set) {
+            return "set";
+        }
+        return "zset";
+    }
+
+    /**
+     * 删除所有已过期的 key
+     */
+    int activeExpire() {
+        if (expires.isEmpty()) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        int removed = 0;
+        Iterator<Map.Entry<Bytes, Long>> it = expires.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Bytes, Long> e = it.next();
+            if (e.getValue() <= now) {
+                data.remove(e.getKey());
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    Bytes getString(Bytes key) {
+        return typed(key, Bytes.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<Bytes, Bytes> getHash(Bytes key, boolean create) {
+        Map<Bytes, Bytes> hash = typed(key, Map.class);
+        if (hash == null && create) {
+            hash = new LinkedHashMap<>();
+            data.put(key, hash);
+        }
+        return hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<Bytes> getList(Bytes key, boolean create) {
+        List<Bytes> list = typed(key, List.class);
+        if (list == null && create) {
+            list = new ArrayList<>();
+            data.put(key, list);
+        }
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    Set<Bytes> getSet(Bytes key, boolean create) {
+        Set<Bytes> set = typed(key, Set.class);
+        if (set == null && create) {
+            set = new LinkedHashSet<>();
+            data.put(key, set);
+        }
+        return set;
+    }
+
+    ZSet getZSet(Bytes key, boolean create) {
+        ZSet zset = typed(key, ZSet.class);
+        if (zset == null && create) {
+            zset = new ZSet();
+            data.put(key, zset);
+        }
+        return zset;
+    }
+
+    private <T> T typed(Bytes key, Class<T> type) {
+        Object value = get(key);
+        if (value == null) {
+            return null;
+        }
+        if (!type.isInstance(value)) {
+            throw RedisException.wrongType();
+        }
+        return type.cast(value);
+    }
+
+    private void expireIfNeeded(Bytes key) {
+        Long at = expires.get(key);
+        if (at != null && at <= clock.getAsLong()) {
+            expires.remove(key);
+            data.remove(key);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.huabin.redis.fake;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spring 测试上下文初始化器：启动 FakeRedisServer 并把 spring.redis.* 指向它
+ *
+ * 使用方式：
+ * <pre>
+ * &#64;SpringBootTest
+ * &#64;ContextConfiguration(initializers = FakeRedisInitializer.class)
+ * public class XxxTest {
+ *     &#64;Autowired
+ *     private FakeRedisServer fakeRedisServer; // 可选，用于故障注入
+ * }
+ * </pre>
+ *
+ * 每个 Spring 上下文一个服务实例，上下文关闭时停止
+ *
+ * @author huabin
+ */
+public class FakeRedisInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    public static final String BEAN_NAME = "fakeRedisServer";
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        FakeRedisServer server = new FakeRedisServer().start();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.redis.host", server.getHost());
+        properties.put("spring.redis.port", server.getPort());
+        properties.put("spring.redis.password", "");
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("fakeRedis", properties));
+
+        context.getBeanFactory().registerSingleton(BEAN_NAME, server);
+        context.addApplicationListener(event -> {
+            if (event instanceof ContextClosedEvent && ((ContextClosedEvent) event).getApplicationContext() == context) {
+                server.stop();
+            }
+        });
+    }
+}
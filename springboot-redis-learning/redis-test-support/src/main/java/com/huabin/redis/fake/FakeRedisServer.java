@@ -0,0 +1,614 @@
+package com.huabin.redis.fake;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的 RESP 协议 Redis 模拟服务
+ *
+ * 解决的问题：
+ * 缓存、分布式锁相关的测试和基准测试依赖外部 Redis，结果受网络和 Redis 负载影响，
+ * 在 CI 中也无法保证有 Redis 可用。这里在测试进程内启动一个监听本地端口的 Redis 模拟服务，
+ * Lettuce、Jedis、Redisson 都可以直接连接，行为确定、可重复
+ *
+ * 实现方式：
+ * 1. 单线程 NIO 事件循环，所有命令串行执行（与 Redis 一致），MULTI/EXEC 和 EVAL 天然原子
+ * 2. 使用 LuaJ 执行 EVAL 脚本，Redisson 的锁、信号量等脚本可以原样运行
+ * 3. 过期时间使用可调整的时钟，advanceClock 可以让 key 立即过期而不用真的等待
+ *
+ * 故障注入（用于验证超时、降级、熔断等逻辑）：
+ * - setLatency：每个回复叠加固定延迟 + 随机抖动，同一连接内回复顺序不变
+ * - setFailureRate：按比例对命令返回错误，可以限定只对某些命令生效
+ * - setAvailable(false)：断开所有连接并拒绝新连接，模拟 Redis 宕机
+ * - setExecutionDelay：命令在事件循环中执行变慢（阻塞所有连接），模拟服务端慢命令，会记入 SLOWLOG/commandstats
+ * 随机数使用固定种子，相同的请求序列得到相同的故障序列
+ *
+ * 使用示例：
+ * <pre>
+ * try (FakeRedisServer redis = new FakeRedisServer().start()) {
+ *     RedisClient client = RedisClient.create("redis://127.0.0.1:" + redis.getPort());
+ *     ...
+ * }
+ * </pre>
+ *
+ * 支持的命令见 CommandExecutor，不支持阻塞命令、Stream 和集群模式
+ *
+ * @author huabin
+ */
+public final class FakeRedisServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FakeRedisServer.class);
+
+    private static final String HOST = "127.0.0.1";
+
+    /**
+     * 主动过期检查间隔
+     */
+    private static final long EXPIRE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final int requestedPort;
+    private final AtomicLong clockOffsetMs = new AtomicLong();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+    private volatile double failureRate;
+    private volatile Set<String> failureCommands = Collections.emptySet();
+    private volatile boolean available = true;
+    private volatile long executionDelayNanos;
+    private volatile Set<String> executionDelayCommands = Collections.emptySet();
+    private volatile long seed = 42L;
+
+    private CommandExecutor executor;
+    private Random random;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread eventLoop;
+    private volatile boolean running;
+    private volatile int port;
+
+    private final Set<Connection> connections = new HashSet<>();
+    private final PriorityQueue<DelayedReply> delayed = new PriorityQueue<>();
+    private long sequence;
+
+    /**
+     * 使用随机空闲端口
+     */
+    public FakeRedisServer() {
+        this(0);
+    }
+
+    public FakeRedisServer(int port) {
+        this.requestedPort = port;
+    }
+
+    /**
+     * 启动服务（绑定端口并启动事件循环线程）
+     */
+    public synchronized FakeRedisServer start() {
+        if (running) {
+            return this;
+        }
+        try {
+            random = new Random(seed);
+            executor = new CommandExecutor(this::now, random);
+            executor.setExecutionDelay(executionDelayNanos, executionDelayCommands);
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(HOST, requestedPort));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            port = serverChannel.socket().getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException("启动 FakeRedisServer 失败, port=" + requestedPort, e);
+        }
+        running = true;
+        eventLoop = new Thread(this::runEventLoop, "fake-redis-" + port);
+        eventLoop.setDaemon(true);
+        eventLoop.start();
+        log.info("FakeRedisServer 已启动, {}:{}", HOST, port);
+        return this;
+    }
+
+    /**
+     * 停止服务，断开所有连接
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            eventLoop.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("FakeRedisServer 已停止, {}:{}", HOST, port);
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public String getHost() {
+        return HOST;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * 连接地址，如 redis://127.0.0.1:6379
+     */
+    public String getUri() {
+        return "redis://" + HOST + ":" + port;
+    }
+
+    // ==================== 故障注入 ====================
+
+    /**
+     * 每个回复的延迟 = latency + [0, jitter) 的随机抖动
+     */
+    public FakeRedisServer setLatency(Duration latency, Duration jitter) {
+        this.latencyNanos = latency.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        return this;
+    }
+
+    /**
+     * 按比例返回错误（-ERR fake-redis injected failure）
+     *
+     * @param rate 失败比例，0 ~ 1
+     * @param commands 只对这些命令注入失败，为空表示所有命令
+     */
+    public FakeRedisServer setFailureRate(double rate, String... commands) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("rate 必须在 0 ~ 1 之间");
+        }
+        Set<String> names = new HashSet<>();
+        for (String command : commands) {
+            names.add(command.toUpperCase(Locale.ROOT));
+        }
+        this.failureCommands = names;
+        this.failureRate = rate;
+        return this;
+    }
+
+    /**
+     * 服务端执行耗时：与 setLatency（网络延迟）不同，耗时计入 INFO commandstats 和 SLOWLOG，
+     * 并且会阻塞事件循环上的所有连接
+     *
+     * @param commands 只对这些命令生效，为空表示所有命令
+     */
+    public FakeRedisServer setExecutionDelay(Duration delay, String... commands) {
+        Set<String> names = new HashSet<>();
+        for (String command : commands) {
+            names.add(command.toUpperCase(Locale.ROOT));
+        }
+        executionDelayNanos = delay.toNanos();
+        executionDelayCommands = names;
+        if (executor != null) {
+            executor.setExecutionDelay(executionDelayNanos, names);
+        }
+        return this;
+    }
+
+    /**
+     * 模拟 Redis 宕机/恢复：不可用期间断开所有连接并拒绝新连接
+     */
+    public FakeRedisServer setAvailable(boolean available) {
+        this.available = available;
+        if (!available && running) {
+            submit(() -> {
+                new ArrayList<>(connections).forEach(this::closeConnection);
+                return null;
+            });
+        }
+        return this;
+    }
+
+    /**
+     * 随机数种子（抖动、失败注入、SPOP/SRANDMEMBER），需要在 start 之前设置
+     */
+    public FakeRedisServer setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * 清除所有故障注入
+     */
+    public FakeRedisServer resetFaults() {
+        latencyNanos = 0;
+        jitterNanos = 0;
+        failureRate = 0;
+        failureCommands = Collections.emptySet();
+        setExecutionDelay(Duration.ZERO);
+        return setAvailable(true);
+    }
+
+    // ==================== 数据与统计 ====================
+
+    /**
+     * 把服务端时钟向前拨动，用于验证过期逻辑而不用真的等待
+     */
+    public void advanceClock(Duration duration) {
+        clockOffsetMs.addAndGet(duration.toMillis());
+        if (running) {
+            submit(() -> {
+                executor.activeExpire();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 清空所有数据库
+     */
+    public void flushAll() {
+        submit(() -> {
+            executor.flushAll();
+            return null;
+        });
+    }
+
+    /**
+     * 某个命令被客户端调用的次数（不含脚本内部调用）
+     */
+    public long commandCount(String command) {
+        Long count = executor.stats().get(command.toUpperCase(Locale.ROOT));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 客户端调用的命令总数
+     */
+    public long totalCommands() {
+        long total = 0;
+        for (long count : executor.stats().values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 各命令的调用次数
+     */
+    public Map<String, Long> commandStats() {
+        return executor.stats();
+    }
+
+    public void resetStats() {
+        executor.resetStats();
+    }
+
+    /**
+     * 指定数据库中的 key 及其类型
+     */
+    public Map<String, Object> dump(int db) {
+        return submit(() -> executor.dump(db));
+    }
+
+    private long now() {
+        return System.currentTimeMillis() + clockOffsetMs.get();
+    }
+
+    /**
+     * 在事件循环线程中执行（数据结构只允许事件循环线程访问）
+     */
+    private <T> T submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        tasks.add(() -> {
+            try {
+                future.complete(task.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        selector.wakeup();
+        try {
+            return future.get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("FakeRedisServer 执行任务失败", e);
+        }
+    }
+
+    // ==================== 事件循环 ====================
+
+    private void runEventLoop() {
+        ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+        long nextExpire = System.nanoTime() + EXPIRE_INTERVAL_NANOS;
+        try {
+            while (running) {
+                long nowNanos = System.nanoTime();
+                long wait = nextExpire - nowNanos;
+                DelayedReply first = delayed.peek();
+                if (first != null) {
+                    wait = Math.min(wait, first.dueNanos - nowNanos);
+                }
+                if (wait >= TimeUnit.MILLISECONDS.toNanos(1)) {
+                    selector.select(TimeUnit.NANOSECONDS.toMillis(wait));
+                } else if (wait > 0) {
+                    // select 的超时精度是毫秒，亚毫秒级的注入延迟用 park 等待
+                    LockSupport.parkNanos(wait);
+                    selector.selectNow();
+                } else {
+                    selector.selectNow();
+                }
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            read(connection, readBuffer);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(connection);
+                        }
+                    }
+                }
+
+                nowNanos = System.nanoTime();
+                while (!delayed.isEmpty() && delayed.peek().dueNanos <= nowNanos) {
+                    DelayedReply reply = delayed.poll();
+                    reply.connection.write(reply.data);
+                }
+                if (nowNanos >= nextExpire) {
+                    executor.activeExpire();
+                    nextExpire = nowNanos + EXPIRE_INTERVAL_NANOS;
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            log.error("FakeRedisServer 事件循环异常退出", e);
+        } finally {
+            new ArrayList<>(connections).forEach(this::closeConnection);
+            delayed.clear();
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                log.warn("关闭 FakeRedisServer 失败", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            if (!available) {
+                channel.close();
+                continue;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.add(connection);
+        }
+    }
+
+    private void read(Connection connection, ByteBuffer buffer) {
+        try {
+            buffer.clear();
+            int n = connection.channel.read(buffer);
+            if (n < 0) {
+                closeConnection(connection);
+                return;
+            }
+            buffer.flip();
+            connection.parser.feed(buffer);
+            List<Bytes> command;
+            while (connection.open && (command = connection.parser.next()) != null) {
+                handle(connection, command);
+            }
+        } catch (RedisException e) {
+            // 协议错误：与 Redis 一样回复错误后断开连接
+            connection.write(Reply.error(e.getMessage()));
+            flush(connection);
+            closeConnection(connection);
+        } catch (IOException e) {
+            closeConnection(connection);
+        }
+    }
+
+    private void handle(Connection connection, List<Bytes> command) {
+        if (command.isEmpty()) {
+            return;
+        }
+        Session session = connection.session;
+        if (shouldFail(command.get(0))) {
+            session.sink.send(Reply.error("ERR fake-redis injected failure"));
+            return;
+        }
+        try {
+            Object reply = executor.dispatch(session, command);
+            if (reply != Reply.NONE) {
+                session.send(reply);
+            }
+        } catch (RedisException e) {
+            session.sink.send(Reply.error(e.getMessage()));
+        } catch (RuntimeException e) {
+            log.error("FakeRedisServer 执行命令失败, command={}", command.get(0), e);
+            session.sink.send(Reply.error("ERR " + e));
+        }
+    }
+
+    private boolean shouldFail(Bytes name) {
+        double rate = failureRate;
+        if (rate <= 0) {
+            return false;
+        }
+        Set<String> commands = failureCommands;
+        if (!commands.isEmpty() && !commands.contains(name.toString().toUpperCase(Locale.ROOT))) {
+            return false;
+        }
+        return random.nextDouble() < rate;
+    }
+
+    private void flush(Connection connection) {
+        try {
+            while (!connection.pending.isEmpty()) {
+                ByteBuffer head = connection.pending.peek();
+                connection.channel.write(head);
+                if (head.hasRemaining()) {
+                    connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                connection.pending.poll();
+            }
+            if (connection.key.isValid()) {
+                connection.key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            closeConnection(connection);
+        }
+    }
+
+    private void closeConnection(Connection connection) {
+        if (!connection.open) {
+            return;
+        }
+        connection.open = false;
+        connections.remove(connection);
+        executor.closeSession(connection.session);
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+    }
+
+    /**
+     * 客户端连接
+     */
+    private final class Connection implements Session.Sink {
+
+        final SocketChannel channel;
+        final RespParser parser = new RespParser();
+        final Session session = new Session(this);
+        final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        SelectionKey key;
+        boolean open = true;
+
+        /**
+         * 本连接最后一个延迟回复的发送时间，保证回复顺序与请求顺序一致
+         */
+        long lastDueNanos;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void send(byte[] data) {
+            long latency = latencyNanos;
+            long jitter = jitterNanos;
+            if (latency <= 0 && jitter <= 0 && lastDueNanos <= System.nanoTime()) {
+                write(data);
+                return;
+            }
+            long delay = latency + (jitter > 0 ? (long) (random.nextDouble() * jitter) : 0);
+            long due = Math.max(lastDueNanos, System.nanoTime() + delay);
+            lastDueNanos = due;
+            delayed.add(new DelayedReply(due, sequence++, this, data));
+        }
+
+        @Override
+        public void close() {
+            // QUIT：等已排队的回复发送完再关闭
+            tasks.add(() -> {
+                flush(this);
+                closeConnection(this);
+            });
+        }
+
+        void write(byte[] data) {
+            if (!open) {
+                return;
+            }
+            pending.add(ByteBuffer.wrap(data));
+            if (pending.size() == 1) {
+                flush(this);
+            }
+        }
+    }
+
+    /**
+     * 延迟发送的回复
+     */
+    private static final class DelayedReply implements Comparable<DelayedReply> {
+
+        final long dueNanos;
+        final long sequence;
+        final Connection connection;
+        final byte[] data;
+
+        DelayedReply(long dueNanos, long sequence, Connection connection, byte[] data) {
+            this.dueNanos = dueNanos;
+            this.sequence = sequence;
+            this.connection = connection;
+            this.data = data;
+        }
+
+        @Override
+        public int compareTo(DelayedReply o) {
+            int c = Long.compare(dueNanos, o.dueNanos);
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FakeRedisServer[" + HOST + ":" + port + "]";
+    }
+}
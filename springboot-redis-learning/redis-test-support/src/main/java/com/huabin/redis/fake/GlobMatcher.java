@@ -0,0 +1,102 @@
+package com.huabin.redis.fake;
+
+/**
+ * Redis 风格的通配符匹配（KEYS / SCAN MATCH / PSUBSCRIBE）
+ *
+ * 支持 * ? [abc] [^a] [a-z] 和 \ 转义
+ *
+ * @author huabin
+ */
+final class GlobMatcher {
+
+    private GlobMatcher() {
+    }
+
+    static boolean matches(String pattern, String text) {
+        return matches(pattern, 0, text, 0);
+    }
+
+    private static boolean matches(String p, int pi, String s, int si) {
+        while (pi < p.length()) {
+            char c = p.charAt(pi);
+            switch (c) {
+                case '*':
+                    while (pi + 1 < p.length() && p.charAt(pi + 1) == '*') {
+                        pi++;
+                    }
+                    if (pi + 1 == p.length()) {
+                        return true;
+                    }
+                    for (int i = si; i <= s.length(); i++) {
+                        if (matches(p, pi + 1, s, i)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case '?':
+                    if (si >= s.length()) {
+                        return false;
+                    }
+                    pi++;
+                    si++;
+                    break;
+                case '[': {
+                    if (si >= s.length()) {
+                        return false;
+                    }
+                    int close = p.indexOf(']', pi + 1);
+                    if (close < 0) {
+                        // 没有闭合的 [ 按普通字符处理
+                        if (s.charAt(si) != '[') {
+                            return false;
+                        }
+                        pi++;
+                        si++;
+                        break;
+                    }
+                    if (!matchClass(p.substring(pi + 1, close), s.charAt(si))) {
+                        return false;
+                    }
+                    pi = close + 1;
+                    si++;
+                    break;
+                }
+                case '\\':
+                    if (pi + 1 < p.length()) {
+                        pi++;
+                        c = p.charAt(pi);
+                    }
+                    // fall through
+                default:
+                    if (si >= s.length() || s.charAt(si) != c) {
+                        return false;
+                    }
+                    pi++;
+                    si++;
+            }
+        }
+        return si == s.length();
+    }
+
+    private static boolean matchClass(String cls, char ch) {
+        boolean negate = cls.startsWith("^");
+        int i = negate ? 1 : 0;
+        boolean matched = false;
+        while (i < cls.length()) {
+            char c = cls.charAt(i);
+            if (c == '\\' && i + 1 < cls.length()) {
+                matched |= cls.charAt(i + 1) == ch;
+                i += 2;
+            } else if (i + 2 < cls.length() && cls.charAt(i + 1) == '-') {
+                char lo = (char) Math.min(c, cls.charAt(i + 2));
+                char hi = (char) Math.max(c, cls.charAt(i + 2));
+                matched |= ch >= lo && ch <= hi;
+                i += 3;
+            } else {
+                matched |= c == ch;
+                i++;
+            }
+        }
+        return negate != matched;
+    }
+}
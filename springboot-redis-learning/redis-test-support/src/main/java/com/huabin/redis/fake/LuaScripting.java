@@ -0,0 +1,279 @@
+package com.huabin.redis.fake;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaString;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.OneArgFunction;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EVAL / EVALSHA 支持
+ *
+ * 使用 LuaJ（纯 Java 的 Lua 解释器）执行脚本，redis.call / redis.pcall 回调到命令执行器，
+ * 因此本项目以及 Redisson（分布式锁、信号量等）的脚本都可以原样执行。
+ *
+ * 与真实 Redis 的差异：
+ * - LuaJ 实现的是 Lua 5.2，这里补充了 Lua 5.1 的全局函数 unpack
+ * - 不提供 cjson / struct / cmsgpack / bit 库
+ *
+ * Lua 与 Redis 类型转换规则与 Redis 一致：
+ * 整数 <-> number，批量字符串 <-> string，nil <-> false，数组 <-> table，
+ * 状态回复 <-> {ok=...}，错误回复 <-> {err=...}
+ *
+ * @author huabin
+ */
+final class LuaScripting {
+
+    /**
+     * 命令执行回调
+     */
+    interface Executor {
+
+        Object execute(Session session, List<Bytes> command);
+    }
+
+    private final Executor executor;
+    private final Globals globals;
+    private final Map<String, LuaValue> scripts = new HashMap<>();
+
+    /**
+     * 当前执行脚本的会话（脚本在事件循环线程中串行执行）
+     */
+    private Session current;
+
+    LuaScripting(Executor executor) {
+        this.executor = executor;
+        this.globals = JsePlatform.standardGlobals();
+        globals.set("unpack", globals.get("table").get("unpack"));
+
+        LuaTable redis = new LuaTable();
+        redis.set("call", new RedisCall(true));
+        redis.set("pcall", new RedisCall(false));
+        redis.set("status_reply", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue arg) {
+                return LuaValue.tableOf(new LuaValue[]{LuaValue.valueOf("ok"), arg});
+            }
+        });
+        redis.set("error_reply", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue arg) {
+                return LuaValue.tableOf(new LuaValue[]{LuaValue.valueOf("err"), arg});
+            }
+        });
+        redis.set("sha1hex", new OneArgFunction() {
+            @Override
+            public LuaValue call(LuaValue arg) {
+                return LuaValue.valueOf(sha1(toBytes(arg.checkstring()).data()));
+            }
+        });
+        redis.set("log", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return LuaValue.NONE;
+            }
+        });
+        redis.set("LOG_DEBUG", 0);
+        redis.set("LOG_VERBOSE", 1);
+        redis.set("LOG_NOTICE", 2);
+        redis.set("LOG_WARNING", 3);
+        globals.set("redis", redis);
+    }
+
+    String load(Bytes script) {
+        String sha = sha1(script.data());
+        if (!scripts.containsKey(sha)) {
+            scripts.put(sha, compile(script));
+        }
+        return sha;
+    }
+
+    boolean exists(String sha) {
+        return scripts.containsKey(sha.toLowerCase());
+    }
+
+    void flush() {
+        scripts.clear();
+    }
+
+    Object eval(Session session, Bytes script, List<Bytes> keys, List<Bytes> args) {
+        return run(session, scripts.get(load(script)), keys, args);
+    }
+
+    Object evalSha(Session session, String sha, List<Bytes> keys, List<Bytes> args) {
+        LuaValue function = scripts.get(sha.toLowerCase());
+        if (function == null) {
+            throw new RedisException("NOSCRIPT No matching script. Please use EVAL.");
+        }
+        return run(session, function, keys, args);
+    }
+
+    private Object run(Session session, LuaValue function, List<Bytes> keys, List<Bytes> args) {
+        current = session;
+        try {
+            globals.set("KEYS", toTable(keys));
+            globals.set("ARGV", toTable(args));
+            LuaValue result = function.call();
+            if (result.istable() && result.get("err").isstring()) {
+                throw new RedisException(result.get("err").tojstring());
+            }
+            return toReply(result);
+        } catch (LuaError e) {
+            LuaValue error = e.getMessageObject();
+            if (error != null && error.istable() && error.get("err").isstring()) {
+                throw new RedisException(error.get("err").tojstring());
+            }
+            throw new RedisException("ERR Error running script: " + e.getMessage());
+        } finally {
+            current = null;
+        }
+    }
+
+    private LuaValue compile(Bytes script) {
+        try {
+            return globals.load(new ByteArrayInputStream(script.data()), "@user_script", "t", globals);
+        } catch (LuaError e) {
+            throw new RedisException("ERR Error compiling script: " + e.getMessage());
+        }
+    }
+
+    /**
+     * redis.call / redis.pcall
+     */
+    private final class RedisCall extends VarArgFunction {
+
+        private final boolean raise;
+
+        RedisCall(boolean raise) {
+            this.raise = raise;
+        }
+
+        @Override
+        public Varargs invoke(Varargs args) {
+            if (args.narg() == 0) {
+                throw new LuaError("Please specify at least one argument for redis.call()");
+            }
+            List<Bytes> command = new ArrayList<>(args.narg());
+            for (int i = 1; i <= args.narg(); i++) {
+                LuaValue arg = args.arg(i);
+                if (!arg.isstring()) {
+                    throw new LuaError("Lua redis() command arguments must be strings or integers");
+                }
+                command.add(toBytes(arg.checkstring()));
+            }
+            try {
+                return toLua(executor.execute(current, command));
+            } catch (RedisException e) {
+                LuaValue error = LuaValue.tableOf(new LuaValue[]{LuaValue.valueOf("err"),
+                        LuaValue.valueOf(e.getMessage())});
+                if (raise) {
+                    throw new LuaError(error);
+                }
+                return error;
+            }
+        }
+    }
+
+    private static LuaTable toTable(List<Bytes> values) {
+        LuaTable table = new LuaTable(values.size(), 0);
+        for (int i = 0; i < values.size(); i++) {
+            table.set(i + 1, LuaString.valueOf(values.get(i).data()));
+        }
+        return table;
+    }
+
+    private static LuaValue toLua(Object reply) {
+        if (reply == null || reply == Reply.NULL_ARRAY) {
+            return LuaValue.FALSE;
+        }
+        if (reply instanceof Long) {
+            return LuaValue.valueOf((double) (Long) reply);
+        }
+        if (reply instanceof Integer) {
+            return LuaValue.valueOf((Integer) reply);
+        }
+        if (reply instanceof Bytes) {
+            return LuaString.valueOf(((Bytes) reply).data());
+        }
+        if (reply instanceof Reply.Status) {
+            return LuaValue.tableOf(new LuaValue[]{LuaValue.valueOf("ok"),
+                    LuaValue.valueOf(((Reply.Status) reply).value)});
+        }
+        if (reply instanceof Reply.Error) {
+            return LuaValue.tableOf(new LuaValue[]{LuaValue.valueOf("err"),
+                    LuaValue.valueOf(((Reply.Error) reply).message)});
+        }
+        if (reply instanceof List) {
+            List<?> items = (List<?>) reply;
+            LuaTable table = new LuaTable(items.size(), 0);
+            for (int i = 0; i < items.size(); i++) {
+                table.set(i + 1, toLua(items.get(i)));
+            }
+            return table;
+        }
+        throw new LuaError("不支持的回复类型: " + reply.getClass());
+    }
+
+    private static Object toReply(LuaValue value) {
+        switch (value.type()) {
+            case LuaValue.TNUMBER:
+                return (long) value.todouble();
+            case LuaValue.TSTRING:
+                return toBytes(value.checkstring());
+            case LuaValue.TBOOLEAN:
+                return value.toboolean() ? 1L : null;
+            case LuaValue.TTABLE: {
+                LuaValue ok = value.get("ok");
+                if (ok.isstring()) {
+                    return Reply.status(ok.tojstring());
+                }
+                LuaValue err = value.get("err");
+                if (err.isstring()) {
+                    return new Reply.Error(err.tojstring());
+                }
+                List<Object> items = new ArrayList<>();
+                for (int i = 1; ; i++) {
+                    LuaValue item = value.get(i);
+                    if (item.isnil()) {
+                        break;
+                    }
+                    items.add(toReply(item));
+                }
+                return items;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static Bytes toBytes(LuaString s) {
+        byte[] data = new byte[s.rawlen()];
+        s.copyInto(0, data, 0, data.length);
+        return new Bytes(data);
+    }
+
+    static String sha1(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+            StringBuilder sb = new StringBuilder(40);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.huabin.redis.fake;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MEMORY USAGE / OBJECT ENCODING 的近似实现
+ *
+ * 按 Redis 6（64 位 + jemalloc）的内存布局估算，用于在测试中比较不同数据结构的内存占用，
+ * 数值与真实 Redis 接近但不完全一致：
+ * - key：sds + dictEntry(24)
+ * - string：int 编码只占 robj(16)；不超过 44 字节为 embstr（robj 与 sds 一次分配）；否则 raw
+ * - hash：字段数和值长度都不超过 hash-max-ziplist-* 时为 ziplist，否则为 hashtable
+ * - 其他类型按 hashtable/跳表的每元素开销粗略估算
+ *
+ * 与 Redis 一致，不包含过期字典（expires）中的开销
+ *
+ * @author huabin
+ */
+final class MemoryModel {
+
+    private static final int ROBJ = 16;
+    private static final int DICT_ENTRY = 24;
+    private static final int DICT = 96;
+    private static final int EMBSTR_LIMIT = 44;
+    private static final int ZIPLIST_OVERHEAD = 11;
+
+    private MemoryModel() {
+    }
+
+    static long usage(Bytes key, Object value, Map<String, String> config) {
+        return sds(key.length()) + DICT_ENTRY + valueSize(value, config);
+    }
+
+    static String encoding(Object value, Map<String, String> config) {
+        if (value instanceof Bytes) {
+            Bytes s = (Bytes) value;
+            if (isInteger(s)) {
+                return "int";
+            }
+            return s.length() <= EMBSTR_LIMIT ? "embstr" : "raw";
+        }
+        if (value instanceof Map) {
+            return isZiplistHash(asHash(value), config) ? "ziplist" : "hashtable";
+        }
+        if (value instanceof List) {
+            return "quicklist";
+        }
+        if (value instanceof Set) {
+            Set<?> set = (Set<?>) value;
+            boolean ints = set.size() <= intConfig(config, "set-max-intset-entries", 512)
+                    && set.stream().allMatch(m -> isInteger((Bytes) m));
+            return ints ? "intset" : "hashtable";
+        }
+        return ((ZSet) value).size() <= intConfig(config, "zset-max-ziplist-entries", 128) ? "ziplist" : "skiplist";
+    }
+
+    private static long valueSize(Object value, Map<String, String> config) {
+        if (value instanceof Bytes) {
+            Bytes s = (Bytes) value;
+            if (isInteger(s)) {
+                return ROBJ;
+            }
+            if (s.length() <= EMBSTR_LIMIT) {
+                return alloc(ROBJ + 3 + s.length() + 1);
+            }
+            return ROBJ + sds(s.length());
+        }
+        if (value instanceof Map) {
+            Map<Bytes, Bytes> hash = asHash(value);
+            if (isZiplistHash(hash, config)) {
+                long bytes = ZIPLIST_OVERHEAD;
+                int prev = 0;
+                for (Map.Entry<Bytes, Bytes> e : hash.entrySet()) {
+                    int field = ziplistEntry(prev, e.getKey());
+                    int val = ziplistEntry(field, e.getValue());
+                    bytes += field + val;
+                    prev = val;
+                }
+                return ROBJ + alloc(bytes);
+            }
+            long bytes = ROBJ + DICT + 8L * tableSize(hash.size());
+            for (Map.Entry<Bytes, Bytes> e : hash.entrySet()) {
+                bytes += DICT_ENTRY + sds(e.getKey().length()) + sds(e.getValue().length());
+            }
+            return bytes;
+        }
+        if (value instanceof List) {
+            long bytes = ROBJ + 40;
+            for (Object item : (List<?>) value) {
+                bytes += ((Bytes) item).length() + 2;
+            }
+            return bytes;
+        }
+        if (value instanceof Set) {
+            Set<?> set = (Set<?>) value;
+            if ("intset".equals(encoding(value, config))) {
+                return ROBJ + alloc(8 + 8L * set.size());
+            }
+            long bytes = ROBJ + DICT + 8L * tableSize(set.size());
+            for (Object member : set) {
+                bytes += DICT_ENTRY + sds(((Bytes) member).length());
+            }
+            return bytes;
+        }
+        ZSet zset = (ZSet) value;
+        long bytes = ROBJ + DICT + 8L * tableSize(zset.size());
+        for (ZSet.Entry e : zset.entries()) {
+            // dictEntry + 跳表节点（分数、后退指针、平均 1.33 层）+ 成员 sds
+            bytes += DICT_ENTRY + 48 + sds(e.member.length());
+        }
+        return bytes;
+    }
+
+    private static boolean isZiplistHash(Map<Bytes, Bytes> hash, Map<String, String> config) {
+        if (hash.size() > intConfig(config, "hash-max-ziplist-entries", 512)) {
+            return false;
+        }
+        int maxValue = intConfig(config, "hash-max-ziplist-value", 64);
+        for (Map.Entry<Bytes, Bytes> e : hash.entrySet()) {
+            if (e.getKey().length() > maxValue || e.getValue().length() > maxValue) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ziplist 单个元素：prevlen + encoding + 数据（整数按最小宽度存储）
+     */
+    private static int ziplistEntry(int prevLength, Bytes data) {
+        int header = prevLength < 254 ? 1 : 5;
+        if (isInteger(data)) {
+            long v = Long.parseLong(data.toString());
+            if (v >= 0 && v <= 12) {
+                return header + 1;
+            }
+            if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) {
+                return header + 2;
+            }
+            if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+                return header + 3;
+            }
+            if (v >= -(1 << 23) && v < (1 << 23)) {
+                return header + 4;
+            }
+            if (v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) {
+                return header + 5;
+            }
+            return header + 9;
+        }
+        int len = data.length();
+        return header + (len <= 63 ? 1 : len <= 16383 ? 2 : 5) + len;
+    }
+
+    private static boolean isInteger(Bytes value) {
+        String s = value.toString();
+        if (s.isEmpty() || s.length() > 20) {
+            return false;
+        }
+        try {
+            // 与 Redis 一致：只接受规范写法（无前导 0、无 + 号）
+            return String.valueOf(Long.parseLong(s)).equals(s);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * sds 分配大小（sdshdr8/16/32 头 + 数据 + '\0'）
+     */
+    private static long sds(int length) {
+        int header = length < 256 ? 3 : length < 65536 ? 5 : 9;
+        return alloc(header + length + 1L);
+    }
+
+    private static long tableSize(int size) {
+        long table = 4;
+        while (table < size) {
+            table <<= 1;
+        }
+        return table;
+    }
+
+    /**
+     * jemalloc 的 size class 取整
+     */
+    static long alloc(long size) {
+        if (size <= 8) {
+            return 8;
+        }
+        if (size <= 128) {
+            return (size + 15) / 16 * 16;
+        }
+        long group = Long.highestOneBit(size - 1);
+        long spacing = group / 4;
+        return (size + spacing - 1) / spacing * spacing;
+    }
+
+    private static int intConfig(Map<String, String> config, String name, int defaultValue) {
+        String value = config.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Bytes, Bytes> asHash(Object value) {
+        return (Map<Bytes, Bytes>) value;
+    }
+}
@@ -0,0 +1,25 @@
+package com.huabin.redis.fake;
+
+/**
+ * 命令执行错误，以 RESP 错误回复（-ERR ...）返回给客户端
+ *
+ * @author huabin
+ */
+class RedisException extends RuntimeException {
+
+    RedisException(String message) {
+        super(message, null, false, false);
+    }
+
+    static RedisException wrongType() {
+        return new RedisException("WRONGTYPE Operation against a key holding the wrong kind of value");
+    }
+
+    static RedisException syntax() {
+        return new RedisException("ERR syntax error");
+    }
+
+    static RedisException arity(String command) {
+        return new RedisException("ERR wrong number of arguments for '" + command.toLowerCase() + "' command");
+    }
+}
@@ -0,0 +1,108 @@
+package com.huabin.redis.fake;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * RESP 回复编码
+ *
+ * 命令处理器的返回值约定：
+ * - Long/Integer：整数回复（:1）
+ * - Bytes：批量字符串（$3 foo）
+ * - null：空批量字符串（$-1）
+ * - List：数组（*n ...），元素可以是以上任意类型
+ * - Status：状态回复（+OK）
+ * - Error：错误回复（-ERR ...），只用于 EXEC/脚本中的单个元素
+ * - NULL_ARRAY：空数组（*-1）
+ * - NONE：已经通过 Session 直接发送，不需要再回复（如 SUBSCRIBE）
+ *
+ * @author huabin
+ */
+final class Reply {
+
+    static final Status OK = new Status("OK");
+    static final Status QUEUED = new Status("QUEUED");
+    static final Status PONG = new Status("PONG");
+
+    static final Object NULL_ARRAY = new Object();
+    static final Object NONE = new Object();
+
+    private Reply() {
+    }
+
+    static Status status(String value) {
+        return new Status(value);
+    }
+
+    static byte[] encode(Object reply) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        write(out, reply);
+        return out.toByteArray();
+    }
+
+    static byte[] error(String message) {
+        return ("-" + message + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void write(ByteArrayOutputStream out, Object reply) {
+        if (reply == null) {
+            writeAscii(out, "$-1\r\n");
+        } else if (reply instanceof Bytes) {
+            byte[] data = ((Bytes) reply).data();
+            writeAscii(out, "$" + data.length + "\r\n");
+            out.write(data, 0, data.length);
+            writeAscii(out, "\r\n");
+        } else if (reply instanceof Long || reply instanceof Integer) {
+            writeAscii(out, ":" + reply + "\r\n");
+        } else if (reply instanceof Status) {
+            writeUtf8(out, "+" + ((Status) reply).value + "\r\n");
+        } else if (reply instanceof Error) {
+            writeUtf8(out, "-" + ((Error) reply).message + "\r\n");
+        } else if (reply instanceof List) {
+            List<?> items = (List<?>) reply;
+            writeAscii(out, "*" + items.size() + "\r\n");
+            for (Object item : items) {
+                write(out, item);
+            }
+        } else if (reply == NULL_ARRAY) {
+            writeAscii(out, "*-1\r\n");
+        } else {
+            throw new IllegalArgumentException("不支持的回复类型: " + reply.getClass());
+        }
+    }
+
+    private static void writeAscii(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeUtf8(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 状态回复
+     */
+    static final class Status {
+
+        final String value;
+
+        Status(String value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * 错误回复（作为数组元素时使用）
+     */
+    static final class Error {
+
+        final String message;
+
+        Error(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.huabin.redis.fake;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RESP 请求解析（增量解析，数据不完整时等待下一次读取）
+ *
+ * 支持两种请求格式：
+ * - 多批量格式：*2\r\n$3\r\nGET\r\n$3\r\nfoo\r\n（客户端使用）
+ * - 内联格式：GET foo\r\n（telnet/redis-cli 调试使用）
+ *
+ * @author huabin
+ */
+final class RespParser {
+
+    private static final int MAX_BULK_LENGTH = 512 * 1024 * 1024;
+
+    private byte[] buf = new byte[16 * 1024];
+    private int start;
+    private int end;
+    private int pos;
+
+    void feed(ByteBuffer in) {
+        int n = in.remaining();
+        if (end + n > buf.length) {
+            int live = end - start;
+            if (live + n <= buf.length && start > 0) {
+                System.arraycopy(buf, start, buf, 0, live);
+            } else {
+                byte[] grown = new byte[Math.max(buf.length * 2, live + n)];
+                System.arraycopy(buf, start, grown, 0, live);
+                buf = grown;
+            }
+            start = 0;
+            end = live;
+        }
+        in.get(buf, end, n);
+        end += n;
+    }
+
+    /**
+     * 解析下一条命令
+     *
+     * @return 命令参数（第一个为命令名），数据不完整时返回 null
+     */
+    List<Bytes> next() {
+        pos = start;
+        if (pos >= end) {
+            return null;
+        }
+        List<Bytes> command = buf[pos] == '*' ? parseMultiBulk() : parseInline();
+        if (command != null) {
+            start = pos;
+            if (start == end) {
+                start = 0;
+                end = 0;
+            }
+        }
+        return command;
+    }
+
+    private List<Bytes> parseMultiBulk() {
+        pos++;
+        Long count = readNumber();
+        if (count == null) {
+            return null;
+        }
+        List<Bytes> args = new ArrayList<>((int) Math.max(count, 0));
+        for (long i = 0; i < count; i++) {
+            if (pos >= end) {
+                return null;
+            }
+            if (buf[pos] != '$') {
+                throw new RedisException("ERR Protocol error: expected '$', got '" + (char) buf[pos] + "'");
+            }
+            pos++;
+            Long len = readNumber();
+            if (len == null) {
+                return null;
+            }
+            if (len < 0 || len > MAX_BULK_LENGTH) {
+                throw new RedisException("ERR Protocol error: invalid bulk length");
+            }
+            if (end - pos < len + 2) {
+                return null;
+            }
+            byte[] data = new byte[len.intValue()];
+            System.arraycopy(buf, pos, data, 0, data.length);
+            pos += len + 2;
+            args.add(new Bytes(data));
+        }
+        return args;
+    }
+
+    private List<Bytes> parseInline() {
+        int lineEnd = indexOfNewline();
+        if (lineEnd < 0) {
+            return null;
+        }
+        String line = new String(buf, pos, lineEnd - pos, StandardCharsets.UTF_8).trim();
+        pos = lineEnd + 1;
+        List<Bytes> args = new ArrayList<>();
+        for (String part : line.split("\\s+")) {
+            if (!part.isEmpty()) {
+                args.add(Bytes.of(part));
+            }
+        }
+        return args;
+    }
+
+    /**
+     * 读取 \r\n 结尾的数字
+     */
+    private Long readNumber() {
+        int lineEnd = indexOfNewline();
+        if (lineEnd < 0) {
+            return null;
+        }
+        int stop = lineEnd > pos && buf[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+        try {
+            long value = Long.parseLong(new String(buf, pos, stop - pos, StandardCharsets.US_ASCII));
+            pos = lineEnd + 1;
+            return value;
+        } catch (NumberFormatException e) {
+            throw new RedisException("ERR Protocol error: invalid length");
+        }
+    }
+
+    private int indexOfNewline() {
+        for (int i = pos; i < end; i++) {
+            if (buf[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
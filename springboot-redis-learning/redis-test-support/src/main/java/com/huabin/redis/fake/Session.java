@@ -0,0 +1,60 @@
+package com.huabin.redis.fake;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端连接状态
+ *
+ * @author huabin
+ */
+final class Session {
+
+    /**
+     * 向客户端发送数据（由事件循环实现，会叠加注入的延迟）
+     */
+    interface Sink {
+
+        void send(byte[] data);
+
+        void close();
+    }
+
+    private static final AtomicLong IDS = new AtomicLong();
+
+    final Sink sink;
+    final long id = IDS.incrementAndGet();
+    final long createdAtMillis = System.currentTimeMillis();
+
+    int db;
+    String name;
+
+    /**
+     * 最近执行的命令和时间（CLIENT LIST 的 cmd / idle）
+     */
+    String lastCommand = "NULL";
+    long lastCommandAtMillis = createdAtMillis;
+
+    /**
+     * MULTI 之后排队的命令，null 表示不在事务中
+     */
+    List<List<Bytes>> multi;
+    boolean multiFailed;
+
+    final Set<Bytes> channels = new LinkedHashSet<>();
+    final Set<Bytes> patterns = new LinkedHashSet<>();
+
+    Session(Sink sink) {
+        this.sink = sink;
+    }
+
+    boolean subscribed() {
+        return !channels.isEmpty() || !patterns.isEmpty();
+    }
+
+    void send(Object reply) {
+        sink.send(Reply.encode(reply));
+    }
+}
@@ -0,0 +1,188 @@
+package com.huabin.redis.fake;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * 有序集合：成员 -> 分数 的哈希表 + 按（分数, 成员）排序的 TreeSet
+ *
+ * @author huabin
+ */
+final class ZSet {
+
+    private final Map<Bytes, Double> scores = new HashMap<>();
+    private final TreeSet<Entry> sorted = new TreeSet<>();
+
+    /**
+     * @return 是否为新成员
+     */
+    boolean add(Bytes member, double score) {
+        Double old = scores.put(member, score);
+        if (old != null) {
+            sorted.remove(new Entry(old, member));
+        }
+        sorted.add(new Entry(score, member));
+        return old == null;
+    }
+
+    Double score(Bytes member) {
+        return scores.get(member);
+    }
+
+    boolean remove(Bytes member) {
+        Double old = scores.remove(member);
+        if (old == null) {
+            return false;
+        }
+        sorted.remove(new Entry(old, member));
+        return true;
+    }
+
+    int size() {
+        return scores.size();
+    }
+
+    Long rank(Bytes member, boolean reverse) {
+        Double score = scores.get(member);
+        if (score == null) {
+            return null;
+        }
+        long rank = sorted.headSet(new Entry(score, member)).size();
+        return reverse ? size() - 1 - rank : rank;
+    }
+
+    /**
+     * 按排名范围读取（支持负数下标）
+     */
+    List<Entry> range(long start, long stop, boolean reverse) {
+        int size = size();
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (stop < 0) {
+            stop = size + stop;
+        }
+        if (stop >= size) {
+            stop = size - 1;
+        }
+        if (start > stop || start >= size) {
+            return Collections.emptyList();
+        }
+        List<Entry> result = new ArrayList<>((int) (stop - start + 1));
+        Iterator<Entry> it = reverse ? sorted.descendingIterator() : sorted.iterator();
+        for (long i = 0; i <= stop && it.hasNext(); i++) {
+            Entry e = it.next();
+            if (i >= start) {
+                result.add(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按分数范围读取
+     */
+    List<Entry> rangeByScore(ScoreBound min, ScoreBound max, boolean reverse, long offset, long count) {
+        List<Entry> result = new ArrayList<>();
+        NavigableSet<Entry> view = reverse ? sorted.descendingSet() : sorted;
+        long skipped = 0;
+        for (Entry e : view) {
+            if (!min.belowOrEqual(e.score)) {
+                if (reverse) {
+                    break;
+                }
+                continue;
+            }
+            if (!max.aboveOrEqual(e.score)) {
+                if (reverse) {
+                    continue;
+                }
+                break;
+            }
+            if (skipped++ < offset) {
+                continue;
+            }
+            if (count >= 0 && result.size() >= count) {
+                break;
+            }
+            result.add(e);
+        }
+        return result;
+    }
+
+    List<Entry> entries() {
+        return new ArrayList<>(sorted);
+    }
+
+    /**
+     * 有序集合元素
+     */
+    static final class Entry implements Comparable<Entry> {
+
+        final double score;
+        final Bytes member;
+
+        Entry(double score, Bytes member) {
+            this.score = score;
+            this.member = member;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int c = Double.compare(score, o.score);
+            return c != 0 ? c : member.compareTo(o.member);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && compareTo((Entry) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return member.hashCode();
+        }
+    }
+
+    /**
+     * 分数区间边界：1.5 / (1.5 / -inf / +inf
+     */
+    static final class ScoreBound {
+
+        final double value;
+        final boolean exclusive;
+
+        private ScoreBound(double value, boolean exclusive) {
+            this.value = value;
+            this.exclusive = exclusive;
+        }
+
+        static ScoreBound parse(Bytes raw) {
+            String s = raw.toString();
+            if (s.startsWith("(")) {
+                return new ScoreBound(Bytes.of(s.substring(1)).toDouble(), true);
+            }
+            return new ScoreBound(raw.toDouble(), false);
+        }
+
+        /**
+         * 作为下界时，score 是否满足
+         */
+        boolean belowOrEqual(double score) {
+            return exclusive ? value < score : value <= score;
+        }
+
+        /**
+         * 作为上界时，score 是否满足
+         */
+        boolean aboveOrEqual(double score) {
+            return exclusive ? value > score : value >= score;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.huabin.redis.fake;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FakeRedisServer 测试：使用真实客户端（Lettuce、Redisson）验证协议兼容性和故障注入
+ *
+ * @author huabin
+ */
+public class FakeRedisServerTest {
+
+    private static FakeRedisServer server;
+    private static RedisClient client;
+
+    private StatefulRedisConnection<String, String> connection;
+    private RedisCommands<String, String> redis;
+
+    @BeforeAll
+    static void startServer() {
+        server = new FakeRedisServer().start();
+        client = RedisClient.create(server.getUri());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        client.shutdown();
+        server.stop();
+    }
+
+    @BeforeEach
+    void connect() {
+        server.resetFaults();
+        server.flushAll();
+        server.resetStats();
+        connection = client.connect();
+        redis = connection.sync();
+    }
+
+    @AfterEach
+    void disconnect() {
+        connection.close();
+    }
+
+    @Test
+    void stringCommands() {
+        assertEquals("OK", redis.set("k", "v"));
+        assertEquals("v", redis.get("k"));
+        assertNull(redis.get("missing"));
+        assertEquals(Long.valueOf(3), redis.incrby("counter", 3));
+        assertEquals(Long.valueOf(2), redis.decr("counter"));
+        assertNull(redis.set("k", "other", SetArgs.Builder.nx()));
+        assertEquals(Arrays.asList("v", "2"), values(redis.mget("k", "counter")));
+        assertThrows(RedisCommandExecutionException.class, () -> redis.incr("k"));
+    }
+
+    @Test
+    void expireWithAdvancedClock() {
+        redis.setex("session", 60, "data");
+        assertTrue(redis.ttl("session") > 0);
+
+        server.advanceClock(Duration.ofSeconds(61));
+
+        assertNull(redis.get("session"));
+        assertEquals(Long.valueOf(-2), redis.ttl("session"));
+    }
+
+    @Test
+    void hashListSetAndWrongType() {
+        redis.hset("user:1", "name", "tom");
+        redis.hincrby("user:1", "level", 5);
+        assertEquals("tom", redis.hget("user:1", "name"));
+        assertEquals(2, redis.hgetall("user:1").size());
+
+        redis.rpush("list", "a", "b", "c");
+        redis.ltrim("list", 1, -1);
+        assertEquals(Arrays.asList("b", "c"), redis.lrange("list", 0, -1));
+
+        redis.sadd("tags", "x", "y");
+        assertTrue(redis.sismember("tags", "x"));
+
+        RedisCommandExecutionException e =
+                assertThrows(RedisCommandExecutionException.class, () -> redis.lpush("user:1", "v"));
+        assertTrue(e.getMessage().startsWith("WRONGTYPE"));
+    }
+
+    @Test
+    void memoryUsageAndEncoding() {
+        redis.set("n", "12345");
+        redis.set("s", "user_session_data_1");
+        assertEquals("int", redis.objectEncoding("n"));
+        assertEquals("embstr", redis.objectEncoding("s"));
+
+        for (int i = 0; i < 100; i++) {
+            redis.hset("bucket", String.valueOf(i), "user_session_data_" + i);
+        }
+        assertEquals("ziplist", redis.objectEncoding("bucket"));
+        long compact = redis.memoryUsage("bucket");
+        assertTrue(compact < 100 * redis.memoryUsage("s"));
+
+        // 超过 hash-max-ziplist-entries 后转为 hashtable，占用明显增加
+        redis.configSet("hash-max-listpack-entries", "64");
+        assertEquals("64", redis.configGet("hash-max-ziplist-entries").get("hash-max-ziplist-entries"));
+        assertEquals("hashtable", redis.objectEncoding("bucket"));
+        assertTrue(redis.memoryUsage("bucket") > compact * 2);
+        redis.configSet("hash-max-ziplist-entries", "512");
+    }
+
+    @Test
+    void slowlogAndCommandStatsWithExecutionDelay() {
+        redis.slowlogReset();
+        server.setExecutionDelay(Duration.ofMillis(15), "GET");
+        try {
+            redis.set("k", "v");
+            redis.get("k");
+        } finally {
+            server.setExecutionDelay(Duration.ZERO);
+        }
+
+        List<Object> slowlog = redis.slowlogGet(10);
+        assertEquals(1, slowlog.size());
+        List<?> entry = (List<?>) slowlog.get(0);
+        assertTrue((Long) entry.get(2) >= 15_000);
+        assertEquals("GET", ((List<?>) entry.get(3)).get(0));
+
+        String commandStats = redis.info("commandstats");
+        assertTrue(commandStats.contains("cmdstat_get:calls="), commandStats);
+        assertTrue(redis.info("memory").contains("used_memory:"));
+        assertTrue(redis.clientList().contains("cmd=client"));
+    }
+
+    @Test
+    void sortedSetCommands() {
+        redis.zadd("rank", 10, "a");
+        redis.zadd("rank", 30, "c");
+        redis.zadd("rank", 20, "b");
+        assertEquals(Arrays.asList("c", "b"), redis.zrevrange("rank", 0, 1));
+        assertEquals(Long.valueOf(1), redis.zrank("rank", "b"));
+        assertEquals(Double.valueOf(25), redis.zincrby("rank", 5, "b"));
+        assertEquals(Long.valueOf(2), redis.zcount("rank", Range.create(20, 30)));
+    }
+
+    @Test
+    void evalScript() {
+        String script = "redis.call('set', KEYS[1], ARGV[1]) return redis.call('incrby', KEYS[2], ARGV[2])";
+        Long result = redis.eval(script, ScriptOutputType.INTEGER, new String[]{"a", "b"}, "1", "7");
+        assertEquals(Long.valueOf(7), result);
+        assertEquals("1", redis.get("a"));
+
+        String sha = redis.scriptLoad("return {KEYS[1], ARGV[1]}");
+        List<String> list = redis.evalsha(sha, ScriptOutputType.MULTI, new String[]{"k"}, "v");
+        assertEquals(Arrays.asList("k", "v"), list);
+    }
+
+    @Test
+    void multiExec() {
+        redis.multi();
+        redis.set("a", "1");
+        redis.incr("a");
+        List<Object> results = redis.exec().stream().collect(Collectors.toList());
+        assertEquals(Arrays.asList("OK", 2L), results);
+    }
+
+    @Test
+    void pipeliningKeepsOrder() throws Exception {
+        RedisAsyncCommands<String, String> async = connection.async();
+        async.setAutoFlushCommands(false);
+        List<RedisFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(async.incr("pipelined"));
+        }
+        async.flushCommands();
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(Long.valueOf(i + 1), futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        async.setAutoFlushCommands(true);
+        assertEquals(1000, server.commandCount("INCR"));
+    }
+
+    @Test
+    void publishSubscribe() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        StatefulRedisPubSubConnection<String, String> pubSub = client.connectPubSub();
+        pubSub.addListener(new RedisPubSubAdapter<String, String>() {
+            @Override
+            public void message(String channel, String message) {
+                received.add(channel + "=" + message);
+            }
+
+            @Override
+            public void message(String pattern, String channel, String message) {
+                received.add(pattern + "|" + channel + "=" + message);
+            }
+        });
+        pubSub.sync().subscribe("news");
+        pubSub.sync().psubscribe("news.*");
+
+        assertEquals(Long.valueOf(1), redis.publish("news", "hello"));
+        assertEquals(Long.valueOf(1), redis.publish("news.sport", "goal"));
+
+        assertEquals("news=hello", received.poll(5, TimeUnit.SECONDS));
+        assertEquals("news.*|news.sport=goal", received.poll(5, TimeUnit.SECONDS));
+        pubSub.close();
+    }
+
+    @Test
+    void injectedLatencyAndFailures() {
+        server.setLatency(Duration.ofMillis(50), Duration.ZERO);
+        long start = System.nanoTime();
+        redis.ping();
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        server.setLatency(Duration.ZERO, Duration.ZERO);
+        server.setFailureRate(1.0, "GET");
+        assertEquals("OK", redis.set("k", "v"));
+        assertThrows(RedisCommandExecutionException.class, () -> redis.get("k"));
+    }
+
+    @Test
+    void redissonLock() throws Exception {
+        Config config = new Config();
+        config.useSingleServer().setAddress(server.getUri()).setConnectionMinimumIdleSize(2);
+        RedissonClient redisson = Redisson.create(config);
+        try {
+            AtomicInteger counter = new AtomicInteger();
+            AtomicInteger concurrent = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(4);
+            for (int t = 0; t < 4; t++) {
+                new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 25; i++) {
+                            RLock lock = redisson.getLock("lock:test");
+                            lock.lock(10, TimeUnit.SECONDS);
+                            try {
+                                assertEquals(1, concurrent.incrementAndGet());
+                                counter.incrementAndGet();
+                                concurrent.decrementAndGet();
+                            } finally {
+                                lock.unlock();
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            assertEquals(100, counter.get());
+            assertFalse(redisson.getLock("lock:test").isLocked());
+        } finally {
+            redisson.shutdown();
+        }
+    }
+
+    private static List<String> values(List<KeyValue<String, String>> keyValues) {
+        List<String> values = new ArrayList<>();
+        for (KeyValue<String, String> kv : keyValues) {
+            values.add(kv.getValueOrElse(null));
+        }
+        return values;
+    }
+}
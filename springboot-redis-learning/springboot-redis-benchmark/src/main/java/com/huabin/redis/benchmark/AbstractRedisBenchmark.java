@@ -0,0 +1,100 @@
+package com.huabin.redis.benchmark;
+
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试基类
+ *
+ * 每个 fork 启动一个独立的 Redis 和 Spring 上下文，数据库由可配置耗时的模拟查询代替。
+ * 固定 fork 数、堆大小、预热和测量轮次，保证同一台机器上不同提交的结果可以直接对比。
+ *
+ * 被测方法里有大量 System.out 打印，测量期间重定向到空输出，避免测的是控制台速度
+ *
+ * @author huabin
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseG1GC"})
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+public abstract class AbstractRedisBenchmark {
+
+    /**
+     * 模拟数据库查询耗时（毫秒）
+     */
+    @Param("5")
+    public long dbLatencyMs;
+
+    private BenchmarkRedis redis;
+    private ConfigurableApplicationContext context;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void startEnvironment() throws IOException {
+        redis = BenchmarkRedis.start();
+        context = startContext(redis);
+        originalOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        context.getBean(StringRedisTemplate.class).execute(connection -> {
+            connection.flushDb();
+            return null;
+        }, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopEnvironment() throws IOException {
+        System.setOut(originalOut);
+        if (context != null) {
+            context.close();
+        }
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    /**
+     * 启动 Spring 上下文，默认不启动 Web 容器
+     */
+    protected ConfigurableApplicationContext startContext(BenchmarkRedis redis) {
+        return BenchmarkApplication.start(redis, dbLatencyMs);
+    }
+
+    protected <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 删除 prefix + [1, count] 的 key，模拟缓存过期
+     */
+    protected void deleteKeys(String prefix, int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            keys.add(prefix + i);
+        }
+        bean(StringRedisTemplate.class).delete(keys);
+    }
+}
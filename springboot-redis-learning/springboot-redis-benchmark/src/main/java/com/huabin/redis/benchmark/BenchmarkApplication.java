@@ -0,0 +1,107 @@
+package com.huabin.redis.benchmark;
+
+import com.huabin.redis.config.CacheDegradationConfig;
+import com.huabin.redis.config.CacheWarmUpConfig;
+import com.huabin.redis.config.RedisConfig;
+import com.huabin.redis.controller.ReactiveRedisController;
+import com.huabin.redis.controller.RedisController;
+import com.huabin.redis.service.PipelineService;
+import com.huabin.redis.solution.cache.CacheAvalancheSolution;
+import com.huabin.redis.solution.cache.CacheBreakdownSolution;
+import com.huabin.redis.solution.cache.CachePenetrationSolution;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基准测试使用的 Spring 上下文
+ *
+ * 只加载被测的 Redis 配置和缓存方案，默认不启动 Web 容器；
+ * 需要经过 HTTP 测量的基准（ReactiveRedisBenchmark）使用 startWeb 启动内嵌 Tomcat
+ *
+ * @author huabin
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {DataSourceAutoConfiguration.class})
+@Import({RedisConfig.class,
+        CacheWarmUpConfig.class,
+        CacheDegradationConfig.class,
+        CacheBreakdownSolution.class,
+        CachePenetrationSolution.class,
+        CacheAvalancheSolution.class,
+        PipelineService.class,
+        RedisController.class,
+        ReactiveRedisController.class})
+public class BenchmarkApplication {
+
+    /**
+     * 启动上下文（不启动 Web 容器）
+     *
+     * 使用命令行参数覆盖 application.yml（命令行参数优先级最高）
+     *
+     * @param redis 基准测试使用的 Redis
+     * @param dbLatencyMs 模拟数据库查询耗时
+     */
+    public static ConfigurableApplicationContext start(BenchmarkRedis redis, long dbLatencyMs) {
+        return run(WebApplicationType.NONE, arguments(redis, dbLatencyMs));
+    }
+
+    /**
+     * 启动带内嵌 Tomcat 的上下文，端口随机（从 local.server.port 读取）
+     *
+     * @param redis 基准测试使用的 Redis
+     * @param dbLatencyMs 模拟数据库查询耗时
+     * @param maxThreads Tomcat 工作线程数上限
+     */
+    public static ConfigurableApplicationContext startWeb(BenchmarkRedis redis, long dbLatencyMs, int maxThreads) {
+        List<String> args = arguments(redis, dbLatencyMs);
+        args.add("--server.port=0");
+        args.add("--server.tomcat.max-threads=" + maxThreads);
+        // 上千个命令同时排在一个 Lettuce 连接上，冷启动阶段可能超过默认的命令超时
+        args.add("--spring.redis.timeout=30s");
+        args.add("--logging.level.org.apache=WARN");
+        return run(WebApplicationType.SERVLET, args);
+    }
+
+    /**
+     * 压测客户端复用长连接：不限制单个连接的请求数，也不因空闲关闭连接
+     */
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> keepAliveCustomizer() {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            connector.setProperty("maxKeepAliveRequests", "-1");
+            connector.setProperty("keepAliveTimeout", "-1");
+        });
+    }
+
+    private static List<String> arguments(BenchmarkRedis redis, long dbLatencyMs) {
+        return new ArrayList<>(Arrays.asList(
+                "--spring.redis.host=" + redis.getHost(),
+                "--spring.redis.port=" + redis.getPort(),
+                "--spring.redis.password=" + redis.getPassword(),
+                "--spring.cache.type=none",
+                "--cache.db-latency-ms=" + dbLatencyMs,
+                "--cache.warm-up.refresh-interval-seconds=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.huabin.redis=WARN",
+                "--logging.level.org.springframework.data.redis=WARN"));
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType type, List<String> args) {
+        return new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(type)
+                .logStartupInfo(false)
+                .run(args.toArray(new String[0]));
+    }
+}
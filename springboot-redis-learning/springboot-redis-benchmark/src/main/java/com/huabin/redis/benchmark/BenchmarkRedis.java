@@ -0,0 +1,89 @@
+package com.huabin.redis.benchmark;
+
+import com.huabin.redis.fake.FakeRedisServer;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+/**
+ * 基准测试使用的 Redis
+ *
+ * 默认启动一个内嵌的 redis-server（随机端口、关闭持久化），保证每次运行的环境一致；
+ * 指定 -Dbench.redis.host 时改为连接外部 Redis（如与线上同版本的实例）；
+ * 指定 -Dbench.redis.mode=fake 时使用进程内的 FakeRedisServer，
+ * 通过 -Dbench.redis.latency-us / -Dbench.redis.jitter-us 模拟固定的网络往返时间，
+ * 结果不受本机 redis-server 调度抖动影响，适合对比不同方案的往返次数
+ *
+ * @author huabin
+ */
+public class BenchmarkRedis {
+
+    private final String host;
+    private final int port;
+    private final String password;
+    private final RedisServer server;
+    private final FakeRedisServer fakeServer;
+
+    private BenchmarkRedis(String host, int port, String password, RedisServer server, FakeRedisServer fakeServer) {
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.server = server;
+        this.fakeServer = fakeServer;
+    }
+
+    public static BenchmarkRedis start() throws IOException {
+        String externalHost = System.getProperty("bench.redis.host");
+        if (externalHost != null) {
+            int port = Integer.getInteger("bench.redis.port", 6379);
+            return new BenchmarkRedis(externalHost, port, System.getProperty("bench.redis.password", ""), null, null);
+        }
+
+        if ("fake".equals(System.getProperty("bench.redis.mode"))) {
+            FakeRedisServer fake = new FakeRedisServer()
+                    .setLatency(Duration.ofNanos(Long.getLong("bench.redis.latency-us", 0L) * 1000),
+                            Duration.ofNanos(Long.getLong("bench.redis.jitter-us", 0L) * 1000))
+                    .start();
+            return new BenchmarkRedis(fake.getHost(), fake.getPort(), "", null, fake);
+        }
+
+        int port = freePort();
+        RedisServer server = RedisServer.newRedisServer()
+                .bind("127.0.0.1")
+                .port(port)
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+        server.start();
+        return new BenchmarkRedis("127.0.0.1", port, "", server, null);
+    }
+
+    public void stop() throws IOException {
+        if (server != null) {
+            server.stop();
+        }
+        if (fakeServer != null) {
+            fakeServer.stop();
+        }
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
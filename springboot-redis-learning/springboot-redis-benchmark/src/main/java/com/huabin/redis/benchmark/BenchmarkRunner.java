@@ -0,0 +1,48 @@
+package com.huabin.redis.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ *
+ * 运行方式：
+ * mvn -pl springboot-redis-benchmark -am package -DskipTests
+ * java -jar springboot-redis-benchmark/target/benchmarks.jar                      # 全部
+ * java -jar springboot-redis-benchmark/target/benchmarks.jar CacheBreakdown       # 只跑击穿
+ * java -jar springboot-redis-benchmark/target/benchmarks.jar -p dbLatencyMs=20    # 调整数据库耗时
+ *
+ * 输出：
+ * - Throughput：ops/ms
+ * - SampleTime：p0.50 / p0.99 / p0.999（ms/op）
+ * - gc.alloc.rate / gc.alloc.rate.norm：分配速率（默认开启 GC Profiler）
+ * 结果同时写入 jmh-result.json（可用 -rff 指定文件名，如按提交号命名），
+ * 不同提交的结果文件可以用 jmh.morethan.jp 等工具直接对比
+ *
+ * 支持全部 JMH 命令行参数（-h 查看）
+ *
+ * @author huabin
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+
+        if (commandLine.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result("jmh-result.json");
+        }
+
+        new Runner(builder.build()).run();
+    }
+}
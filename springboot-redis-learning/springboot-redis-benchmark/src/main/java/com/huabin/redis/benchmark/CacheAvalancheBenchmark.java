@@ -0,0 +1,74 @@
+package com.huabin.redis.benchmark;
+
+import com.huabin.redis.model.Product;
+import com.huabin.redis.solution.cache.CacheAvalancheSolution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存雪崩方案基准测试
+ *
+ * 每轮迭代开始时删除全部商品 key，模拟大量 key 同时过期，
+ * 对比多级缓存、服务降级方案在缓存重建期间的吞吐量和尾延迟；
+ * warmedMultiLevel 在删除后先用预热引擎批量预热，再走多级缓存读路径
+ *
+ * @author huabin
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class CacheAvalancheBenchmark extends AbstractRedisBenchmark {
+
+    @Param({"multiLevel", "degradation", "warmedMultiLevel"})
+    public String strategy;
+
+    /**
+     * 商品数量
+     */
+    @Param("1000")
+    public int keySpace;
+
+    private CacheAvalancheSolution solution;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        solution = bean(CacheAvalancheSolution.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void expireAll() {
+        deleteKeys("product:multi:", keySpace);
+        deleteKeys("product:degrade:", keySpace);
+        if ("warmedMultiLevel".equals(strategy)) {
+            List<Long> ids = new ArrayList<>(keySpace);
+            for (long i = 1; i <= keySpace; i++) {
+                ids.add(i);
+            }
+            solution.warmUpCache(ids);
+        }
+    }
+
+    @Benchmark
+    public Product getProduct(KeyCursor cursor) {
+        Long productId = cursor.nextId(keySpace);
+        switch (strategy) {
+            case "multiLevel":
+            case "warmedMultiLevel":
+                return solution.getProduct_MultiLevel(productId);
+            case "degradation":
+                return solution.getProduct_Degradation(productId);
+            default:
+                throw new IllegalArgumentException("未知方案: " + strategy);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.huabin.redis.benchmark;
+
+import com.huabin.redis.model.Product;
+import com.huabin.redis.solution.cache.CacheBreakdownSolution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存击穿方案基准测试
+ *
+ * 每轮迭代开始时删除全部热点 key，模拟热点 key 同时过期，
+ * 8 个线程并发读取同一批热点商品，对比各方案的吞吐量和尾延迟
+ *
+ * 不测试"永不过期"方案：它每次未命中都会启动一个永不退出的刷新线程
+ *
+ * @author huabin
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class CacheBreakdownBenchmark extends AbstractRedisBenchmark {
+
+    @Param({"mutex", "distributedLock", "logicalExpire"})
+    public String strategy;
+
+    /**
+     * 热点商品数量
+     */
+    @Param("10")
+    public int hotKeys;
+
+    private CacheBreakdownSolution solution;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        solution = bean(CacheBreakdownSolution.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void expireHotKeys() {
+        deleteKeys("hot:product:", hotKeys);
+        deleteKeys("hot:product:logical:", hotKeys);
+    }
+
+    @Benchmark
+    public Product getHotProduct(KeyCursor cursor) {
+        Long productId = cursor.nextId(hotKeys);
+        switch (strategy) {
+            case "mutex":
+                return solution.getHotProduct_Mutex(productId);
+            case "distributedLock":
+                return solution.getHotProduct_DistributedLock(productId);
+            case "logicalExpire":
+                return solution.getHotProduct_LogicalExpire(productId);
+            default:
+                throw new IllegalArgumentException("未知方案: " + strategy);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.huabin.redis.benchmark;
+
+import com.huabin.redis.model.Product;
+import com.huabin.redis.solution.cache.CachePenetrationSolution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存穿透方案基准测试
+ *
+ * 请求中按 attackPercent 混入不存在的商品ID（负数），
+ * 对比缓存空对象、布隆过滤器、组合方案在攻击流量下的吞吐量和尾延迟
+ *
+ * @author huabin
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class CachePenetrationBenchmark extends AbstractRedisBenchmark {
+
+    @Param({"cacheNull", "bloomFilter", "combined"})
+    public String strategy;
+
+    /**
+     * 不存在的商品ID占比（百分比）
+     */
+    @Param({"50"})
+    public int attackPercent;
+
+    /**
+     * 商品ID范围（布隆过滤器中存在的商品是 1-1000）
+     */
+    @Param("1000")
+    public int keySpace;
+
+    private CachePenetrationSolution solution;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        solution = bean(CachePenetrationSolution.class);
+    }
+
+    @Benchmark
+    public Product getProduct(KeyCursor cursor) {
+        long seq = cursor.next();
+        long id = 1 + seq % keySpace;
+        Long productId = seq % 100 < attackPercent ? -id : id;
+        switch (strategy) {
+            case "cacheNull":
+                return solution.getProduct_CacheNull(productId);
+            case "bloomFilter":
+                return solution.getProduct_BloomFilter(productId);
+            case "combined":
+                return solution.getProduct_Combined(productId);
+            default:
+                throw new IllegalArgumentException("未知方案: " + strategy);
+        }
+    }
+}
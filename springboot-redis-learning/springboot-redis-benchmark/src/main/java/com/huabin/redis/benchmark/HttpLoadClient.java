@@ -0,0 +1,193 @@
+package com.huabin.redis.benchmark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 基于 NIO 的 HTTP/1.1 压测客户端
+ *
+ * 预先建立固定数量的长连接，每次调用在所有连接上各发一个 GET，在调用线程里用一个 Selector 等待全部响应。
+ * 客户端自身不为在途请求创建线程，JVM 中的线程数只反映服务端（Tomcat + Lettuce）的占用
+ *
+ * 只支持测量用到的最小子集：Content-Length 或 chunked 响应，不支持管道化
+ *
+ * @author huabin
+ */
+public class HttpLoadClient implements Closeable {
+
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+
+    private final String host;
+    private final Selector selector;
+    private final List<Connection> connections;
+
+    public HttpLoadClient(String host, int port, int connections) throws IOException {
+        this.host = host;
+        this.selector = Selector.open();
+        this.connections = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+            channel.socket().setTcpNoDelay(true);
+            channel.configureBlocking(false);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, 0, connection);
+            this.connections.add(connection);
+        }
+    }
+
+    /**
+     * 每个连接各发送一次 GET 请求，全部响应后返回
+     *
+     * @param pathAndQuery 请求路径（含查询参数）
+     * @return 状态码为 200 的响应数
+     */
+    public int getAll(String pathAndQuery) throws IOException {
+        byte[] request = ("GET " + pathAndQuery + " HTTP/1.1\r\nHost: " + host + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        for (Connection connection : connections) {
+            connection.send(request);
+        }
+        int pending = connections.size();
+        int ok = 0;
+        while (pending > 0) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Connection connection = (Connection) key.attachment();
+                if (key.isWritable()) {
+                    connection.flush();
+                }
+                if (key.isReadable() && connection.read()) {
+                    pending--;
+                    if (connection.status == 200) {
+                        ok++;
+                    }
+                }
+            }
+        }
+        return ok;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Connection connection : connections) {
+            connection.channel.close();
+        }
+        selector.close();
+    }
+
+    /**
+     * 一个长连接，同一时间最多一个在途请求
+     */
+    private static class Connection {
+
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer out;
+        private ByteBuffer in = ByteBuffer.allocate(1024);
+        private int status;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void send(byte[] request) throws IOException {
+            out = ByteBuffer.wrap(request);
+            in.clear();
+            status = 0;
+            flush();
+        }
+
+        void flush() throws IOException {
+            channel.write(out);
+            key.interestOps(out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        /**
+         * 读取可用数据
+         *
+         * @return 响应是否已完整
+         */
+        boolean read() throws IOException {
+            if (!in.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                larger.put(in);
+                in = larger;
+            }
+            if (channel.read(in) < 0) {
+                throw new IOException("connection closed by server");
+            }
+            if (!complete()) {
+                return false;
+            }
+            key.interestOps(0);
+            return true;
+        }
+
+        private boolean complete() {
+            byte[] data = in.array();
+            int length = in.position();
+            int headerEnd = indexOf(data, length, HEADER_END);
+            if (headerEnd < 0) {
+                return false;
+            }
+            String[] lines = new String(data, 0, headerEnd, StandardCharsets.ISO_8859_1).split("\r\n");
+            status = Integer.parseInt(lines[0].split(" ")[1]);
+            int bodyStart = headerEnd + HEADER_END.length;
+            int contentLength = -1;
+            boolean chunked = false;
+            for (int i = 1; i < lines.length; i++) {
+                String line = lines[i].toLowerCase(Locale.ROOT);
+                if (line.startsWith("connection:") && line.contains("close")) {
+                    throw new IllegalStateException("server closed keep-alive connection, status=" + status);
+                }
+                if (line.startsWith("content-length:")) {
+                    contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+                }
+                if (line.startsWith("transfer-encoding:") && line.contains("chunked")) {
+                    chunked = true;
+                }
+            }
+            if (chunked) {
+                return endsWith(data, length, LAST_CHUNK);
+            }
+            return contentLength < 0 || length - bodyStart >= contentLength;
+        }
+
+        private static int indexOf(byte[] data, int length, byte[] pattern) {
+            for (int i = 0; i <= length - pattern.length; i++) {
+                if (regionMatches(data, i, pattern)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean endsWith(byte[] data, int length, byte[] pattern) {
+            return length >= pattern.length && regionMatches(data, length - pattern.length, pattern);
+        }
+
+        private static boolean regionMatches(byte[] data, int offset, byte[] pattern) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[offset + j] != pattern[j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.huabin.redis.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 每个线程按固定顺序遍历 key，不使用随机数，保证每次运行的访问序列相同
+ *
+ * @author huabin
+ */
+@State(Scope.Thread)
+public class KeyCursor {
+
+    private long counter;
+
+    /**
+     * 下一个序号，从0开始递增
+     */
+    public long next() {
+        return counter++;
+    }
+
+    /**
+     * 下一个商品ID，范围 [1, keySpace]
+     */
+    public long nextId(int keySpace) {
+        return 1 + next() % keySpace;
+    }
+}
@@ -0,0 +1,55 @@
+package com.huabin.redis.benchmark;
+
+import com.huabin.redis.service.PipelineService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline 基准测试
+ *
+ * 对应 PipelineService.performanceComparison：逐条 SET 与 Pipeline 批量 SET 对比，
+ * 一次调用写入 dataSize 个 key，结果中的 ops 指"批次"
+ *
+ * @author huabin
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(1)
+public class PipelineBenchmark extends AbstractRedisBenchmark {
+
+    @Param({"plain", "pipelined"})
+    public String mode;
+
+    @Param({"100", "1000"})
+    public int dataSize;
+
+    private PipelineService pipelineService;
+    private Map<String, String> data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pipelineService = bean(PipelineService.class);
+        data = new LinkedHashMap<>();
+        for (int i = 0; i < dataSize; i++) {
+            data.put("test:key:" + i, "value:" + i);
+        }
+    }
+
+    @Benchmark
+    public long set() {
+        if ("pipelined".equals(mode)) {
+            return pipelineService.setWithPipeline(data);
+        }
+        return pipelineService.setWithoutPipeline(data);
+    }
+}
@@ -0,0 +1,118 @@
+package com.huabin.redis.benchmark;
+
+import com.huabin.redis.controller.RedisController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞与响应式 Controller 的并发对比（经过内嵌 Tomcat 的真实 HTTP 请求）
+ *
+ * 一次调用在 concurrency 个长连接上同时发出 GET 请求，结果中的 ops 指"批次"：
+ * - blocking：GET /redis/get，每个在途请求占用一个 Tomcat 工作线程，超过 maxThreads 的请求在 Tomcat 中排队
+ * - reactive：GET /reactive/redis/get，返回 Mono，Spring MVC 按异步请求处理，等待 Redis 期间归还工作线程
+ * 两种方式的 Tomcat maxThreads 相同（TOMCAT_MAX_THREADS），共享同一个 Lettuce 连接；
+ * 客户端是单线程 NIO（HttpLoadClient），不为在途请求创建线程
+ *
+ * 线程数：每个参数组合在独立的 fork 中运行，结束时打印 JVM 峰值线程数和 Tomcat 工作线程池的大小（stderr）
+ *
+ * 往返时间越长差距越明显，建议使用 FakeRedisServer 模拟网络延迟：
+ * java -jar benchmarks.jar ReactiveRedis -jvmArgsAppend "-Dbench.redis.mode=fake -Dbench.redis.latency-us=1000"
+ *
+ * 本地实测（1 核 CPU，FakeRedisServer，默认预热 / 测量轮次，-bm thrpt，ops/s × concurrency 换算为请求数/秒）：
+ *   往返    concurrency  模式       请求/秒   JVM 峰值线程  Tomcat 工作线程
+ *   1ms     100          blocking   2323      124           101
+ *   1ms     100          reactive   1531      123           101
+ *   1ms     1000         blocking   2075      223           200
+ *   1ms     1000         reactive   1138      223           200
+ *   200ms   1000         blocking    777      223           200
+ *   200ms   1000         reactive   1126      222           200
+ * - 一批请求同时到达时，两种模式的 Tomcat 线程池都会扩到 min(concurrency, maxThreads)，
+ *   reactive 不减少峰值线程数，只缩短每个请求占用工作线程的时间
+ * - CPU 是瓶颈时（往返 1ms），异步派发的额外开销让 reactive 吞吐更低
+ * - 往返足够长、maxThreads / 往返时间低于 CPU 能处理的请求数时（200ms 时阻塞上限为 1000 请求/秒），reactive 更快
+ *
+ * @author huabin
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+public class ReactiveRedisBenchmark extends AbstractRedisBenchmark {
+
+    /**
+     * Tomcat 工作线程数上限，两种模式相同（Spring Boot 默认值）
+     */
+    public static final int TOMCAT_MAX_THREADS = 200;
+
+    private static final String KEY = "bench:reactive:key";
+
+    @Param({"blocking", "reactive"})
+    public String mode;
+
+    @Param({"100", "1000"})
+    public int concurrency;
+
+    private HttpLoadClient client;
+    private String path;
+    private int maxWorkers;
+
+    @Override
+    protected ConfigurableApplicationContext startContext(BenchmarkRedis redis) {
+        return BenchmarkApplication.startWeb(redis, dbLatencyMs, TOMCAT_MAX_THREADS);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        bean(RedisController.class).set(KEY, "value");
+        int port = bean(Environment.class).getRequiredProperty("local.server.port", Integer.class);
+        client = new HttpLoadClient("127.0.0.1", port, concurrency);
+        path = ("reactive".equals(mode) ? "/reactive/redis/get" : "/redis/get") + "?key=" + KEY;
+        if (client.getAll(path) != concurrency) {
+            throw new IllegalStateException("GET " + path + " did not return 200");
+        }
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    /**
+     * 上下文在 Trial 结束前已关闭，Tomcat 工作线程数在每轮迭代结束时统计
+     */
+    @TearDown(Level.Iteration)
+    public void countWorkers() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int workers = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && info.getThreadName().startsWith("http-nio-") && info.getThreadName().contains("-exec-")) {
+                workers++;
+            }
+        }
+        maxWorkers = Math.max(maxWorkers, workers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.err.printf("%n[%s, concurrency=%d] peakThreads=%d, tomcatWorkers=%d%n",
+                mode, concurrency, ManagementFactory.getThreadMXBean().getPeakThreadCount(), maxWorkers);
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    public int get() throws IOException {
+        return client.getAll(path);
+    }
+}
@@ -0,0 +1,33 @@
+package com.huabin.redis.config;
+
+import com.huabin.redis.solution.cache.RedisCircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 缓存降级配置（Redis 熔断器）
+ *
+ * @author huabin
+ */
+@Configuration
+public class CacheDegradationConfig {
+
+    /**
+     * Redis 熔断器：按错误率/慢调用率打开，打开期间读请求走本地旧值
+     */
+    @Bean(destroyMethod = "shutdown")
+    public RedisCircuitBreaker redisCircuitBreaker(
+            @Value("${cache.circuit-breaker.window-seconds:10}") int windowSeconds,
+            @Value("${cache.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${cache.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${cache.circuit-breaker.slow-call-threshold-ms:50}") long slowCallThresholdMs,
+            @Value("${cache.circuit-breaker.slow-call-rate-threshold:0.8}") double slowCallRateThreshold,
+            @Value("${cache.circuit-breaker.open-duration-ms:5000}") long openDurationMs,
+            @Value("${cache.circuit-breaker.half-open-trial-calls:5}") int halfOpenTrialCalls,
+            @Value("${cache.circuit-breaker.call-timeout-ms:100}") long callTimeoutMs,
+            @Value("${cache.circuit-breaker.max-concurrent-calls:64}") int maxConcurrentCalls) {
+        return new RedisCircuitBreaker(windowSeconds, minimumCalls, failureRateThreshold, slowCallThresholdMs,
+                slowCallRateThreshold, openDurationMs, halfOpenTrialCalls, callTimeoutMs, maxConcurrentCalls);
+    }
+}
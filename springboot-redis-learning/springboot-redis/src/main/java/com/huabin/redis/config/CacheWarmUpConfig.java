@@ -0,0 +1,47 @@
+package com.huabin.redis.config;
+
+import com.huabin.redis.solution.cache.CacheWarmUpEngine;
+import com.huabin.redis.solution.cache.StaggeredTtlScheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 缓存预热/错峰过期配置
+ *
+ * @author huabin
+ */
+@Configuration
+public class CacheWarmUpConfig {
+
+    /**
+     * 错峰过期时间分配器
+     */
+    @Bean
+    public StaggeredTtlScheduler staggeredTtlScheduler(
+            @Value("${cache.warm-up.base-ttl-seconds:3600}") long baseTtlSeconds,
+            @Value("${cache.warm-up.spread-seconds:300}") long spreadSeconds,
+            @Value("${cache.warm-up.max-bucket-ratio:0.01}") double maxBucketRatio) {
+        return new StaggeredTtlScheduler(baseTtlSeconds, spreadSeconds, maxBucketRatio);
+    }
+
+    /**
+     * 缓存预热引擎（并行分页查库 + Pipeline 写入 + 热 key 提前续期）
+     */
+    @Bean(destroyMethod = "shutdown")
+    public CacheWarmUpEngine cacheWarmUpEngine(RedisTemplate<String, Object> redisTemplate,
+                                               StaggeredTtlScheduler staggeredTtlScheduler,
+                                               @Value("${cache.warm-up.page-size:50}") int pageSize,
+                                               @Value("${cache.warm-up.loader-threads:4}") int loaderThreads,
+                                               @Value("${cache.warm-up.write-batch-size:200}") int writeBatchSize,
+                                               @Value("${cache.warm-up.refresh-ahead-seconds:120}") long refreshAheadSeconds,
+                                               @Value("${cache.warm-up.min-hits:3}") int minHits,
+                                               @Value("${cache.warm-up.max-tracked-keys:100000}") int maxTrackedKeys,
+                                               @Value("${cache.warm-up.refresh-interval-seconds:30}") long refreshIntervalSeconds) {
+        CacheWarmUpEngine engine = new CacheWarmUpEngine(redisTemplate, staggeredTtlScheduler, pageSize,
+                loaderThreads, writeBatchSize, refreshAheadSeconds, minHits, maxTrackedKeys);
+        engine.start(refreshIntervalSeconds);
+        return engine;
+    }
+}
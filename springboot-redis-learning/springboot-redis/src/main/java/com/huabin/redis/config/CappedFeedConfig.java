@@ -0,0 +1,37 @@
+package com.huabin.redis.config;
+
+import com.huabin.redis.solution.memory.CappedFeedStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 定长 Feed / 时间线配置
+ *
+ * @author huabin
+ */
+@Configuration
+public class CappedFeedConfig {
+
+    /**
+     * 演示用时间线（demo:user:feeds:{userId}），MemoryOptimization 写扩散演示结束后删除所有粉丝的时间线，
+     * 使用单独的前缀，不会删掉真实用户的时间线（user:feeds:）
+     */
+    @Bean(destroyMethod = "shutdown")
+    public CappedFeedStore demoFeedStore(StringRedisTemplate stringRedisTemplate,
+                                         @Value("${memory.feed.demo-prefix:demo:user:feeds:}") String prefix,
+                                         @Value("${memory.feed.max-length:100}") int maxLength,
+                                         @Value("${memory.feed.trim-slack:20}") int trimSlack,
+                                         @Value("${memory.feed.ttl-seconds:604800}") long ttlSeconds,
+                                         @Value("${memory.feed.keys-per-script:100}") int keysPerScript,
+                                         @Value("${memory.feed.pipeline-size:100}") int pipelineSize,
+                                         @Value("${memory.feed.max-buffered:1000}") int maxBuffered,
+                                         @Value("${memory.feed.max-pending:10000}") int maxPending,
+                                         @Value("${memory.feed.flush-interval-ms:5}") long flushIntervalMs) {
+        CappedFeedStore store = new CappedFeedStore(stringRedisTemplate, prefix, maxLength, trimSlack, ttlSeconds,
+                keysPerScript, pipelineSize, maxBuffered, maxPending);
+        store.start(flushIntervalMs);
+        return store;
+    }
+}
@@ -0,0 +1,30 @@
+package com.huabin.redis.config;
+
+import com.huabin.redis.solution.memory.HashBucketStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Hash 分桶存储配置
+ *
+ * @author huabin
+ */
+@Configuration
+public class HashBucketConfig {
+
+    /**
+     * 演示用分桶存储（demo:session:bucket:），MemoryOptimization 对比内存时写入后整桶删除，
+     * 使用单独的前缀，不会删掉线上用户的 Session 桶（session:bucket:）
+     */
+    @Bean
+    public HashBucketStore demoSessionBucketStore(StringRedisTemplate stringRedisTemplate,
+                                                  @Value("${memory.hash-bucket.demo-prefix:demo:session:bucket:}") String prefix,
+                                                  @Value("${memory.hash-bucket.bucket-size:100}") int bucketSize,
+                                                  @Value("${memory.hash-bucket.ttl-seconds:1800}") long ttlSeconds,
+                                                  @Value("${memory.hash-bucket.max-value-bytes:64}") int maxValueBytes,
+                                                  @Value("${memory.hash-bucket.pipeline-buckets:100}") int pipelineBuckets) {
+        return new HashBucketStore(stringRedisTemplate, prefix, bucketSize, ttlSeconds, maxValueBytes, pipelineBuckets);
+    }
+}
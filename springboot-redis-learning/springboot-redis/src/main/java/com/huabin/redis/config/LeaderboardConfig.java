@@ -0,0 +1,49 @@
+package com.huabin.redis.config;
+
+import com.huabin.redis.solution.performance.LeaderboardService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * ZSET 排行榜配置
+ *
+ * @author huabin
+ */
+@Configuration
+public class LeaderboardConfig {
+
+    /**
+     * 排行榜（成员分片 + 本地 Top-N 快照）
+     */
+    @Bean(destroyMethod = "shutdown")
+    public LeaderboardService leaderboardService(StringRedisTemplate stringRedisTemplate,
+                                                 @Value("${leaderboard.prefix:leaderboard:}") String prefix,
+                                                 @Value("${leaderboard.shards:4}") int shards,
+                                                 @Value("${leaderboard.top-n:100}") int topN,
+                                                 @Value("${leaderboard.batch-size:500}") int batchSize,
+                                                 @Value("${leaderboard.ttl-seconds:0}") long ttlSeconds,
+                                                 @Value("${leaderboard.channel:leaderboard:changed}") String channel,
+                                                 @Value("${leaderboard.refresh-interval-ms:200}") long refreshIntervalMs) {
+        LeaderboardService service = new LeaderboardService(stringRedisTemplate, prefix, shards, topN, batchSize,
+                ttlSeconds, channel);
+        service.start(refreshIntervalMs);
+        return service;
+    }
+
+    /**
+     * 订阅排行榜变更通知，其他实例写入后标记本地快照待刷新
+     */
+    @Bean
+    public RedisMessageListenerContainer leaderboardListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                      LeaderboardService leaderboardService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(leaderboardService, new ChannelTopic(leaderboardService.getChannel()));
+        return container;
+    }
+}
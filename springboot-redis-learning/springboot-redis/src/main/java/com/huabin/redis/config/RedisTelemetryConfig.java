@@ -0,0 +1,52 @@
+package com.huabin.redis.config;
+
+import com.huabin.redis.telemetry.RedisCommandTimer;
+import com.huabin.redis.telemetry.RedisTelemetryCollector;
+import com.huabin.redis.telemetry.RedisTemplateTimingPostProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * Redis 延迟/慢查询指标配置
+ *
+ * 开启后 RedisTemplate 的每个命令都会记录客户端耗时，并定期采集 SLOWLOG、LATENCY、INFO、CLIENT LIST，
+ * 通过 /redis/demo/performance/telemetry 和 /actuator/prometheus 查看
+ *
+ * @author huabin
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "redis.telemetry", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RedisTelemetryConfig {
+
+    /**
+     * BeanPostProcessor 必须声明为 static，避免提前初始化配置类
+     */
+    @Bean
+    public static RedisTemplateTimingPostProcessor redisTemplateTimingPostProcessor(
+            ObjectProvider<RedisCommandTimer> timerProvider) {
+        return new RedisTemplateTimingPostProcessor(timerProvider);
+    }
+
+    @Bean
+    public RedisCommandTimer redisCommandTimer(MeterRegistry meterRegistry,
+                                               @Value("${redis.telemetry.percentiles:0.5,0.95,0.99}") double[] percentiles) {
+        return new RedisCommandTimer(meterRegistry, percentiles);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public RedisTelemetryCollector redisTelemetryCollector(RedisConnectionFactory redisConnectionFactory,
+                                                           MeterRegistry meterRegistry,
+                                                           RedisCommandTimer redisCommandTimer,
+                                                           @Value("${redis.telemetry.slowlog-fetch-size:128}") int slowlogFetchSize,
+                                                           @Value("${redis.telemetry.interval-seconds:15}") long intervalSeconds) {
+        RedisTelemetryCollector collector = new RedisTelemetryCollector(redisConnectionFactory, meterRegistry,
+                redisCommandTimer, slowlogFetchSize);
+        collector.start(intervalSeconds);
+        return collector;
+    }
+}
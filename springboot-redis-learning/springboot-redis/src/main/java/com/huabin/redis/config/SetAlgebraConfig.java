@@ -0,0 +1,30 @@
+package com.huabin.redis.config;
+
+import com.huabin.redis.solution.performance.SetAlgebraService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 集合交并差计算配置
+ *
+ * @author huabin
+ */
+@Configuration
+public class SetAlgebraConfig {
+
+    /**
+     * 集合运算（小集合服务端 *STORE，大集合客户端 RoaringBitmap）
+     */
+    @Bean(destroyMethod = "shutdown")
+    public SetAlgebraService setAlgebraService(StringRedisTemplate stringRedisTemplate,
+                                               @Value("${set-algebra.server-threshold:100000}") long serverThreshold,
+                                               @Value("${set-algebra.scan-count:1000}") int scanCount,
+                                               @Value("${set-algebra.write-chunk:1000}") int writeChunk,
+                                               @Value("${set-algebra.sample-size:20}") int sampleSize,
+                                               @Value("${set-algebra.loader-threads:4}") int loaderThreads) {
+        return new SetAlgebraService(stringRedisTemplate, serverThreshold, scanCount, writeChunk, sampleSize,
+                loaderThreads);
+    }
+}
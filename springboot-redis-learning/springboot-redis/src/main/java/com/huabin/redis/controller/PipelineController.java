@@ -45,9 +45,9 @@ public class PipelineController {
         for (int i = 1; i <= count; i++) {
             User user = new User();
             user.setId((long) i);
-            user.setName("User" + i);
+            user.setUsername("User" + i);
             user.setEmail("user" + i + "@example.com");
-            user.setAge(20 + (i % 50));
+            user.setLevel(1 + (i % 5));
             users.add(user);
         }
         
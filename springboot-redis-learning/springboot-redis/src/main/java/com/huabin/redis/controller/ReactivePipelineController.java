@@ -0,0 +1,91 @@
+package com.huabin.redis.controller;
+
+import com.alibaba.fastjson.JSON;
+import com.huabin.redis.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Pipeline 示例控制器（响应式）
+ * 
+ * @author huabin
+ * @description 与 PipelineController 的批量用户接口对应，使用 ReactiveStringRedisTemplate：
+ * 批量写入时所有 SET 同时发出，Lettuce 在同一个连接上连续写出（效果等同 Pipeline），
+ * 批量读取用一次 MGET，整个过程不占用 Servlet 线程
+ */
+@RestController
+@RequestMapping("/reactive/pipeline")
+public class ReactivePipelineController {
+    
+    /**
+     * 同时在途的命令数上限
+     */
+    private static final int MAX_IN_FLIGHT = 256;
+    
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    
+    /**
+     * 批量插入用户（与 PipelineService.batchInsertUsers 的数据格式相同，过期时间1小时）
+     * 
+     * POST /reactive/pipeline/users/batch
+     */
+    @PostMapping("/users/batch")
+    public Mono<Map<String, Object>> batchInsertUsers(@RequestParam(defaultValue = "100") int count) {
+        long start = System.currentTimeMillis();
+        return Flux.range(1, count)
+                .map(i -> {
+                    User user = new User();
+                    user.setId((long) i);
+                    user.setUsername("User" + i);
+                    user.setEmail("user" + i + "@example.com");
+                    user.setLevel(1 + (i % 5));
+                    return user;
+                })
+                .flatMap(user -> reactiveStringRedisTemplate.opsForValue()
+                        .set("user:" + user.getId(), JSON.toJSONString(user), Duration.ofHours(1)), MAX_IN_FLIGHT)
+                .then(Mono.fromSupplier(() -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("success", true);
+                    result.put("count", count);
+                    result.put("cost", (System.currentTimeMillis() - start) + "ms");
+                    return result;
+                }));
+    }
+    
+    /**
+     * 批量查询用户（一次 MGET）
+     * 
+     * GET /reactive/pipeline/users/batch?ids=1,2,3,4,5
+     */
+    @GetMapping("/users/batch")
+    public Mono<Map<String, Object>> batchGetUsers(@RequestParam String ids) {
+        List<String> keys = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            keys.add("user:" + Long.parseLong(id.trim()));
+        }
+        
+        long start = System.currentTimeMillis();
+        return reactiveStringRedisTemplate.opsForValue().multiGet(keys)
+                .map(values -> {
+                    List<User> users = new ArrayList<>();
+                    for (String value : values) {
+                        // 不存在的 key 在响应式 MGET 结果中可能是空字符串
+                        if (value != null && !value.isEmpty()) {
+                            users.add(JSON.parseObject(value, User.class));
+                        }
+                    }
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("success", true);
+                    result.put("users", users);
+                    result.put("cost", (System.currentTimeMillis() - start) + "ms");
+                    return result;
+                });
+    }
+}
@@ -0,0 +1,105 @@
+package com.huabin.redis.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Redis基础操作Controller（响应式）
+ * 
+ * 与 RedisController 的接口一一对应，改用 ReactiveRedisTemplate：
+ * 1. 返回 Mono，Spring MVC 按异步请求处理，命令发出后 Servlet 线程立即归还，Redis 响应后再写回结果
+ * 2. 所有请求共享 Lettuce 的一个多路复用连接，并发请求的命令在同一个连接上连续发送（自动 Pipeline），
+ *    几千个并发请求不需要几千个线程，也不需要连接池
+ * 
+ * 数据与 RedisController 互通（序列化方式相同）
+ * 
+ * @author huabin
+ */
+@RestController
+@RequestMapping("/reactive/redis")
+public class ReactiveRedisController {
+
+    @Autowired
+    private ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    /**
+     * 设置值
+     */
+    @PostMapping("/set")
+    public Mono<String> set(@RequestParam String key, @RequestParam String value) {
+        return reactiveRedisTemplate.opsForValue().set(key, value).thenReturn("success");
+    }
+
+    /**
+     * 设置值（带过期时间）
+     */
+    @PostMapping("/setex")
+    public Mono<String> setex(@RequestParam String key,
+                              @RequestParam String value,
+                              @RequestParam long seconds) {
+        return reactiveRedisTemplate.opsForValue().set(key, value, Duration.ofSeconds(seconds)).thenReturn("success");
+    }
+
+    /**
+     * 获取值
+     */
+    @GetMapping("/get")
+    public Mono<Object> get(@RequestParam String key) {
+        return reactiveRedisTemplate.opsForValue().get(key);
+    }
+
+    /**
+     * 删除key
+     */
+    @DeleteMapping("/delete")
+    public Mono<Boolean> delete(@RequestParam String key) {
+        return reactiveRedisTemplate.delete(key).map(count -> count > 0);
+    }
+
+    /**
+     * 判断key是否存在
+     */
+    @GetMapping("/exists")
+    public Mono<Boolean> exists(@RequestParam String key) {
+        return reactiveRedisTemplate.hasKey(key);
+    }
+
+    /**
+     * 设置过期时间
+     */
+    @PostMapping("/expire")
+    public Mono<Boolean> expire(@RequestParam String key, @RequestParam long seconds) {
+        return reactiveRedisTemplate.expire(key, Duration.ofSeconds(seconds));
+    }
+
+    /**
+     * 获取过期时间（与 TTL 命令一致：-1 表示未设置过期时间，-2 表示key不存在）
+     */
+    @GetMapping("/ttl")
+    public Mono<Long> ttl(@RequestParam String key) {
+        ByteBuffer rawKey = ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+        return reactiveRedisTemplate.createMono(connection -> connection.keyCommands().ttl(rawKey));
+    }
+
+    /**
+     * 自增
+     */
+    @PostMapping("/incr")
+    public Mono<Long> incr(@RequestParam String key) {
+        return reactiveRedisTemplate.opsForValue().increment(key);
+    }
+
+    /**
+     * 自减
+     */
+    @PostMapping("/decr")
+    public Mono<Long> decr(@RequestParam String key) {
+        return reactiveRedisTemplate.opsForValue().decrement(key);
+    }
+}
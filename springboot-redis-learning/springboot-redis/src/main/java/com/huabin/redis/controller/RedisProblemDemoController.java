@@ -1,5 +1,6 @@
 package com.huabin.redis.controller;
 
+import com.huabin.redis.model.Product;
 import com.huabin.redis.problem.cache.CacheAvalancheProblem;
 import com.huabin.redis.problem.cache.CacheBreakdownProblem;
 import com.huabin.redis.problem.cache.CachePenetrationProblem;
@@ -15,11 +16,19 @@ import com.huabin.redis.solution.cluster.HotKeySolution;
 import com.huabin.redis.solution.memory.MemoryOptimization;
 import com.huabin.redis.solution.performance.BigKeySolution;
 import com.huabin.redis.solution.performance.BlockingSolution;
+import com.huabin.redis.solution.performance.SetAlgebraService;
+import com.huabin.redis.telemetry.RedisTelemetryCollector;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Redis 问题演示控制器
  * 
@@ -65,6 +74,12 @@ public class RedisProblemDemoController {
     @Autowired
     private MemoryOptimization memoryOptimization;
     
+    /**
+     * redis.telemetry.enabled=false 时为 null
+     */
+    @Autowired(required = false)
+    private RedisTelemetryCollector telemetryCollector;
+    
     @Autowired
     private HotKeyProblem hotKeyProblem;
     
@@ -87,17 +102,24 @@ public class RedisProblemDemoController {
         sb.append("3. /redis/demo/cache/breakdown/problem - 缓存击穿问题\n");
         sb.append("4. /redis/demo/cache/breakdown/solution - 缓存击穿解决方案\n");
         sb.append("5. /redis/demo/cache/avalanche/problem - 缓存雪崩问题\n");
-        sb.append("6. /redis/demo/cache/avalanche/solution - 缓存雪崩解决方案\n\n");
+        sb.append("6. /redis/demo/cache/avalanche/solution - 缓存雪崩解决方案\n");
+        sb.append("   /redis/demo/cache/avalanche/warmup?count=1000 - 预热商品缓存（错峰过期）\n");
+        sb.append("   /redis/demo/cache/avalanche/degrade?id=1 - 降级读取（Redis 熔断 + 本地旧值）\n\n");
         
         sb.append("【性能问题】\n");
         sb.append("7. /redis/demo/performance/bigkey/problem - BigKey问题\n");
         sb.append("8. /redis/demo/performance/bigkey/solution - BigKey解决方案\n");
         sb.append("9. /redis/demo/performance/blocking/problem - 阻塞问题\n");
-        sb.append("10. /redis/demo/performance/blocking/solution - 阻塞解决方案\n\n");
+        sb.append("10. /redis/demo/performance/blocking/solution - 阻塞解决方案\n");
+        sb.append("    /redis/demo/performance/leaderboard?members=10000&reads=1000000 - ZSET排行榜（批量写入 + 本地Top-N）\n");
+        sb.append("    /redis/demo/performance/set-algebra?size=200000&operation=INTERSECT&mode=AUTO - 大集合交并差（服务端/客户端RoaringBitmap）\n");
+        sb.append("    /redis/demo/performance/telemetry - 慢查询/延迟/内存指标采集（客户端与服务端耗时对比）\n\n");
         
         sb.append("【内存问题】\n");
         sb.append("11. /redis/demo/memory/leak/problem - 内存泄漏问题\n");
-        sb.append("12. /redis/demo/memory/optimization - 内存优化方案\n\n");
+        sb.append("12. /redis/demo/memory/optimization - 内存优化方案\n");
+        sb.append("    /redis/demo/memory/bucket/compare?count=10000 - 一个对象一个key vs Hash分桶 内存对比\n");
+        sb.append("    /redis/demo/memory/feed/fanout?followers=10000 - 定长时间线写扩散（Lua + Pipeline）\n\n");
         
         sb.append("【集群问题】\n");
         sb.append("13. /redis/demo/cluster/hotkey/problem - 热点Key问题\n");
@@ -147,6 +169,46 @@ public class RedisProblemDemoController {
         return "缓存雪崩解决方案演示完成，请查看控制台日志";
     }
     
+    /**
+     * 预热商品缓存：并行分页查库 + Pipeline 写入 + 错峰过期
+     * GET /redis/demo/cache/avalanche/warmup?count=1000
+     */
+    @GetMapping("/cache/avalanche/warmup")
+    public Map<String, Object> cacheAvalancheWarmUp(@RequestParam(defaultValue = "100") int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            ids.add(i);
+        }
+        return cacheAvalancheSolution.warmUpCache(ids);
+    }
+    
+    /**
+     * 立即刷新即将过期的热 key
+     */
+    @GetMapping("/cache/avalanche/refresh")
+    public Map<String, Object> cacheAvalancheRefresh() {
+        return cacheAvalancheSolution.refreshExpiringCache();
+    }
+    
+    @GetMapping("/cache/avalanche/warmup/stats")
+    public Map<String, Object> cacheAvalancheWarmUpStats() {
+        return cacheAvalancheSolution.getWarmUpStats();
+    }
+    
+    /**
+     * 降级读取：Redis 经熔断器访问，不可用时返回本地旧值
+     * GET /redis/demo/cache/avalanche/degrade?id=1
+     */
+    @GetMapping("/cache/avalanche/degrade")
+    public Product cacheAvalancheDegrade(@RequestParam Long id) {
+        return cacheAvalancheSolution.getProduct_Degradation(id);
+    }
+    
+    @GetMapping("/cache/avalanche/degrade/stats")
+    public Map<String, Object> cacheAvalancheDegradeStats() {
+        return cacheAvalancheSolution.getDegradationStats();
+    }
+    
     // ========== 性能问题 ==========
     
     @GetMapping("/performance/bigkey/problem")
@@ -183,6 +245,47 @@ public class RedisProblemDemoController {
         return "阻塞解决方案演示完成，请查看控制台日志";
     }
     
+    /**
+     * ZSET 排行榜：批量写入、增量加分、本地 Top-N 读取、批量查名次
+     * GET /redis/demo/performance/leaderboard?members=10000&reads=1000000
+     */
+    @GetMapping("/performance/leaderboard")
+    public Map<String, Object> leaderboard(@RequestParam(defaultValue = "10000") int members,
+                                           @RequestParam(defaultValue = "1000000") int reads) {
+        return blockingSolution.leaderboardDemo(members, reads);
+    }
+    
+    /**
+     * 大集合交并差：按 SCARD 估算选择服务端 *STORE 或客户端 RoaringBitmap
+     * GET /redis/demo/performance/set-algebra?size=200000&operation=INTERSECT&mode=AUTO
+     */
+    @GetMapping("/performance/set-algebra")
+    public Map<String, Object> setAlgebra(@RequestParam(defaultValue = "200000") int size,
+                                          @RequestParam(defaultValue = "INTERSECT") SetAlgebraService.Operation operation,
+                                          @RequestParam(defaultValue = "AUTO") SetAlgebraService.Mode mode) {
+        return blockingSolution.setAlgebraDemo(size, operation, mode);
+    }
+    
+    /**
+     * 最近一次定时采集的 Redis 指标：SLOWLOG、LATENCY、INFO memory/stats/commandstats、CLIENT LIST，
+     * 以及每个命令的客户端耗时、服务端耗时、网络耗时
+     * 
+     * 不在请求中触发采集：collect() 会把本次作为下一周期的基准（时间、累计计数、commandstats、slowlog 游标），
+     * 按需调用会缩短定时周期，使每秒速率和命令耗时的差值失真
+     * GET /redis/demo/performance/telemetry
+     */
+    @GetMapping("/performance/telemetry")
+    public Map<String, Object> redisTelemetry() {
+        if (telemetryCollector == null) {
+            return Collections.singletonMap("enabled", false);
+        }
+        Map<String, Object> report = telemetryCollector.getLastReport();
+        if (report.isEmpty()) {
+            return Collections.singletonMap("message", "尚未完成第一次采集，间隔见 redis.telemetry.interval-seconds");
+        }
+        return report;
+    }
+    
     // ========== 内存问题 ==========
     
     @GetMapping("/memory/leak/problem")
@@ -203,6 +306,24 @@ public class RedisProblemDemoController {
         return "内存优化方案演示完成，请查看控制台日志";
     }
     
+    /**
+     * 一个对象一个 key 与 Hash 分桶的内存对比（MEMORY USAGE）
+     * GET /redis/demo/memory/bucket/compare?count=10000
+     */
+    @GetMapping("/memory/bucket/compare")
+    public Map<String, Object> memoryBucketCompare(@RequestParam(defaultValue = "10000") int count) {
+        return memoryOptimization.compareSessionMemory(count);
+    }
+    
+    /**
+     * 一条动态写入所有粉丝的定长时间线
+     * GET /redis/demo/memory/feed/fanout?followers=10000
+     */
+    @GetMapping("/memory/feed/fanout")
+    public Map<String, Object> memoryFeedFanOut(@RequestParam(defaultValue = "10000") int followers) {
+        return memoryOptimization.fanOutFeed(followers);
+    }
+    
     // ========== 集群问题 ==========
     
     @GetMapping("/cluster/hotkey/problem")
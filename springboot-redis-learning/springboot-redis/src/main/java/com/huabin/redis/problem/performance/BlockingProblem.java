@@ -224,5 +224,8 @@ public class BlockingProblem {
         System.out.println("");
         System.out.println("# 清空慢查询");
         System.out.println("SLOWLOG RESET");
+        System.out.println("");
+        System.out.println("# 持续采集（RedisTelemetryCollector）");
+        System.out.println("GET /redis/demo/performance/telemetry 或 /actuator/prometheus 中的 redis_server_slowlog_*");
     }
 }
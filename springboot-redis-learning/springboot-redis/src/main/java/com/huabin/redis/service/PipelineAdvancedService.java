@@ -151,12 +151,12 @@ public class PipelineAdvancedService {
             }
         });
         
-        // 解析结果
+        // 解析结果（executePipelined 已经用 RedisTemplate 的值序列化器反序列化过）
         Map<Long, Integer> stockMap = new HashMap<>();
         for (int i = 0; i < productIds.size(); i++) {
             Object result = results.get(i);
             if (result != null) {
-                int stock = Integer.parseInt(new String((byte[]) result));
+                int stock = Integer.parseInt(result.toString());
                 stockMap.put(productIds.get(i), stock);
             }
         }
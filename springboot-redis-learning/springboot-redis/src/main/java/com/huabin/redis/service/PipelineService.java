@@ -137,11 +137,11 @@ public class PipelineService {
             }
         });
         
-        // 解析结果
+        // 解析结果（executePipelined 已经用 RedisTemplate 的值序列化器反序列化过）
         List<User> users = new ArrayList<>();
         for (Object result : results) {
             if (result != null) {
-                User user = JSON.parseObject(new String((byte[]) result), User.class);
+                User user = JSON.parseObject(result.toString(), User.class);
                 users.add(user);
             }
         }
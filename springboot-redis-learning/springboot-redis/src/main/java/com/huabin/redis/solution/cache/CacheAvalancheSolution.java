@@ -1,22 +1,29 @@
 package com.huabin.redis.solution.cache;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.RateLimiter;
 import com.huabin.redis.model.Product;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 缓存雪崩解决方案
  * 
- * 方案1：过期时间加随机值
+ * 方案1：过期时间加随机值（批量写入时按错峰分配，见 StaggeredTtlScheduler）
  * 方案2：多级缓存
- * 方案3：服务降级
+ * 方案3：服务降级（Redis 熔断 + 本地旧值 + 查库限流，见 RedisCircuitBreaker）
+ * 方案5：预热缓存 + 热 key 提前续期（见 CacheWarmUpEngine）
  */
 @Service
 public class CacheAvalancheSolution {
@@ -24,8 +31,58 @@ public class CacheAvalancheSolution {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     
+    @Autowired
+    private StaggeredTtlScheduler ttlScheduler;
+    
+    @Autowired
+    private CacheWarmUpEngine warmUpEngine;
+    
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+    
+    /**
+     * 预热/续期的缓存区域，与多级缓存读路径使用同一组 key
+     */
+    private static final String PRODUCT_REGION = "product";
+    
+    /**
+     * 模拟数据库查询耗时（毫秒）
+     */
+    @Value("${cache.db-latency-ms:100}")
+    private long dbLatencyMs;
+    
+    @Value("${cache.degradation.stale-max-entries:10000}")
+    private long staleMaxEntries;
+    
+    @Value("${cache.degradation.stale-max-age-seconds:3600}")
+    private long staleMaxAgeSeconds;
+    
+    @Value("${cache.degradation.db-permits-per-second:50}")
+    private double dbPermitsPerSecond;
+    
     private int dbQueryCount = 0;
     
+    /**
+     * 降级读路径最近成功读到的商品（Redis 不可用时返回旧值）
+     */
+    private Cache<Long, Product> staleProducts;
+    
+    /**
+     * Redis 不可用时的本地查库限流（Redis 计数器限流此时也不可用）
+     */
+    private RateLimiter degradedDbLimiter;
+    
+    @PostConstruct
+    public void registerWarmUpRegion() {
+        warmUpEngine.register(PRODUCT_REGION, "product:multi:", this::queryFromDatabaseBatch);
+        staleProducts = CacheBuilder.newBuilder()
+                .maximumSize(staleMaxEntries)
+                .expireAfterWrite(staleMaxAgeSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        degradedDbLimiter = RateLimiter.create(dbPermitsPerSecond);
+    }
+    
     /**
      * 解决方案1：过期时间加随机值
      * 
@@ -36,24 +93,22 @@ public class CacheAvalancheSolution {
      * 原理：
      * 在基础过期时间上，加上随机值（如0-300秒）
      * 这样即使批量设置，过期时间也会分散
+     * 
+     * 批量写入时不再逐个取随机值，而是按错峰窗口均匀分配后打乱，
+     * 保证任意一秒内过期的 key 不超过配置的比例，并用 Pipeline 分批写入
      */
     public void cacheProducts_RandomExpire(List<Product> products) {
         System.out.println("=== 解决方案：过期时间加随机值 ===");
         
-        int baseExpireSeconds = 3600; // 基础过期时间：1小时
-        
+        Map<String, Object> entries = new LinkedHashMap<>();
         for (Product product : products) {
-            String cacheKey = "product:random:" + product.getId();
-            
-            // 加上随机值：0-300秒（5分钟）
-            int randomSeconds = ThreadLocalRandom.current().nextInt(300);
-            int expireSeconds = baseExpireSeconds + randomSeconds;
-            
-            redisTemplate.opsForValue().set(cacheKey, product, expireSeconds, TimeUnit.SECONDS);
+            entries.put("product:random:" + product.getId(), product);
         }
+        double maxShare = warmUpEngine.writeAll(entries);
         
         System.out.println("已缓存 " + products.size() + " 个商品");
-        System.out.println("过期时间：3600 + (0~300)秒，分散过期");
+        System.out.println("过期时间：" + ttlScheduler.getBaseTtlSeconds() + " + (0~" + ttlScheduler.getSpreadSeconds()
+                + ")秒错峰分配，过期最集中的一秒占比: " + String.format("%.2f%%", maxShare * 100));
     }
     
     /**
@@ -72,6 +127,7 @@ public class CacheAvalancheSolution {
      */
     public Product getProduct_MultiLevel(Long productId) {
         String cacheKey = "product:multi:" + productId;
+        warmUpEngine.recordAccess(PRODUCT_REGION, productId);
         
         // 1. 查本地缓存（这里简化，实际应使用 Caffeine）
         // Product product = localCache.get(productId);
@@ -91,13 +147,7 @@ public class CacheAvalancheSolution {
         product = queryFromDatabase(productId);
         if (product != null) {
             // 写入 Redis
-            int randomSeconds = ThreadLocalRandom.current().nextInt(300);
-            redisTemplate.opsForValue().set(
-                cacheKey, 
-                product, 
-                3600 + randomSeconds, 
-                TimeUnit.SECONDS
-            );
+            redisTemplate.opsForValue().set(cacheKey, product, ttlScheduler.next(), TimeUnit.SECONDS);
             
             // 写入本地缓存
             // localCache.put(productId, product);
@@ -113,40 +163,60 @@ public class CacheAvalancheSolution {
      * 1. 返回默认值
      * 2. 返回静态数据
      * 3. 限流保护数据库
+     * 
+     * Redis 访问都经过熔断器：
+     * - Redis 变慢/报错达到阈值后熔断器打开，不再访问 Redis，请求不用等满连接超时
+     * - 熔断期间优先返回本地旧值（之前成功读到的商品），没有旧值时按本地令牌桶限流查库
+     * - 超过限流才返回默认商品
+     * - 打开一段时间后放行少量试探调用，Redis 恢复后自动关闭
      */
     public Product getProduct_Degradation(Long productId) {
         String cacheKey = "product:degrade:" + productId;
         
+        Product product;
         try {
             // 1. 查缓存
-            Product product = (Product) redisTemplate.opsForValue().get(cacheKey);
-            if (product != null) {
-                return product;
-            }
-            
-            // 2. 查数据库（带限流）
-            if (canQueryDatabase()) {
-                product = queryFromDatabase(productId);
-                if (product != null) {
-                    int randomSeconds = ThreadLocalRandom.current().nextInt(300);
-                    redisTemplate.opsForValue().set(
-                        cacheKey, 
-                        product, 
-                        3600 + randomSeconds, 
-                        TimeUnit.SECONDS
-                    );
-                }
-                return product;
-            } else {
-                // 3. 降级：返回默认商品
-                System.out.println("触发降级，返回默认商品");
-                return getDefaultProduct(productId);
-            }
-        } catch (Exception e) {
-            // 4. 异常降级
-            System.out.println("发生异常，返回默认商品");
+            product = circuitBreaker.call(() -> (Product) redisTemplate.opsForValue().get(cacheKey));
+        } catch (RedisUnavailableException e) {
+            // 2. Redis 不可用：旧值 -> 限流查库 -> 默认商品
+            return getProduct_RedisUnavailable(productId);
+        }
+        if (product != null) {
+            staleProducts.put(productId, product);
+            return product;
+        }
+        
+        // 3. 查数据库（带限流）
+        if (!canQueryDatabase()) {
+            // 4. 降级：返回默认商品
+            System.out.println("触发降级，返回默认商品");
             return getDefaultProduct(productId);
         }
+        product = queryFromDatabase(productId);
+        if (product != null) {
+            staleProducts.put(productId, product);
+            Product loaded = product;
+            try {
+                circuitBreaker.call(() -> {
+                    redisTemplate.opsForValue().set(cacheKey, loaded, ttlScheduler.next(), TimeUnit.SECONDS);
+                    return null;
+                });
+            } catch (RedisUnavailableException e) {
+                // 回写失败不影响本次返回
+            }
+        }
+        return product;
+    }
+    
+    /**
+     * 熔断器与本地旧值统计
+     */
+    public Map<String, Object> getDegradationStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(circuitBreaker.getStats());
+        stats.put("staleEntries", staleProducts.size());
+        stats.put("staleHitRate", String.format("%.2f%%", staleProducts.stats().hitRate() * 100));
+        stats.put("dbPermitsPerSecond", dbPermitsPerSecond);
+        return stats;
     }
     
     /**
@@ -175,45 +245,82 @@ public class CacheAvalancheSolution {
      * 
      * 在系统启动时，提前加载热点数据到缓存
      * 避免冷启动时的缓存雪崩
+     * 
+     * 预热写入的是多级缓存读路径使用的 key（product:multi:），
+     * 并行分页查库 + Pipeline 批量写入 + 错峰过期；
+     * 读路径记录访问次数，后台任务在热 key 过期前自动续期
      */
     public void warmUpCache() {
         System.out.println("=== 预热缓存 ===");
         
         // 加载热门商品
-        List<Long> hotProductIds = getHotProductIds();
+        Map<String, Object> result = warmUpCache(getHotProductIds());
         
-        for (Long productId : hotProductIds) {
+        System.out.println("预热完成: " + result);
+    }
+    
+    /**
+     * 预热指定商品
+     */
+    public Map<String, Object> warmUpCache(List<Long> productIds) {
+        return warmUpEngine.warmUp(PRODUCT_REGION, productIds);
+    }
+    
+    /**
+     * 立即刷新即将过期的热 key（后台任务也会定期执行）
+     */
+    public Map<String, Object> refreshExpiringCache() {
+        return warmUpEngine.refreshExpiring();
+    }
+    
+    /**
+     * 预热/续期统计
+     */
+    public Map<String, Object> getWarmUpStats() {
+        return warmUpEngine.getStats();
+    }
+    
+    /**
+     * Redis 不可用时的降级读取
+     */
+    private Product getProduct_RedisUnavailable(Long productId) {
+        Product stale = staleProducts.getIfPresent(productId);
+        if (stale != null) {
+            return stale;
+        }
+        if (degradedDbLimiter.tryAcquire()) {
             Product product = queryFromDatabase(productId);
             if (product != null) {
-                String cacheKey = "product:warmup:" + productId;
-                int randomSeconds = ThreadLocalRandom.current().nextInt(300);
-                redisTemplate.opsForValue().set(
-                    cacheKey, 
-                    product, 
-                    3600 + randomSeconds, 
-                    TimeUnit.SECONDS
-                );
+                staleProducts.put(productId, product);
             }
+            return product;
         }
-        
-        System.out.println("预热完成，已加载 " + hotProductIds.size() + " 个热门商品");
+        System.out.println("Redis 不可用且查库限流，返回默认商品");
+        return getDefaultProduct(productId);
     }
     
     /**
      * 限流判断：是否允许查询数据库
      */
     private boolean canQueryDatabase() {
-        // 简化实现：使用计数器限流
-        // 实际应使用令牌桶或漏桶算法
+        // 简化实现：使用计数器限流（多实例共享配额）
+        // 计数器在 Redis 中，Redis 不可用时退回本地令牌桶
         String limitKey = "db:query:limit";
-        Long count = redisTemplate.opsForValue().increment(limitKey);
-        
-        if (count == 1) {
-            redisTemplate.expire(limitKey, 1, TimeUnit.SECONDS);
+        Long count;
+        try {
+            count = circuitBreaker.call(() -> {
+                Long value = redisTemplate.opsForValue().increment(limitKey);
+                if (value != null && value == 1) {
+                    redisTemplate.expire(limitKey, 1, TimeUnit.SECONDS);
+                }
+                return value;
+            });
+        } catch (RedisUnavailableException e) {
+            return degradedDbLimiter.tryAcquire();
         }
         
         // 每秒最多100个请求
-        return count <= 100;
+        return count != null && count <= 100;
     }
     
     /**
@@ -248,7 +355,7 @@ public class CacheAvalancheSolution {
         }
         
         try {
-            Thread.sleep(100);
+            Thread.sleep(dbLatencyMs);
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
@@ -261,6 +368,28 @@ public class CacheAvalancheSolution {
         return product;
     }
     
+    /**
+     * 模拟数据库批量查询（SELECT ... WHERE id IN (...)，一次查询的耗时按单次查询计算）
+     */
+    private Map<Long, Product> queryFromDatabaseBatch(List<Long> productIds) {
+        synchronized (this) {
+            dbQueryCount++;
+        }
+        
+        try {
+            Thread.sleep(dbLatencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("查询被中断", e);
+        }
+        
+        Map<Long, Product> products = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            products.put(productId, new Product(productId, "商品" + productId, new BigDecimal("99.99"), 100));
+        }
+        return products;
+    }
+    
     /**
      * 对比测试：问题代码 vs 解决方案
      */
@@ -290,6 +419,10 @@ public class CacheAvalancheSolution {
             System.out.println("商品" + i + " 的剩余过期时间: " + ttl + "秒");
         }
         
+        // 测试：预热缓存
+        System.out.println("\n【解决方案：预热缓存】");
+        warmUpCache();
+        
         System.out.println("\n=== 结论 ===");
         System.out.println("1. 过期时间加随机值：简单有效，推荐使用");
         System.out.println("2. 多级缓存：提高可用性，减少Redis压力");
@@ -2,6 +2,7 @@ package com.huabin.redis.solution.cache;
 
 import com.huabin.redis.model.Product;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
@@ -24,6 +25,12 @@ public class CacheBreakdownSolution {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     
+    /**
+     * 模拟数据库查询耗时（毫秒）
+     */
+    @Value("${cache.db-latency-ms:200}")
+    private long dbLatencyMs;
+    
     // 本地锁（单机版）
     private final Lock lock = new ReentrantLock();
     
@@ -279,7 +286,7 @@ public class CacheBreakdownSolution {
         }
         
         try {
-            Thread.sleep(200);
+            Thread.sleep(dbLatencyMs);
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
@@ -4,6 +4,7 @@ import com.google.common.hash.BloomFilter;
 import com.google.common.hash.Funnels;
 import com.huabin.redis.model.Product;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
@@ -24,6 +25,12 @@ public class CachePenetrationSolution {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     
+    /**
+     * 模拟数据库查询耗时（毫秒）
+     */
+    @Value("${cache.db-latency-ms:100}")
+    private long dbLatencyMs;
+    
     // 布隆过滤器：预计存储1000个商品，误判率0.01
     private BloomFilter<Long> productBloomFilter = BloomFilter.create(
         Funnels.longFunnel(),
@@ -182,7 +189,7 @@ public class CachePenetrationSolution {
      */
     private Product queryFromDatabase(Long productId) {
         try {
-            Thread.sleep(100);
+            Thread.sleep(dbLatencyMs);
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
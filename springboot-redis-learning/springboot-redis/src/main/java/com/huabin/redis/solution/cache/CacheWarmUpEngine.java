@@ -0,0 +1,421 @@
+package com.huabin.redis.solution.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存预热引擎
+ *
+ * 解决的问题：
+ * 1. 冷启动：逐个查库、逐个 SET，100 个商品就是 100 次串行查询 + 100 次网络往返
+ * 2. 集中过期：同一批预热的 key 在相近的时间过期，过期后的第一波请求全部打到数据库
+ *
+ * 预热流程：
+ * 1. 把 ID 按 pageSize 分页，多个线程并行分页查库（对应 WHERE id IN (...)）
+ * 2. 每页查完立即用一个 Pipeline 写入 Redis（超过 writeBatchSize 时再拆分），不等全部查完
+ * 3. 过期时间由 StaggeredTtlScheduler 分配，保证任意一秒内过期的 key 不超过上限
+ *
+ * 后台续期（refresh-ahead）：
+ * 1. 读路径调用 recordAccess 记录每个 key 的访问次数
+ * 2. 定时任务取访问次数 >= minHits 的热 key，用 Pipeline 批量查询 PTTL
+ * 3. 已经不存在或剩余时间 < refreshAheadSeconds 的 key 重新查库预热（同样分页 + Pipeline + 错峰）
+ * 4. 每轮结束后访问次数减半，长期不访问的 key 逐渐退出热 key 集合
+ * 热 key 在过期前就被刷新，集中过期时数据库只需要承担冷 key 的回源
+ *
+ * @author huabin
+ */
+public class CacheWarmUpEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmUpEngine.class);
+
+    /**
+     * 批量查库
+     *
+     * @param <V> 缓存值类型
+     */
+    @FunctionalInterface
+    public interface BatchLoader<V> {
+
+        /**
+         * 按 ID 批量查询，不存在的 ID 不放入结果
+         */
+        Map<Long, V> load(List<Long> ids);
+    }
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StaggeredTtlScheduler ttlScheduler;
+
+    /**
+     * 每次查库的 ID 数量
+     */
+    private final int pageSize;
+
+    /**
+     * 每个 Pipeline 写入的 key 数量
+     */
+    private final int writeBatchSize;
+
+    /**
+     * 剩余过期时间小于该值的热 key 会被提前刷新（秒）
+     */
+    private final long refreshAheadSeconds;
+
+    /**
+     * 成为热 key 所需的最少访问次数（每轮减半）
+     */
+    private final int minHits;
+
+    /**
+     * 每个区域最多跟踪的 key 数量，避免访问统计无限增长
+     */
+    private final int maxTrackedKeys;
+
+    private final ExecutorService loaderPool;
+    private final ScheduledExecutorService refresher;
+
+    private final Map<String, Region<?>> regions = new ConcurrentHashMap<>();
+
+    private final LongAdder warmUpRuns = new LongAdder();
+    private final LongAdder loadedKeys = new LongAdder();
+    private final LongAdder dbPageQueries = new LongAdder();
+    private final LongAdder refreshedKeys = new LongAdder();
+    private final LongAdder refreshRuns = new LongAdder();
+
+    public CacheWarmUpEngine(RedisTemplate<String, Object> redisTemplate, StaggeredTtlScheduler ttlScheduler,
+                             int pageSize, int loaderThreads, int writeBatchSize,
+                             long refreshAheadSeconds, int minHits, int maxTrackedKeys) {
+        if (pageSize <= 0 || loaderThreads <= 0 || writeBatchSize <= 0) {
+            throw new IllegalArgumentException("pageSize、loaderThreads、writeBatchSize 必须大于0");
+        }
+        this.redisTemplate = redisTemplate;
+        this.ttlScheduler = ttlScheduler;
+        this.pageSize = pageSize;
+        this.writeBatchSize = writeBatchSize;
+        this.refreshAheadSeconds = refreshAheadSeconds;
+        this.minHits = Math.max(1, minHits);
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.loaderPool = Executors.newFixedThreadPool(loaderThreads, daemonThreads("cache-warmup-loader-"));
+        this.refresher = Executors.newSingleThreadScheduledExecutor(daemonThreads("cache-warmup-refresh-"));
+    }
+
+    /**
+     * 注册一个缓存区域
+     *
+     * @param region 区域名称
+     * @param keyPrefix key 前缀，完整 key 为 keyPrefix + id
+     * @param loader 批量查库
+     */
+    public <V> void register(String region, String keyPrefix, BatchLoader<V> loader) {
+        regions.put(region, new Region<>(region, keyPrefix, loader));
+    }
+
+    /**
+     * 启动后台续期任务
+     *
+     * @param intervalSeconds 检查间隔（秒），<= 0 表示不启动
+     */
+    public void start(long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            return;
+        }
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refreshExpiring();
+            } catch (Exception e) {
+                log.warn("缓存续期失败", e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        log.info("缓存续期任务已启动, interval={}s, refreshAhead={}s, minHits={}",
+                intervalSeconds, refreshAheadSeconds, minHits);
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+        loaderPool.shutdownNow();
+    }
+
+    /**
+     * 预热：并行分页查库 + Pipeline 分批写入 + 错峰过期
+     *
+     * @param region 区域名称
+     * @param ids 需要预热的 ID
+     * @return 预热统计
+     */
+    public Map<String, Object> warmUp(String region, List<Long> ids) {
+        long start = System.currentTimeMillis();
+        Region<?> target = region(region);
+        WarmUpResult result = load(target, ids);
+        warmUpRuns.increment();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("region", region);
+        stats.put("requested", ids.size());
+        stats.put("loaded", result.loaded);
+        stats.put("dbPageQueries", result.pages);
+        stats.put("pipelineBatches", result.batches);
+        stats.put("maxExpireShare", String.format("%.2f%%", result.maxBucketShare * 100));
+        stats.put("costMs", System.currentTimeMillis() - start);
+        return stats;
+    }
+
+    /**
+     * 按错峰过期时间 Pipeline 批量写入
+     *
+     * @param entries key -> value
+     * @return 任意一秒内过期的 key 所占的最大比例
+     */
+    public double writeAll(Map<String, ?> entries) {
+        List<String> keys = new ArrayList<>(entries.keySet());
+        long[] ttls = ttlScheduler.assign(keys.size());
+        for (int from = 0; from < keys.size(); from += writeBatchSize) {
+            int to = Math.min(from + writeBatchSize, keys.size());
+            Map<String, Object> batch = new LinkedHashMap<>();
+            for (int i = from; i < to; i++) {
+                batch.put(keys.get(i), entries.get(keys.get(i)));
+            }
+            writeBatch(batch, ttls, from);
+        }
+        return StaggeredTtlScheduler.maxBucketShare(ttls);
+    }
+
+    /**
+     * 读路径调用：记录一次访问
+     */
+    public void recordAccess(String region, Long id) {
+        Region<?> target = regions.get(region);
+        if (target == null) {
+            return;
+        }
+        LongAdder hits = target.hits.get(id);
+        if (hits == null) {
+            if (target.hits.size() >= maxTrackedKeys) {
+                return;
+            }
+            hits = target.hits.computeIfAbsent(id, k -> new LongAdder());
+        }
+        hits.increment();
+    }
+
+    /**
+     * 刷新即将过期的热 key（后台任务每轮执行一次，也可以手动触发）
+     *
+     * @return 各区域刷新的 key 数量
+     */
+    public Map<String, Object> refreshExpiring() {
+        Map<String, Object> refreshed = new LinkedHashMap<>();
+        for (Region<?> region : regions.values()) {
+            List<Long> hot = region.hotIds(minHits);
+            List<Long> expiring = expiring(region, hot);
+            if (!expiring.isEmpty()) {
+                WarmUpResult result = load(region, expiring);
+                refreshedKeys.add(result.loaded);
+            }
+            region.decay();
+            refreshed.put(region.name, expiring.size());
+        }
+        refreshRuns.increment();
+        return refreshed;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> tracked = new LinkedHashMap<>();
+        regions.values().forEach(r -> tracked.put(r.name, r.hits.size()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("warmUpRuns", warmUpRuns.sum());
+        stats.put("loadedKeys", loadedKeys.sum());
+        stats.put("dbPageQueries", dbPageQueries.sum());
+        stats.put("refreshRuns", refreshRuns.sum());
+        stats.put("refreshedKeys", refreshedKeys.sum());
+        stats.put("trackedKeys", tracked);
+        stats.put("baseTtlSeconds", ttlScheduler.getBaseTtlSeconds());
+        stats.put("spreadSeconds", ttlScheduler.getSpreadSeconds());
+        stats.put("maxBucketRatio", ttlScheduler.getMaxBucketRatio());
+        stats.put("refreshAheadSeconds", refreshAheadSeconds);
+        stats.put("minHits", minHits);
+        return stats;
+    }
+
+    private <V> WarmUpResult load(Region<V> region, List<Long> ids) {
+        WarmUpResult result = new WarmUpResult();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        // 过期时间按整批分配，分页查库和分批写入都从同一个数组里取
+        long[] ttls = ttlScheduler.assign(ids.size());
+        AtomicInteger ttlCursor = new AtomicInteger();
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += pageSize) {
+            List<Long> page = ids.subList(from, Math.min(from + pageSize, ids.size()));
+            futures.add(CompletableFuture.runAsync(() -> {
+                Map<Long, V> values = region.loader.load(page);
+                dbPageQueries.increment();
+                List<Long> found = new ArrayList<>(values.keySet());
+                for (int i = 0; i < found.size(); i += writeBatchSize) {
+                    List<Long> chunk = found.subList(i, Math.min(i + writeBatchSize, found.size()));
+                    Map<String, Object> batch = new LinkedHashMap<>();
+                    for (Long id : chunk) {
+                        batch.put(region.keyPrefix + id, values.get(id));
+                    }
+                    writeBatch(batch, ttls, ttlCursor.getAndAdd(chunk.size()));
+                    batches.incrementAndGet();
+                }
+                loaded.addAndGet(found.size());
+            }, loaderPool));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        loadedKeys.add(loaded.get());
+        result.loaded = loaded.get();
+        result.pages = futures.size();
+        result.batches = batches.get();
+        result.maxBucketShare = StaggeredTtlScheduler.maxBucketShare(
+                Arrays.copyOf(ttls, Math.min(ttlCursor.get(), ttls.length)));
+        return result;
+    }
+
+    /**
+     * 一个 Pipeline 写入一批 key，过期时间从 ttls[offset] 开始依次取
+     */
+    private void writeBatch(Map<String, Object> batch, long[] ttls, int offset) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                int i = offset;
+                for (Map.Entry<String, Object> entry : batch.entrySet()) {
+                    ops.opsForValue().set(entry.getKey(), entry.getValue(), ttls[i++], TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Pipeline 批量查询 PTTL，返回已经不存在或即将过期的 ID
+     */
+    private List<Long> expiring(Region<?> region, List<Long> ids) {
+        List<Long> expiring = new ArrayList<>();
+        long thresholdMs = TimeUnit.SECONDS.toMillis(refreshAheadSeconds);
+        for (int from = 0; from < ids.size(); from += writeBatchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + writeBatchSize, ids.size()));
+            List<Object> ttls = redisTemplate.executePipelined(new RedisCallback<Object>() {
+                @Override
+                public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                    for (Long id : chunk) {
+                        connection.pTtl((region.keyPrefix + id).getBytes(StandardCharsets.UTF_8));
+                    }
+                    return null;
+                }
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                long pttl = ((Number) ttls.get(i)).longValue();
+                // -2：已过期/不存在，-1：没有过期时间，不需要刷新
+                if (pttl == -2 || (pttl >= 0 && pttl < thresholdMs)) {
+                    expiring.add(chunk.get(i));
+                }
+            }
+        }
+        return expiring;
+    }
+
+    private Region<?> region(String name) {
+        Region<?> region = regions.get(name);
+        if (region == null) {
+            throw new IllegalArgumentException("未注册的缓存区域: " + name);
+        }
+        return region;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 缓存区域：key 前缀 + 批量查库 + 访问统计
+     */
+    private static final class Region<V> {
+
+        final String name;
+        final String keyPrefix;
+        final BatchLoader<V> loader;
+        final Map<Long, LongAdder> hits = new ConcurrentHashMap<>();
+
+        Region(String name, String keyPrefix, BatchLoader<V> loader) {
+            this.name = name;
+            this.keyPrefix = keyPrefix;
+            this.loader = loader;
+        }
+
+        /**
+         * 访问次数 >= minHits 的 ID，按访问次数倒序
+         */
+        List<Long> hotIds(int minHits) {
+            List<Map.Entry<Long, Long>> hot = new ArrayList<>();
+            hits.forEach((id, count) -> {
+                long sum = count.sum();
+                if (sum >= minHits) {
+                    hot.add(new AbstractMap.SimpleEntry<>(id, sum));
+                }
+            });
+            hot.sort(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()));
+            List<Long> ids = new ArrayList<>(hot.size());
+            hot.forEach(e -> ids.add(e.getKey()));
+            return ids;
+        }
+
+        /**
+         * 访问次数减半，归零的 ID 不再跟踪
+         */
+        void decay() {
+            hits.entrySet().removeIf(e -> {
+                long half = e.getValue().sumThenReset() / 2;
+                if (half == 0) {
+                    return true;
+                }
+                e.getValue().add(half);
+                return false;
+            });
+        }
+    }
+
+    private static final class WarmUpResult {
+        int loaded;
+        int pages;
+        int batches;
+        double maxBucketShare;
+    }
+}
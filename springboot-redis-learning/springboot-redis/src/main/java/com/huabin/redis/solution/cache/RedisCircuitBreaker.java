@@ -0,0 +1,318 @@
+package com.huabin.redis.solution.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis 熔断器
+ *
+ * 解决的问题：
+ * Redis 抖动（brownout）时每个请求都要等满连接超时（spring.redis.timeout，如 3 秒）才失败，
+ * 尾延迟直接等于超时时间，线程也被大量占住
+ *
+ * 状态机：
+ * - CLOSED：正常调用 Redis，按秒分桶统计最近 windowSeconds 秒的调用数、失败数、慢调用数，
+ *   调用数 >= minimumCalls 且 失败率 >= failureRateThreshold 或 慢调用率 >= slowCallRateThreshold 时打开
+ * - OPEN：不再调用 Redis，直接抛出 RedisUnavailableException 由调用方降级，持续 openDurationMs
+ * - HALF_OPEN：放行 halfOpenTrialCalls 个试探调用，全部成功且不慢则关闭，任意一个失败或慢则重新打开
+ *
+ * 调用超时：
+ * callTimeoutMs > 0 时 Redis 调用在独立线程池中执行，超过 callTimeoutMs 直接按失败处理，
+ * 不用等 Lettuce 的命令超时；线程池大小为 maxConcurrentCalls，满了直接抛出 RedisUnavailableException 由调用方降级（舱壁隔离）。
+ * 因此熔断器打开之前的请求最多也只等待 callTimeoutMs
+ *
+ * 舱壁拒绝是本地并发饱和，不代表 Redis 故障：不计入失败率窗口，也不改变熔断状态（HALF_OPEN 的试探名额归还），
+ * 单独统计为 bulkheadRejections
+ *
+ * 注意：调用抛出的任何异常都计为失败，只应包装 Redis 访问本身，不要包含业务逻辑
+ *
+ * @author huabin
+ */
+public class RedisCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSeconds;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallThresholdNanos;
+    private final double slowCallRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenTrialCalls;
+    private final long callTimeoutMs;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private volatile long openedAtNanos;
+    private final AtomicInteger trialPermits = new AtomicInteger();
+    private final AtomicInteger trialSuccesses = new AtomicInteger();
+
+    private final Bucket[] buckets;
+    private final ThreadPoolExecutor callExecutor;
+
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder timeoutCalls = new LongAdder();
+    private final LongAdder bulkheadRejections = new LongAdder();
+    private final LongAdder openTransitions = new LongAdder();
+
+    public RedisCircuitBreaker(int windowSeconds, int minimumCalls, double failureRateThreshold,
+                               long slowCallThresholdMs, double slowCallRateThreshold, long openDurationMs,
+                               int halfOpenTrialCalls, long callTimeoutMs, int maxConcurrentCalls) {
+        if (windowSeconds <= 0 || minimumCalls <= 0 || halfOpenTrialCalls <= 0) {
+            throw new IllegalArgumentException("windowSeconds、minimumCalls、halfOpenTrialCalls 必须大于0");
+        }
+        this.windowSeconds = windowSeconds;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowCallThresholdMs);
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenTrialCalls = halfOpenTrialCalls;
+        this.callTimeoutMs = callTimeoutMs;
+        this.buckets = new Bucket[windowSeconds];
+        for (int i = 0; i < windowSeconds; i++) {
+            buckets[i] = new Bucket();
+        }
+        if (callTimeoutMs > 0) {
+            AtomicInteger index = new AtomicInteger();
+            this.callExecutor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls,
+                    60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+                Thread thread = new Thread(r, "redis-breaker-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.callExecutor.allowCoreThreadTimeOut(true);
+        } else {
+            this.callExecutor = null;
+        }
+    }
+
+    /**
+     * 通过熔断器调用 Redis
+     *
+     * @param redisCall Redis 访问
+     * @return 调用结果
+     * @throws RedisUnavailableException 熔断中、并发调用数已满、超时或调用失败
+     */
+    public <T> T call(Callable<T> redisCall) {
+        if (!tryAcquirePermission()) {
+            rejectedCalls.increment();
+            throw new RedisUnavailableException("Redis 熔断中, state=" + state.get());
+        }
+        Future<T> future = null;
+        if (callExecutor != null) {
+            try {
+                future = callExecutor.submit(redisCall);
+            } catch (RejectedExecutionException e) {
+                releasePermission();
+                bulkheadRejections.increment();
+                throw new RedisUnavailableException("Redis 并发调用数已满", e);
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            T result = future == null ? redisCall.call() : awaitWithTimeout(future);
+            onResult(System.nanoTime() - start, false);
+            return result;
+        } catch (Exception e) {
+            onResult(System.nanoTime() - start, true);
+            if (e instanceof RedisUnavailableException) {
+                throw (RedisUnavailableException) e;
+            }
+            throw new RedisUnavailableException("Redis 调用失败: " + e.getMessage(), e);
+        }
+    }
+
+    public State getState() {
+        State current = state.get();
+        if (current == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+            // 打开时间已到，下一个请求会成为试探调用
+            return State.HALF_OPEN;
+        }
+        return current;
+    }
+
+    public void shutdown() {
+        if (callExecutor != null) {
+            callExecutor.shutdownNow();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long calls = 0;
+        long failures = 0;
+        long slow = 0;
+        long now = currentSecond();
+        for (Bucket bucket : buckets) {
+            if (now - bucket.second < windowSeconds) {
+                calls += bucket.calls.sum();
+                failures += bucket.failures.sum();
+                slow += bucket.slow.sum();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", getState());
+        stats.put("windowCalls", calls);
+        stats.put("windowFailures", failures);
+        stats.put("windowSlowCalls", slow);
+        stats.put("failureRate", calls == 0 ? "0.00%" : String.format("%.2f%%", failures * 100.0 / calls));
+        stats.put("slowCallRate", calls == 0 ? "0.00%" : String.format("%.2f%%", slow * 100.0 / calls));
+        stats.put("rejectedCalls", rejectedCalls.sum());
+        stats.put("timeoutCalls", timeoutCalls.sum());
+        stats.put("bulkheadRejections", bulkheadRejections.sum());
+        stats.put("openTransitions", openTransitions.sum());
+        stats.put("callTimeoutMs", callTimeoutMs);
+        return stats;
+    }
+
+    private boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos) {
+                return false;
+            }
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                trialSuccesses.set(0);
+                trialPermits.set(halfOpenTrialCalls);
+            }
+            current = state.get();
+        }
+        return current == State.CLOSED || (current == State.HALF_OPEN && trialPermits.getAndDecrement() > 0);
+    }
+
+    /**
+     * 调用没有发出：归还 HALF_OPEN 的试探名额，其他状态不需要处理
+     */
+    private void releasePermission() {
+        if (state.get() == State.HALF_OPEN) {
+            trialPermits.incrementAndGet();
+        }
+    }
+
+    private void onResult(long elapsedNanos, boolean failed) {
+        boolean slow = elapsedNanos >= slowCallThresholdNanos;
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            if (failed || slow) {
+                open(State.HALF_OPEN);
+            } else if (trialSuccesses.incrementAndGet() >= halfOpenTrialCalls
+                    && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                resetWindow();
+            }
+            return;
+        }
+
+        Bucket bucket = currentBucket();
+        bucket.calls.increment();
+        if (failed) {
+            bucket.failures.increment();
+        }
+        if (slow) {
+            bucket.slow.increment();
+        }
+        if (current == State.CLOSED && (failed || slow)) {
+            evaluate();
+        }
+    }
+
+    /**
+     * 只在失败或慢调用时检查是否需要打开，正常调用不汇总窗口
+     */
+    private void evaluate() {
+        long calls = 0;
+        long failures = 0;
+        long slow = 0;
+        long now = currentSecond();
+        for (Bucket bucket : buckets) {
+            if (now - bucket.second < windowSeconds) {
+                calls += bucket.calls.sum();
+                failures += bucket.failures.sum();
+                slow += bucket.slow.sum();
+            }
+        }
+        if (calls < minimumCalls) {
+            return;
+        }
+        if ((double) failures / calls >= failureRateThreshold || (double) slow / calls >= slowCallRateThreshold) {
+            open(State.CLOSED);
+        }
+    }
+
+    private void open(State from) {
+        if (state.compareAndSet(from, State.OPEN)) {
+            openedAtNanos = System.nanoTime();
+            openTransitions.increment();
+        }
+    }
+
+    private <T> T awaitWithTimeout(Future<T> future) throws Exception {
+        try {
+            return future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCalls.increment();
+            throw new RedisUnavailableException("Redis 调用超时(" + callTimeoutMs + "ms)", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private void resetWindow() {
+        for (Bucket bucket : buckets) {
+            synchronized (bucket) {
+                bucket.reset(bucket.second);
+            }
+        }
+    }
+
+    private Bucket currentBucket() {
+        long second = currentSecond();
+        Bucket bucket = buckets[(int) (second % windowSeconds)];
+        if (bucket.second != second) {
+            synchronized (bucket) {
+                if (bucket.second != second) {
+                    bucket.reset(second);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private static long currentSecond() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    }
+
+    /**
+     * 一秒内的调用统计
+     */
+    private static final class Bucket {
+
+        volatile long second = Long.MIN_VALUE;
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder slow = new LongAdder();
+
+        void reset(long newSecond) {
+            calls.reset();
+            failures.reset();
+            slow.reset();
+            second = newSecond;
+        }
+    }
+}
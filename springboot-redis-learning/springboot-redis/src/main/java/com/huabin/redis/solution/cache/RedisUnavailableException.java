@@ -0,0 +1,17 @@
+package com.huabin.redis.solution.cache;
+
+/**
+ * Redis 不可用（熔断中、调用超时、调用失败）
+ *
+ * @author huabin
+ */
+public class RedisUnavailableException extends RuntimeException {
+
+    public RedisUnavailableException(String message) {
+        super(message);
+    }
+
+    public RedisUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
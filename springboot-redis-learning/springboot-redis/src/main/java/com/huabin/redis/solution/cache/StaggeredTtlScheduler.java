@@ -0,0 +1,126 @@
+package com.huabin.redis.solution.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 错峰过期时间分配器
+ *
+ * 问题：
+ * "基础过期时间 + 随机值" 只能让过期时间大致分散，一批 key 的过期时间仍可能在某几秒内扎堆，
+ * 批量越大、随机区间越小，越容易出现某一秒集中过期、瞬间打到数据库的情况
+ *
+ * 做法：
+ * 对一批 key 按分层方式分配过期时间：把 [base, base + window) 等分成 count 份，
+ * 第 i 个 key 的过期时间为 base + i * window / count，再打乱顺序（避免过期时间与 ID 顺序相关）。
+ * 这样任意一秒内过期的 key 数量不超过 ceil(count / window)
+ *
+ * 约束：
+ * 任意一秒内过期的 key 不超过本批的 maxBucketRatio，
+ * 当 spreadSeconds 不足以满足约束时自动放大窗口（如 10000 个 key、1% 上限至少需要 100 秒）
+ *
+ * 注意：过期时间是相对写入时刻的，一批写入跨越秒边界时相邻两秒的数量可能有 ±1 的偏差
+ *
+ * @author huabin
+ */
+public class StaggeredTtlScheduler {
+
+    /**
+     * 基础过期时间（秒）
+     */
+    private final long baseTtlSeconds;
+
+    /**
+     * 错峰窗口（秒）
+     */
+    private final long spreadSeconds;
+
+    /**
+     * 任意一秒内过期的 key 占本批的最大比例
+     */
+    private final double maxBucketRatio;
+
+    public StaggeredTtlScheduler(long baseTtlSeconds, long spreadSeconds, double maxBucketRatio) {
+        if (baseTtlSeconds <= 0 || spreadSeconds <= 0) {
+            throw new IllegalArgumentException("baseTtlSeconds、spreadSeconds 必须大于0");
+        }
+        if (maxBucketRatio <= 0 || maxBucketRatio > 1) {
+            throw new IllegalArgumentException("maxBucketRatio 必须在 (0, 1] 之间");
+        }
+        this.baseTtlSeconds = baseTtlSeconds;
+        this.spreadSeconds = spreadSeconds;
+        this.maxBucketRatio = maxBucketRatio;
+    }
+
+    /**
+     * 单个 key 的过期时间：base + [0, spread) 随机
+     *
+     * 用于缓存未命中后的回填，这类写入本身在时间上是分散的
+     */
+    public long next() {
+        return baseTtlSeconds + ThreadLocalRandom.current().nextLong(spreadSeconds);
+    }
+
+    /**
+     * 为一批 key 分配过期时间
+     *
+     * @param count key 数量
+     * @return 每个 key 的过期时间（秒），顺序已打乱
+     */
+    public long[] assign(int count) {
+        long[] ttls = new long[count];
+        if (count == 0) {
+            return ttls;
+        }
+        long window = windowFor(count);
+        for (int i = 0; i < count; i++) {
+            ttls[i] = baseTtlSeconds + (long) i * window / count;
+        }
+        // Fisher-Yates 打乱
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = ttls[i];
+            ttls[i] = ttls[j];
+            ttls[j] = tmp;
+        }
+        return ttls;
+    }
+
+    /**
+     * 满足 maxBucketRatio 约束所需的窗口大小
+     */
+    long windowFor(int count) {
+        long capacity = Math.max(1, (long) Math.floor(count * maxBucketRatio));
+        long required = (count + capacity - 1) / capacity;
+        return Math.max(spreadSeconds, required);
+    }
+
+    /**
+     * 一批过期时间中，过期最集中的那一秒所占的比例
+     */
+    public static double maxBucketShare(long[] ttls) {
+        if (ttls.length == 0) {
+            return 0;
+        }
+        Map<Long, Integer> buckets = new HashMap<>();
+        int max = 0;
+        for (long ttl : ttls) {
+            max = Math.max(max, buckets.merge(ttl, 1, Integer::sum));
+        }
+        return (double) max / ttls.length;
+    }
+
+    public long getBaseTtlSeconds() {
+        return baseTtlSeconds;
+    }
+
+    public long getSpreadSeconds() {
+        return spreadSeconds;
+    }
+
+    public double getMaxBucketRatio() {
+        return maxBucketRatio;
+    }
+}
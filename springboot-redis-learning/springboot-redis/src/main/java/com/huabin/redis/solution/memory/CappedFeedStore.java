@@ -0,0 +1,491 @@
+package com.huabin.redis.solution.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 定长 Feed / 时间线存储（ZSET，写入与裁剪在同一个 Lua 脚本中完成）
+ *
+ * 解决的问题：
+ * 1. LPUSH + LTRIM 每条数据两次往返，且两条命令之间其他客户端可能看到超长的列表
+ * 2. 发一条动态推送给一万个粉丝（写扩散），逐个写入就是两万次往返
+ * 3. LRANGE 按偏移分页时，新数据插入会让下一页出现重复或遗漏
+ *
+ * 数据结构：
+ * - key = prefix + ownerId，member = 条目内容（通常是 postId），score = 条目 ID（单调递增）
+ * - 条目 ID 必须小于 2^53（score 是 double），可以用 毫秒时间戳 * 1000 + 序号，不能直接用 64 位雪花 ID
+ * - 同一条目重复写入只会更新 score，推送重试是幂等的
+ *
+ * 摊销裁剪：
+ * 脚本在 ZCARD（O(1)）超过 maxLength + trimSlack 时才执行 ZREMRANGEBYRANK，一次裁剪回 maxLength，
+ * 平均每 trimSlack 次写入才裁剪一次。maxLength + trimSlack 不超过 zset-max-ziplist-entries（默认128）时
+ * 保持紧凑编码
+ *
+ * 写入方式：
+ * - push：单条同步写入（一次 EVALSHA）
+ * - append：先在本地按 key 缓冲，flushIntervalMs 后（或缓冲条数达到 maxBuffered）
+ *   同一个 key 的多条合并成一次脚本调用，所有 key 放在一个 Pipeline 中；
+ *   写入失败时条目放回缓冲，放回后超过 maxPending 的部分丢弃最早缓冲的条目，Redis 不可用期间内存不会无限增长
+ * - fanOut：同一条目写入多个粉丝的时间线，每 keysPerScript 个 key 一次脚本调用，
+ *   每 pipelineSize 次调用一个 Pipeline，一万个粉丝只需要一次往返
+ *
+ * 集群模式：多 key 脚本要求所有 key 在同一个 slot，keysPerScript 需要设为 1（仍然在 Pipeline 中批量发送）
+ *
+ * 分页：游标为上一页最后一条的 score，ZREVRANGEBYSCORE key (cursor -inf LIMIT 0 size，
+ * 新数据插入不影响后续页
+ *
+ * @author huabin
+ */
+public class CappedFeedStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CappedFeedStore.class);
+
+    /**
+     * KEYS：时间线 key
+     * ARGV：maxLength, trimSlack, ttlSeconds, score1, member1, score2, member2 ...（写入每个 key）
+     * 返回裁剪掉的条目数
+     */
+    private static final String PUSH_AND_TRIM_SOURCE =
+            "local max = tonumber(ARGV[1]) " +
+            "local slack = tonumber(ARGV[2]) " +
+            "local ttl = tonumber(ARGV[3]) " +
+            "local trimmed = 0 " +
+            "for _, key in ipairs(KEYS) do " +
+            "  for i = 4, #ARGV, 2 do " +
+            "    redis.call('ZADD', key, ARGV[i], ARGV[i + 1]) " +
+            "  end " +
+            "  local size = redis.call('ZCARD', key) " +
+            "  if size > max + slack then " +
+            "    trimmed = trimmed + redis.call('ZREMRANGEBYRANK', key, 0, size - max - 1) " +
+            "  end " +
+            "  if ttl > 0 then " +
+            "    redis.call('EXPIRE', key, ttl) " +
+            "  end " +
+            "end " +
+            "return trimmed";
+
+    private static final RedisScript<Long> PUSH_AND_TRIM_SCRIPT =
+            new DefaultRedisScript<>(PUSH_AND_TRIM_SOURCE, Long.class);
+
+    private static final byte[] PUSH_AND_TRIM_BYTES = bytes(PUSH_AND_TRIM_SOURCE);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String prefix;
+    private final int maxLength;
+    private final int trimSlack;
+    private final long ttlSeconds;
+
+    /**
+     * 一次写扩散脚本调用包含的 key 数
+     */
+    private final int keysPerScript;
+
+    /**
+     * 每个 Pipeline 包含的脚本调用数
+     */
+    private final int pipelineSize;
+
+    /**
+     * 本地缓冲的条数上限，达到后立即触发异步刷新
+     */
+    private final int maxBuffered;
+
+    /**
+     * 写入失败后缓冲中最多保留的条数
+     */
+    private final int maxPending;
+
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * 时间线 key -> 待写入的条目（score, member 交替）
+     */
+    private final Map<String, List<String>> buffer = new ConcurrentHashMap<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    /**
+     * 是否已提交了一次提前刷新，避免缓冲超过 maxBuffered 后每次追加都提交任务
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final LongAdder pushedItems = new LongAdder();
+    private final LongAdder fanOutKeys = new LongAdder();
+    private final LongAdder scriptCalls = new LongAdder();
+    private final LongAdder pipelines = new LongAdder();
+    private final LongAdder trimmedItems = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder droppedItems = new LongAdder();
+
+    /**
+     * 上一次刷新是否失败：Redis 不可用期间每次刷新都会失败，只在开始失败和恢复时打印日志
+     */
+    private volatile boolean flushFailing;
+
+    /**
+     * 本次写入失败期间丢弃的条数，恢复时打印
+     */
+    private volatile long droppedWhileFailing;
+
+    public CappedFeedStore(StringRedisTemplate redisTemplate, String prefix, int maxLength, int trimSlack,
+                           long ttlSeconds, int keysPerScript, int pipelineSize, int maxBuffered, int maxPending) {
+        if (maxLength <= 0 || keysPerScript <= 0 || pipelineSize <= 0 || maxBuffered <= 0) {
+            throw new IllegalArgumentException("maxLength、keysPerScript、pipelineSize、maxBuffered 必须大于0");
+        }
+        if (maxPending < maxBuffered) {
+            throw new IllegalArgumentException("maxPending 不能小于 maxBuffered");
+        }
+        this.redisTemplate = redisTemplate;
+        this.prefix = prefix;
+        this.maxLength = maxLength;
+        this.trimSlack = Math.max(0, trimSlack);
+        this.ttlSeconds = ttlSeconds;
+        this.keysPerScript = keysPerScript;
+        this.pipelineSize = pipelineSize;
+        this.maxBuffered = maxBuffered;
+        this.maxPending = maxPending;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "capped-feed-flusher[" + prefix + "]");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动定时刷新
+     *
+     * @param flushIntervalMs 刷新间隔（毫秒），<= 0 表示只在 flush() 或缓冲满时写入
+     */
+    public void start(long flushIntervalMs) {
+        if (flushIntervalMs <= 0) {
+            return;
+        }
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Feed 缓冲刷新已启动, interval={}ms, maxLength={}, trimSlack={}", flushIntervalMs, maxLength, trimSlack);
+    }
+
+    /**
+     * 停止定时刷新，并写入剩余的缓冲
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    public String feedKey(long ownerId) {
+        return prefix + ownerId;
+    }
+
+    /**
+     * 同步写入一条（写入 + 裁剪 + 续期一次往返）
+     */
+    public void push(long ownerId, long itemId, String item) {
+        Long trimmed = redisTemplate.execute(PUSH_AND_TRIM_SCRIPT, Collections.singletonList(feedKey(ownerId)),
+                String.valueOf(maxLength), String.valueOf(trimSlack), String.valueOf(ttlSeconds),
+                String.valueOf(itemId), item);
+        scriptCalls.increment();
+        pushedItems.increment();
+        if (trimmed != null) {
+            trimmedItems.add(trimmed);
+        }
+    }
+
+    /**
+     * 缓冲写入：同一个 key 的多条合并成一次脚本调用，由定时任务批量写入
+     */
+    public void append(long ownerId, long itemId, String item) {
+        buffer.compute(feedKey(ownerId), (key, items) -> {
+            List<String> list = items == null ? new ArrayList<>() : items;
+            list.add(String.valueOf(itemId));
+            list.add(item);
+            return list;
+        });
+        if (buffered.incrementAndGet() >= maxBuffered && !flusher.isShutdown()
+                && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * 把缓冲的条目写入 Redis：每个 key 一次脚本调用，每 pipelineSize 个 key 一个 Pipeline
+     *
+     * 写入失败时取出的条目放回缓冲，下次刷新重试；已经写入的部分重复写入只会更新 score（幂等）。
+     * 放回后超过 maxPending 时丢弃放回部分中最早缓冲的条目（它们最先被裁剪）
+     *
+     * @return 写入的条目数
+     */
+    public synchronized int flush() {
+        Map<String, List<String>> drained = new LinkedHashMap<>();
+        int items = 0;
+        for (String key : new ArrayList<>(buffer.keySet())) {
+            List<String> pending = buffer.remove(key);
+            if (pending != null) {
+                drained.put(key, pending);
+                items += pending.size() / 2;
+            }
+        }
+        if (drained.isEmpty()) {
+            return 0;
+        }
+        List<ScriptCall> calls = new ArrayList<>(drained.size());
+        for (Map.Entry<String, List<String>> entry : drained.entrySet()) {
+            calls.add(new ScriptCall(Collections.singletonList(entry.getKey()), entry.getValue()));
+        }
+        try {
+            executeScripts(calls);
+        } catch (RuntimeException e) {
+            // 刷新期间新追加的条目不丢弃
+            int appended = Math.max(0, buffered.get() - items);
+            int dropped = Math.max(0, items - Math.max(0, maxPending - appended));
+            requeue(drained, dropped);
+            if (dropped > 0) {
+                buffered.addAndGet(-dropped);
+                droppedItems.add(dropped);
+                logDropped(dropped);
+            }
+            flushFailures.increment();
+            throw e;
+        }
+        buffered.addAndGet(-items);
+        pushedItems.add(items);
+        return items;
+    }
+
+    /**
+     * 放回缓冲，刷新期间新追加的条目排在后面
+     *
+     * @param dropped 需要丢弃的条数，依次从各 key 列表头部（最早缓冲）丢弃
+     */
+    private void requeue(Map<String, List<String>> drained, int dropped) {
+        int remaining = dropped;
+        for (Map.Entry<String, List<String>> entry : drained.entrySet()) {
+            List<String> pending = entry.getValue();
+            if (remaining > 0) {
+                int drop = Math.min(remaining, pending.size() / 2);
+                pending.subList(0, drop * 2).clear();
+                remaining -= drop;
+                if (pending.isEmpty()) {
+                    continue;
+                }
+            }
+            buffer.merge(entry.getKey(), pending, (appended, requeued) -> {
+                requeued.addAll(appended);
+                return requeued;
+            });
+        }
+    }
+
+    /**
+     * 写扩散：同一条目写入所有粉丝的时间线
+     *
+     * @return 往返次数（Pipeline 数）
+     */
+    public int fanOut(Collection<Long> followerIds, long itemId, String item) {
+        List<String> keys = new ArrayList<>(followerIds.size());
+        for (Long followerId : followerIds) {
+            keys.add(feedKey(followerId));
+        }
+        List<String> items = Arrays.asList(String.valueOf(itemId), item);
+        List<ScriptCall> calls = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += keysPerScript) {
+            calls.add(new ScriptCall(keys.subList(from, Math.min(from + keysPerScript, keys.size())), items));
+        }
+        fanOutKeys.add(keys.size());
+        return executeScripts(calls);
+    }
+
+    /**
+     * 游标分页（按条目 ID 倒序）
+     *
+     * @param cursor 上一页返回的 nextCursor，null 表示第一页
+     * @param size 每页条数
+     */
+    public FeedPage page(long ownerId, Long cursor, int size) {
+        double max = cursor == null ? Double.POSITIVE_INFINITY : cursor - 1;
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(feedKey(ownerId), Double.NEGATIVE_INFINITY, max, 0, size);
+        List<String> items = new ArrayList<>();
+        Long last = null;
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                items.add(tuple.getValue());
+                last = tuple.getScore() == null ? null : tuple.getScore().longValue();
+            }
+        }
+        return new FeedPage(items, items.size() < size ? null : last);
+    }
+
+    public Long size(long ownerId) {
+        return redisTemplate.opsForZSet().zCard(feedKey(ownerId));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("prefix", prefix);
+        stats.put("maxLength", maxLength);
+        stats.put("trimSlack", trimSlack);
+        stats.put("buffered", buffered.get());
+        stats.put("pushedItems", pushedItems.sum());
+        stats.put("fanOutKeys", fanOutKeys.sum());
+        stats.put("scriptCalls", scriptCalls.sum());
+        stats.put("pipelines", pipelines.sum());
+        stats.put("trimmedItems", trimmedItems.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("droppedItems", droppedItems.sum());
+        return stats;
+    }
+
+    /**
+     * 分 Pipeline 执行脚本：每个 Pipeline 先 SCRIPT LOAD（幂等），再逐个 EVALSHA，
+     * Pipeline 中的 EVALSHA 遇到 NOSCRIPT 无法像 RedisTemplate.execute 那样回退到 EVAL
+     *
+     * @return Pipeline 数
+     */
+    private int executeScripts(List<ScriptCall> calls) {
+        String sha = PUSH_AND_TRIM_SCRIPT.getSha1();
+        byte[][] limits = {bytes(String.valueOf(maxLength)), bytes(String.valueOf(trimSlack)),
+                bytes(String.valueOf(ttlSeconds))};
+        int count = 0;
+        for (int from = 0; from < calls.size(); from += pipelineSize) {
+            List<ScriptCall> page = calls.subList(from, Math.min(from + pipelineSize, calls.size()));
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.scriptLoad(PUSH_AND_TRIM_BYTES);
+                for (ScriptCall call : page) {
+                    connection.evalSha(sha, ReturnType.INTEGER, call.keys.size(), call.keysAndArgs(limits));
+                }
+                return null;
+            });
+            for (Object result : results) {
+                if (result instanceof Long) {
+                    trimmedItems.add((Long) result);
+                }
+            }
+            scriptCalls.add(page.size());
+            pipelines.increment();
+            count++;
+        }
+        return count;
+    }
+
+    private void flushQuietly() {
+        flushScheduled.set(false);
+        try {
+            flush();
+            if (flushFailing) {
+                flushFailing = false;
+                log.info("Feed 缓冲写入恢复, buffered={}, 失败期间丢弃={}", buffered.get(), droppedWhileFailing);
+                droppedWhileFailing = 0;
+            }
+        } catch (Exception e) {
+            if (!flushFailing) {
+                flushFailing = true;
+                log.warn("Feed 缓冲写入失败，条目保留在缓冲中等待重试, buffered={}", buffered.get(), e);
+            } else {
+                log.debug("Feed 缓冲写入仍然失败, buffered={}: {}", buffered.get(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 每次失败期间只在第一次丢弃时打印 warn，之后的丢弃累计到恢复日志中
+     */
+    private void logDropped(int dropped) {
+        if (droppedWhileFailing == 0) {
+            log.warn("Feed 缓冲超过上限 {}，丢弃最早缓冲的 {} 条, prefix={}", maxPending, dropped, prefix);
+        } else {
+            log.debug("Feed 缓冲超过上限 {}，丢弃 {} 条", maxPending, dropped);
+        }
+        droppedWhileFailing += dropped;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 一次脚本调用：keys 中的每个 key 都写入 items（score, member 交替）
+     */
+    private static final class ScriptCall {
+
+        private final List<String> keys;
+        private final List<String> items;
+
+        ScriptCall(List<String> keys, List<String> items) {
+            this.keys = keys;
+            this.items = items;
+        }
+
+        byte[][] keysAndArgs(byte[][] limits) {
+            byte[][] keysAndArgs = new byte[keys.size() + limits.length + items.size()][];
+            int i = 0;
+            for (String key : keys) {
+                keysAndArgs[i++] = bytes(key);
+            }
+            for (byte[] limit : limits) {
+                keysAndArgs[i++] = limit;
+            }
+            for (String item : items) {
+                keysAndArgs[i++] = bytes(item);
+            }
+            return keysAndArgs;
+        }
+    }
+
+    /**
+     * 一页时间线
+     */
+    public static class FeedPage {
+
+        private final List<String> items;
+
+        /**
+         * 下一页游标，null 表示没有更多数据
+         */
+        private final Long nextCursor;
+
+        FeedPage(List<String> items, Long nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<String> getItems() {
+            return items;
+        }
+
+        public Long getNextCursor() {
+            return nextCursor;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.huabin.redis.solution.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hash 分桶存储（小对象打包进 Hash，利用 ziplist/listpack 编码节省内存）
+ *
+ * 解决的问题：
+ * 一个对象一个 key（如 session:{id}）时，每个 key 都有 dictEntry、key 的 sds、robj，
+ * 设置了过期时间还要在 expires 字典里再占一个 dictEntry，千万级小对象时这些固定开销远大于数据本身
+ *
+ * 分桶方式：
+ * - key = prefix + id / bucketSize，field = id % bucketSize
+ * - bucketSize（默认100）不超过 hash-max-ziplist-entries（默认512），
+ *   value 不超过 hash-max-ziplist-value（默认64字节），Hash 使用紧凑编码
+ * - 一千万个 session 只有十万个 key，field 是小整数，在 ziplist 中只占 1~2 字节
+ * - ziplist 查找是线性扫描，桶越大越省内存但 HGET 越慢，100 左右是常用的折中
+ *
+ * 过期时间：
+ * Redis 7.4 之前 Hash 字段不能单独过期，过期时间设置在桶上，每次写入刷新桶的过期时间。
+ * 同一个桶内的对象一起过期，对象最多存活到桶最后一次写入后 ttlSeconds，适合 session 这类会持续续期的数据
+ *
+ * 注意：value 超过 hash-max-ziplist-value 会让整个桶转为 hashtable 编码（不会再转回），
+ * 写入时会统计并打印告警
+ *
+ * @author huabin
+ */
+public class HashBucketStore {
+
+    private static final Logger log = LoggerFactory.getLogger(HashBucketStore.class);
+
+    private static final int MEMORY_USAGE_BATCH = 1000;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> MEMORY_USAGE_SCRIPT = new DefaultRedisScript<>(
+            "local result = {} " +
+            "for i, key in ipairs(KEYS) do " +
+            "  result[i] = redis.call('MEMORY', 'USAGE', key) or 0 " +
+            "end " +
+            "return result", List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String prefix;
+    private final int bucketSize;
+    private final long ttlSeconds;
+    private final int maxValueBytes;
+
+    /**
+     * 每个 Pipeline 写入的桶数
+     */
+    private final int pipelineBuckets;
+
+    private final AtomicLong oversizedValues = new AtomicLong();
+
+    public HashBucketStore(StringRedisTemplate redisTemplate, String prefix, int bucketSize, long ttlSeconds,
+                           int maxValueBytes, int pipelineBuckets) {
+        if (bucketSize <= 0 || pipelineBuckets <= 0) {
+            throw new IllegalArgumentException("bucketSize、pipelineBuckets 必须大于0");
+        }
+        this.redisTemplate = redisTemplate;
+        this.prefix = prefix;
+        this.bucketSize = bucketSize;
+        this.ttlSeconds = ttlSeconds;
+        this.maxValueBytes = maxValueBytes;
+        this.pipelineBuckets = pipelineBuckets;
+    }
+
+    public String bucketKey(long id) {
+        return prefix + bucketOf(id);
+    }
+
+    public String field(long id) {
+        return String.valueOf(Math.floorMod(id, (long) bucketSize));
+    }
+
+    public long bucketOf(long id) {
+        return Math.floorDiv(id, (long) bucketSize);
+    }
+
+    /**
+     * 写入单个对象（HSET + EXPIRE 一次往返）
+     */
+    public void put(long id, String value) {
+        putAll(Collections.singletonMap(id, value));
+    }
+
+    /**
+     * 批量写入：按桶分组，每个桶一次 HSET（多字段）+ EXPIRE，每 pipelineBuckets 个桶一个 Pipeline
+     *
+     * @return 写入的桶数
+     */
+    public int putAll(Map<Long, String> values) {
+        Map<Long, Map<String, String>> buckets = new TreeMap<>();
+        values.forEach((id, value) -> {
+            checkValue(id, value);
+            buckets.computeIfAbsent(bucketOf(id), b -> new LinkedHashMap<>()).put(field(id), value);
+        });
+
+        List<Map.Entry<Long, Map<String, String>>> entries = new ArrayList<>(buckets.entrySet());
+        for (int from = 0; from < entries.size(); from += pipelineBuckets) {
+            List<Map.Entry<Long, Map<String, String>>> page =
+                    entries.subList(from, Math.min(from + pipelineBuckets, entries.size()));
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<Long, Map<String, String>> bucket : page) {
+                    byte[] key = bytes(prefix + bucket.getKey());
+                    Map<byte[], byte[]> fields = new LinkedHashMap<>();
+                    bucket.getValue().forEach((f, v) -> fields.put(bytes(f), bytes(v)));
+                    connection.hMSet(key, fields);
+                    if (ttlSeconds > 0) {
+                        connection.expire(key, ttlSeconds);
+                    }
+                }
+                return null;
+            });
+        }
+        return buckets.size();
+    }
+
+    public String get(long id) {
+        Object value = redisTemplate.opsForHash().get(bucketKey(id), field(id));
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * 批量读取：按桶分组，每个桶一次 HMGET，全部放在一个 Pipeline 中
+     *
+     * @return id -> value，不存在的 id 不在结果中
+     */
+    public Map<Long, String> multiGet(Collection<Long> ids) {
+        Map<Long, List<Long>> buckets = new TreeMap<>();
+        for (Long id : ids) {
+            buckets.computeIfAbsent(bucketOf(id), b -> new ArrayList<>()).add(id);
+        }
+        List<List<Long>> groups = new ArrayList<>(buckets.values());
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (List<Long> group : groups) {
+                byte[][] fields = new byte[group.size()][];
+                for (int i = 0; i < group.size(); i++) {
+                    fields[i] = bytes(field(group.get(i)));
+                }
+                connection.hMGet(bytes(bucketKey(group.get(0))), fields);
+            }
+            return null;
+        });
+
+        Map<Long, String> values = new LinkedHashMap<>();
+        for (int g = 0; g < groups.size(); g++) {
+            List<Long> group = groups.get(g);
+            List<?> groupValues = (List<?>) results.get(g);
+            for (int i = 0; i < group.size(); i++) {
+                Object value = groupValues.get(i);
+                if (value != null) {
+                    values.put(group.get(i), value.toString());
+                }
+            }
+        }
+        return values;
+    }
+
+    public boolean remove(long id) {
+        Long removed = redisTemplate.opsForHash().delete(bucketKey(id), field(id));
+        return removed != null && removed > 0;
+    }
+
+    /**
+     * 桶的剩余过期时间（秒）
+     */
+    public Long ttl(long id) {
+        return redisTemplate.getExpire(bucketKey(id), TimeUnit.SECONDS);
+    }
+
+    /**
+     * 批量读取 key 的 MEMORY USAGE（每 MEMORY_USAGE_BATCH 个 key 一次 EVAL）
+     *
+     * MEMORY USAGE 返回整数，RedisConnection.execute 只能解析字符串回复，因此通过 Lua 脚本批量调用
+     *
+     * @return key -> 字节数，不存在的 key 为 0
+     */
+    public Map<String, Long> memoryUsage(Collection<String> keys) {
+        List<String> keyList = new ArrayList<>(keys);
+        Map<String, Long> usage = new LinkedHashMap<>();
+        for (int from = 0; from < keyList.size(); from += MEMORY_USAGE_BATCH) {
+            List<String> batch = keyList.subList(from, Math.min(from + MEMORY_USAGE_BATCH, keyList.size()));
+            List<?> results = redisTemplate.execute(MEMORY_USAGE_SCRIPT, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                Object value = results == null ? null : results.get(i);
+                usage.put(batch.get(i), value instanceof Number ? ((Number) value).longValue() : 0L);
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * 桶的内部编码（ziplist/listpack 为紧凑编码，hashtable 说明桶过大或 value 过长）
+     */
+    public String encoding(long id) {
+        String key = bucketKey(id);
+        return redisTemplate.execute((RedisCallback<String>) connection -> {
+            Object value = connection.execute("OBJECT", bytes("ENCODING"), bytes(key));
+            return value == null ? null : new String((byte[]) value, StandardCharsets.UTF_8);
+        });
+    }
+
+    /**
+     * 检查 bucketSize、maxValueBytes 是否在服务端紧凑编码的限制内
+     * （hash-max-ziplist-* 在 Redis 7 中是 hash-max-listpack-* 的别名）
+     */
+    public Map<String, Object> checkEncodingLimits() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Properties config = redisTemplate.execute((RedisCallback<Properties>) connection ->
+                connection.getConfig("hash-max-ziplist-*"));
+        int maxEntries = intProperty(config, "hash-max-ziplist-entries", 512);
+        int maxValue = intProperty(config, "hash-max-ziplist-value", 64);
+        result.put("hashMaxEntries", maxEntries);
+        result.put("hashMaxValue", maxValue);
+        result.put("bucketSize", bucketSize);
+        result.put("maxValueBytes", maxValueBytes);
+        result.put("compact", bucketSize <= maxEntries && maxValueBytes <= maxValue);
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("prefix", prefix);
+        stats.put("bucketSize", bucketSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("oversizedValues", oversizedValues.get());
+        return stats;
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    private void checkValue(long id, String value) {
+        if (value.getBytes(StandardCharsets.UTF_8).length > maxValueBytes
+                && oversizedValues.incrementAndGet() == 1) {
+            log.warn("value 超过 {} 字节，桶 {} 将转为 hashtable 编码（之后只统计不再打印）", maxValueBytes, bucketKey(id));
+        }
+    }
+
+    private static int intProperty(Properties config, String name, int defaultValue) {
+        String value = config == null ? null : config.getProperty(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
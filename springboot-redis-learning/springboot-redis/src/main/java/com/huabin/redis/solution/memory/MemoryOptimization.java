@@ -1,9 +1,17 @@
 package com.huabin.redis.solution.memory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
@@ -14,6 +22,8 @@ import java.util.concurrent.TimeUnit;
  * 方案2：限制集合大小
  * 方案3：配置内存淘汰策略
  * 方案4：内存碎片整理
+ * 方案6：小对象分桶存入 Hash（见 HashBucketStore）
+ * 方案7：定长时间线 + 写扩散（见 CappedFeedStore）
  */
 @Service
 public class MemoryOptimization {
@@ -21,6 +31,39 @@ public class MemoryOptimization {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    
+    /**
+     * 演示专用的分桶存储（demo:session:bucket:），compareSessionMemory 结束时整桶删除
+     */
+    @Autowired
+    @Qualifier("demoSessionBucketStore")
+    private HashBucketStore demoSessionBucketStore;
+    
+    /**
+     * 演示专用的时间线（demo:user:feeds:），limitCollectionSize、fanOutFeed 结束时删除
+     */
+    @Autowired
+    @Qualifier("demoFeedStore")
+    private CappedFeedStore demoFeedStore;
+    
+    /**
+     * 估算千万级对象内存时使用的对象数
+     */
+    private static final long PROJECTED_OBJECTS = 10_000_000L;
+    
+    /**
+     * 一个 key 设置过期时间后在 expires 字典中的额外开销（dictEntry 24 字节 + 哈希表槽位 8 字节），
+     * MEMORY USAGE 不包含这部分
+     */
+    private static final long EXPIRE_ENTRY_BYTES = 32;
+    
+    /**
+     * compareSessionMemory 中"一个 session 一个 key"方式的 key 前缀
+     */
+    private static final String PLAIN_SESSION_PREFIX = "demo:session:plain:";
+    
     /**
      * 解决方案1：设置合理的过期时间
      * 
@@ -71,32 +114,70 @@ public class MemoryOptimization {
     public void limitCollectionSize() {
         System.out.println("\n=== 解决方案：限制集合大小 ===");
         
-        String userFeedsKey = "user:feeds:1001";
-        int maxSize = 100; // 最多保留100条动态
+        long userId = 1001;
+        String userFeedsKey = demoFeedStore.feedKey(userId);
         
-        // 添加新动态
+        // 添加新动态：本地按 key 缓冲，同一个 key 的多条合并成一次 Lua 脚本（ZADD + 摊销裁剪 + EXPIRE）
+        // 逐条 LPUSH + LTRIM 需要 400 次往返
+        long baseId = System.currentTimeMillis() * 1000;
         for (int i = 1; i <= 200; i++) {
-            String feed = "feed_" + i + "_content";
-            
-            // 左侧插入（最新的在前面）
-            redisTemplate.opsForList().leftPush(userFeedsKey, feed);
-            
-            // 保留最新的100条
-            redisTemplate.opsForList().trim(userFeedsKey, 0, maxSize - 1);
+            demoFeedStore.append(userId, baseId + i, "feed_" + i + "_content");
         }
+        demoFeedStore.flush();
+        
+        Long size = demoFeedStore.size(userId);
+        System.out.println("用户动态数量: " + size + "（保留最新100条，超出20条后才裁剪一次）");
         
-        Long size = redisTemplate.opsForList().size(userFeedsKey);
-        System.out.println("用户动态数量: " + size + "（限制为" + maxSize + "条）");
+        // 游标分页：新动态插入不影响下一页
+        CappedFeedStore.FeedPage page = demoFeedStore.page(userId, null, 10);
+        System.out.println("第一页: " + page.getItems());
+        page = demoFeedStore.page(userId, page.getNextCursor(), 10);
+        System.out.println("第二页: " + page.getItems());
         
         System.out.println("\n优势：");
         System.out.println("1. 控制内存占用");
         System.out.println("2. 保留最新数据");
         System.out.println("3. 自动淘汰旧数据");
+        System.out.println("4. 写入和裁剪原子完成，批量写入只需一次往返");
+        System.out.println("统计: " + demoFeedStore.getStats());
         
         // 清理
         redisTemplate.delete(userFeedsKey);
     }
     
+    /**
+     * 写扩散：一条动态写入所有粉丝的时间线
+     * 
+     * 逐个粉丝 ZADD + 裁剪需要 2 * followers 次往返，
+     * CappedFeedStore.fanOut 每 100 个粉丝一次脚本调用，所有调用放在一个 Pipeline 中
+     * 
+     * @param followers 粉丝数（测试完成后删除时间线）
+     */
+    public Map<String, Object> fanOutFeed(int followers) {
+        List<Long> followerIds = new ArrayList<>(followers);
+        List<String> keys = new ArrayList<>(followers);
+        for (long i = 1; i <= followers; i++) {
+            followerIds.add(i);
+            keys.add(demoFeedStore.feedKey(i));
+        }
+        
+        long start = System.currentTimeMillis();
+        int roundTrips = demoFeedStore.fanOut(followerIds, System.currentTimeMillis() * 1000, "post_1");
+        long costMs = System.currentTimeMillis() - start;
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("followers", followers);
+        result.put("roundTrips", roundTrips);
+        result.put("naiveRoundTrips", followers * 2);
+        result.put("costMs", costMs);
+        result.put("lastFollowerFeed", demoFeedStore.page(followers, null, 10).getItems());
+        result.put("stats", demoFeedStore.getStats());
+        
+        // 清理
+        stringRedisTemplate.delete(keys);
+        return result;
+    }
+    
     /**
      * 解决方案3：配置内存淘汰策略
      * 
@@ -211,6 +292,79 @@ public class MemoryOptimization {
         System.out.println("4. ZSet 优化：");
         System.out.println("   - 元素数 < 128 使用 ziplist");
         System.out.println("   - 配置：zset-max-ziplist-entries 128");
+        System.out.println("");
+        
+        System.out.println("5. 小对象分桶：");
+        System.out.println("   - session:{id} -> session:bucket:{id/100} 的字段 {id%100}");
+        System.out.println("   - 对比结果：" + compareSessionMemory(10000));
+    }
+    
+    /**
+     * 对比一个对象一个 key 与 Hash 分桶的内存占用
+     * 
+     * 两种方式各写入 count 个 session，用 MEMORY USAGE 统计每种方式所有 key 的占用，
+     * 计算每个 session 的平均字节数，并按一千万个 session 估算总内存
+     * 
+     * @param count 写入的 session 数（测试完成后删除）
+     */
+    public Map<String, Object> compareSessionMemory(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count 必须大于0");
+        }
+        List<String> plainKeys = new ArrayList<>(count);
+        Map<Long, String> sessions = new LinkedHashMap<>();
+        for (long i = 1; i <= count; i++) {
+            plainKeys.add(PLAIN_SESSION_PREFIX + i);
+            sessions.put(i, "user_session_data_" + i);
+        }
+        
+        // 方式1：一个 session 一个 key（与 setProperExpireTime 相同的写法，Pipeline 写入）
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<Long, String> session : sessions.entrySet()) {
+                connection.setEx(bytes(PLAIN_SESSION_PREFIX + session.getKey()), 1800, bytes(session.getValue()));
+            }
+            return null;
+        });
+        
+        // 方式2：Hash 分桶
+        demoSessionBucketStore.putAll(sessions);
+        List<String> bucketKeys = new ArrayList<>();
+        for (long bucket = demoSessionBucketStore.bucketOf(1); bucket <= demoSessionBucketStore.bucketOf(count); bucket++) {
+            bucketKeys.add(demoSessionBucketStore.bucketKey(bucket * demoSessionBucketStore.getBucketSize()));
+        }
+        
+        long plainBytes = demoSessionBucketStore.memoryUsage(plainKeys).values().stream().mapToLong(Long::longValue).sum()
+                + EXPIRE_ENTRY_BYTES * plainKeys.size();
+        long bucketBytes = demoSessionBucketStore.memoryUsage(bucketKeys).values().stream().mapToLong(Long::longValue).sum()
+                + EXPIRE_ENTRY_BYTES * bucketKeys.size();
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessions", count);
+        result.put("plainKeys", plainKeys.size());
+        result.put("bucketKeys", bucketKeys.size());
+        result.put("bucketEncoding", demoSessionBucketStore.encoding(1));
+        result.put("plainBytesPerSession", String.format("%.1f", (double) plainBytes / count));
+        result.put("bucketBytesPerSession", String.format("%.1f", (double) bucketBytes / count));
+        result.put("reduction", String.format("%.1f%%", 100.0 - bucketBytes * 100.0 / Math.max(plainBytes, 1)));
+        result.put("projectedPlainMB", projectMB(plainBytes, count));
+        result.put("projectedBucketMB", projectMB(bucketBytes, count));
+        result.put("encodingLimits", demoSessionBucketStore.checkEncodingLimits());
+        
+        // 清理
+        stringRedisTemplate.delete(plainKeys);
+        stringRedisTemplate.delete(bucketKeys);
+        return result;
+    }
+    
+    /**
+     * 按 count 个对象的实测字节数估算 PROJECTED_OBJECTS 个对象的内存（MB），用浮点计算，count 大于一千万时也不会得到 0
+     */
+    private static long projectMB(long bytes, int count) {
+        return Math.round((double) bytes / count * PROJECTED_OBJECTS / 1024 / 1024);
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
     }
     
     /**
@@ -231,6 +385,10 @@ public class MemoryOptimization {
         System.out.println("1. 内存使用率 > 80%");
         System.out.println("2. 碎片率 > 1.5");
         System.out.println("3. 淘汰速率 > 100/秒");
+        System.out.println("");
+        
+        System.out.println("采集：RedisTelemetryCollector 定期读取 INFO memory/stats，");
+        System.out.println("导出 redis_server_memory{field=used_memory} 和 redis_server_rate{field=evicted_keys} 等指标");
     }
     
     /**
@@ -4,19 +4,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Redis 阻塞问题解决方案
  * 
  * 方案1：使用SCAN代替KEYS
  * 方案2：分批Pipeline
- * 方案3：使用ZSet代替SORT
+ * 方案3：使用ZSet代替SORT（排行榜见 LeaderboardService）
  * 方案4：异步操作
+ * 方案5：大集合交并差放到客户端计算（见 SetAlgebraService）
  */
 @Service
 public class BlockingSolution {
@@ -24,6 +31,15 @@ public class BlockingSolution {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private SetAlgebraService setAlgebraService;
+    
     /**
      * 解决方案1：使用SCAN代替KEYS
      * 
@@ -133,36 +149,93 @@ public class BlockingSolution {
     public void useZSetInsteadOfSort() {
         System.out.println("\n=== 解决方案：使用ZSet代替SORT ===");
         
-        String zsetKey = "sorted:scores";
+        String board = "sorted:scores";
         
-        // 添加数据到ZSet
+        // 添加数据到ZSet：多成员 ZADD（每次500个）+ Pipeline，而不是10000次单独的 ZADD
         System.out.println("添加10000个元素到ZSet...");
         long startTime = System.currentTimeMillis();
         
+        Map<String, Double> scores = new LinkedHashMap<>();
         for (int i = 1; i <= 10000; i++) {
-            redisTemplate.opsForZSet().add(zsetKey, "member" + i, i);
+            scores.put("member" + i, (double) i);
         }
+        leaderboardService.setAll(board, scores);
         
         long endTime = System.currentTimeMillis();
         System.out.println("添加完成，耗时: " + (endTime - startTime) + "ms");
         
-        // 查询Top 10
+        // 查询Top 10：第一次从 Redis 加载快照，之后读本地内存
         System.out.println("\n查询Top 10...");
         startTime = System.currentTimeMillis();
         
-        Set<Object> top10 = redisTemplate.opsForZSet().reverseRange(zsetKey, 0, 9);
+        List<LeaderboardService.Entry> top10 = leaderboardService.top(board, 10);
         
         endTime = System.currentTimeMillis();
         System.out.println("查询完成，耗时: " + (endTime - startTime) + "ms");
         System.out.println("Top 10: " + top10);
+        System.out.println("名次: " + leaderboardService.ranks(board, Arrays.asList("member1", "member5000", "member10000")));
         
         System.out.println("\n优势：");
         System.out.println("1. 天然有序，无需SORT");
         System.out.println("2. 查询速度快");
         System.out.println("3. 支持范围查询");
+        System.out.println("4. 批量写入，Top-N 读本地快照");
         
         // 清理
-        redisTemplate.delete(zsetKey);
+        leaderboardService.delete(board);
+    }
+    
+    /**
+     * 排行榜演示：批量写入、增量加分、本地 Top-N 读取 QPS、批量查名次
+     * 
+     * @param members 成员数（测试完成后删除）
+     * @param reads 本地 Top-N 读取次数
+     */
+    public Map<String, Object> leaderboardDemo(int members, int reads) {
+        String board = LeaderboardService.dailyBoard("demo:score", LocalDate.now());
+        Map<String, Object> result = new LinkedHashMap<>();
+        
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (int i = 1; i <= members; i++) {
+            scores.put("player" + i, (double) ThreadLocalRandom.current().nextInt(100000));
+        }
+        long start = System.currentTimeMillis();
+        leaderboardService.setAll(board, scores);
+        result.put("setAllMs", System.currentTimeMillis() - start);
+        
+        result.put("top3", leaderboardService.top(board, 3));
+        
+        // 增量加分：一个 Pipeline，本地快照增量合并
+        Map<String, Double> deltas = new LinkedHashMap<>();
+        deltas.put("player1", 200000.0);
+        deltas.put("player2", 10.0);
+        start = System.currentTimeMillis();
+        result.put("incremented", leaderboardService.incrementAll(board, deltas));
+        result.put("incrementMs", System.currentTimeMillis() - start);
+        result.put("top3AfterIncrement", leaderboardService.top(board, 3));
+        
+        start = System.nanoTime();
+        for (int i = 0; i < reads; i++) {
+            leaderboardService.top(board, 10);
+        }
+        long nanos = Math.max(System.nanoTime() - start, 1);
+        result.put("localTopReads", reads);
+        result.put("localTopQps", reads * 1_000_000_000L / nanos);
+        
+        List<String> rankMembers = new ArrayList<>();
+        for (int i = 1; i <= Math.min(members, 100); i++) {
+            rankMembers.add("player" + i);
+        }
+        start = System.currentTimeMillis();
+        Map<String, Long> ranks = leaderboardService.ranks(board, rankMembers);
+        result.put("rankLookups", ranks.size());
+        result.put("rankLookupMs", System.currentTimeMillis() - start);
+        result.put("player1Rank", ranks.get("player1"));
+        result.put("stats", leaderboardService.getStats());
+        
+        // 清理
+        leaderboardService.delete(board);
+        return result;
     }
     
     /**
@@ -226,22 +299,24 @@ public class BlockingSolution {
     }
     
     /**
-     * 解决方案5：使用SINTERSTORE异步计算交集
+     * 解决方案5：大集合交集放到客户端计算
      * 
      * 优点：
-     * 1. 异步计算，不阻塞客户端
-     * 2. 结果存储在Redis中
+     * 1. 小集合直接 SINTERSTORE，一次往返
+     * 2. 大集合 SSCAN 到本地 RoaringBitmap 计算，不阻塞 Redis 主线程
+     * 3. 结果存储在Redis中，可以多次使用
      */
     public void asyncIntersection(String set1, String set2, String destKey) {
-        System.out.println("\n=== 解决方案：异步计算交集 ===");
+        System.out.println("\n=== 解决方案：大集合交集 ===");
         
-        // 使用SINTERSTORE，结果存储到destKey
         long startTime = System.currentTimeMillis();
         
-        redisTemplate.opsForSet().intersectAndStore(set1, set2, destKey);
+        // 根据 SCARD 估算：小集合服务端 SINTERSTORE，大集合客户端 RoaringBitmap
+        Map<String, Object> result = setAlgebraService.compute(SetAlgebraService.Operation.INTERSECT, destKey,
+                Arrays.asList(set1, set2));
         
         long endTime = System.currentTimeMillis();
-        System.out.println("SINTERSTORE完成，耗时: " + (endTime - startTime) + "ms");
+        System.out.println("交集完成（" + result.get("executedOn") + "），耗时: " + (endTime - startTime) + "ms");
         
         // 获取结果大小
         Long size = redisTemplate.opsForSet().size(destKey);
@@ -250,7 +325,39 @@ public class BlockingSolution {
         System.out.println("\n优势：");
         System.out.println("1. 结果存储在Redis中");
         System.out.println("2. 可以多次使用结果");
-        System.out.println("3. 避免重复计算");
+        System.out.println("3. 大集合不阻塞Redis主线程");
+    }
+    
+    /**
+     * 集合交并差演示：写入两个数字 ID 集合（一半重叠），按指定方式计算
+     * 
+     * @param size 每个集合的成员数（测试完成后删除）
+     * @param operation INTERSECT / UNION / DIFF
+     * @param mode AUTO / SERVER / CLIENT
+     */
+    public Map<String, Object> setAlgebraDemo(int size, SetAlgebraService.Operation operation,
+                                              SetAlgebraService.Mode mode) {
+        String set1 = "algebra:set1";
+        String set2 = "algebra:set2";
+        String dest = "algebra:result";
+        for (int from = 0; from < size; from += 1000) {
+            int to = Math.min(from + 1000, size);
+            String[] members1 = new String[to - from];
+            String[] members2 = new String[to - from];
+            for (int i = from; i < to; i++) {
+                members1[i - from] = String.valueOf(i);
+                members2[i - from] = String.valueOf(i + size / 2);
+            }
+            stringRedisTemplate.opsForSet().add(set1, members1);
+            stringRedisTemplate.opsForSet().add(set2, members2);
+        }
+        
+        Map<String, Object> result = setAlgebraService.compute(operation, dest, Arrays.asList(set1, set2), mode);
+        result.put("stats", setAlgebraService.getStats());
+        
+        // 清理
+        stringRedisTemplate.delete(Arrays.asList(set1, set2, dest));
+        return result;
     }
     
     /**
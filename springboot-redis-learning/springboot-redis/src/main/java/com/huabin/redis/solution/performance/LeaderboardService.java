@@ -0,0 +1,470 @@
+package com.huabin.redis.solution.performance;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.DefaultTuple;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ZSET 排行榜（批量更新 + 分片 + 本地 Top-N 快照）
+ *
+ * 解决的问题：
+ * 1. 逐个 ZADD 写入一万个成员就是一万次往返
+ * 2. 单个排行榜 key 是热 key，所有读写集中在一个节点
+ * 3. 首页 Top-N 每秒几万次 ZREVRANGE，全部打到 Redis
+ *
+ * 批量更新：
+ * - incrementAll：按分片分组，所有 ZINCRBY 放在一个 Pipeline 中，返回最新分数
+ * - setAll：每个分片每 batchSize 个成员一次多成员 ZADD
+ *
+ * 分片：
+ * - 时间分桶：dailyBoard("score", date) -> score:20240101，每天一个榜，配合 ttlSeconds 自动过期
+ * - 成员分片：一个榜拆成 shards 个 key（prefix + board + ":" + member.hashCode() % shards），
+ *   集群模式下分散到不同节点。全局 Top-N 一定在各分片 Top-N 的并集中，合并后取前 N；
+ *   名次 = 各分片中分数更高的成员数之和（ZCOUNT），同分的成员名次相同
+ * - 没有按分数区间分片：ZINCRBY 会让成员跨区间，需要在分片之间搬迁
+ *
+ * 本地 Top-N 快照：
+ * - top() 直接读内存中的不可变列表，不访问 Redis
+ * - 本实例写入后根据返回的最新分数增量合并快照：分数上升或新进入前 N 直接合并，
+ *   快照中的成员分数下降时（可能被快照外的成员超过）标记为待刷新
+ * - 写入后 PUBLISH 变更通知，其他实例收到后标记为待刷新，由定时任务每 refreshIntervalMs 重新加载
+ *   （一次 Pipeline 读取所有分片的前 N），多次变更合并为一次加载
+ * - 加载期间本实例有写入时，加载结果可能不包含这次写入（本实例发出的通知会被忽略），
+ *   不覆盖合并后的快照，重新标记为待刷新，下个周期再加载
+ *
+ * @author huabin
+ */
+public class LeaderboardService implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final StringRedisTemplate redisTemplate;
+    private final String prefix;
+    private final int shards;
+
+    /**
+     * 本地快照保留的名次数
+     */
+    private final int topN;
+
+    /**
+     * 一次 ZADD 的成员数
+     */
+    private final int batchSize;
+
+    /**
+     * 分片 key 的过期时间（秒），<= 0 表示不过期
+     */
+    private final long ttlSeconds;
+
+    /**
+     * 变更通知频道
+     */
+    private final String channel;
+
+    /**
+     * 区分本实例发出的通知
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, List<Entry>> snapshots = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 本实例每次写入后加一，用于判断加载期间是否有写入
+     */
+    private final Map<String, Long> writeVersions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+
+    private final LongAdder memoryReads = new LongAdder();
+    private final LongAdder redisReads = new LongAdder();
+    private final LongAdder updatedMembers = new LongAdder();
+    private final LongAdder incrementalMerges = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder reloadConflicts = new LongAdder();
+    private final LongAdder remoteNotifications = new LongAdder();
+
+    public LeaderboardService(StringRedisTemplate redisTemplate, String prefix, int shards, int topN, int batchSize,
+                              long ttlSeconds, String channel) {
+        if (shards <= 0 || topN <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("shards、topN、batchSize 必须大于0");
+        }
+        this.redisTemplate = redisTemplate;
+        this.prefix = prefix;
+        this.shards = shards;
+        this.topN = topN;
+        this.batchSize = batchSize;
+        this.ttlSeconds = ttlSeconds;
+        this.channel = channel;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "leaderboard-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动待刷新快照的定时加载
+     *
+     * @param refreshIntervalMs 加载间隔（毫秒），<= 0 表示只在 refresh() 时加载
+     */
+    public void start(long refreshIntervalMs) {
+        if (refreshIntervalMs <= 0) {
+            return;
+        }
+        refresher.scheduleWithFixedDelay(this::refreshDirty, refreshIntervalMs, refreshIntervalMs,
+                TimeUnit.MILLISECONDS);
+        log.info("排行榜快照刷新已启动, interval={}ms, shards={}, topN={}", refreshIntervalMs, shards, topN);
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * 按天分桶的排行榜名称
+     */
+    public static String dailyBoard(String name, LocalDate date) {
+        return name + ":" + date.format(DAY);
+    }
+
+    public String shardKey(String board, int shard) {
+        return prefix + board + ":" + shard;
+    }
+
+    public int shardOf(String member) {
+        return Math.floorMod(member.hashCode(), shards);
+    }
+
+    /**
+     * 批量加分：一个 Pipeline 中执行所有 ZINCRBY（+ EXPIRE + PUBLISH）
+     *
+     * @param deltas 成员 -> 增量（可以为负）
+     * @return 成员 -> 最新分数
+     */
+    public Map<String, Double> incrementAll(String board, Map<String, Double> deltas) {
+        List<String> members = new ArrayList<>(deltas.keySet());
+        Set<Integer> touched = new LinkedHashSet<>();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String member : members) {
+                int shard = shardOf(member);
+                touched.add(shard);
+                connection.zIncrBy(bytes(shardKey(board, shard)), deltas.get(member), bytes(member));
+            }
+            afterWrite(connection, board, touched);
+            return null;
+        });
+
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (int i = 0; i < members.size(); i++) {
+            scores.put(members.get(i), ((Number) results.get(i)).doubleValue());
+        }
+        updatedMembers.add(members.size());
+        merge(board, scores);
+        return scores;
+    }
+
+    /**
+     * 批量设置分数：每个分片每 batchSize 个成员一次 ZADD，全部放在一个 Pipeline 中
+     */
+    public void setAll(String board, Map<String, Double> scores) {
+        Map<Integer, Set<RedisZSetCommands.Tuple>> byShard = new HashMap<>();
+        scores.forEach((member, score) -> byShard.computeIfAbsent(shardOf(member), s -> new LinkedHashSet<>())
+                .add(new DefaultTuple(bytes(member), score)));
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<Integer, Set<RedisZSetCommands.Tuple>> shard : byShard.entrySet()) {
+                byte[] key = bytes(shardKey(board, shard.getKey()));
+                Set<RedisZSetCommands.Tuple> batch = new LinkedHashSet<>();
+                for (RedisZSetCommands.Tuple tuple : shard.getValue()) {
+                    batch.add(tuple);
+                    if (batch.size() == batchSize) {
+                        connection.zAdd(key, batch);
+                        batch = new LinkedHashSet<>();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    connection.zAdd(key, batch);
+                }
+            }
+            afterWrite(connection, board, byShard.keySet());
+            return null;
+        });
+        updatedMembers.add(scores.size());
+        merge(board, scores);
+    }
+
+    /**
+     * 前 n 名（n <= topN 时读本地快照，第一次读取时加载）
+     */
+    public List<Entry> top(String board, int n) {
+        if (n > topN) {
+            redisReads.increment();
+            List<Entry> entries = load(board, n);
+            return entries.subList(0, Math.min(n, entries.size()));
+        }
+        List<Entry> snapshot = snapshots.get(board);
+        if (snapshot == null) {
+            snapshot = refresh(board);
+        } else {
+            memoryReads.increment();
+        }
+        return snapshot.subList(0, Math.min(n, snapshot.size()));
+    }
+
+    /**
+     * 批量查询名次（从 1 开始）：第一个 Pipeline 查询分数，第二个 Pipeline 统计每个分片中分数更高的成员数
+     *
+     * @return 成员 -> 名次，不在榜上的成员不在结果中
+     */
+    public Map<String, Long> ranks(String board, Collection<String> members) {
+        List<String> memberList = new ArrayList<>(members);
+        List<Object> scores = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String member : memberList) {
+                connection.zScore(bytes(shardKey(board, shardOf(member))), bytes(member));
+            }
+            return null;
+        });
+
+        List<String> ranked = new ArrayList<>();
+        List<Double> rankedScores = new ArrayList<>();
+        for (int i = 0; i < memberList.size(); i++) {
+            if (scores.get(i) != null) {
+                ranked.add(memberList.get(i));
+                rankedScores.add(((Number) scores.get(i)).doubleValue());
+            }
+        }
+        if (ranked.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Object> counts = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Double score : rankedScores) {
+                RedisZSetCommands.Range higher = RedisZSetCommands.Range.range().gt(score);
+                for (int shard = 0; shard < shards; shard++) {
+                    connection.zCount(bytes(shardKey(board, shard)), higher);
+                }
+            }
+            return null;
+        });
+
+        Map<String, Long> ranks = new LinkedHashMap<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            long higher = 0;
+            for (int shard = 0; shard < shards; shard++) {
+                higher += ((Number) counts.get(i * shards + shard)).longValue();
+            }
+            ranks.put(ranked.get(i), higher + 1);
+        }
+        return ranks;
+    }
+
+    /**
+     * 从 Redis 重新加载快照（一个 Pipeline 读取所有分片的前 topN 名）
+     *
+     * 加载期间本实例有写入时保留合并后的快照并重新标记待刷新，返回本次加载的结果
+     */
+    public List<Entry> refresh(String board) {
+        Long version = writeVersions.get(board);
+        dirty.remove(board);
+        List<Entry> snapshot = Collections.unmodifiableList(load(board, topN));
+        synchronized (this) {
+            if (Objects.equals(version, writeVersions.get(board))) {
+                snapshots.put(board, snapshot);
+            } else {
+                snapshots.putIfAbsent(board, snapshot);
+                dirty.add(board);
+                reloadConflicts.increment();
+            }
+        }
+        reloads.increment();
+        return snapshot;
+    }
+
+    /**
+     * 删除排行榜的所有分片和本地快照
+     */
+    public void delete(String board) {
+        List<String> keys = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            keys.add(shardKey(board, shard));
+        }
+        redisTemplate.delete(keys);
+        synchronized (this) {
+            snapshots.remove(board);
+            dirty.remove(board);
+            writeVersions.remove(board);
+        }
+        if (channel != null && !channel.isEmpty()) {
+            redisTemplate.convertAndSend(channel, board + "\n" + instanceId);
+        }
+    }
+
+    /**
+     * 其他实例的变更通知：标记快照待刷新
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] body = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 2);
+        if (body.length == 2 && !instanceId.equals(body[1]) && snapshots.containsKey(body[0])) {
+            dirty.add(body[0]);
+            remoteNotifications.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shards", shards);
+        stats.put("topN", topN);
+        stats.put("boards", snapshots.keySet());
+        stats.put("dirtyBoards", dirty.size());
+        stats.put("memoryReads", memoryReads.sum());
+        stats.put("redisReads", redisReads.sum());
+        stats.put("updatedMembers", updatedMembers.sum());
+        stats.put("incrementalMerges", incrementalMerges.sum());
+        stats.put("reloads", reloads.sum());
+        stats.put("reloadConflicts", reloadConflicts.sum());
+        stats.put("remoteNotifications", remoteNotifications.sum());
+        return stats;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    private void refreshDirty() {
+        for (String board : new ArrayList<>(dirty)) {
+            try {
+                refresh(board);
+            } catch (Exception e) {
+                log.warn("排行榜快照刷新失败: {}", board, e);
+            }
+        }
+    }
+
+    private List<Entry> load(String board, int n) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int shard = 0; shard < shards; shard++) {
+                connection.zRevRangeWithScores(bytes(shardKey(board, shard)), 0, n - 1);
+            }
+            return null;
+        });
+        List<Entry> entries = new ArrayList<>();
+        for (Object result : results) {
+            for (Object tuple : (Collection<?>) result) {
+                ZSetOperations.TypedTuple<?> typed = (ZSetOperations.TypedTuple<?>) tuple;
+                entries.add(new Entry(String.valueOf(typed.getValue()), typed.getScore()));
+            }
+        }
+        entries.sort(Entry.DESCENDING);
+        return entries.size() > n ? new ArrayList<>(entries.subList(0, n)) : entries;
+    }
+
+    /**
+     * 根据本实例写入后的最新分数增量合并快照
+     *
+     * 与 refresh 的替换快照使用同一把锁；先增加写入版本号，正在进行的 refresh 据此放弃覆盖
+     */
+    private void merge(String board, Map<String, Double> scores) {
+        synchronized (this) {
+            writeVersions.merge(board, 1L, Long::sum);
+            List<Entry> snapshot = snapshots.get(board);
+            if (snapshot == null) {
+                return;
+            }
+            Map<String, Double> current = new LinkedHashMap<>();
+            snapshot.forEach(e -> current.put(e.member, e.score));
+            // 快照不满 topN 时包含了榜上的所有成员
+            double floor = snapshot.size() < topN ? Double.NEGATIVE_INFINITY : snapshot.get(snapshot.size() - 1).score;
+            for (Map.Entry<String, Double> update : scores.entrySet()) {
+                Double old = current.get(update.getKey());
+                if (old != null && update.getValue() < old) {
+                    dirty.add(board);
+                    return;
+                }
+                if (old != null || update.getValue() >= floor) {
+                    current.put(update.getKey(), update.getValue());
+                }
+            }
+            List<Entry> merged = new ArrayList<>();
+            current.forEach((member, score) -> merged.add(new Entry(member, score)));
+            merged.sort(Entry.DESCENDING);
+            snapshots.put(board, Collections.unmodifiableList(
+                    merged.size() > topN ? new ArrayList<>(merged.subList(0, topN)) : merged));
+            incrementalMerges.increment();
+        }
+    }
+
+    private void afterWrite(RedisConnection connection, String board, Collection<Integer> touched) {
+        if (ttlSeconds > 0) {
+            for (Integer shard : touched) {
+                connection.expire(bytes(shardKey(board, shard)), ttlSeconds);
+            }
+        }
+        if (channel != null && !channel.isEmpty()) {
+            connection.publish(bytes(channel), bytes(board + "\n" + instanceId));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 排行榜条目
+     */
+    public static class Entry {
+
+        static final Comparator<Entry> DESCENDING = Comparator.comparingDouble((Entry e) -> e.score).reversed()
+                .thenComparing(e -> e.member, Comparator.reverseOrder());
+
+        private final String member;
+        private final double score;
+
+        Entry(String member, double score) {
+            this.member = member;
+            this.score = score;
+        }
+
+        public String getMember() {
+            return member;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return member + "=" + score;
+        }
+    }
+}
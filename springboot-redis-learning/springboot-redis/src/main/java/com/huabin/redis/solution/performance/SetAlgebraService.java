@@ -0,0 +1,362 @@
+package com.huabin.redis.solution.performance;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 集合交并差计算（根据基数在服务端或客户端执行）
+ *
+ * 解决的问题：
+ * SINTERSTORE / SUNIONSTORE / SDIFFSTORE 在 Redis 主线程上执行，百万级集合一次要几百毫秒，期间所有请求排队
+ *
+ * 执行位置的选择：
+ * 1. 一个 Pipeline 查询所有集合的 SCARD（O(1)），估算服务端需要处理的元素数：
+ *    交集约为 最小集合 * 集合数，并集/差集约为 所有集合之和
+ * 2. 不超过 serverThreshold 时直接在服务端执行 *STORE 命令（一次往返，阻塞时间可以接受）
+ * 3. 超过时 SRANDMEMBER 抽样，成员都是 0 ~ 2^32-1 的数字 ID 才在客户端计算，否则仍然在服务端执行；
+ *    "007"、"+7" 这类写回时无法还原的成员不算数字 ID，SSCAN 时遇到也改为服务端执行
+ *
+ * 客户端计算：
+ * 1. 每个集合一个线程并行 SSCAN（每次 scanCount 个），装入 RoaringBitmap（千万级 ID 只占几 MB）
+ * 2. 在 JVM 中计算 and / or / andNot
+ * 3. 结果每 writeChunk 个成员一次 SADD，写入临时 key，全部写完后 RENAME 为目标 key，
+ *    读取方不会看到写了一半的结果；结果为空时删除目标 key（与 *STORE 命令一致）。
+ *    每次计算使用不同的临时 key，同一个 destKey 的并发计算不会写进同一个临时 key
+ *
+ * 注意：SSCAN 期间集合仍可能被修改，客户端结果是"近似快照"，适合标签圈人、离线统计这类场景
+ *
+ * @author huabin
+ */
+public class SetAlgebraService {
+
+    private static final Logger log = LoggerFactory.getLogger(SetAlgebraService.class);
+
+    private static final long MAX_MEMBER = 0xFFFFFFFFL;
+
+    /**
+     * 写回结果时每个 Pipeline 的 SADD 批数
+     */
+    private static final int PIPELINE_CHUNKS = 10;
+
+    /**
+     * 集合运算
+     */
+    public enum Operation {
+        INTERSECT, UNION, DIFF
+    }
+
+    /**
+     * 执行位置
+     */
+    public enum Mode {
+        AUTO, SERVER, CLIENT
+    }
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 服务端执行的元素数上限
+     */
+    private final long serverThreshold;
+
+    private final int scanCount;
+    private final int writeChunk;
+
+    /**
+     * 判断是否为数字 ID 时每个集合抽样的成员数
+     */
+    private final int sampleSize;
+
+    private final ExecutorService loaderPool;
+
+    private final LongAdder serverRuns = new LongAdder();
+    private final LongAdder clientRuns = new LongAdder();
+    private final LongAdder scannedMembers = new LongAdder();
+
+    public SetAlgebraService(StringRedisTemplate redisTemplate, long serverThreshold, int scanCount, int writeChunk,
+                             int sampleSize, int loaderThreads) {
+        if (scanCount <= 0 || writeChunk <= 0 || loaderThreads <= 0) {
+            throw new IllegalArgumentException("scanCount、writeChunk、loaderThreads 必须大于0");
+        }
+        this.redisTemplate = redisTemplate;
+        this.serverThreshold = serverThreshold;
+        this.scanCount = scanCount;
+        this.writeChunk = writeChunk;
+        this.sampleSize = sampleSize;
+        AtomicInteger index = new AtomicInteger();
+        this.loaderPool = Executors.newFixedThreadPool(loaderThreads, r -> {
+            Thread thread = new Thread(r, "set-algebra-loader-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void shutdown() {
+        loaderPool.shutdownNow();
+    }
+
+    public Map<String, Object> compute(Operation operation, String destKey, List<String> keys) {
+        return compute(operation, destKey, keys, Mode.AUTO);
+    }
+
+    /**
+     * 计算集合运算并把结果存入 destKey
+     *
+     * @param keys DIFF 时第一个集合减去其余集合
+     * @return 执行位置、结果大小、耗时等
+     */
+    public Map<String, Object> compute(Operation operation, String destKey, List<String> keys, Mode mode) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("keys 不能为空");
+        }
+        long start = System.currentTimeMillis();
+        List<Long> cards = cardinalities(keys);
+        long estimate = estimate(operation, cards);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("operation", operation);
+        result.put("cardinalities", cards);
+        result.put("estimatedWork", estimate);
+
+        boolean client = mode == Mode.CLIENT
+                || mode == Mode.AUTO && estimate > serverThreshold && numericMembers(keys);
+        if (client) {
+            try {
+                computeOnClient(operation, destKey, keys, result);
+                clientRuns.increment();
+            } catch (NumberFormatException e) {
+                log.warn("集合包含非数字 ID，改为服务端执行: {}", e.getMessage());
+                client = false;
+            }
+        }
+        if (!client) {
+            result.put("size", computeOnServer(operation, destKey, keys));
+            serverRuns.increment();
+        }
+        result.put("executedOn", client ? "client" : "server");
+        result.put("costMs", System.currentTimeMillis() - start);
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("serverThreshold", serverThreshold);
+        stats.put("serverRuns", serverRuns.sum());
+        stats.put("clientRuns", clientRuns.sum());
+        stats.put("scannedMembers", scannedMembers.sum());
+        return stats;
+    }
+
+    private List<Long> cardinalities(List<String> keys) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.sCard(bytes(key));
+            }
+            return null;
+        });
+        List<Long> cards = new ArrayList<>(keys.size());
+        for (Object card : results) {
+            cards.add(card == null ? 0L : ((Number) card).longValue());
+        }
+        return cards;
+    }
+
+    private static long estimate(Operation operation, List<Long> cards) {
+        if (operation == Operation.INTERSECT) {
+            return cards.stream().mapToLong(Long::longValue).min().orElse(0) * cards.size();
+        }
+        return cards.stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * 抽样判断成员是否都是 32 位无符号整数
+     */
+    private boolean numericMembers(List<String> keys) {
+        List<Object> samples = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.sRandMember(bytes(key), sampleSize);
+            }
+            return null;
+        });
+        for (Object sample : samples) {
+            for (Object member : (List<?>) sample) {
+                try {
+                    toInt(String.valueOf(member));
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private long computeOnServer(Operation operation, String destKey, List<String> keys) {
+        String first = keys.get(0);
+        List<String> others = keys.subList(1, keys.size());
+        Long size;
+        switch (operation) {
+            case INTERSECT:
+                size = redisTemplate.opsForSet().intersectAndStore(first, others, destKey);
+                break;
+            case UNION:
+                size = redisTemplate.opsForSet().unionAndStore(first, others, destKey);
+                break;
+            default:
+                size = redisTemplate.opsForSet().differenceAndStore(first, others, destKey);
+                break;
+        }
+        return size == null ? 0 : size;
+    }
+
+    private void computeOnClient(Operation operation, String destKey, List<String> keys, Map<String, Object> result) {
+        long loadStart = System.currentTimeMillis();
+        List<Future<RoaringBitmap>> futures = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            futures.add(loaderPool.submit(() -> load(key)));
+        }
+        RoaringBitmap[] bitmaps = new RoaringBitmap[keys.size()];
+        long bitmapBytes = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            bitmaps[i] = await(futures.get(i));
+            bitmapBytes += bitmaps[i].getLongSizeInBytes();
+        }
+        result.put("loadMs", System.currentTimeMillis() - loadStart);
+        result.put("bitmapBytes", bitmapBytes);
+
+        RoaringBitmap answer;
+        switch (operation) {
+            case INTERSECT:
+                answer = FastAggregation.and(bitmaps);
+                break;
+            case UNION:
+                answer = FastAggregation.or(bitmaps);
+                break;
+            default:
+                RoaringBitmap subtrahend = FastAggregation.or(Arrays.copyOfRange(bitmaps, 1, bitmaps.length));
+                answer = RoaringBitmap.andNot(bitmaps[0], subtrahend);
+                break;
+        }
+
+        long writeStart = System.currentTimeMillis();
+        write(destKey, answer);
+        result.put("writeMs", System.currentTimeMillis() - writeStart);
+        result.put("size", answer.getLongCardinality());
+    }
+
+    /**
+     * SSCAN 遍历集合装入位图
+     */
+    private RoaringBitmap load(String key) throws IOException {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        long count = 0;
+        try (Cursor<String> cursor = redisTemplate.opsForSet().scan(key,
+                ScanOptions.scanOptions().count(scanCount).build())) {
+            while (cursor.hasNext()) {
+                bitmap.add(toInt(cursor.next()));
+                count++;
+            }
+        }
+        scannedMembers.add(count);
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    /**
+     * 分批 SADD 到临时 key（每 PIPELINE_CHUNKS 批一个 Pipeline），写完后 RENAME
+     * （临时 key 用 {destKey} 作为 hash tag，集群模式下与 destKey 同 slot；写入失败时删除临时 key）
+     */
+    private void write(String destKey, RoaringBitmap answer) {
+        if (answer.isEmpty()) {
+            redisTemplate.delete(destKey);
+            return;
+        }
+        String tmp = "{" + destKey + "}:tmp:" + UUID.randomUUID();
+        byte[] tmpKey = bytes(tmp);
+        List<byte[][]> chunks = new ArrayList<>(PIPELINE_CHUNKS);
+        List<byte[]> chunk = new ArrayList<>(writeChunk);
+        IntIterator it = answer.getIntIterator();
+        try {
+            while (it.hasNext()) {
+                chunk.add(bytes(Integer.toUnsignedString(it.next())));
+                if (chunk.size() == writeChunk || !it.hasNext()) {
+                    chunks.add(chunk.toArray(new byte[0][]));
+                    chunk.clear();
+                }
+                if (chunks.size() == PIPELINE_CHUNKS || !it.hasNext()) {
+                    redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                        for (byte[][] members : chunks) {
+                            connection.sAdd(tmpKey, members);
+                        }
+                        return null;
+                    });
+                    chunks.clear();
+                }
+            }
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                connection.rename(tmpKey, bytes(destKey));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            try {
+                redisTemplate.delete(tmp);
+            } catch (RuntimeException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 成员必须是 32 位无符号整数的规范十进制写法，写回时 Integer.toUnsignedString 才能得到原来的成员
+     */
+    private static int toInt(String member) {
+        long value = Long.parseLong(member);
+        if (value < 0 || value > MAX_MEMBER) {
+            throw new NumberFormatException("超出 32 位无符号整数范围: " + member);
+        }
+        if (!Long.toString(value).equals(member)) {
+            throw new NumberFormatException("不是规范的十进制整数: " + member);
+        }
+        return (int) value;
+    }
+
+    private static RoaringBitmap await(Future<RoaringBitmap> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("集合加载被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NumberFormatException) {
+                throw (NumberFormatException) e.getCause();
+            }
+            throw new IllegalStateException("集合加载失败", e.getCause());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
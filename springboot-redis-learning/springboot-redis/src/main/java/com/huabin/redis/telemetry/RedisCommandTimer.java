@@ -0,0 +1,237 @@
+package com.huabin.redis.telemetry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 客户端 Redis 命令耗时统计（RedisTemplate 拦截器）
+ *
+ * 通过 wrap 包装 RedisTemplate 的连接工厂，返回的连接是 JDK 动态代理，
+ * 每个命令方法（get、hGet、zAdd、execute("MEMORY", ...) 等）调用前后计时：
+ * - 导出 Micrometer Timer：redis.client.command{command=GET}，带 p50/p95/p99
+ * - 保存累计次数和耗时，供 RedisTelemetryCollector 与服务端 INFO commandstats 按周期做差对比
+ *
+ * 客户端耗时 = 网络往返 + 服务端排队 + 服务端执行 + 序列化，
+ * 减去服务端 commandstats 中的执行耗时，剩下的就是网络和排队部分
+ *
+ * 不计时的情况：
+ * - Pipeline/事务中的命令（立即返回 null，没有意义），closePipeline 整体记为 PIPELINE
+ * - 连接管理方法（close、isPipelined、getNativeConnection 等）
+ *
+ * 命令名直接取方法名大写（hMSet -> HMSET），与 Redis 命令名基本一致，WithScores 后缀去掉
+ *
+ * @author huabin
+ */
+public class RedisCommandTimer {
+
+    private static final Set<String> NON_COMMANDS = new HashSet<>(Arrays.asList(
+            "close", "isClosed", "getNativeConnection", "isQueueing", "isPipelined", "openPipeline",
+            "getSentinelConnection", "isSubscribed", "getSubscription"));
+
+    private static final String PIPELINE = "PIPELINE";
+
+    private final MeterRegistry meterRegistry;
+    private final double[] percentiles;
+
+    private final Map<String, CommandTiming> timings = new ConcurrentHashMap<>();
+
+    public RedisCommandTimer(MeterRegistry meterRegistry, double[] percentiles) {
+        this.meterRegistry = meterRegistry;
+        this.percentiles = percentiles;
+    }
+
+    /**
+     * 包装连接工厂，返回的连接会统计每个命令的耗时
+     */
+    public RedisConnectionFactory wrap(RedisConnectionFactory factory) {
+        if (factory instanceof TimedConnectionFactory) {
+            return factory;
+        }
+        return new TimedConnectionFactory(factory);
+    }
+
+    /**
+     * 记录一次命令耗时
+     */
+    public void record(String command, long nanos) {
+        CommandTiming timing = timings.computeIfAbsent(command, this::newTiming);
+        timing.calls.increment();
+        timing.nanos.add(nanos);
+        timing.timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 每个命令的累计调用次数和耗时（纳秒）
+     *
+     * @return 命令 -> [调用次数, 累计纳秒]
+     */
+    public Map<String, long[]> snapshot() {
+        Map<String, long[]> snapshot = new LinkedHashMap<>();
+        timings.forEach((command, timing) -> snapshot.put(command, new long[]{timing.calls.sum(), timing.nanos.sum()}));
+        return snapshot;
+    }
+
+    /**
+     * 客户端耗时分位数（微秒）
+     */
+    public Map<String, Object> percentiles(String command) {
+        CommandTiming timing = timings.get(command);
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (timing == null) {
+            return result;
+        }
+        Arrays.stream(timing.timer.takeSnapshot().percentileValues()).forEach(v ->
+                result.put("p" + trim(v.percentile() * 100), Math.round(v.value(TimeUnit.MICROSECONDS))));
+        return result;
+    }
+
+    static String commandName(Method method, Object[] args) {
+        String name = method.getName();
+        if ("execute".equals(name) && args != null && args.length > 0 && args[0] instanceof String) {
+            return ((String) args[0]).toUpperCase(Locale.ROOT);
+        }
+        if (name.endsWith("WithScores")) {
+            name = name.substring(0, name.length() - "WithScores".length());
+        }
+        return name.toUpperCase(Locale.ROOT);
+    }
+
+    private CommandTiming newTiming(String command) {
+        Timer timer = Timer.builder("redis.client.command")
+                .description("客户端观察到的 Redis 命令耗时（含网络）")
+                .tag("command", command)
+                .publishPercentiles(percentiles)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        return new CommandTiming(timer);
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private static final class CommandTiming {
+
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final Timer timer;
+
+        CommandTiming(Timer timer) {
+            this.timer = timer;
+        }
+    }
+
+    /**
+     * 计时的连接工厂
+     */
+    private final class TimedConnectionFactory implements RedisConnectionFactory {
+
+        private final RedisConnectionFactory delegate;
+
+        TimedConnectionFactory(RedisConnectionFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public RedisConnection getConnection() {
+            return proxy(delegate.getConnection());
+        }
+
+        @Override
+        public RedisClusterConnection getClusterConnection() {
+            return proxy(delegate.getClusterConnection());
+        }
+
+        @Override
+        public boolean getConvertPipelineAndTxResults() {
+            return delegate.getConvertPipelineAndTxResults();
+        }
+
+        @Override
+        public RedisSentinelConnection getSentinelConnection() {
+            return delegate.getSentinelConnection();
+        }
+
+        @Override
+        public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+            return delegate.translateExceptionIfPossible(ex);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends RedisConnection> T proxy(T connection) {
+            Class<?>[] interfaces = ClassUtils.getAllInterfacesForClass(connection.getClass(), getClass().getClassLoader());
+            return (T) Proxy.newProxyInstance(getClass().getClassLoader(), interfaces,
+                    new TimingHandler(connection, connection));
+        }
+    }
+
+    /**
+     * 命令计时（连接本身和 stringCommands() 等返回的子命令接口都经过这里）
+     */
+    private final class TimingHandler implements InvocationHandler {
+
+        private final Object target;
+        private final RedisConnection connection;
+
+        TimingHandler(Object target, RedisConnection connection) {
+            this.target = target;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                }
+                return invokeTarget(method, args);
+            }
+            String name = method.getName();
+            Class<?> returnType = method.getReturnType();
+            if (returnType.isInterface() && returnType.getSimpleName().endsWith("Commands")) {
+                Object commands = invokeTarget(method, args);
+                return commands == null ? null : Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{returnType}, new TimingHandler(commands, connection));
+            }
+            boolean closePipeline = "closePipeline".equals(name);
+            if (NON_COMMANDS.contains(name) || (!closePipeline && (connection.isPipelined() || connection.isQueueing()))) {
+                return invokeTarget(method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invokeTarget(method, args);
+            } finally {
+                record(closePipeline ? PIPELINE : commandName(method, args), System.nanoTime() - start);
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.huabin.redis.telemetry;
+
+import io.lettuce.core.api.async.BaseRedisAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.NestedMultiOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.types.RedisClientInfo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Redis 延迟与慢查询采集器
+ *
+ * 解决的问题：
+ * 慢查询、内存、命令耗时只能手动执行 SLOWLOG GET / INFO 查看，
+ * 而且客户端看到的耗时变长时，分不清是网络（或连接池排队）慢还是 Redis 自身执行慢
+ *
+ * 每个周期采集：
+ * 1. SLOWLOG GET：只处理上次之后的新条目（按 id 去重），按命令导出 Timer redis.server.slowlog
+ * 2. LATENCY LATEST：各事件最近/最大延迟，导出 redis.server.latency{event,type}
+ * 3. INFO memory/stats：内存直接导出；累计计数（命令数、过期、淘汰、命中/未命中等）按周期做差换算成每秒速率
+ * 4. INFO commandstats：按周期做差，得到每个命令在本周期内的服务端平均执行耗时；
+ *    Redis 7 的 INFO latencystats 提供服务端分位数，一并导出
+ * 5. CLIENT LIST：连接数、阻塞连接数、最大空闲时间、输出缓冲区占用
+ *
+ * 与客户端耗时关联（RedisCommandTimer）：
+ * 同一周期内，客户端平均耗时 - 服务端平均执行耗时 = 网络 + 排队耗时，
+ * 导出 redis.command.latency{command,side=client|server|network}，并判断瓶颈在哪一侧。
+ * commandstats 是整个 Redis 实例的统计（包含其他客户端），平均值仍然可以直接比较
+ *
+ * 采集使用连接工厂的原始连接（不经过 RedisCommandTimer），采集命令不计入客户端统计。
+ * SLOWLOG 和 LATENCY 没有 Spring Data Redis API，通过 Lettuce 原生连接发送
+ *
+ * @author huabin
+ */
+public class RedisTelemetryCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisTelemetryCollector.class);
+
+    /**
+     * 按周期换算成每秒速率的 INFO stats 累计计数
+     */
+    private static final String[] RATE_FIELDS = {
+            "total_commands_processed", "total_connections_received", "rejected_connections",
+            "expired_keys", "evicted_keys", "keyspace_hits", "keyspace_misses",
+            "total_net_input_bytes", "total_net_output_bytes"};
+
+    private static final String[] MEMORY_FIELDS = {
+            "used_memory", "used_memory_rss", "used_memory_peak", "maxmemory", "mem_fragmentation_ratio"};
+
+    private static final int RECENT_SLOW_ENTRIES = 20;
+
+    private final RedisConnectionFactory connectionFactory;
+    private final MeterRegistry meterRegistry;
+    private final RedisCommandTimer commandTimer;
+    private final int slowlogFetchSize;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 导出给 Gauge 的最新值
+     */
+    private final Map<String, Double> serverValues = new ConcurrentHashMap<>();
+    private final Map<String, Double> commandValues = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> slowlogTimers = new ConcurrentHashMap<>();
+    private final Counter slowlogEntries;
+    private final Deque<Map<String, Object>> recentSlowEntries = new ArrayDeque<>();
+    private long lastSlowlogId = -1;
+
+    /**
+     * 上一次采集的累计值，用于做差
+     */
+    private long lastCollectNanos;
+    private Map<String, Long> lastStats = Collections.emptyMap();
+    private Map<String, long[]> lastServerCommands;
+    private Map<String, long[]> lastClientCommands = Collections.emptyMap();
+
+    private volatile Map<String, Object> lastReport = Collections.emptyMap();
+    private volatile boolean nativeUnsupportedLogged;
+
+    public RedisTelemetryCollector(RedisConnectionFactory connectionFactory, MeterRegistry meterRegistry,
+                                   RedisCommandTimer commandTimer, int slowlogFetchSize) {
+        this.connectionFactory = connectionFactory;
+        this.meterRegistry = meterRegistry;
+        this.commandTimer = commandTimer;
+        this.slowlogFetchSize = slowlogFetchSize;
+        this.slowlogEntries = Counter.builder("redis.server.slowlog.entries")
+                .description("新增的慢查询条数")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-telemetry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                collect();
+            } catch (Exception e) {
+                log.warn("Redis 指标采集失败: {}", e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        log.info("Redis 指标采集已启动, interval={}s", intervalSeconds);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 采集一次（定时任务调用，也可以手动触发）
+     *
+     * @return 本周期的采集结果
+     */
+    public synchronized Map<String, Object> collect() {
+        long now = System.nanoTime();
+        double seconds = lastCollectNanos == 0 ? 0 : (now - lastCollectNanos) / 1e9;
+        lastCollectNanos = now;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        RedisConnection connection = connectionFactory.getConnection();
+        try {
+            report.put("memory", collectMemory(connection));
+            report.put("rates", collectRates(connection, seconds));
+            report.put("commands", collectCommands(connection));
+            report.put("clients", collectClients(connection));
+            report.put("slowlog", collectSlowlog(connection));
+            report.put("latency", collectLatency(connection));
+        } finally {
+            connection.close();
+        }
+        lastReport = report;
+        return report;
+    }
+
+    /**
+     * 最近一次采集结果
+     */
+    public Map<String, Object> getLastReport() {
+        return lastReport;
+    }
+
+    // ==================== INFO memory / stats ====================
+
+    private Map<String, Object> collectMemory(RedisConnection connection) {
+        Properties memory = connection.info("memory");
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String field : MEMORY_FIELDS) {
+            Double value = number(memory, field);
+            if (value != null) {
+                setServerGauge("redis.server.memory", "field", field, value);
+                result.put(field, value);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Object> collectRates(RedisConnection connection, double seconds) {
+        Properties stats = connection.info("stats");
+        Map<String, Long> current = new HashMap<>();
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String field : RATE_FIELDS) {
+            Double value = number(stats, field);
+            if (value == null) {
+                continue;
+            }
+            current.put(field, value.longValue());
+            Long previous = lastStats.get(field);
+            if (previous != null && seconds > 0) {
+                // 计数回退说明 Redis 重启或执行了 CONFIG RESETSTAT
+                double rate = Math.max(0, value.longValue() - previous) / seconds;
+                setServerGauge("redis.server.rate", "field", field, rate);
+                result.put(field + "_per_sec", Math.round(rate * 100) / 100.0);
+            }
+        }
+        lastStats = current;
+        return result;
+    }
+
+    // ==================== INFO commandstats + 客户端耗时 ====================
+
+    private Map<String, Object> collectCommands(RedisConnection connection) {
+        Map<String, long[]> server = parseCommandStats(connection.info("commandstats"));
+        Map<String, long[]> client = commandTimer.snapshot();
+        Map<String, Map<String, Double>> serverPercentiles = parseLatencyStats(connection);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : client.entrySet()) {
+            String command = entry.getKey();
+            long[] clientNow = entry.getValue();
+            long[] clientBefore = lastClientCommands.getOrDefault(command, new long[2]);
+            long clientCalls = clientNow[0] - clientBefore[0];
+            if (clientCalls <= 0) {
+                continue;
+            }
+            double clientAvgUs = (clientNow[1] - clientBefore[1]) / 1000.0 / clientCalls;
+
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("calls", clientCalls);
+            item.put("clientAvgUs", round(clientAvgUs));
+            item.put("clientPercentilesUs", commandTimer.percentiles(command));
+            setCommandGauge(command, "client", clientAvgUs);
+
+            long[] serverNow = server.get(command);
+            // 第一次采集没有基准；之后新出现的命令基准为 0
+            long[] serverBefore = lastServerCommands == null ? null : lastServerCommands.getOrDefault(command, new long[2]);
+            if (serverNow != null && serverBefore != null && serverNow[0] > serverBefore[0]) {
+                double serverAvgUs = (double) (serverNow[1] - serverBefore[1]) / (serverNow[0] - serverBefore[0]);
+                double networkUs = Math.max(0, clientAvgUs - serverAvgUs);
+                item.put("serverAvgUs", round(serverAvgUs));
+                item.put("networkAvgUs", round(networkUs));
+                item.put("bottleneck", serverAvgUs >= networkUs ? "server" : "network");
+                setCommandGauge(command, "server", serverAvgUs);
+                setCommandGauge(command, "network", networkUs);
+            }
+            Map<String, Double> percentiles = serverPercentiles.get(command);
+            if (percentiles != null) {
+                item.put("serverPercentilesUs", percentiles);
+                percentiles.forEach((p, v) -> setServerGauge("redis.server.command.percentile",
+                        "command", command + "|" + p, v));
+            }
+            result.put(command, item);
+        }
+        lastServerCommands = server;
+        lastClientCommands = client;
+        return result;
+    }
+
+    /**
+     * cmdstat_get:calls=10,usec=35,usec_per_call=3.50,... -> GET -> [calls, usec]
+     */
+    static Map<String, long[]> parseCommandStats(Properties commandStats) {
+        Map<String, long[]> result = new HashMap<>();
+        for (String key : commandStats.stringPropertyNames()) {
+            if (!key.startsWith("cmdstat_")) {
+                continue;
+            }
+            Map<String, String> fields = parseFields(commandStats.getProperty(key), ",");
+            String command = key.substring("cmdstat_".length()).toUpperCase(Locale.ROOT);
+            result.put(command, new long[]{parseLong(fields.get("calls")), parseLong(fields.get("usec"))});
+        }
+        return result;
+    }
+
+    /**
+     * Redis 7：latency_percentiles_usec_get:p50=1.003,p99=2.007,p99.9=3.007
+     */
+    private Map<String, Map<String, Double>> parseLatencyStats(RedisConnection connection) {
+        Map<String, Map<String, Double>> result = new HashMap<>();
+        Properties latencyStats;
+        try {
+            latencyStats = connection.info("latencystats");
+        } catch (Exception e) {
+            return result;
+        }
+        for (String key : latencyStats.stringPropertyNames()) {
+            if (!key.startsWith("latency_percentiles_usec_")) {
+                continue;
+            }
+            String command = key.substring("latency_percentiles_usec_".length()).toUpperCase(Locale.ROOT);
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            parseFields(latencyStats.getProperty(key), ",").forEach((p, v) -> percentiles.put(p, Double.parseDouble(v)));
+            result.put(command, percentiles);
+        }
+        return result;
+    }
+
+    // ==================== CLIENT LIST ====================
+
+    private Map<String, Object> collectClients(RedisConnection connection) {
+        List<RedisClientInfo> clients = connection.getClientList();
+        long blocked = 0;
+        long maxIdle = 0;
+        long outputMemory = 0;
+        long queryBuffer = 0;
+        for (RedisClientInfo client : clients) {
+            String flags = client.getFlags();
+            if (flags != null && flags.contains("b")) {
+                blocked++;
+            }
+            maxIdle = Math.max(maxIdle, orZero(client.getIdle()));
+            outputMemory += orZero(client.getOutputBufferMemoryUsage());
+            queryBuffer += orZero(client.getBufferLength());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("connected", clients.size());
+        result.put("blocked", blocked);
+        result.put("maxIdleSeconds", maxIdle);
+        result.put("outputMemoryBytes", outputMemory);
+        result.put("queryBufferBytes", queryBuffer);
+        result.forEach((field, value) -> setServerGauge("redis.server.clients", "field", field,
+                ((Number) value).doubleValue()));
+        return result;
+    }
+
+    // ==================== SLOWLOG / LATENCY ====================
+
+    private Map<String, Object> collectSlowlog(RedisConnection connection) {
+        List<Object> entries = nativeCommand(connection, "SLOWLOG", "GET", String.valueOf(slowlogFetchSize));
+        long newest = lastSlowlogId;
+        int added = 0;
+        // SLOWLOG GET 返回最新的在前，倒序处理保证 recentSlowEntries 的顺序
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            List<?> entry = (List<?>) entries.get(i);
+            long id = ((Number) entry.get(0)).longValue();
+            if (id <= lastSlowlogId && lastSlowlogId >= 0) {
+                continue;
+            }
+            newest = Math.max(newest, id);
+            long durationUs = ((Number) entry.get(2)).longValue();
+            List<?> args = (List<?>) entry.get(3);
+            String command = args.isEmpty() ? "UNKNOWN" : string(args.get(0)).toUpperCase(Locale.ROOT);
+            slowlogTimers.computeIfAbsent(command, c -> Timer.builder("redis.server.slowlog")
+                    .description("慢查询执行耗时（服务端）")
+                    .tag("command", c)
+                    .register(meterRegistry))
+                    .record(durationUs, TimeUnit.MICROSECONDS);
+            slowlogEntries.increment();
+            added++;
+
+            Map<String, Object> slow = new LinkedHashMap<>();
+            slow.put("id", id);
+            slow.put("timestamp", entry.get(1));
+            slow.put("durationUs", durationUs);
+            slow.put("args", describeArgs(args));
+            recentSlowEntries.addFirst(slow);
+            while (recentSlowEntries.size() > RECENT_SLOW_ENTRIES) {
+                recentSlowEntries.removeLast();
+            }
+        }
+        lastSlowlogId = newest;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("newEntries", added);
+        result.put("recent", new ArrayList<>(recentSlowEntries));
+        return result;
+    }
+
+    private Map<String, Object> collectLatency(RedisConnection connection) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Object item : nativeCommand(connection, "LATENCY", "LATEST")) {
+            List<?> event = (List<?>) item;
+            String name = string(event.get(0));
+            long latestMs = ((Number) event.get(2)).longValue();
+            long maxMs = ((Number) event.get(3)).longValue();
+            setServerGauge("redis.server.latency", "event", name + "|latest", latestMs);
+            setServerGauge("redis.server.latency", "event", name + "|max", maxMs);
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("latestMs", latestMs);
+            value.put("maxMs", maxMs);
+            result.put(name, value);
+        }
+        return result;
+    }
+
+    /**
+     * 通过 Lettuce 原生连接发送没有 Spring Data Redis API 的命令，返回嵌套数组
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> nativeCommand(RedisConnection connection, String command, String... args) {
+        Object nativeConnection = connection.getNativeConnection();
+        if (!(nativeConnection instanceof BaseRedisAsyncCommands)) {
+            if (!nativeUnsupportedLogged) {
+                nativeUnsupportedLogged = true;
+                log.warn("当前连接不是 Lettuce，跳过 {} 采集", command);
+            }
+            return Collections.emptyList();
+        }
+        BaseRedisAsyncCommands<byte[], byte[]> commands = (BaseRedisAsyncCommands<byte[], byte[]>) nativeConnection;
+        CommandArgs<byte[], byte[]> commandArgs = new CommandArgs<>(ByteArrayCodec.INSTANCE);
+        for (String arg : args) {
+            commandArgs.add(arg);
+        }
+        try {
+            List<Object> result = commands.dispatch(new Keyword(command),
+                    new NestedMultiOutput<>(ByteArrayCodec.INSTANCE), commandArgs).get(5, TimeUnit.SECONDS);
+            return result == null ? Collections.emptyList() : result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } catch (Exception e) {
+            log.debug("{} 执行失败: {}", command, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    // ==================== Gauge ====================
+
+    private void setServerGauge(String name, String tagKey, String tagValue, double value) {
+        String id = name + "|" + tagKey + "|" + tagValue;
+        if (serverValues.put(id, value) == null) {
+            registerGauge(name, id, tagKey, tagValue, serverValues);
+        }
+    }
+
+    private void setCommandGauge(String command, String side, double micros) {
+        String id = command + "|" + side;
+        if (commandValues.put(id, micros) == null) {
+            Gauge.builder("redis.command.latency", commandValues, values -> values.getOrDefault(id, 0.0))
+                    .description("每个采集周期内的命令平均耗时（微秒），side=client/server/network")
+                    .tags("command", command, "side", side)
+                    .baseUnit("microseconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    private void registerGauge(String name, String id, String tagKey, String tagValue, Map<String, Double> values) {
+        ToDoubleFunction<Map<String, Double>> reader = v -> v.getOrDefault(id, 0.0);
+        Gauge.Builder<Map<String, Double>> builder = Gauge.builder(name, values, reader);
+        int split = tagValue.indexOf('|');
+        if (split > 0) {
+            // command|p99、event|max 这类值拆成两个 tag
+            builder.tags(tagKey, tagValue.substring(0, split), "type", tagValue.substring(split + 1));
+        } else {
+            builder.tag(tagKey, tagValue);
+        }
+        builder.register(meterRegistry);
+    }
+
+    // ==================== 解析工具 ====================
+
+    private static Map<String, String> parseFields(String value, String separator) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String part : value.split(separator)) {
+            int eq = part.indexOf('=');
+            if (eq > 0) {
+                fields.put(part.substring(0, eq), part.substring(eq + 1));
+            }
+        }
+        return fields;
+    }
+
+    private static Double number(Properties properties, String field) {
+        String value = properties == null ? null : properties.getProperty(field);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static long parseLong(String value) {
+        return value == null ? 0 : (long) Double.parseDouble(value);
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String string(Object value) {
+        return value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    private static String describeArgs(List<?> args) {
+        StringBuilder sb = new StringBuilder();
+        for (Object arg : args) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(string(arg));
+            if (sb.length() > 128) {
+                sb.setLength(128);
+                sb.append("...");
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Lettuce CommandType 中没有的命令
+     */
+    private static final class Keyword implements ProtocolKeyword {
+
+        private final String name;
+        private final byte[] bytes;
+
+        Keyword(String name) {
+            this.name = name;
+            this.bytes = name.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+    }
+}
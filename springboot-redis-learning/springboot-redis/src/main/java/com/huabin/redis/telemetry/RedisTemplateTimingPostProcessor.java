@@ -0,0 +1,38 @@
+package com.huabin.redis.telemetry;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 为所有 RedisTemplate（包括 StringRedisTemplate）的连接工厂加上命令计时
+ *
+ * 说明：
+ * 1. 只替换 RedisTemplate 使用的连接工厂，RedisConnectionFactory Bean 本身不变，
+ *    CacheManager、健康检查、指标采集等直接使用连接工厂的地方不计时
+ * 2. RedisCommandTimer 通过 ObjectProvider 延迟获取，避免 BeanPostProcessor 过早初始化 MeterRegistry
+ *
+ * @author huabin
+ */
+public class RedisTemplateTimingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<RedisCommandTimer> timerProvider;
+
+    public RedisTemplateTimingPostProcessor(ObjectProvider<RedisCommandTimer> timerProvider) {
+        this.timerProvider = timerProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof RedisTemplate) {
+            RedisTemplate<?, ?> template = (RedisTemplate<?, ?>) bean;
+            RedisConnectionFactory factory = template.getConnectionFactory();
+            if (factory != null) {
+                template.setConnectionFactory(timerProvider.getObject().wrap(factory));
+            }
+        }
+        return bean;
+    }
+}
@@ -1,13 +1,13 @@
 package com.huabin.redis;
 
+import com.huabin.redis.fake.FakeRedisInitializer;
 import com.huabin.redis.model.User;
 import com.huabin.redis.service.PipelineAdvancedService;
 import com.huabin.redis.service.PipelineService;
-import org.junit.Test;
-import org.junit.runner.RunWith;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.ContextConfiguration;
 
 import java.util.*;
 
@@ -15,10 +15,10 @@ import java.util.*;
  * Pipeline 服务测试类
  * 
  * @author huabin
- * @description 测试 Pipeline 的各种功能
+ * @description 测试 Pipeline 的各种功能（连接进程内的 FakeRedisServer，不依赖外部 Redis）
  */
-@RunWith(SpringRunner.class)
 @SpringBootTest
+@ContextConfiguration(initializers = FakeRedisInitializer.class)
 public class PipelineServiceTest {
     
     @Autowired
@@ -55,9 +55,9 @@ public class PipelineServiceTest {
         for (int i = 1; i <= 100; i++) {
             User user = new User();
             user.setId((long) i);
-            user.setName("测试用户" + i);
+            user.setUsername("测试用户" + i);
             user.setEmail("test" + i + "@example.com");
-            user.setAge(20 + (i % 50));
+            user.setLevel(1 + (i % 5));
             users.add(user);
         }
         
@@ -88,7 +88,7 @@ public class PipelineServiceTest {
         System.out.println("查询 " + userIds.size() + " 个用户，耗时: " + cost + "ms");
         System.out.println("查询结果: " + users.size() + " 个用户");
         for (User user : users) {
-            System.out.println("  - " + user.getName() + " (" + user.getEmail() + ")");
+            System.out.println("  - " + user.getUsername() + " (" + user.getEmail() + ")");
         }
     }
     
@@ -0,0 +1,103 @@
+package com.huabin.redis.controller;
+
+import com.huabin.redis.fake.FakeRedisInitializer;
+import com.huabin.redis.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 响应式 Controller 测试（连接进程内的 FakeRedisServer）
+ *
+ * @author huabin
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = FakeRedisInitializer.class)
+public class ReactiveRedisControllerTest {
+
+    @Autowired
+    private RedisController redisController;
+
+    @Autowired
+    private ReactiveRedisController reactiveRedisController;
+
+    @Autowired
+    private ReactivePipelineController reactivePipelineController;
+
+    @Autowired
+    private FakeRedisServer fakeRedisServer;
+
+    @AfterEach
+    void tearDown() {
+        fakeRedisServer.resetFaults();
+    }
+
+    @Test
+    void sameDataAsBlockingController() {
+        redisController.set("reactive:k1", "v1");
+        assertEquals("v1", reactiveRedisController.get("reactive:k1").block());
+
+        assertEquals("success", reactiveRedisController.setex("reactive:k2", "v2", 60).block());
+        assertEquals("v2", redisController.get("reactive:k2"));
+        assertTrue(reactiveRedisController.ttl("reactive:k2").block() > 50);
+        assertEquals(-1L, reactiveRedisController.ttl("reactive:k1").block());
+        assertEquals(-2L, reactiveRedisController.ttl("reactive:none").block());
+
+        assertEquals(1L, reactiveRedisController.incr("reactive:counter").block());
+        assertEquals(2L, redisController.incr("reactive:counter"));
+        assertEquals(1L, reactiveRedisController.decr("reactive:counter").block());
+
+        assertTrue(reactiveRedisController.expire("reactive:k1", 30).block());
+        assertTrue(reactiveRedisController.delete("reactive:k1").block());
+        assertFalse(reactiveRedisController.exists("reactive:k1").block());
+        assertFalse(redisController.exists("reactive:k1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchUsersUseOneMultiGet() {
+        assertEquals(50, reactivePipelineController.batchInsertUsers(50).block().get("count"));
+        Map<String, Object> result = reactivePipelineController.batchGetUsers("1,2,50,9999").block();
+        assertEquals(3, ((List<Object>) result.get("users")).size());
+    }
+
+    /**
+     * 2000 个并发请求，每次往返 20ms：共享一个连接，不为每个请求创建线程
+     */
+    @Test
+    void thousandsOfConcurrentRequestsWithoutThreadPerRequest() {
+        redisController.set("reactive:hot", "value");
+        fakeRedisServer.setLatency(Duration.ofMillis(20), Duration.ZERO);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int before = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        long start = System.currentTimeMillis();
+
+        Long count = Flux.range(0, 2000)
+                .flatMap(i -> reactiveRedisController.get("reactive:hot"), 2000)
+                .filter("value"::equals)
+                .count()
+                .block(Duration.ofSeconds(30));
+
+        long costMs = System.currentTimeMillis() - start;
+        assertEquals(2000L, count);
+        // 串行需要 40 秒
+        assertTrue(costMs < 5000, "costMs=" + costMs);
+        assertTrue(threads.getPeakThreadCount() - before < 50,
+                "before=" + before + ", peak=" + threads.getPeakThreadCount());
+    }
+}
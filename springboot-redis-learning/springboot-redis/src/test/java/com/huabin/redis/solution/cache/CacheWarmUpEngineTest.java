@@ -0,0 +1,129 @@
+package com.huabin.redis.solution.cache;
+
+import com.huabin.redis.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 缓存预热引擎测试（连接进程内的 FakeRedisServer）
+ *
+ * @author huabin
+ */
+public class CacheWarmUpEngineTest {
+
+    private FakeRedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisTemplate<String, Object> redisTemplate;
+    private CacheWarmUpEngine engine;
+
+    private final AtomicInteger dbQueries = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getPort()));
+        connectionFactory.afterPropertiesSet();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new GenericToStringSerializer<>(Object.class));
+        redisTemplate.afterPropertiesSet();
+
+        StaggeredTtlScheduler scheduler = new StaggeredTtlScheduler(3600, 300, 0.01);
+        engine = new CacheWarmUpEngine(redisTemplate, scheduler, 50, 4, 200, 120, 2, 1000);
+        engine.register("product", "product:", ids -> {
+            dbQueries.incrementAndGet();
+            Map<Long, String> values = new LinkedHashMap<>();
+            ids.forEach(id -> values.put(id, "商品" + id));
+            return values;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void assignRespectsMaxBucketRatio() {
+        StaggeredTtlScheduler scheduler = new StaggeredTtlScheduler(3600, 300, 0.01);
+        for (int count : new int[]{1, 99, 300, 1000, 10000, 50000}) {
+            long[] ttls = scheduler.assign(count);
+            double limit = Math.max(0.01, 1.0 / count);
+            assertTrue(StaggeredTtlScheduler.maxBucketShare(ttls) <= limit, "count=" + count);
+            for (long ttl : ttls) {
+                assertTrue(ttl >= 3600 && ttl < 3600 + scheduler.windowFor(count));
+            }
+        }
+    }
+
+    @Test
+    void warmUpLoadsPagesAndWritesWithStaggeredTtl() {
+        Map<String, Object> result = engine.warmUp("product", ids(1000));
+
+        assertEquals(1000, result.get("loaded"));
+        assertEquals(20, dbQueries.get());
+        assertEquals("商品7", redisTemplate.opsForValue().get("product:7"));
+        long ttl = redisTemplate.getExpire("product:7", TimeUnit.SECONDS);
+        assertTrue(ttl > 3500 && ttl <= 3900);
+        // 每页查完写一个 Pipeline
+        assertEquals(20, result.get("pipelineBatches"));
+        assertEquals(1000, server.commandCount("SETEX"));
+    }
+
+    @Test
+    void refreshOnlyHotKeysNearExpiry() {
+        engine.warmUp("product", ids(100));
+        dbQueries.set(0);
+
+        // 1~10 是热 key，11 只访问一次
+        for (long id = 1; id <= 10; id++) {
+            engine.recordAccess("product", id);
+            engine.recordAccess("product", id);
+        }
+        engine.recordAccess("product", 11L);
+
+        // 还没到提前刷新的时间，不查库
+        assertEquals(0, engine.refreshExpiring().get("product"));
+
+        for (long id = 1; id <= 11; id++) {
+            engine.recordAccess("product", id);
+            engine.recordAccess("product", id);
+        }
+        server.advanceClock(Duration.ofSeconds(3600 + 300 - 100));
+
+        Map<String, Object> refreshed = engine.refreshExpiring();
+        assertEquals(11, refreshed.get("product"));
+        assertEquals(1, dbQueries.get());
+        assertTrue(redisTemplate.getExpire("product:1", TimeUnit.SECONDS) > 3500);
+    }
+
+    private static List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (long i = 1; i <= count; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,133 @@
+package com.huabin.redis.solution.cache;
+
+import com.huabin.redis.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Redis 熔断器测试（FakeRedisServer 注入延迟模拟 Redis 抖动）
+ *
+ * @author huabin
+ */
+public class RedisCircuitBreakerTest {
+
+    private FakeRedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.opsForValue().set("k", "v");
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void brownoutOpensBreakerAndBoundsLatency() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(10, 5, 0.5, 20, 0.8, 60_000, 1, 50, 16);
+        server.setLatency(Duration.ofMillis(500), Duration.ZERO);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RedisUnavailableException.class, () -> breaker.call(() -> redisTemplate.opsForValue().get("k")));
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 每次调用最多等待 callTimeoutMs，而不是 Redis 的 500ms
+        assertTrue(elapsedMs < 5 * 300, "elapsed=" + elapsedMs);
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+
+        // 打开后直接拒绝，不再访问 Redis
+        long before = server.totalCommands();
+        start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            assertThrows(RedisUnavailableException.class, () -> breaker.call(() -> redisTemplate.opsForValue().get("k")));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 200);
+        assertEquals(before, server.totalCommands());
+        assertEquals(100L, breaker.getStats().get("rejectedCalls"));
+        breaker.shutdown();
+    }
+
+    @Test
+    void halfOpenTrialClosesAfterRecovery() throws InterruptedException {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(10, 4, 0.5, 1000, 1.0, 100, 2, 0, 0);
+        server.setAvailable(false);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RedisUnavailableException.class, () -> breaker.call(() -> redisTemplate.opsForValue().get("k")));
+        }
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+
+        // 打开期间 Redis 仍不可用：试探失败，重新打开
+        Thread.sleep(150);
+        assertEquals(RedisCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertThrows(RedisUnavailableException.class, () -> breaker.call(() -> redisTemplate.opsForValue().get("k")));
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+
+        // Redis 恢复：两次试探成功后关闭
+        server.setAvailable(true);
+        Thread.sleep(150);
+        assertEquals("v", breaker.call(() -> redisTemplate.opsForValue().get("k")));
+        assertEquals("v", breaker.call(() -> redisTemplate.opsForValue().get("k")));
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2L, breaker.getStats().get("openTransitions"));
+    }
+
+    @Test
+    void bulkheadRejectionDoesNotCountAsFailure() throws Exception {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(10, 1, 0.5, 1000, 1.0, 60_000, 1, 1000, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> breaker.call(() -> {
+            started.countDown();
+            release.await();
+            return redisTemplate.opsForValue().get("k");
+        }));
+        holder.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 舱壁已满：直接降级，不计入失败率，也不打开熔断器
+        for (int i = 0; i < 10; i++) {
+            assertThrows(RedisUnavailableException.class, () -> breaker.call(() -> redisTemplate.opsForValue().get("k")));
+        }
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(10L, breaker.getStats().get("bulkheadRejections"));
+        assertEquals(0L, breaker.getStats().get("windowFailures"));
+
+        release.countDown();
+        holder.join();
+        // 执行线程回到线程池之前提交仍会被拒绝，重试直到成功
+        String value = null;
+        for (int i = 0; i < 100 && value == null; i++) {
+            try {
+                value = breaker.call(() -> redisTemplate.opsForValue().get("k"));
+            } catch (RedisUnavailableException e) {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals("v", value);
+        assertEquals(2L, breaker.getStats().get("windowCalls"));
+        assertEquals(0L, breaker.getStats().get("windowFailures"));
+        breaker.shutdown();
+    }
+}
@@ -0,0 +1,158 @@
+package com.huabin.redis.solution.memory;
+
+import com.huabin.redis.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 定长时间线测试（连接进程内的 FakeRedisServer）
+ *
+ * @author huabin
+ */
+public class CappedFeedStoreTest {
+
+    private FakeRedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private CappedFeedStore store;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        store = new CappedFeedStore(redisTemplate, "user:feeds:", 100, 20, 3600, 100, 50, 100000, 100000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void bufferedAppendTrimsAndPagesByCursor() {
+        for (long id = 1; id <= 119; id++) {
+            store.push(1, id, "post_" + id);
+        }
+        // 未超过 maxLength + trimSlack，不裁剪
+        assertEquals(119L, store.size(1));
+
+        for (long id = 120; id <= 250; id++) {
+            store.append(1, id, "post_" + id);
+        }
+        assertEquals(131, store.flush());
+        assertEquals(100L, store.size(1));
+        assertTrue(redisTemplate.getExpire("user:feeds:1") > 3500);
+
+        CappedFeedStore.FeedPage first = store.page(1, null, 10);
+        assertEquals(Arrays.asList("post_250", "post_249", "post_248", "post_247", "post_246",
+                "post_245", "post_244", "post_243", "post_242", "post_241"), first.getItems());
+        assertEquals(241L, first.getNextCursor());
+
+        // 新数据插入不影响第二页
+        store.push(1, 251, "post_251");
+        CappedFeedStore.FeedPage second = store.page(1, first.getNextCursor(), 10);
+        assertEquals("post_240", second.getItems().get(0));
+
+        CappedFeedStore.FeedPage last = store.page(1, 160L, 10);
+        assertEquals(9, last.getItems().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void failedFlushKeepsItemsBuffered() {
+        for (long id = 1; id <= 10; id++) {
+            store.append(1, id, "post_" + id);
+        }
+        server.setFailureRate(1, "EVALSHA");
+        assertThrows(RuntimeException.class, store::flush);
+        assertEquals(10, store.getStats().get("buffered"));
+        assertEquals(1L, store.getStats().get("flushFailures"));
+
+        // 失败期间追加的条目与放回的条目一起写入
+        store.append(1, 11, "post_11");
+        server.resetFaults();
+        assertEquals(11, store.flush());
+        assertEquals(11L, store.size(1));
+        assertEquals(0, store.getStats().get("buffered"));
+    }
+
+    @Test
+    void failedFlushDropsOldestBeyondMaxPending() {
+        store.shutdown();
+        store = new CappedFeedStore(redisTemplate, "user:feeds:", 100, 20, 3600, 100, 50, 5, 5);
+        for (long id = 1; id <= 8; id++) {
+            store.append(1, id, "post_" + id);
+        }
+        server.setFailureRate(1, "EVALSHA");
+        assertThrows(RuntimeException.class, store::flush);
+        assertEquals(5, store.getStats().get("buffered"));
+        assertEquals(3L, store.getStats().get("droppedItems"));
+
+        server.resetFaults();
+        assertEquals(5, store.flush());
+        // 丢弃的是最早缓冲的 3 条
+        assertEquals(Arrays.asList("post_8", "post_7", "post_6", "post_5", "post_4"),
+                store.page(1, null, 10).getItems());
+    }
+
+    @Test
+    void appendsBeyondMaxBufferedKeepTriggeringFlush() throws InterruptedException {
+        // 不启动定时刷新，只靠缓冲满触发
+        store.shutdown();
+        store = new CappedFeedStore(redisTemplate, "user:feeds:", 100, 20, 3600, 100, 50, 3, 100);
+        server.setFailureRate(1, "EVALSHA");
+        for (long id = 1; id <= 3; id++) {
+            store.append(1, id, "post_" + id);
+        }
+        waitUntil(() -> (Long) store.getStats().get("flushFailures") >= 1);
+
+        // 计数已超过 maxBuffered，后续追加仍然触发刷新
+        server.resetFaults();
+        store.append(1, 4, "post_4");
+        waitUntil(() -> (Integer) store.getStats().get("buffered") == 0);
+        assertEquals(4L, store.size(1));
+    }
+
+    @Test
+    void fanOutBatchesFollowersIntoPipelinedScripts() {
+        List<Long> followers = new ArrayList<>();
+        for (long id = 1; id <= 6000; id++) {
+            followers.add(id);
+        }
+        // 每个脚本 100 个 key，每个 Pipeline 50 个脚本
+        assertEquals(2, store.fanOut(followers, 1000, "post_1000"));
+        assertEquals(1, store.fanOut(followers.subList(0, 1000), 1001, "post_1001"));
+
+        assertEquals(Arrays.asList("post_1001", "post_1000"), store.page(1, null, 10).getItems());
+        assertEquals(Arrays.asList("post_1000"), store.page(6000, null, 10).getItems());
+        assertEquals(70L, store.getStats().get("scriptCalls"));
+        assertEquals(7000L, store.getStats().get("fanOutKeys"));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.huabin.redis.solution.memory;
+
+import com.huabin.redis.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hash 分桶存储测试（连接进程内的 FakeRedisServer）
+ *
+ * @author huabin
+ */
+public class HashBucketStoreTest {
+
+    private FakeRedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private HashBucketStore store;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        store = new HashBucketStore(redisTemplate, "session:bucket:", 100, 1800, 64, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void putGetMultiGetAndRemove() {
+        store.put(12345, "data_12345");
+        assertEquals("session:bucket:123", store.bucketKey(12345));
+        assertEquals("45", store.field(12345));
+        assertEquals("data_12345", store.get(12345));
+        assertEquals("data_12345", redisTemplate.opsForHash().get("session:bucket:123", "45"));
+        assertTrue(store.ttl(12345) > 1700);
+
+        Map<Long, String> values = new LinkedHashMap<>();
+        for (long id = 1; id <= 1000; id++) {
+            values.put(id, "data_" + id);
+        }
+        assertEquals(11, store.putAll(values));
+
+        Map<Long, String> read = store.multiGet(Arrays.asList(1L, 99L, 100L, 999L, 1000L, 5000L));
+        assertEquals(5, read.size());
+        assertEquals("data_100", read.get(100L));
+        assertNull(read.get(5000L));
+
+        assertTrue(store.remove(99));
+        assertFalse(store.remove(99));
+        assertNull(store.get(99));
+    }
+
+    @Test
+    void bucketsUseLessMemoryThanOneKeyPerObject() {
+        int count = 10000;
+        Map<Long, String> sessions = new LinkedHashMap<>();
+        List<String> plainKeys = new ArrayList<>();
+        for (long id = 0; id < count; id++) {
+            sessions.put(id, "user_session_data_" + id);
+            plainKeys.add("session:" + id);
+            redisTemplate.opsForValue().set("session:" + id, "user_session_data_" + id);
+        }
+        store.putAll(sessions);
+
+        List<String> bucketKeys = new ArrayList<>();
+        for (long bucket = 0; bucket < count / 100; bucket++) {
+            bucketKeys.add("session:bucket:" + bucket);
+        }
+        long plain = store.memoryUsage(plainKeys).values().stream().mapToLong(Long::longValue).sum();
+        long bucketed = store.memoryUsage(bucketKeys).values().stream().mapToLong(Long::longValue).sum();
+
+        assertEquals("ziplist", store.encoding(0));
+        assertTrue(bucketed * 2 < plain, "plain=" + plain + ", bucketed=" + bucketed);
+        assertEquals(true, store.checkEncodingLimits().get("compact"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.huabin.redis.solution.performance;
+
+import com.huabin.redis.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ZSET 排行榜测试（连接进程内的 FakeRedisServer）
+ *
+ * @author huabin
+ */
+public class LeaderboardServiceTest {
+
+    private FakeRedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer container;
+    private LeaderboardService writer;
+    private LeaderboardService reader;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        writer = new LeaderboardService(redisTemplate, "leaderboard:", 4, 10, 100, 0, "leaderboard:changed");
+        reader = new LeaderboardService(redisTemplate, "leaderboard:", 4, 10, 100, 0, "leaderboard:changed");
+        reader.start(20);
+
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(reader, new ChannelTopic(reader.getChannel()));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writer.shutdown();
+        reader.shutdown();
+        container.destroy();
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void shardedTopNRanksAndIncrementalMerge() {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (int i = 1; i <= 1000; i++) {
+            scores.put("member" + i, (double) i);
+        }
+        writer.setAll("score", scores);
+
+        assertEquals(Arrays.asList("member1000", "member999", "member998"),
+                writer.top("score", 3).stream().map(LeaderboardService.Entry::getMember).collect(Collectors.toList()));
+        assertEquals(30, writer.top("score", 30).size());
+
+        Map<String, Long> ranks = writer.ranks("score", Arrays.asList("member1000", "member1", "member500", "nobody"));
+        assertEquals(1L, ranks.get("member1000"));
+        assertEquals(1000L, ranks.get("member1"));
+        assertEquals(501L, ranks.get("member500"));
+        assertFalse(ranks.containsKey("nobody"));
+
+        // 分数上升：增量合并，不重新加载
+        Map<String, Double> deltas = new LinkedHashMap<>();
+        deltas.put("member1", 5000.0);
+        deltas.put("member2", 1.0);
+        assertEquals(5001.0, writer.incrementAll("score", deltas).get("member1"));
+        assertEquals("member1", writer.top("score", 1).get(0).getMember());
+        assertEquals(1L, writer.getStats().get("reloads"));
+        assertEquals(1L, writer.getStats().get("incrementalMerges"));
+
+        // 快照中的成员分数下降：重新加载后 member1000 回到第一
+        writer.incrementAll("score", Collections.singletonMap("member1", -5000.0));
+        assertEquals(1, writer.getStats().get("dirtyBoards"));
+        writer.refresh("score");
+        assertEquals("member1000", writer.top("score", 1).get(0).getMember());
+        assertEquals(2L, writer.getStats().get("reloads"));
+    }
+
+    @Test
+    void remoteChangeNotificationRefreshesSnapshot() throws InterruptedException {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (int i = 1; i <= 100; i++) {
+            scores.put("member" + i, (double) i);
+        }
+        writer.setAll("daily", scores);
+        assertEquals("member100", reader.top("daily", 1).get(0).getMember());
+
+        writer.incrementAll("daily", Collections.singletonMap("member7", 1000.0));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"member7".equals(reader.top("daily", 1).get(0).getMember())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("member7", reader.top("daily", 1).get(0).getMember());
+        assertTrue((Long) reader.getStats().get("remoteNotifications") >= 1);
+    }
+
+    @Test
+    void refreshDoesNotOverwriteConcurrentLocalMerge() {
+        HookedRedisTemplate redisTemplate = new HookedRedisTemplate(connectionFactory);
+        LeaderboardService service = new LeaderboardService(redisTemplate, "leaderboard:", 4, 10, 100, 0, null);
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (int i = 1; i <= 100; i++) {
+            scores.put("member" + i, (double) i);
+        }
+        service.setAll("race", scores);
+        service.top("race", 1);
+
+        // 加载结果返回之后、替换快照之前，本实例写入并合并快照
+        redisTemplate.afterNextPipeline = () ->
+                service.incrementAll("race", Collections.singletonMap("member7", 1000.0));
+        service.refresh("race");
+
+        assertEquals("member7", service.top("race", 1).get(0).getMember());
+        assertEquals(1, service.getStats().get("dirtyBoards"));
+        assertEquals(1L, service.getStats().get("reloadConflicts"));
+
+        service.refresh("race");
+        assertEquals("member7", service.top("race", 1).get(0).getMember());
+        assertEquals(0, service.getStats().get("dirtyBoards"));
+        service.shutdown();
+    }
+
+    /**
+     * 在下一次 Pipeline 返回后执行回调，模拟加载与写入交错
+     */
+    private static class HookedRedisTemplate extends StringRedisTemplate {
+
+        private Runnable afterNextPipeline;
+
+        HookedRedisTemplate(RedisConnectionFactory connectionFactory) {
+            super(connectionFactory);
+        }
+
+        @Override
+        public List<Object> executePipelined(RedisCallback<?> action) {
+            List<Object> results = super.executePipelined(action);
+            Runnable hook = afterNextPipeline;
+            afterNextPipeline = null;
+            if (hook != null) {
+                hook.run();
+            }
+            return results;
+        }
+    }
+}
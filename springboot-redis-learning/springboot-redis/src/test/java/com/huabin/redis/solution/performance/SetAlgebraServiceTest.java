@@ -0,0 +1,118 @@
+package com.huabin.redis.solution.performance;
+
+import com.huabin.redis.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 集合交并差测试（连接进程内的 FakeRedisServer）
+ *
+ * @author huabin
+ */
+public class SetAlgebraServiceTest {
+
+    private FakeRedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private SetAlgebraService service;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        service = new SetAlgebraService(redisTemplate, 10000, 500, 300, 20, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    void clientSideResultsMatchServerSide() {
+        fill("a", 0, 20000);
+        fill("b", 10000, 30000);
+        fill("c", 15000, 20000);
+        List<String> keys = Arrays.asList("a", "b", "c");
+
+        for (SetAlgebraService.Operation operation : SetAlgebraService.Operation.values()) {
+            Map<String, Object> client = service.compute(operation, "client:" + operation, keys);
+            Map<String, Object> server = service.compute(operation, "server:" + operation, keys,
+                    SetAlgebraService.Mode.SERVER);
+            assertEquals("client", client.get("executedOn"), operation.name());
+            assertEquals(server.get("size"), client.get("size"), operation.name());
+            assertEquals(redisTemplate.opsForSet().members("server:" + operation),
+                    redisTemplate.opsForSet().members("client:" + operation), operation.name());
+        }
+        assertEquals(5000L, service.compute(SetAlgebraService.Operation.INTERSECT, "x", keys).get("size"));
+        assertTrue(redisTemplate.keys("{x}:tmp*").isEmpty());
+
+        // 空结果删除目标 key
+        service.compute(SetAlgebraService.Operation.DIFF, "x", Arrays.asList("c", "a", "b"),
+                SetAlgebraService.Mode.CLIENT);
+        assertFalse(redisTemplate.hasKey("x"));
+    }
+
+    @Test
+    void smallOrNonNumericSetsStayOnServer() {
+        fill("small1", 0, 100);
+        fill("small2", 50, 150);
+        Map<String, Object> small = service.compute(SetAlgebraService.Operation.UNION, "small",
+                Arrays.asList("small1", "small2"));
+        assertEquals("server", small.get("executedOn"));
+        assertEquals(150L, small.get("size"));
+
+        fill("ids", 0, 20000);
+        String[] names = new String[20000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "user_" + i;
+        }
+        redisTemplate.opsForSet().add("names", names);
+        Map<String, Object> mixed = service.compute(SetAlgebraService.Operation.UNION, "mixed",
+                Arrays.asList("ids", "names"));
+        assertEquals("server", mixed.get("executedOn"));
+        assertEquals(40000L, mixed.get("size"));
+    }
+
+    @Test
+    void nonCanonicalNumbersStayOnServer() {
+        fill("plain", 0, 20000);
+        String[] padded = new String[20000];
+        for (int i = 0; i < padded.length; i++) {
+            padded[i] = String.format("%06d", i);
+        }
+        redisTemplate.opsForSet().add("padded", padded);
+
+        // "000007" 写回时会变成 "7"，必须在服务端执行才能保留原成员
+        Map<String, Object> forced = service.compute(SetAlgebraService.Operation.UNION, "padded:union",
+                Arrays.asList("plain", "padded"), SetAlgebraService.Mode.CLIENT);
+        assertEquals("server", forced.get("executedOn"));
+        assertEquals(40000L, forced.get("size"));
+        assertTrue(redisTemplate.opsForSet().isMember("padded:union", "000007"));
+    }
+
+    private void fill(String key, int from, int to) {
+        String[] members = new String[to - from];
+        for (int i = from; i < to; i++) {
+            members[i - from] = String.valueOf(i);
+        }
+        redisTemplate.opsForSet().add(key, members);
+    }
+}
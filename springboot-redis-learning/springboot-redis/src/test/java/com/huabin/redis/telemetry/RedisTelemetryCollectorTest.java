@@ -0,0 +1,102 @@
+package com.huabin.redis.telemetry;
+
+import com.huabin.redis.fake.FakeRedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Redis 指标采集测试：FakeRedisServer 分别注入服务端执行耗时和网络延迟，
+ * 检查客户端/服务端耗时对比能区分两种情况
+ *
+ * @author huabin
+ */
+public class RedisTelemetryCollectorTest {
+
+    private FakeRedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+    private SimpleMeterRegistry meterRegistry;
+    private StringRedisTemplate redisTemplate;
+    private RedisTelemetryCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        meterRegistry = new SimpleMeterRegistry();
+
+        RedisCommandTimer timer = new RedisCommandTimer(meterRegistry, new double[]{0.5, 0.99});
+        redisTemplate = new StringRedisTemplate(timer.wrap(connectionFactory));
+        collector = new RedisTelemetryCollector(connectionFactory, meterRegistry, timer, 128);
+
+        redisTemplate.opsForValue().set("k", "v");
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.setConfig("slowlog-log-slower-than", "4000");
+            return null;
+        });
+        collector.collect();
+    }
+
+    @AfterEach
+    void tearDown() {
+        collector.shutdown();
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void serverSideSlownessShowsUpInSlowlogAndCommandStats() {
+        server.setExecutionDelay(Duration.ofMillis(20), "GET");
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v", redisTemplate.opsForValue().get("k"));
+        }
+
+        Map<String, Object> report = collector.collect();
+        Map<String, Object> get = (Map<String, Object>) ((Map<String, Object>) report.get("commands")).get("GET");
+        assertEquals(10L, get.get("calls"));
+        assertTrue((Double) get.get("serverAvgUs") >= 20_000, get.toString());
+        assertEquals("server", get.get("bottleneck"));
+
+        Map<String, Object> slowlog = (Map<String, Object>) report.get("slowlog");
+        assertTrue((Integer) slowlog.get("newEntries") >= 10);
+        assertEquals(10, meterRegistry.get("redis.server.slowlog").tag("command", "GET").timer().count());
+        // 已处理的慢查询不会重复计入
+        collector.collect();
+        assertEquals(10, meterRegistry.get("redis.server.slowlog").tag("command", "GET").timer().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void networkLatencyIsSeparatedFromServerTime() {
+        server.setLatency(Duration.ofMillis(5), Duration.ZERO);
+        for (int i = 0; i < 10; i++) {
+            redisTemplate.opsForValue().get("k");
+        }
+
+        Map<String, Object> report = collector.collect();
+        Map<String, Object> get = (Map<String, Object>) ((Map<String, Object>) report.get("commands")).get("GET");
+        assertTrue((Double) get.get("clientAvgUs") >= 5000, get.toString());
+        assertTrue((Double) get.get("networkAvgUs") >= 4000, get.toString());
+        assertEquals("network", get.get("bottleneck"));
+        assertNull(meterRegistry.find("redis.server.slowlog").tag("command", "GET").timer());
+
+        assertTrue(meterRegistry.get("redis.client.command").tag("command", "GET").timer().count() >= 10);
+        assertTrue(meterRegistry.get("redis.command.latency").tags("command", "GET", "side", "network").gauge().value() >= 4000);
+        assertTrue(((Map<String, Object>) report.get("memory")).containsKey("used_memory"));
+    }
+}
@@ -0,0 +1,221 @@
+package com.huabin.redisson.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Redisson 集合批量操作
+ * 
+ * 问题：
+ * - map/all 使用 readAllMap 一次性把整个 Hash 读到内存
+ * - set/list/queue 接口一次只处理一个元素，客户端要调用成千上万次
+ * 
+ * 方案：
+ * 1. 大批量数据按 chunkSize 切块（单条命令不会太大，避免阻塞 Redis）
+ * 2. 多个块放进同一个 RBatch，一次网络往返发出去（Pipeline）
+ * 3. 块数超过 chunksPerBatch 时分多个 RBatch 执行，避免单个 Batch 响应过大
+ * 4. 大 Map 通过 HSCAN 游标分批迭代，以 NDJSON 流式输出，内存占用与 Map 大小无关
+ * 
+ * @author huabin
+ */
+@Component
+public class RedissonBulkOperations {
+    
+    private static final Logger log = LoggerFactory.getLogger(RedissonBulkOperations.class);
+    
+    @Autowired
+    private RedissonClient redissonClient;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * 单条命令包含的元素数量
+     */
+    @Value("${bulk.chunk-size:500}")
+    private int chunkSize;
+    
+    /**
+     * 单个 RBatch 包含的命令数量
+     */
+    @Value("${bulk.chunks-per-batch:20}")
+    private int chunksPerBatch;
+    
+    /**
+     * 批量读取 Map 字段（HMGET 分块 + Pipeline）
+     */
+    public Map<String, String> mapGetAll(String mapKey, Collection<String> keys) {
+        Map<String, String> result = new HashMap<>(keys.size() * 2);
+        List<RFuture<Map<String, String>>> futures = new ArrayList<>();
+        
+        executeChunked(new ArrayList<>(new LinkedHashSet<>(keys)), (batch, chunk) -> {
+            RMapAsync<String, String> map = batch.getMap(mapKey);
+            futures.add(map.getAllAsync(new LinkedHashSet<>(chunk)));
+        }, () -> {
+            for (RFuture<Map<String, String>> future : futures) {
+                result.putAll(future.getNow());
+            }
+            futures.clear();
+        });
+        
+        return result;
+    }
+    
+    /**
+     * 批量写入 Map 字段（HSET 分块 + Pipeline）
+     */
+    public int mapPutAll(String mapKey, Map<String, String> entries) {
+        List<Map.Entry<String, String>> list = new ArrayList<>(entries.entrySet());
+        executeChunked(list, (batch, chunk) -> {
+            Map<String, String> part = new LinkedHashMap<>(chunk.size() * 2);
+            for (Map.Entry<String, String> entry : chunk) {
+                part.put(entry.getKey(), entry.getValue());
+            }
+            RMapAsync<String, String> map = batch.getMap(mapKey);
+            map.putAllAsync(part);
+        }, null);
+        return list.size();
+    }
+    
+    /**
+     * 批量添加 Set 元素（SADD 分块 + Pipeline）
+     */
+    public int setAddAll(String setKey, Collection<String> values) {
+        List<String> list = new ArrayList<>(values);
+        executeChunked(list, (batch, chunk) -> batch.<String>getSet(setKey).addAllAsync(chunk), null);
+        return list.size();
+    }
+    
+    /**
+     * 批量追加 List 元素（RPUSH 分块 + Pipeline，保持顺序）
+     */
+    public int listAddAll(String listKey, Collection<String> values) {
+        List<String> list = new ArrayList<>(values);
+        executeChunked(list, (batch, chunk) -> batch.<String>getList(listKey).addAllAsync(chunk), null);
+        return list.size();
+    }
+    
+    /**
+     * 批量入队（RPUSH 分块 + Pipeline）
+     */
+    public int queueOfferAll(String queueKey, Collection<String> values) {
+        List<String> list = new ArrayList<>(values);
+        executeChunked(list, (batch, chunk) -> batch.<String>getQueue(queueKey).addAllAsync(chunk), null);
+        return list.size();
+    }
+    
+    /**
+     * 批量出队
+     * 
+     * RQueue.poll(limit) 在一个 Lua 脚本中完成 LRANGE + LTRIM，一次往返取出最多 limit 个元素
+     */
+    public List<String> queuePollBatch(String queueKey, int limit) {
+        return redissonClient.<String>getQueue(queueKey).poll(limit);
+    }
+    
+    /**
+     * 以 NDJSON 流式输出大 Map
+     * 
+     * 通过 HSCAN 游标每次取 chunkSize 个字段，每行一个 {"key":..,"value":..}，
+     * 每输出 chunkSize 行 flush 一次
+     * 
+     * @return 输出的条目数
+     */
+    public long mapStream(String mapKey, String pattern, OutputStream out) throws IOException {
+        RMap<String, String> map = redissonClient.getMap(mapKey);
+        Iterable<Map.Entry<String, String>> entries = pattern == null || pattern.isEmpty()
+                ? map.entrySet(chunkSize)
+                : map.entrySet(pattern, chunkSize);
+        
+        long count = 0;
+        Map<String, String> line = new LinkedHashMap<>(4);
+        for (Map.Entry<String, String> entry : entries) {
+            line.put("key", entry.getKey());
+            line.put("value", entry.getValue());
+            out.write(objectMapper.writeValueAsBytes(line));
+            out.write('\n');
+            if (++count % chunkSize == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+        
+        log.debug("流式输出Map完成, mapKey={}, count={}", mapKey, count);
+        return count;
+    }
+    
+    /**
+     * 切块后放入 RBatch 执行
+     * 
+     * @param items 全部元素
+     * @param command 把一个块转换成 RBatch 中的一条命令
+     * @param afterExecute 每个 RBatch 执行完后的回调（可为空）
+     */
+    private <T> void executeChunked(List<T> items, BiConsumer<RBatch, List<T>> command, Runnable afterExecute) {
+        if (items.isEmpty()) {
+            return;
+        }
+        RBatch batch = null;
+        int commands = 0;
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            if (batch == null) {
+                batch = redissonClient.createBatch(BatchOptions.defaults()
+                        .responseTimeout(10, TimeUnit.SECONDS));
+            }
+            List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            command.accept(batch, chunk);
+            
+            if (++commands >= chunksPerBatch) {
+                batch.execute();
+                if (afterExecute != null) {
+                    afterExecute.run();
+                }
+                batch = null;
+                commands = 0;
+            }
+        }
+        if (batch != null) {
+            batch.execute();
+            if (afterExecute != null) {
+                afterExecute.run();
+            }
+        }
+    }
+    
+    /**
+     * 把逗号分隔的参数转换为列表（兼容 GET 请求）
+     */
+    public static Set<String> splitKeys(String keys) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String key : keys.split(",")) {
+            String trimmed = key.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,26 @@
+package com.huabin.redisson.config;
+
+import com.huabin.id.SegmentIdGenerator;
+import com.huabin.redisson.id.RedissonSegmentAllocator;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分布式ID生成器配置
+ * 
+ * 订单号使用 Redis 号段模式：每次从 Redis 预取 step 个ID到本地，
+ * 生成订单号时只做本地自增，不需要访问 Redis
+ * 
+ * @author huabin
+ */
+@Configuration
+public class IdGeneratorConfig {
+    
+    @Bean(name = "orderIdGenerator", destroyMethod = "close")
+    public SegmentIdGenerator orderIdGenerator(RedissonClient redissonClient,
+                                               @Value("${id.segment.order.step:1000}") int step) {
+        return new SegmentIdGenerator("order", step, new RedissonSegmentAllocator(redissonClient));
+    }
+}
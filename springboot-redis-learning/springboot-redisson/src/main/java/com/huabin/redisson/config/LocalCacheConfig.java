@@ -0,0 +1,47 @@
+package com.huabin.redisson.config;
+
+import com.huabin.redisson.localcache.LocalCachedMapManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.LocalCachedMapOptions;
+import org.redisson.api.LocalCachedMapOptions.EvictionPolicy;
+import org.redisson.api.LocalCachedMapOptions.ReconnectionStrategy;
+import org.redisson.api.LocalCachedMapOptions.SyncStrategy;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地缓存Map配置
+ *
+ * @author huabin
+ */
+@Configuration
+public class LocalCacheConfig {
+
+    /**
+     * 本地缓存Map管理器（RLocalCachedMap）
+     */
+    @Bean(destroyMethod = "destroy")
+    public LocalCachedMapManager localCachedMapManager(RedissonClient redissonClient,
+                                                       MeterRegistry meterRegistry,
+                                                       @Value("${local-cache.maps:}") List<String> maps,
+                                                       @Value("${local-cache.eviction-policy:LRU}") EvictionPolicy evictionPolicy,
+                                                       @Value("${local-cache.cache-size:10000}") int cacheSize,
+                                                       @Value("${local-cache.time-to-live-ms:0}") long timeToLiveMs,
+                                                       @Value("${local-cache.max-idle-ms:0}") long maxIdleMs,
+                                                       @Value("${local-cache.sync-strategy:INVALIDATE}") SyncStrategy syncStrategy,
+                                                       @Value("${local-cache.reconnection-strategy:CLEAR}") ReconnectionStrategy reconnectionStrategy) {
+        LocalCachedMapOptions<String, String> options = LocalCachedMapOptions.<String, String>defaults()
+                .evictionPolicy(evictionPolicy)
+                .cacheSize(cacheSize)
+                .timeToLive(timeToLiveMs, TimeUnit.MILLISECONDS)
+                .maxIdle(maxIdleMs, TimeUnit.MILLISECONDS)
+                .syncStrategy(syncStrategy)
+                .reconnectionStrategy(reconnectionStrategy);
+        return new LocalCachedMapManager(redissonClient, options, maps, meterRegistry);
+    }
+}
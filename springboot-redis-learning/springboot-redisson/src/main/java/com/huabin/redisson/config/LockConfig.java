@@ -0,0 +1,27 @@
+package com.huabin.redisson.config;
+
+import com.huabin.redisson.lock.HybridLockManager;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 锁配置
+ * 
+ * @author huabin
+ */
+@Configuration
+public class LockConfig {
+    
+    /**
+     * 混合锁管理器（本地按名称加锁 + Redisson 分布式锁）
+     */
+    @Bean
+    public HybridLockManager hybridLockManager(RedissonClient redissonClient,
+                                               @Value("${hybrid-lock.lease-time-ms:3000}") long leaseTimeMs,
+                                               @Value("${hybrid-lock.max-batch:16}") int maxBatch,
+                                               @Value("${hybrid-lock.batching-enabled:true}") boolean batchingEnabled) {
+        return new HybridLockManager(redissonClient, leaseTimeMs, maxBatch, batchingEnabled);
+    }
+}
@@ -0,0 +1,43 @@
+package com.huabin.redisson.config;
+
+import com.huabin.redisson.profiler.LockProfiler;
+import com.huabin.redisson.profiler.LockProfilingPostProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * 锁竞争分析配置
+ * 
+ * 开启后所有通过 RedissonClient 获取的锁都会记录等待时间、持有时间、失败次数，
+ * 通过 /locks/stats 和 /actuator/prometheus 查看
+ * 
+ * @author huabin
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "lock-profiler", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LockProfilerConfig {
+    
+    /**
+     * BeanPostProcessor 必须声明为 static，避免提前初始化配置类
+     */
+    @Bean
+    public static LockProfilingPostProcessor lockProfilingPostProcessor(ObjectProvider<LockProfiler> profilerProvider) {
+        return new LockProfilingPostProcessor(profilerProvider);
+    }
+    
+    @Bean
+    public LockProfiler lockProfiler(MeterRegistry meterRegistry,
+                                     RedissonClient redissonClient,
+                                     @Value("${lock-profiler.patterns:}") List<String> patterns,
+                                     @Value("${lock-profiler.max-patterns:200}") int maxPatterns) {
+        return new LockProfiler(meterRegistry, patterns, maxPatterns,
+                redissonClient.getConfig().getLockWatchdogTimeout());
+    }
+}
@@ -65,6 +65,15 @@ public class DemoController {
         return "WatchDog 演示完成";
     }
     
+    /**
+     * 混合锁演示
+     */
+    @GetMapping("/hybrid-lock")
+    public String hybridLock(@RequestParam(defaultValue = "50") int threadCount) throws InterruptedException {
+        basicLockDemo.hybridLockExample(threadCount);
+        return "混合锁演示完成";
+    }
+    
     /**
      * 可重入锁演示
      */
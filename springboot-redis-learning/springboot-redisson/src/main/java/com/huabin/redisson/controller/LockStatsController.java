@@ -0,0 +1,67 @@
+package com.huabin.redisson.controller;
+
+import com.huabin.redisson.lock.HybridLockManager;
+import com.huabin.redisson.profiler.LockProfiler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 锁竞争统计 Controller
+ * 
+ * lock-profiler.enabled=false 时没有 LockProfiler，locks 返回空列表，只保留 HybridLockManager 的统计
+ * 
+ * @author huabin
+ */
+@RestController
+@RequestMapping("/locks")
+public class LockStatsController {
+    
+    @Autowired
+    private ObjectProvider<LockProfiler> lockProfilerProvider;
+    
+    @Autowired
+    private HybridLockManager hybridLockManager;
+    
+    /**
+     * 按锁名称模式查看等待时间、持有时间、失败次数、WatchDog 续期次数
+     * 结果按等待时间 p99 倒序，排在最前面的就是最可能限制吞吐的锁
+     * 
+     * GET /locks/stats
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        LockProfiler lockProfiler = lockProfilerProvider.getIfAvailable();
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("profilerEnabled", lockProfiler != null);
+        result.put("locks", lockProfiler != null ? lockProfiler.snapshot() : Collections.emptyList());
+        result.put("hybrid", hybridLockManager.getStats());
+        return result;
+    }
+    
+    /**
+     * 清空累计统计（压测前调用）
+     * 
+     * DELETE /locks/stats
+     */
+    @DeleteMapping("/stats")
+    public Map<String, Object> reset() {
+        LockProfiler lockProfiler = lockProfilerProvider.getIfAvailable();
+        
+        Map<String, Object> result = new HashMap<>();
+        if (lockProfiler == null) {
+            result.put("success", false);
+            result.put("message", "锁竞争分析未开启（lock-profiler.enabled=false）");
+            return result;
+        }
+        lockProfiler.reset();
+        result.put("success", true);
+        result.put("message", "锁统计已清空");
+        return result;
+    }
+}
@@ -1,12 +1,21 @@
 package com.huabin.redisson.controller;
 
+import com.huabin.redisson.bulk.RedissonBulkOperations;
+import com.huabin.redisson.localcache.LocalCachedMapManager;
 import org.redisson.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Redisson分布式集合Controller
@@ -20,30 +29,103 @@ public class RedissonCollectionController {
     @Autowired
     private RedissonClient redissonClient;
 
+    @Autowired
+    private RedissonBulkOperations bulkOperations;
+
+    @Autowired
+    private LocalCachedMapManager localCachedMapManager;
+
     /**
      * 分布式Map操作
+     * 在 local-cache.maps 中配置的 Map 使用 RLocalCachedMap，读取优先命中本地缓存
      */
     @PostMapping("/map/put")
     public String mapPut(@RequestParam String mapKey, 
                         @RequestParam String key, 
                         @RequestParam String value) {
-        RMap<String, String> map = redissonClient.getMap(mapKey);
-        map.put(key, value);
+        RMap<String, String> map = localCachedMapManager.getMap(mapKey);
+        map.fastPut(key, value);
         return "success";
     }
 
     @GetMapping("/map/get")
     public Object mapGet(@RequestParam String mapKey, @RequestParam String key) {
-        RMap<String, String> map = redissonClient.getMap(mapKey);
-        return map.get(key);
+        return localCachedMapManager.get(mapKey, key);
     }
 
+    /**
+     * 读取整个Map（只适合小Map，大Map请使用 /map/stream）
+     */
     @GetMapping("/map/all")
     public Map<String, String> mapGetAll(@RequestParam String mapKey) {
-        RMap<String, String> map = redissonClient.getMap(mapKey);
+        RMap<String, String> map = localCachedMapManager.getMap(mapKey);
         return map.readAllMap();
     }
 
+    /**
+     * 批量读取Map字段
+     * GET /collection/map/getAll?mapKey=dict&keys=k1,k2,k3
+     */
+    @GetMapping("/map/getAll")
+    public Map<String, String> mapGetAllByKeys(@RequestParam String mapKey, @RequestParam String keys) {
+        return mapGetAll(mapKey, RedissonBulkOperations.splitKeys(keys));
+    }
+
+    /**
+     * 批量读取Map字段（字段较多时使用请求体）
+     * POST /collection/map/getAll?mapKey=dict  body: ["k1","k2","k3"]
+     */
+    @PostMapping("/map/getAll")
+    public Map<String, String> mapGetAllByKeysBody(@RequestParam String mapKey, @RequestBody List<String> keys) {
+        return mapGetAll(mapKey, keys);
+    }
+
+    /**
+     * 批量写入Map字段
+     * POST /collection/map/putAll?mapKey=dict  body: {"k1":"v1","k2":"v2"}
+     */
+    @PostMapping("/map/putAll")
+    public Map<String, Object> mapPutAll(@RequestParam String mapKey, @RequestBody Map<String, String> entries) {
+        if (localCachedMapManager.isLocalCached(mapKey)) {
+            // 通过 RLocalCachedMap 写入，才会通知其他节点失效本地缓存
+            localCachedMapManager.getMap(mapKey).putAll(entries);
+            return bulkResult(entries.size());
+        }
+        return bulkResult(bulkOperations.mapPutAll(mapKey, entries));
+    }
+
+    /**
+     * 本地缓存命中统计
+     * GET /collection/map/local-cache/stats
+     */
+    @GetMapping("/map/local-cache/stats")
+    public Map<String, Object> localCacheStats() {
+        return localCachedMapManager.getStats();
+    }
+
+    /**
+     * 清空所有节点上该 Map 的本地缓存
+     * DELETE /collection/map/local-cache?mapKey=dict
+     */
+    @DeleteMapping("/map/local-cache")
+    public String clearLocalCache(@RequestParam String mapKey) {
+        localCachedMapManager.clearLocalCache(mapKey);
+        return "success";
+    }
+
+    /**
+     * 流式读取大Map（HSCAN 游标 + NDJSON，每行一个 {"key":..,"value":..}）
+     * GET /collection/map/stream?mapKey=dict&pattern=user:*
+     */
+    @GetMapping("/map/stream")
+    public ResponseEntity<StreamingResponseBody> mapStream(@RequestParam String mapKey,
+                                                           @RequestParam(required = false) String pattern) {
+        StreamingResponseBody body = out -> bulkOperations.mapStream(mapKey, pattern, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     /**
      * 分布式Set操作
      */
@@ -54,6 +136,15 @@ public class RedissonCollectionController {
         return "success";
     }
 
+    /**
+     * 批量添加Set元素
+     * POST /collection/set/addAll?setKey=tags  body: ["a","b","c"]
+     */
+    @PostMapping("/set/addAll")
+    public Map<String, Object> setAddAll(@RequestParam String setKey, @RequestBody List<String> values) {
+        return bulkResult(bulkOperations.setAddAll(setKey, values));
+    }
+
     @GetMapping("/set/all")
     public Set<String> setGetAll(@RequestParam String setKey) {
         RSet<String> set = redissonClient.getSet(setKey);
@@ -76,6 +167,15 @@ public class RedissonCollectionController {
         return "success";
     }
 
+    /**
+     * 批量追加List元素
+     * POST /collection/list/addAll?listKey=logs  body: ["a","b","c"]
+     */
+    @PostMapping("/list/addAll")
+    public Map<String, Object> listAddAll(@RequestParam String listKey, @RequestBody List<String> values) {
+        return bulkResult(bulkOperations.listAddAll(listKey, values));
+    }
+
     @GetMapping("/list/all")
     public List<String> listGetAll(@RequestParam String listKey) {
         RList<String> list = redissonClient.getList(listKey);
@@ -104,6 +204,25 @@ public class RedissonCollectionController {
         return queue.poll();
     }
 
+    /**
+     * 批量入队
+     * POST /collection/queue/offerAll?queueKey=tasks  body: ["a","b","c"]
+     */
+    @PostMapping("/queue/offerAll")
+    public Map<String, Object> queueOfferAll(@RequestParam String queueKey, @RequestBody List<String> values) {
+        return bulkResult(bulkOperations.queueOfferAll(queueKey, values));
+    }
+
+    /**
+     * 批量出队（一次往返最多取出 count 个元素）
+     * GET /collection/queue/pollBatch?queueKey=tasks&count=100
+     */
+    @GetMapping("/queue/pollBatch")
+    public List<String> queuePollBatch(@RequestParam String queueKey,
+                                       @RequestParam(defaultValue = "100") int count) {
+        return bulkOperations.queuePollBatch(queueKey, count);
+    }
+
     @GetMapping("/queue/peek")
     public String queuePeek(@RequestParam String queueKey) {
         RQueue<String> queue = redissonClient.getQueue(queueKey);
@@ -156,7 +275,7 @@ public class RedissonCollectionController {
                                        @RequestParam int start, 
                                        @RequestParam int end) {
         RScoredSortedSet<String> sortedSet = redissonClient.getScoredSortedSet(setKey);
-        return sortedSet.valueRange(start, end).stream().toList();
+        return sortedSet.valueRange(start, end).stream().collect(Collectors.toList());
     }
 
     @GetMapping("/sortedset/rank")
@@ -164,4 +283,18 @@ public class RedissonCollectionController {
         RScoredSortedSet<String> sortedSet = redissonClient.getScoredSortedSet(setKey);
         return sortedSet.rank(value);
     }
+
+    private Map<String, String> mapGetAll(String mapKey, Collection<String> keys) {
+        if (localCachedMapManager.isLocalCached(mapKey)) {
+            return localCachedMapManager.getAll(mapKey, new LinkedHashSet<>(keys));
+        }
+        return bulkOperations.mapGetAll(mapKey, keys);
+    }
+
+    private Map<String, Object> bulkResult(int count) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("count", count);
+        return result;
+    }
 }
@@ -1,10 +1,13 @@
 package com.huabin.redisson.controller;
 
+import com.huabin.redisson.lock.HybridLock;
+import com.huabin.redisson.lock.HybridLockManager;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -19,6 +22,9 @@ public class RedissonLockController {
     @Autowired
     private RedissonClient redissonClient;
 
+    @Autowired
+    private HybridLockManager hybridLockManager;
+
     /**
      * 可重入锁示例
      */
@@ -165,4 +171,41 @@ public class RedissonLockController {
             return "获取红锁被中断";
         }
     }
+
+    /**
+     * 混合锁示例（本地按名称加锁 + 分布式锁）
+     * 同一个 JVM 内的并发请求先在本地排队，只有一个线程去竞争分布式锁，
+     * 连续的本地请求可以复用同一个分布式租约
+     */
+    @GetMapping("/hybrid")
+    public String hybridLock(@RequestParam String lockKey) {
+        HybridLock lock = hybridLockManager.getLock(lockKey);
+        
+        try {
+            boolean isLocked = lock.tryLock(10, TimeUnit.SECONDS);
+            
+            if (isLocked) {
+                try {
+                    // 业务逻辑（必须小于租期）
+                    Thread.sleep(100);
+                    return "混合锁执行成功";
+                } finally {
+                    lock.unlock();
+                }
+            } else {
+                return "获取混合锁失败";
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "获取混合锁被中断";
+        }
+    }
+
+    /**
+     * 混合锁统计：本地复用次数 vs 访问 Redis 次数
+     */
+    @GetMapping("/hybrid/stats")
+    public Map<String, Object> hybridLockStats() {
+        return hybridLockManager.getStats();
+    }
 }
@@ -1,10 +1,15 @@
 package com.huabin.redisson.demo;
 
+import com.huabin.redisson.lock.HybridLock;
+import com.huabin.redisson.lock.HybridLockManager;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -18,6 +23,9 @@ public class BasicLockDemo {
     @Autowired
     private RedissonClient redissonClient;
     
+    @Autowired
+    private HybridLockManager hybridLockManager;
+    
     /**
      * 示例1：基础加锁（不推荐）
      * 问题：会无限等待，直到获取锁
@@ -167,4 +175,43 @@ public class BasicLockDemo {
         lock.forceUnlock();
         System.out.println("强制解锁成功");
     }
+    
+    /**
+     * 示例7：混合锁（本地按名称加锁 + 分布式锁）
+     * 场景：只有一个 JVM 访问某个 key，多个线程并发加锁
+     * 对比：直接使用 RLock 每次加锁/解锁都要访问 Redis；
+     *      混合锁先在本地排队，连续的本地加锁复用同一个分布式租约
+     */
+    public void hybridLockExample(int threadCount) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < threadCount; i++) {
+            executor.submit(() -> {
+                HybridLock lock = hybridLockManager.getLock("hybridLock");
+                try {
+                    if (lock.tryLock(10, TimeUnit.SECONDS)) {
+                        try {
+                            // 模拟短业务
+                            Thread.sleep(5);
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        
+        latch.await();
+        executor.shutdown();
+        
+        System.out.println("混合锁 " + threadCount + " 个线程执行完成，耗时: " 
+                + (System.currentTimeMillis() - start) + "ms");
+        System.out.println("混合锁统计: " + hybridLockManager.getStats());
+    }
 }
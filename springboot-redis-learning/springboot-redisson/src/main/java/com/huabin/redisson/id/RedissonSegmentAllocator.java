@@ -0,0 +1,28 @@
+package com.huabin.redisson.id;
+
+import com.huabin.id.SegmentAllocator;
+import org.redisson.api.RedissonClient;
+
+/**
+ * 基于 Redis 的号段分配器
+ * 
+ * 原理：对 id:segment:{bizTag} 执行 INCRBY step（RAtomicLong.addAndGet），
+ * Redis 单线程保证多个节点申请到的号段互不重叠
+ * 
+ * @author huabin
+ */
+public class RedissonSegmentAllocator implements SegmentAllocator {
+    
+    private static final String KEY_PREFIX = "id:segment:";
+    
+    private final RedissonClient redissonClient;
+    
+    public RedissonSegmentAllocator(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+    
+    @Override
+    public long allocate(String bizTag, int step) {
+        return redissonClient.getAtomicLong(KEY_PREFIX + bizTag).addAndGet(step);
+    }
+}
@@ -0,0 +1,211 @@
+package com.huabin.redisson.localcache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.LocalCachedMapOptions;
+import org.redisson.api.RLocalCachedMap;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地缓存Map管理器（RLocalCachedMap 近端缓存）
+ *
+ * 适用场景：
+ * 字典、配置这类读多写少的 Map，每次读取都访问 Redis 要付出一次网络往返，
+ * 使用 RLocalCachedMap 后命中的读取直接从堆内返回，不访问 Redis
+ *
+ * 工作方式：
+ * 1. 只有在 local-cache.maps 中配置的 Map 才启用本地缓存，其余 Map 仍然直接访问 Redis
+ * 2. 本地缓存的淘汰策略、容量、TTL、MaxIdle 通过 local-cache.* 配置
+ * 3. 同步策略：任意节点修改后通过 Pub/Sub 通知其他节点失效（INVALIDATE）或更新（UPDATE）本地缓存
+ * 4. 重连策略：与 Redis 断线重连后清空（CLEAR）或重新加载（LOAD）本地缓存，避免断线期间漏掉的变更
+ *
+ * 命中率统计：
+ * RLocalCachedMap 不对外暴露命中信息，这里在读取前检查本地缓存是否已有该字段来统计，
+ * 同时输出到 Micrometer（redisson.localcache.requests、redisson.localcache.size）
+ *
+ * @author huabin
+ */
+public class LocalCachedMapManager {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalCachedMapManager.class);
+
+    private final RedissonClient redissonClient;
+    private final LocalCachedMapOptions<String, String> options;
+    private final Set<String> cachedMapNames;
+    private final MeterRegistry registry;
+
+    private final Map<String, CachedMap> maps = new ConcurrentHashMap<>();
+
+    public LocalCachedMapManager(RedissonClient redissonClient, LocalCachedMapOptions<String, String> options,
+                                 Collection<String> cachedMapNames, MeterRegistry registry) {
+        this.redissonClient = redissonClient;
+        this.options = options;
+        this.cachedMapNames = new HashSet<>(cachedMapNames);
+        this.registry = registry;
+    }
+
+    /**
+     * 是否启用了本地缓存
+     */
+    public boolean isLocalCached(String mapKey) {
+        return cachedMapNames.contains(mapKey);
+    }
+
+    /**
+     * 获取 Map：配置了本地缓存的返回 RLocalCachedMap，否则返回普通 RMap
+     */
+    public RMap<String, String> getMap(String mapKey) {
+        if (!isLocalCached(mapKey)) {
+            return redissonClient.getMap(mapKey);
+        }
+        return cachedMap(mapKey).map;
+    }
+
+    /**
+     * 读取单个字段，本地缓存命中时不访问 Redis
+     */
+    public String get(String mapKey, String key) {
+        if (!isLocalCached(mapKey)) {
+            return redissonClient.<String, String>getMap(mapKey).get(key);
+        }
+        CachedMap cached = cachedMap(mapKey);
+        cached.record(cached.map.getCachedMap().containsKey(key));
+        return cached.map.get(key);
+    }
+
+    /**
+     * 批量读取字段，只有本地缓存未命中的字段才访问 Redis
+     */
+    public Map<String, String> getAll(String mapKey, Set<String> keys) {
+        CachedMap cached = cachedMap(mapKey);
+        Map<String, String> local = cached.map.getCachedMap();
+        for (String key : keys) {
+            cached.record(local.containsKey(key));
+        }
+        return cached.map.getAll(keys);
+    }
+
+    /**
+     * 清空所有节点的本地缓存（Redis 中的数据不受影响）
+     */
+    public void clearLocalCache(String mapKey) {
+        if (isLocalCached(mapKey)) {
+            cachedMap(mapKey).map.clearLocalCache();
+        }
+    }
+
+    /**
+     * 各本地缓存Map的命中统计
+     */
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> mapStats = new ArrayList<>();
+        for (CachedMap cached : maps.values()) {
+            mapStats.add(cached.toMap());
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("maps", cachedMapNames);
+        config.put("evictionPolicy", options.getEvictionPolicy());
+        config.put("cacheSize", options.getCacheSize());
+        config.put("timeToLiveMs", options.getTimeToLiveInMillis());
+        config.put("maxIdleMs", options.getMaxIdleInMillis());
+        config.put("syncStrategy", options.getSyncStrategy());
+        config.put("reconnectionStrategy", options.getReconnectionStrategy());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("config", config);
+        stats.put("stats", mapStats);
+        return stats;
+    }
+
+    /**
+     * 关闭时注销 Pub/Sub 监听，释放本地缓存
+     */
+    public void destroy() {
+        for (CachedMap cached : maps.values()) {
+            try {
+                cached.map.destroy();
+            } catch (Exception e) {
+                log.warn("释放本地缓存失败, mapKey={}", cached.name, e);
+            }
+        }
+        maps.clear();
+    }
+
+    private CachedMap cachedMap(String mapKey) {
+        return maps.computeIfAbsent(mapKey, name -> {
+            log.info("创建本地缓存Map, mapKey={}", name);
+            return new CachedMap(name, redissonClient.getLocalCachedMap(name, options), registry);
+        });
+    }
+
+    /**
+     * 单个本地缓存Map及其命中统计
+     */
+    private static final class CachedMap {
+
+        final String name;
+        final RLocalCachedMap<String, String> map;
+
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final Counter hitCounter;
+        final Counter missCounter;
+
+        CachedMap(String name, RLocalCachedMap<String, String> map, MeterRegistry registry) {
+            this.name = name;
+            this.map = map;
+            this.hitCounter = Counter.builder("redisson.localcache.requests")
+                    .description("本地缓存读取次数")
+                    .tags("map", name, "result", "hit")
+                    .register(registry);
+            this.missCounter = Counter.builder("redisson.localcache.requests")
+                    .description("本地缓存读取次数")
+                    .tags("map", name, "result", "miss")
+                    .register(registry);
+            Gauge.builder("redisson.localcache.size", map, m -> m.getCachedMap().size())
+                    .description("本地缓存的字段数量")
+                    .tag("map", name)
+                    .register(registry);
+        }
+
+        void record(boolean hit) {
+            if (hit) {
+                hits.increment();
+                hitCounter.increment();
+            } else {
+                misses.increment();
+                missCounter.increment();
+            }
+        }
+
+        Map<String, Object> toMap() {
+            long hit = hits.sum();
+            long miss = misses.sum();
+            long total = hit + miss;
+
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("map", name);
+            stats.put("hits", hit);
+            stats.put("misses", miss);
+            stats.put("hitRate", total == 0 ? "0.00%" : String.format("%.2f%%", hit * 100.0 / total));
+            stats.put("localSize", map.getCachedMap().size());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.huabin.redisson.lock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 混合锁
+ * 
+ * 用法与 RLock.tryLock / unlock 一致：
+ * <pre>
+ * HybridLock lock = hybridLockManager.getLock("inventory:lock:1001");
+ * if (lock.tryLock(3, TimeUnit.SECONDS)) {
+ *     try {
+ *         // 业务逻辑
+ *     } finally {
+ *         lock.unlock();
+ *     }
+ * }
+ * </pre>
+ * 
+ * @author huabin
+ * @see HybridLockManager
+ */
+public class HybridLock {
+    
+    private final HybridLockManager manager;
+    private final String name;
+    
+    HybridLock(HybridLockManager manager, String name) {
+        this.manager = manager;
+        this.name = name;
+    }
+    
+    /**
+     * 尝试加锁
+     * 
+     * @param waitTime 最大等待时间
+     * @param unit 时间单位
+     * @return 是否加锁成功
+     */
+    public boolean tryLock(long waitTime, TimeUnit unit) throws InterruptedException {
+        return manager.tryLock(name, waitTime, unit);
+    }
+    
+    /**
+     * 解锁
+     */
+    public void unlock() {
+        manager.unlock(name);
+    }
+    
+    /**
+     * 是否被当前线程持有
+     */
+    public boolean isHeldByCurrentThread() {
+        return manager.isHeldByCurrentThread(name);
+    }
+    
+    public String getName() {
+        return name;
+    }
+}
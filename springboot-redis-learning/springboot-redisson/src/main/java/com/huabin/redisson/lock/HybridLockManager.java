@@ -0,0 +1,353 @@
+package com.huabin.redisson.lock;
+
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 混合锁管理器（本地按名称加锁 + Redisson 分布式锁）
+ *
+ * 解决的问题：
+ * 每次请求都直接去 Redis 抢锁，即使只有一个 JVM 在访问这个 key，
+ * 同一个 JVM 内的 N 个线程也会产生 N 次加锁/解锁网络往返，并且在 Redis 端互相竞争
+ *
+ * 加锁流程：
+ * 1. 先获取该 key 的本地锁（每个 key 一个 ReentrantLock，按引用计数创建和回收），
+ *    保证同一个 JVM 内同一时刻只有一个线程去竞争分布式锁；不同 key 互不阻塞
+ * 2. 如果本 JVM 已经持有该 key 的分布式租约（上一个本地线程释放时保留下来的），
+ *    且剩余租期充足，直接复用，不访问 Redis（锁批处理）
+ * 3. 否则通过 Redisson 获取分布式锁，使用固定的短租期（不启用 WatchDog）
+ *
+ * 解锁流程：
+ * 1. 如果本地还有线程在等待同一个 key、批处理次数未达上限、剩余租期充足，
+ *    则保留分布式租约，只释放本地锁，由下一个本地线程直接接手
+ * 2. 否则释放分布式锁，再释放本地锁
+ * 3. 保留租约后等待线程超时离开、没有线程再引用这个 key 时，回收本地锁并释放保留的分布式租约
+ *
+ * 注意：
+ * - 分布式锁使用管理器级别的固定 ownerId 加锁/解锁，而不是线程ID，
+ *   因此本 JVM 内任意线程都可以接手或释放租约（本地锁保证了 JVM 内互斥）
+ * - 批处理次数有上限，避免一个 JVM 长期霸占锁导致其他 JVM 饥饿
+ * - 业务执行时间必须小于租期，这与直接使用带 leaseTime 的 tryLock 一致
+ *
+ * @author huabin
+ */
+public class HybridLockManager {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridLockManager.class);
+
+    private final RedissonClient redissonClient;
+
+    /**
+     * 分布式锁租期（毫秒）
+     */
+    private final long leaseTimeMs;
+
+    /**
+     * 同一个分布式租约最多被连续复用的次数
+     */
+    private final int maxBatch;
+
+    /**
+     * 是否启用锁批处理
+     */
+    private final boolean batchingEnabled;
+
+    /**
+     * 本 JVM 在 Redis 中的锁持有者标识
+     */
+    private final long ownerId;
+
+    /**
+     * 每个 key 的本地锁，引用计数归零时移除
+     */
+    private final Map<String, LocalLock> locals = new ConcurrentHashMap<>();
+
+    private final LongAdder localAcquisitions = new LongAdder();
+    private final LongAdder remoteAcquisitions = new LongAdder();
+    private final LongAdder remoteReleases = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder idleReleases = new LongAdder();
+
+    public HybridLockManager(RedissonClient redissonClient, long leaseTimeMs, int maxBatch, boolean batchingEnabled) {
+        if (leaseTimeMs <= 0) {
+            throw new IllegalArgumentException("leaseTimeMs 必须大于0");
+        }
+        this.redissonClient = redissonClient;
+        this.leaseTimeMs = leaseTimeMs;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.batchingEnabled = batchingEnabled;
+        this.ownerId = System.identityHashCode(this);
+    }
+
+    /**
+     * 获取混合锁
+     *
+     * @param name 锁名称（与 Redisson 锁的 key 相同）
+     * @return 混合锁
+     */
+    public HybridLock getLock(String name) {
+        return new HybridLock(this, name);
+    }
+
+    /**
+     * 尝试加锁
+     *
+     * @param name 锁名称
+     * @param waitTime 最大等待时间（本地等待 + 分布式等待）
+     * @param unit 时间单位
+     * @return 是否加锁成功
+     */
+    boolean tryLock(String name, long waitTime, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+
+        // 1. 本地竞争：引用计数在加锁成功后一直保留到 unlock
+        LocalLock local = retain(name);
+        boolean locallyLocked = false;
+        try {
+            locallyLocked = local.lock.tryLock(waitTime, unit);
+        } finally {
+            if (!locallyLocked) {
+                release(name);
+            }
+        }
+        if (!locallyLocked) {
+            failures.increment();
+            return false;
+        }
+
+        try {
+            Thread current = Thread.currentThread();
+            Lease lease = local.lease;
+
+            // 2. 本线程重入
+            if (lease != null && lease.holder == current) {
+                lease.holds++;
+                return true;
+            }
+
+            // 3. 复用本 JVM 保留的租约，不访问 Redis
+            if (lease != null && lease.holder == null) {
+                if (lease.remainingMs() > minRemainingMs()) {
+                    lease.holder = current;
+                    lease.holds = 1;
+                    lease.batched++;
+                    localAcquisitions.increment();
+                    return true;
+                }
+                // 剩余租期不足（或已过期），先归还再重新申请，避免在 Redis 端重入计数
+                local.lease = null;
+                releaseRemote(name);
+            }
+
+            // 4. 竞争分布式锁
+            long remainingWait = Math.max(0, deadline - System.nanoTime());
+            if (acquireRemote(name, remainingWait)) {
+                Lease acquired = new Lease(System.currentTimeMillis() + leaseTimeMs);
+                acquired.holder = current;
+                acquired.holds = 1;
+                local.lease = acquired;
+                remoteAcquisitions.increment();
+                return true;
+            }
+
+            failures.increment();
+            local.lock.unlock();
+            release(name);
+            return false;
+        } catch (InterruptedException | RuntimeException e) {
+            local.lock.unlock();
+            release(name);
+            throw e;
+        }
+    }
+
+    /**
+     * 解锁
+     *
+     * @param name 锁名称
+     */
+    void unlock(String name) {
+        LocalLock local = locals.get(name);
+        Lease lease = local != null ? local.lease : null;
+        if (lease == null || lease.holder != Thread.currentThread()) {
+            throw new IllegalMonitorStateException("当前线程未持有混合锁: " + name);
+        }
+
+        try {
+            if (--lease.holds > 0) {
+                return;
+            }
+            lease.holder = null;
+
+            if (shouldKeepLease(local, lease)) {
+                // 保留租约，交给下一个本地等待线程
+                return;
+            }
+
+            local.lease = null;
+            releaseRemote(name);
+        } finally {
+            local.lock.unlock();
+            release(name);
+        }
+    }
+
+    /**
+     * 是否被当前线程持有
+     */
+    boolean isHeldByCurrentThread(String name) {
+        LocalLock local = locals.get(name);
+        Lease lease = local != null ? local.lease : null;
+        return lease != null && lease.holder == Thread.currentThread();
+    }
+
+    /**
+     * 本地/远程加锁统计
+     */
+    public Map<String, Object> getStats() {
+        long local = localAcquisitions.sum();
+        long remote = remoteAcquisitions.sum();
+        long total = local + remote;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localAcquisitions", local);
+        stats.put("remoteAcquisitions", remote);
+        stats.put("remoteReleases", remoteReleases.sum());
+        stats.put("failures", failures.sum());
+        stats.put("idleReleases", idleReleases.sum());
+        stats.put("savedRoundTrips", local * 2);
+        stats.put("localRate", total == 0 ? "0.00%" : String.format("%.2f%%", local * 100.0 / total));
+        stats.put("heldLeases", locals.values().stream().filter(entry -> entry.lease != null).count());
+        stats.put("localLocks", locals.size());
+        stats.put("leaseTimeMs", leaseTimeMs);
+        stats.put("maxBatch", maxBatch);
+        stats.put("batchingEnabled", batchingEnabled);
+        return stats;
+    }
+
+    /**
+     * 还有其他线程引用这个 key（等待本地锁）时保留租约；
+     * 这些线程随后全部超时离开时，由最后一个 release 释放保留的租约
+     */
+    private boolean shouldKeepLease(LocalLock local, Lease lease) {
+        if (!batchingEnabled || lease.batched >= maxBatch) {
+            return false;
+        }
+        // 引用计数包含当前线程自己
+        if (local.refs <= 1) {
+            return false;
+        }
+        return lease.remainingMs() > minRemainingMs();
+    }
+
+    private LocalLock retain(String name) {
+        return locals.compute(name, (key, local) -> {
+            if (local == null) {
+                local = new LocalLock();
+            }
+            local.refs++;
+            return local;
+        });
+    }
+
+    /**
+     * 减少引用计数，归零时移除本地锁；此时如果还保留着空闲租约（没有线程接手），立即释放
+     */
+    private void release(String name) {
+        LocalLock[] removed = new LocalLock[1];
+        locals.computeIfPresent(name, (key, local) -> {
+            if (--local.refs > 0) {
+                return local;
+            }
+            removed[0] = local;
+            return null;
+        });
+        if (removed[0] != null && removed[0].lease != null) {
+            removed[0].lease = null;
+            idleReleases.increment();
+            releaseRemote(name);
+        }
+    }
+
+    /**
+     * 复用租约时要求的最小剩余租期：至少留一半租期给下一个持有者
+     */
+    private long minRemainingMs() {
+        return leaseTimeMs / 2;
+    }
+
+    private boolean acquireRemote(String name, long waitNanos) throws InterruptedException {
+        RLock lock = redissonClient.getLock(name);
+        RFuture<Boolean> future = lock.tryLockAsync(
+                TimeUnit.NANOSECONDS.toMillis(waitNanos), leaseTimeMs, TimeUnit.MILLISECONDS, ownerId);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // 等待被中断，但异步加锁可能随后成功，成功后立即释放
+            future.onComplete((locked, ex) -> {
+                if (Boolean.TRUE.equals(locked)) {
+                    lock.unlockAsync(ownerId);
+                }
+            });
+            throw e;
+        } catch (ExecutionException e) {
+            log.error("获取分布式锁失败, name={}", name, e.getCause());
+            return false;
+        }
+    }
+
+    private void releaseRemote(String name) {
+        try {
+            redissonClient.getLock(name).unlockAsync(ownerId).get();
+            remoteReleases.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // 租约已过期被 Redis 自动释放，或者网络异常，锁会在租期结束后自动失效
+            log.warn("释放分布式锁失败, name={}, cause={}", name, e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * 单个 key 的本地锁
+     *
+     * refs 只在 locals 的 compute 内修改；lease 只在持有 lock 时修改，
+     * 或者在引用计数归零、已从 locals 移除后由最后一个线程修改
+     */
+    private static final class LocalLock {
+
+        final ReentrantLock lock = new ReentrantLock();
+        volatile int refs;
+        volatile Lease lease;
+    }
+
+    /**
+     * 本 JVM 持有的分布式租约
+     */
+    private static final class Lease {
+
+        final long expireAt;
+        Thread holder;
+        int holds;
+        int batched;
+
+        Lease(long expireAt) {
+            this.expireAt = expireAt;
+        }
+
+        long remainingMs() {
+            return expireAt - System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.huabin.redisson.profiler;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * 基于 HdrHistogram 的延迟直方图（单位：微秒）
+ * 
+ * 记录使用 Recorder（无锁、wait-free），读取时把区间直方图累加到总直方图，
+ * 热路径上不会因为统计而产生竞争
+ * 
+ * @author huabin
+ */
+class LatencyHistogram {
+    
+    private static final int SIGNIFICANT_DIGITS = 3;
+    
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    
+    private final Histogram accumulated = new Histogram(SIGNIFICANT_DIGITS);
+    
+    private Histogram interval;
+    
+    void recordMicros(long micros) {
+        recorder.recordValue(Math.max(0, micros));
+    }
+    
+    /**
+     * 获取从启动（或上次重置）到现在的累计直方图副本
+     */
+    synchronized Histogram snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        accumulated.add(interval);
+        return accumulated.copy();
+    }
+    
+    synchronized void reset() {
+        interval = recorder.getIntervalHistogram(interval);
+        accumulated.reset();
+    }
+}
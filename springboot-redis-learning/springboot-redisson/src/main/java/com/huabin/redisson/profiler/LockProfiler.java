@@ -0,0 +1,165 @@
+package com.huabin.redisson.profiler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Redisson 锁竞争分析器
+ *
+ * 按"锁类型 + 锁名称模式"聚合以下指标：
+ * 1. 获取锁的等待时间（成功和失败都记录）
+ * 2. 锁的持有时间（最外层加锁到最外层解锁）
+ * 3. 获取锁失败次数
+ * 4. WatchDog 续期次数
+ *
+ * 锁名称模式：
+ * - 优先匹配配置的模式（如 inventory:lock:*），使用 ':' 作为分隔符
+ * - 未匹配时把纯数字、UUID 等高基数片段替换为 *，如 order:pay:lock:ORDER_123 -> order:pay:lock:*
+ * - 联锁/红锁的名称为各子锁名称用逗号拼接，分别转换后再拼接
+ * - 模式数量有上限，超出后归入 _other，避免指标基数爆炸
+ *
+ * WatchDog 续期次数说明：
+ * Redisson 没有对外暴露续期事件，这里按 持有时间 / (lockWatchdogTimeout / 3) 估算，
+ * 只对未指定 leaseTime 的加锁（启用 WatchDog）计算
+ *
+ * @author huabin
+ */
+public class LockProfiler {
+
+    private static final String OTHER_PATTERN = "_other";
+
+    private static final Pattern HIGH_CARDINALITY_SEGMENT =
+            Pattern.compile("\\d+|[0-9a-fA-F-]{16,}|[A-Za-z]+_\\d+");
+
+    private final MeterRegistry registry;
+    private final List<String> patterns;
+    private final int maxPatterns;
+    private final long renewIntervalNanos;
+    private final AntPathMatcher matcher = new AntPathMatcher(":");
+
+    private final Map<String, LockStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 当前线程持有的锁（用于计算持有时间，支持重入）
+     */
+    private final ThreadLocal<Map<String, Hold>> holds = ThreadLocal.withInitial(HashMap::new);
+
+    public LockProfiler(MeterRegistry registry, List<String> patterns, int maxPatterns, long watchdogTimeoutMs) {
+        this.registry = registry;
+        this.patterns = patterns;
+        this.maxPatterns = maxPatterns;
+        this.renewIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, watchdogTimeoutMs / 3));
+    }
+
+    void onAcquired(String type, String name, long waitNanos, boolean watchdog) {
+        statsFor(type, name).recordAcquired(waitNanos);
+
+        Hold hold = holds.get().computeIfAbsent(type + '|' + name, k -> new Hold());
+        if (hold.count++ == 0) {
+            hold.startNanos = System.nanoTime();
+            hold.watchdog = watchdog;
+        }
+    }
+
+    void onFailed(String type, String name, long waitNanos) {
+        statsFor(type, name).recordFailed(waitNanos);
+    }
+
+    void onReleased(String type, String name) {
+        Map<String, Hold> threadHolds = holds.get();
+        String key = type + '|' + name;
+        Hold hold = threadHolds.get(key);
+        if (hold == null) {
+            // 不是由当前线程通过同步方法加的锁（如 forceUnlock、异步加锁），无法计算持有时间
+            return;
+        }
+        if (--hold.count > 0) {
+            return;
+        }
+        threadHolds.remove(key);
+
+        long holdNanos = System.nanoTime() - hold.startNanos;
+        long renewals = hold.watchdog ? holdNanos / renewIntervalNanos : 0;
+        statsFor(type, name).recordReleased(holdNanos, renewals);
+    }
+
+    /**
+     * 所有模式的统计，按等待时间 p99 倒序（最可能限制吞吐的锁排在最前面）
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> all = stats.values().stream()
+                .map(LockStats::toMap)
+                .collect(Collectors.toList());
+        all.sort(Comparator.comparingDouble((Map<String, Object> m) -> waitP99(m)).reversed());
+        return all;
+    }
+
+    /**
+     * 清空 HdrHistogram 累计数据（Micrometer 指标不受影响）
+     */
+    public void reset() {
+        stats.values().forEach(LockStats::reset);
+    }
+
+    /**
+     * 锁名称 -> 锁名称模式
+     */
+    String patternOf(String name) {
+        if (name.indexOf(',') >= 0) {
+            // 联锁/红锁：name 为多个子锁名称用逗号拼接
+            List<String> parts = new ArrayList<>();
+            for (String part : name.split(",")) {
+                parts.add(patternOf(part));
+            }
+            return String.join(",", parts);
+        }
+        for (String pattern : patterns) {
+            if (matcher.match(pattern, name)) {
+                return pattern;
+            }
+        }
+        String[] segments = name.split(":", -1);
+        for (int i = 0; i < segments.length; i++) {
+            if (HIGH_CARDINALITY_SEGMENT.matcher(segments[i]).matches()) {
+                segments[i] = "*";
+            }
+        }
+        return String.join(":", segments);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double waitP99(Map<String, Object> stats) {
+        return (Double) ((Map<String, Object>) stats.get("waitMs")).get("p99");
+    }
+
+    private LockStats statsFor(String type, String name) {
+        String pattern = patternOf(name);
+        String key = type + ' ' + pattern;
+        LockStats lockStats = stats.get(key);
+        if (lockStats != null) {
+            return lockStats;
+        }
+        if (stats.size() >= maxPatterns) {
+            key = type + ' ' + OTHER_PATTERN;
+            pattern = OTHER_PATTERN;
+        }
+        String finalPattern = pattern;
+        return stats.computeIfAbsent(key, k -> new LockStats(type, finalPattern, registry));
+    }
+
+    private static final class Hold {
+        int count;
+        long startNanos;
+        boolean watchdog;
+    }
+}
@@ -0,0 +1,39 @@
+package com.huabin.redisson.profiler;
+
+import org.redisson.api.RedissonClient;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * 为 RedissonClient Bean 织入锁统计
+ * 
+ * 说明：
+ * 1. 使用 CGLIB 子类代理，代理对象仍然是 org.redisson.Redisson 类型，
+ *    RedissonConnectionFactory 等内部强转 Redisson 的地方不受影响
+ * 2. 业务代码无需任何改动，注入的 RedissonClient 已经是代理
+ * 3. LockProfiler 通过 ObjectProvider 延迟获取，避免 BeanPostProcessor 过早初始化 MeterRegistry
+ * 
+ * @author huabin
+ */
+public class LockProfilingPostProcessor implements BeanPostProcessor {
+    
+    private final ObjectProvider<LockProfiler> profilerProvider;
+    
+    public LockProfilingPostProcessor(ObjectProvider<LockProfiler> profilerProvider) {
+        this.profilerProvider = profilerProvider;
+    }
+    
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!(bean instanceof RedissonClient) || bean instanceof Advised) {
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new ProfilingRedissonClientInterceptor(profilerProvider));
+        return factory.getProxy();
+    }
+}
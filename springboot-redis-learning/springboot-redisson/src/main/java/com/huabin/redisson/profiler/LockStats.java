@@ -0,0 +1,127 @@
+package com.huabin.redisson.profiler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个锁名称模式的统计数据
+ * 
+ * 同时写入两份：
+ * - HdrHistogram：供 /locks/stats 接口查看累计分位数
+ * - Micrometer：供 Prometheus 等监控系统采集
+ * 
+ * @author huabin
+ */
+class LockStats {
+    
+    private final String type;
+    private final String pattern;
+    
+    private final LatencyHistogram waitHistogram = new LatencyHistogram();
+    private final LatencyHistogram holdHistogram = new LatencyHistogram();
+    
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder watchdogRenewals = new LongAdder();
+    
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+    private final Counter failureCounter;
+    private final Counter renewalCounter;
+    
+    LockStats(String type, String pattern, MeterRegistry registry) {
+        this.type = type;
+        this.pattern = pattern;
+        this.waitTimer = Timer.builder("redisson.lock.wait")
+                .description("获取锁的等待时间")
+                .tags("type", type, "pattern", pattern)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry);
+        this.holdTimer = Timer.builder("redisson.lock.hold")
+                .description("锁的持有时间")
+                .tags("type", type, "pattern", pattern)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry);
+        this.failureCounter = Counter.builder("redisson.lock.failures")
+                .description("获取锁失败次数")
+                .tags("type", type, "pattern", pattern)
+                .register(registry);
+        this.renewalCounter = Counter.builder("redisson.lock.watchdog.renewals")
+                .description("WatchDog 续期次数（按持有时间估算）")
+                .tags("type", type, "pattern", pattern)
+                .register(registry);
+    }
+    
+    void recordAcquired(long waitNanos) {
+        acquisitions.increment();
+        waitHistogram.recordMicros(TimeUnit.NANOSECONDS.toMicros(waitNanos));
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    void recordFailed(long waitNanos) {
+        failures.increment();
+        waitHistogram.recordMicros(TimeUnit.NANOSECONDS.toMicros(waitNanos));
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        failureCounter.increment();
+    }
+    
+    void recordReleased(long holdNanos, long renewals) {
+        holdHistogram.recordMicros(TimeUnit.NANOSECONDS.toMicros(holdNanos));
+        holdTimer.record(holdNanos, TimeUnit.NANOSECONDS);
+        if (renewals > 0) {
+            watchdogRenewals.add(renewals);
+            renewalCounter.increment(renewals);
+        }
+    }
+    
+    Map<String, Object> toMap() {
+        long acquired = acquisitions.sum();
+        long failed = failures.sum();
+        long total = acquired + failed;
+        
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("type", type);
+        map.put("pattern", pattern);
+        map.put("acquisitions", acquired);
+        map.put("failures", failed);
+        map.put("failureRate", total == 0 ? "0.00%" : String.format("%.2f%%", failed * 100.0 / total));
+        map.put("waitMs", percentiles(waitHistogram.snapshot()));
+        map.put("holdMs", percentiles(holdHistogram.snapshot()));
+        map.put("watchdogRenewals", watchdogRenewals.sum());
+        return map;
+    }
+    
+    void reset() {
+        waitHistogram.reset();
+        holdHistogram.reset();
+        acquisitions.reset();
+        failures.reset();
+        watchdogRenewals.reset();
+    }
+    
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", histogram.getTotalCount());
+        map.put("mean", round(histogram.getMean()));
+        map.put("p50", round(histogram.getValueAtPercentile(50)));
+        map.put("p90", round(histogram.getValueAtPercentile(90)));
+        map.put("p99", round(histogram.getValueAtPercentile(99)));
+        map.put("p999", round(histogram.getValueAtPercentile(99.9)));
+        map.put("max", round(histogram.getMaxValue()));
+        return map;
+    }
+    
+    /**
+     * 微秒转毫秒，保留3位小数
+     */
+    private static double round(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.huabin.redisson.profiler;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * RLock 方法拦截器
+ * 
+ * 只统计同步加锁/解锁方法：
+ * - lock() / lock(leaseTime, unit) / lockInterruptibly(...)
+ * - tryLock() / tryLock(waitTime, unit) / tryLock(waitTime, leaseTime, unit)
+ * - unlock()
+ * 异步方法（xxxAsync）直接透传，不统计
+ * 
+ * @author huabin
+ */
+class ProfilingLockInterceptor implements MethodInterceptor {
+    
+    /**
+     * Redisson 中 leaseTime = -1 表示启用 WatchDog
+     */
+    private static final long WATCHDOG_LEASE = -1L;
+    
+    private final LockProfiler profiler;
+    private final String type;
+    private final String name;
+    
+    ProfilingLockInterceptor(LockProfiler profiler, String type, String name) {
+        this.profiler = profiler;
+        this.type = type;
+        this.name = name;
+    }
+    
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        Object[] args = invocation.getArguments();
+        
+        switch (method) {
+            case "lock":
+            case "lockInterruptibly":
+                return profileLock(invocation, args.length == 0 || (Long) args[0] == WATCHDOG_LEASE);
+            case "tryLock":
+                return profileTryLock(invocation, args.length < 3 || (Long) args[1] == WATCHDOG_LEASE);
+            case "unlock":
+                // 解锁失败（如锁已过期抛出 IllegalMonitorStateException）也要清除当前线程的持有记录，
+                // 否则 ThreadLocal 中的计数一直不归零，之后同名锁的持有时间都不再记录
+                try {
+                    return invocation.proceed();
+                } finally {
+                    profiler.onReleased(type, name);
+                }
+            default:
+                return invocation.proceed();
+        }
+    }
+    
+    private Object profileLock(MethodInvocation invocation, boolean watchdog) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            profiler.onAcquired(type, name, System.nanoTime() - start, watchdog);
+            return result;
+        } catch (Throwable t) {
+            profiler.onFailed(type, name, System.nanoTime() - start);
+            throw t;
+        }
+    }
+    
+    private Object profileTryLock(MethodInvocation invocation, boolean watchdog) throws Throwable {
+        long start = System.nanoTime();
+        boolean locked = false;
+        try {
+            Object result = invocation.proceed();
+            locked = Boolean.TRUE.equals(result);
+            return result;
+        } finally {
+            long waitNanos = System.nanoTime() - start;
+            if (locked) {
+                profiler.onAcquired(type, name, waitNanos, watchdog);
+            } else {
+                profiler.onFailed(type, name, waitNanos);
+            }
+        }
+    }
+}
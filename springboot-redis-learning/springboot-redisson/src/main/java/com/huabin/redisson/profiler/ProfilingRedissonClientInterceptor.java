@@ -0,0 +1,115 @@
+package com.huabin.redisson.profiler;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.redisson.api.RLock;
+import org.redisson.api.RReadWriteLock;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.StringJoiner;
+
+/**
+ * RedissonClient 方法拦截器
+ * 
+ * 拦截 getLock / getFairLock / getReadWriteLock / getMultiLock / getRedLock，
+ * 把返回的锁对象包装成带统计的代理
+ * 
+ * @author huabin
+ */
+class ProfilingRedissonClientInterceptor implements MethodInterceptor {
+    
+    private final ObjectProvider<LockProfiler> profilerProvider;
+    
+    ProfilingRedissonClientInterceptor(ObjectProvider<LockProfiler> profilerProvider) {
+        this.profilerProvider = profilerProvider;
+    }
+    
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String method = invocation.getMethod().getName();
+        Object[] args = invocation.getArguments();
+        
+        switch (method) {
+            case "getLock":
+                return wrapLock("lock", invocation, args);
+            case "getFairLock":
+                return wrapLock("fair", invocation, args);
+            case "getReadWriteLock":
+                return wrapReadWriteLock(invocation, args);
+            case "getMultiLock":
+                return wrapCompositeLock("multi", invocation, args);
+            case "getRedLock":
+                return wrapCompositeLock("red", invocation, args);
+            default:
+                return invocation.proceed();
+        }
+    }
+    
+    private Object wrapLock(String type, MethodInvocation invocation, Object[] args) throws Throwable {
+        Object lock = invocation.proceed();
+        if (args.length != 1 || !(args[0] instanceof String)) {
+            return lock;
+        }
+        return profile((RLock) lock, type, (String) args[0]);
+    }
+    
+    private Object wrapReadWriteLock(MethodInvocation invocation, Object[] args) throws Throwable {
+        RReadWriteLock readWriteLock = (RReadWriteLock) invocation.proceed();
+        if (args.length != 1 || !(args[0] instanceof String)) {
+            return readWriteLock;
+        }
+        String name = (String) args[0];
+        
+        ProxyFactory factory = new ProxyFactory(readWriteLock);
+        factory.addAdvice((MethodInterceptor) rwInvocation -> {
+            String rwMethod = rwInvocation.getMethod().getName();
+            if ("readLock".equals(rwMethod)) {
+                return profile((RLock) rwInvocation.proceed(), "read", name);
+            }
+            if ("writeLock".equals(rwMethod)) {
+                return profile((RLock) rwInvocation.proceed(), "write", name);
+            }
+            return rwInvocation.proceed();
+        });
+        return factory.getProxy();
+    }
+    
+    /**
+     * 联锁/红锁：先把子锁还原成原始对象，避免子锁被重复统计
+     */
+    private Object wrapCompositeLock(String type, MethodInvocation invocation, Object[] args) throws Throwable {
+        if (args.length != 1 || !(args[0] instanceof RLock[])) {
+            return invocation.proceed();
+        }
+        RLock[] locks = (RLock[]) args[0];
+        RLock[] targets = new RLock[locks.length];
+        StringJoiner name = new StringJoiner(",");
+        for (int i = 0; i < locks.length; i++) {
+            targets[i] = unwrap(locks[i]);
+            name.add(targets[i].getName());
+        }
+        ((ProxyMethodInvocation) invocation).setArguments(new Object[]{targets});
+        
+        return profile((RLock) invocation.proceed(), type, name.toString());
+    }
+    
+    private RLock profile(RLock lock, String type, String name) {
+        LockProfiler profiler = profilerProvider.getIfAvailable();
+        if (profiler == null || lock == null) {
+            return lock;
+        }
+        ProxyFactory factory = new ProxyFactory(lock);
+        factory.addAdvice(new ProfilingLockInterceptor(profiler, type, name));
+        return (RLock) factory.getProxy();
+    }
+    
+    private static RLock unwrap(RLock lock) throws Exception {
+        if (lock instanceof Advised) {
+            return (RLock) ((Advised) lock).getTargetSource().getTarget();
+        }
+        return lock;
+    }
+}
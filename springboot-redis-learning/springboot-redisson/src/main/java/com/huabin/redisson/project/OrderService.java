@@ -1,13 +1,14 @@
 package com.huabin.redisson.project;
 
+import com.huabin.id.IdGenerator;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -28,6 +29,10 @@ public class OrderService {
     @Autowired
     private InventoryService inventoryService;
     
+    @Autowired
+    @Qualifier("orderIdGenerator")
+    private IdGenerator orderIdGenerator;
+    
     /**
      * 创建订单（防止重复下单）
      * 
@@ -216,10 +221,11 @@ public class OrderService {
     
     /**
      * 生成订单号
+     * 
+     * 使用 Redis 号段模式的分布式ID生成器，本地预取号段，生成时无网络开销
      */
     private String generateOrderNo() {
-        // 实际项目中应该使用分布式ID生成器（如雪花算法）
-        return "ORDER_" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 8);
+        return "ORDER_" + orderIdGenerator.nextId();
     }
     
     /**
@@ -0,0 +1,189 @@
+package com.huabin.redisson.lock;
+
+import com.huabin.redis.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 混合锁测试（连接进程内的 FakeRedisServer）
+ *
+ * @author huabin
+ */
+public class HybridLockManagerTest {
+
+    private FakeRedisServer server;
+    private RedissonClient redisson;
+    private HybridLockManager manager;
+
+    @BeforeEach
+    void setUp() {
+        server = new FakeRedisServer().start();
+        Config config = new Config();
+        config.useSingleServer().setAddress(server.getUri()).setConnectionMinimumIdleSize(2);
+        redisson = Redisson.create(config);
+        manager = new HybridLockManager(redisson, 3000, 16, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisson.shutdown();
+        server.stop();
+    }
+
+    @Test
+    void lockAndUnlockWithoutWaiters() throws InterruptedException {
+        HybridLock lock = manager.getLock("hybrid:single");
+
+        assertTrue(lock.tryLock(1, TimeUnit.SECONDS));
+        assertTrue(lock.isHeldByCurrentThread());
+        assertTrue(redisson.getLock("hybrid:single").isLocked());
+
+        // 重入不访问 Redis
+        assertTrue(lock.tryLock(1, TimeUnit.SECONDS));
+        lock.unlock();
+        assertTrue(redisson.getLock("hybrid:single").isLocked());
+
+        lock.unlock();
+        assertFalse(redisson.getLock("hybrid:single").isLocked());
+        assertEquals(1L, manager.getStats().get("remoteAcquisitions"));
+        assertEquals(1L, manager.getStats().get("remoteReleases"));
+        assertEquals(0, manager.getStats().get("localLocks"));
+        assertThrows(IllegalMonitorStateException.class, lock::unlock);
+    }
+
+    @Test
+    void differentNamesDoNotBlockEachOther() throws Exception {
+        // 每个 key 一把本地锁：大量 key 同时持有，互不等待
+        List<HybridLock> held = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            HybridLock lock = manager.getLock("hybrid:key:" + i);
+            assertTrue(lock.tryLock(1, TimeUnit.SECONDS));
+            held.add(lock);
+        }
+
+        AtomicBoolean acquired = new AtomicBoolean();
+        Thread other = new Thread(() -> {
+            HybridLock lock = manager.getLock("hybrid:other");
+            try {
+                acquired.set(lock.tryLock(0, TimeUnit.MILLISECONDS));
+                lock.unlock();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        other.start();
+        other.join();
+        assertTrue(acquired.get());
+
+        for (HybridLock lock : held) {
+            lock.unlock();
+        }
+        assertEquals(0, manager.getStats().get("localLocks"));
+    }
+
+    @Test
+    void waitingThreadReusesKeptLease() throws Exception {
+        HybridLock lock = manager.getLock("hybrid:batch");
+        assertTrue(lock.tryLock(1, TimeUnit.SECONDS));
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            HybridLock own = manager.getLock("hybrid:batch");
+            try {
+                if (own.tryLock(5, TimeUnit.SECONDS)) {
+                    acquired.countDown();
+                    release.await();
+                    own.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        Thread.sleep(200);
+
+        // 本地有等待线程：保留租约，等待线程直接接手
+        lock.unlock();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(1L, manager.getStats().get("localAcquisitions"));
+        assertEquals(1L, manager.getStats().get("remoteAcquisitions"));
+        assertTrue(redisson.getLock("hybrid:batch").isLocked());
+
+        release.countDown();
+        waiter.join();
+        assertFalse(redisson.getLock("hybrid:batch").isLocked());
+        assertEquals(0, manager.getStats().get("localLocks"));
+        assertEquals(0L, manager.getStats().get("heldLeases"));
+    }
+
+    @Test
+    void keptLeasesReleasedWhenWaitersGiveUp() throws Exception {
+        // 等待时间很短，等待线程经常在租约被保留后超时离开
+        int threads = 8;
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20; i++) {
+                        HybridLock lock = manager.getLock("hybrid:contended");
+                        if (lock.tryLock(2, TimeUnit.MILLISECONDS)) {
+                            try {
+                                if (concurrent.incrementAndGet() != 1) {
+                                    violations.incrementAndGet();
+                                }
+                                Thread.sleep(2);
+                                concurrent.decrementAndGet();
+                            } finally {
+                                lock.unlock();
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        assertEquals(0, violations.get());
+        assertEquals(0, manager.getStats().get("localLocks"));
+        assertEquals(0L, manager.getStats().get("heldLeases"));
+        assertFalse(redisson.getLock("hybrid:contended").isLocked());
+    }
+
+    @Test
+    void failsWhenAnotherJvmHoldsLock() throws InterruptedException {
+        // 另一个 JVM（另一个管理器，持有者标识不同）持有分布式锁
+        RLock remote = redisson.getLock("hybrid:remote");
+        remote.lock(10, TimeUnit.SECONDS);
+        try {
+            assertFalse(manager.getLock("hybrid:remote").tryLock(100, TimeUnit.MILLISECONDS));
+            assertEquals(1L, manager.getStats().get("failures"));
+            assertEquals(0, manager.getStats().get("localLocks"));
+        } finally {
+            remote.unlock();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.huabin.redisson.profiler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 锁竞争分析器测试
+ *
+ * @author huabin
+ */
+public class LockProfilerTest {
+
+    private SimpleMeterRegistry registry;
+    private LockProfiler profiler;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        profiler = new LockProfiler(registry, Collections.singletonList("inventory:lock:*"), 200, 30_000);
+    }
+
+    @Test
+    void patternOfCollapsesHighCardinalitySegments() {
+        assertEquals("inventory:lock:*", profiler.patternOf("inventory:lock:SKU-A"));
+        assertEquals("order:pay:lock:*", profiler.patternOf("order:pay:lock:ORDER_123"));
+        assertEquals("user:*:profile", profiler.patternOf("user:42:profile"));
+        assertEquals("inventory:lock:*,order:*", profiler.patternOf("inventory:lock:1,order:2"));
+    }
+
+    @Test
+    void reentrantHoldRecordedOnOutermostUnlock() {
+        Lock lock = profiled(new StubLock(), "order:1");
+
+        lock.lock();
+        lock.lock();
+        lock.unlock();
+        assertEquals(0L, holdCount());
+
+        lock.unlock();
+        assertEquals(1L, holdCount());
+        assertEquals(2L, stats().get("acquisitions"));
+    }
+
+    @Test
+    void failedUnlockClearsHold() {
+        StubLock target = new StubLock();
+        Lock lock = profiled(target, "order:1");
+
+        lock.lock();
+        target.failUnlock = true;
+        assertThrows(IllegalMonitorStateException.class, lock::unlock);
+        assertEquals(1L, holdCount());
+
+        // 持有记录已清除：下一次加锁/解锁重新计算持有时间
+        target.failUnlock = false;
+        lock.lock();
+        lock.unlock();
+        assertEquals(2L, holdCount());
+    }
+
+    @Test
+    void tryLockTimeoutCountedAsFailure() throws InterruptedException {
+        StubLock target = new StubLock();
+        target.available = false;
+        Lock lock = profiled(target, "order:1");
+
+        assertFalse(lock.tryLock(10, TimeUnit.MILLISECONDS));
+
+        Map<String, Object> stats = stats();
+        assertEquals(0L, stats.get("acquisitions"));
+        assertEquals(1L, stats.get("failures"));
+        assertEquals(1.0, registry.get("redisson.lock.failures").counter().count());
+    }
+
+    @Test
+    void patternsBeyondLimitGroupedAsOther() {
+        profiler = new LockProfiler(registry, Collections.emptyList(), 2, 30_000);
+        for (String name : Arrays.asList("a:1", "b:1", "c:1", "d:1")) {
+            profiled(new StubLock(), name).lock();
+        }
+
+        List<Map<String, Object>> snapshot = profiler.snapshot();
+        assertEquals(3, snapshot.size());
+        long other = snapshot.stream()
+                .filter(m -> "_other".equals(m.get("pattern")))
+                .mapToLong(m -> (Long) m.get("acquisitions"))
+                .sum();
+        assertEquals(2L, other);
+    }
+
+    @Test
+    void resetClearsHistograms() {
+        Lock lock = profiled(new StubLock(), "order:1");
+        lock.lock();
+        lock.unlock();
+
+        profiler.reset();
+        assertEquals(0L, stats().get("acquisitions"));
+        assertEquals(0L, holdCount());
+    }
+
+    private Lock profiled(Lock target, String name) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addAdvice(new ProfilingLockInterceptor(profiler, "lock", name));
+        return (Lock) factory.getProxy();
+    }
+
+    private Map<String, Object> stats() {
+        return profiler.snapshot().get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long holdCount() {
+        return (Long) ((Map<String, Object>) stats().get("holdMs")).get("count");
+    }
+
+    /**
+     * 不真正加锁，只模拟 tryLock 超时和解锁失败
+     */
+    private static class StubLock implements Lock {
+
+        volatile boolean available = true;
+        volatile boolean failUnlock;
+
+        @Override
+        public void lock() {
+        }
+
+        @Override
+        public void lockInterruptibly() {
+        }
+
+        @Override
+        public boolean tryLock() {
+            return available;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) {
+            return available;
+        }
+
+        @Override
+        public void unlock() {
+            if (failUnlock) {
+                throw new IllegalMonitorStateException("lock expired");
+            }
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}